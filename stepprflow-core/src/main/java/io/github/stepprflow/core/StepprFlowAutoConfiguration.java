@@ -4,12 +4,31 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.dedup.FileStepFingerprintStore;
+import io.github.stepprflow.core.dedup.StepDeduplicationGuard;
+import io.github.stepprflow.core.dedup.StepFingerprintStore;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import io.github.stepprflow.core.schedule.ScheduledMessageStore;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.security.NoOpSecurityContextPropagator;
 import io.github.stepprflow.core.security.SecurityContextPropagator;
+import io.github.stepprflow.core.store.ExecutionStoreListener;
+import io.github.stepprflow.core.store.MappedWorkflowExecutionStore;
+import io.github.stepprflow.core.service.InMemoryStepJoinStore;
+import io.github.stepprflow.core.service.StepJoinStore;
 import io.github.stepprflow.core.service.StepExecutor;
+import io.github.stepprflow.core.service.StepExecutorCollaborators;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
 import io.github.stepprflow.core.service.WorkflowRegistry;
 import io.github.stepprflow.core.service.WorkflowStarterImpl;
+import io.github.stepprflow.core.tracing.WorkflowHopTracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -17,6 +36,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Import;
 
+import java.nio.file.Path;
+
 /**
  * Auto-configuration for StepprFlow core components.
  * This configures the core workflow infrastructure.
@@ -46,6 +67,146 @@ public class StepprFlowAutoConfiguration {
         return new NoOpSecurityContextPropagator();
     }
 
+    /**
+     * Default join store for parallel step groups (in-memory).
+     * Provide a shared implementation when branches of an execution may be
+     * consumed by several service instances.
+     *
+     * @return the default in-memory step join store
+     */
+    @Bean
+    @ConditionalOnMissingBean(StepJoinStore.class)
+    public StepJoinStore stepJoinStore() {
+        return new InMemoryStepJoinStore();
+    }
+
+    /**
+     * Guard that skips steps redelivered by the broker after they were executed.
+     * Executed steps are persisted to a local file when
+     * {@code stepprflow.dedup.store-path} is set, or to a custom
+     * {@link StepFingerprintStore} bean.
+     *
+     * @param properties the stepprflow properties
+     * @param store an optional custom fingerprint store
+     * @param meterRegistry an optional meter registry for the duplicate counter
+     * @return the step deduplication guard
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "stepprflow.dedup", name = "enabled",
+            havingValue = "true", matchIfMissing = true)
+    public StepDeduplicationGuard stepDeduplicationGuard(
+            final StepprFlowProperties properties,
+            final ObjectProvider<StepFingerprintStore> store,
+            final ObjectProvider<MeterRegistry> meterRegistry) {
+        StepprFlowProperties.Dedup dedup = properties.getDedup();
+        StepFingerprintStore fingerprintStore = store.getIfAvailable(() -> dedup.getStorePath() != null
+                ? new FileStepFingerprintStore(Path.of(dedup.getStorePath())) : null);
+        return new StepDeduplicationGuard(dedup.getCapacity(), dedup.getTtl(),
+                fingerprintStore, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Registry of cancelled executions, fed by the broker's control channel listener.
+     *
+     * @param properties the stepprflow properties
+     * @return the cancellation registry
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "stepprflow.cancellation", name = "enabled",
+            havingValue = "true", matchIfMissing = true)
+    public CancellationRegistry cancellationRegistry(final StepprFlowProperties properties) {
+        StepprFlowProperties.Cancellation cancellation = properties.getCancellation();
+        return new CancellationRegistry(cancellation.getCapacity(), cancellation.getTtl());
+    }
+
+    /**
+     * Optional collaborators of the step executor, each one null when its
+     * feature is disabled.
+     *
+     * @param stepJoinStore the join store for parallel step groups
+     * @param deduplicationGuard the guard skipping redelivered steps
+     * @param cancellationRegistry the registry of cancelled executions
+     * @param workflowMetrics the workflow metrics
+     * @param hopTracer the tracer of broker hops
+     * @param scheduler the scheduler holding delayed steps
+     * @return the step executor collaborators
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public StepExecutorCollaborators stepExecutorCollaborators(
+            final ObjectProvider<StepJoinStore> stepJoinStore,
+            final ObjectProvider<StepDeduplicationGuard> deduplicationGuard,
+            final ObjectProvider<CancellationRegistry> cancellationRegistry,
+            final ObjectProvider<WorkflowMetrics> workflowMetrics,
+            final ObjectProvider<WorkflowHopTracer> hopTracer,
+            final ObjectProvider<WorkflowScheduler> scheduler) {
+        return StepExecutorCollaborators.builder()
+                .stepJoinStore(stepJoinStore.getIfAvailable())
+                .deduplicationGuard(deduplicationGuard.getIfAvailable())
+                .cancellationRegistry(cancellationRegistry.getIfAvailable())
+                .workflowMetrics(workflowMetrics.getIfAvailable())
+                .hopTracer(hopTracer.getIfAvailable())
+                .scheduler(scheduler.getIfAvailable())
+                .build();
+    }
+
+    /**
+     * Embedded execution store, enabling resume and cancel on agents without MongoDB.
+     *
+     * @param properties the stepprflow properties
+     * @param objectMapper the stepprflow object mapper
+     * @return the memory-mapped execution store
+     */
+    @Bean
+    @ConditionalOnMissingBean(WorkflowExecutionStore.class)
+    @ConditionalOnProperty(prefix = "stepprflow.store", name = "enabled", havingValue = "true")
+    public MappedWorkflowExecutionStore workflowExecutionStore(
+            final StepprFlowProperties properties,
+            @Qualifier("stepprflowObjectMapper") final ObjectMapper objectMapper) {
+        StepprFlowProperties.Store store = properties.getStore();
+        return new MappedWorkflowExecutionStore(Path.of(store.getPath()), objectMapper,
+                store.getInitialSize().toBytes(), store.isSyncWrites(), store.getCompactionRatio());
+    }
+
+    /**
+     * Listener recording received workflow messages in the execution store.
+     *
+     * @param store the execution store
+     * @return the execution store listener
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "stepprflow.store", name = "enabled", havingValue = "true")
+    public ExecutionStoreListener executionStoreListener(final WorkflowExecutionStore store) {
+        return new ExecutionStoreListener(store);
+    }
+
+    /**
+     * Scheduler holding workflow messages scheduled for later until they are due.
+     * Only created with a store keeping the held messages across restarts.
+     *
+     * @param messageBroker the message broker
+     * @param properties the stepprflow properties
+     * @param store the store of held messages
+     * @param executionStore an optional execution store checked for cancellations
+     * @return the workflow scheduler
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(ScheduledMessageStore.class)
+    @ConditionalOnProperty(prefix = "stepprflow.scheduler", name = "enabled",
+            havingValue = "true", matchIfMissing = true)
+    public WorkflowScheduler workflowScheduler(
+            final MessageBroker messageBroker,
+            final StepprFlowProperties properties,
+            final ScheduledMessageStore store,
+            final ObjectProvider<WorkflowExecutionStore> executionStore) {
+        StepprFlowProperties.Scheduler scheduler = properties.getScheduler();
+        return new WorkflowScheduler(messageBroker, store, executionStore.getIfAvailable(),
+                scheduler.getTick(), scheduler.getWheelSize(), scheduler.getMaxPending());
+    }
+
     /**
      * ObjectMapper configured for workflow payload serialization/deserialization.
      * This mapper is lenient to handle domain objects with computed properties
@@ -4,6 +4,7 @@ import java.time.Duration;
 import java.util.List;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Configuration properties for StepprFlow.
@@ -57,6 +58,36 @@ public class StepprFlowProperties {
      */
     private Timeout timeout = new Timeout();
 
+    /**
+     * Redelivery deduplication configuration.
+     */
+    private Dedup dedup = new Dedup();
+
+    /**
+     * Embedded execution store configuration.
+     */
+    private Store store = new Store();
+
+    /**
+     * Cancellation broadcast configuration.
+     */
+    private Cancellation cancellation = new Cancellation();
+
+    /**
+     * Scheduled start and delayed step configuration.
+     */
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * Micrometer metrics configuration.
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Trace propagation and sampling configuration.
+     */
+    private Tracing tracing = new Tracing();
+
     /**
      * Supported broker types.
      */
@@ -361,4 +392,145 @@ public class StepprFlowProperties {
         private Duration defaultStepTimeout = Duration.ofMinutes(5);
     }
 
+    /**
+     * Redelivery deduplication configuration.
+     */
+    @Data
+    public static class Dedup {
+        /**
+         * Skip steps that were already executed when the broker redelivers them.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of executed steps remembered (rounded up to a power of two).
+         */
+        private int capacity = 65536;
+
+        /**
+         * How long an executed step is remembered.
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * File used to remember executed steps across restarts (disabled if not set).
+         */
+        private String storePath;
+    }
+
+    /**
+     * Embedded execution store configuration.
+     */
+    @Data
+    public static class Store {
+        /**
+         * Keep execution state in a local memory-mapped log, enabling resume and cancel without MongoDB.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Path of the execution log file.
+         */
+        private String path = "stepprflow-executions.log";
+
+        /**
+         * Initial size of the mapped region (the file grows as needed).
+         */
+        private DataSize initialSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Force each write to disk so that it survives a power loss, at the cost of write latency.
+         */
+        private boolean syncWrites = false;
+
+        /**
+         * Fraction of superseded records in the log that triggers compaction.
+         */
+        private double compactionRatio = 0.5;
+    }
+
+    /**
+     * Cancellation broadcast configuration.
+     */
+    @Data
+    public static class Cancellation {
+        /**
+         * Broadcast cancellations on the control channel and skip the steps of cancelled executions.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cancelled executions remembered (rounded up to a power of two).
+         */
+        private int capacity = 65536;
+
+        /**
+         * How long a cancellation is remembered (also the retention of the Kafka control topic).
+         */
+        private Duration ttl = Duration.ofHours(24);
+    }
+
+    /**
+     * Scheduled start and delayed step configuration.
+     */
+    @Data
+    public static class Scheduler {
+        /**
+         * Hold scheduled messages until they are due. Requires the execution store
+         * ({@code stepprflow.store.enabled}), which keeps them across restarts.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Timing wheel tick: the precision of scheduled times.
+         */
+        private Duration tick = Duration.ofMillis(100);
+
+        /**
+         * Number of buckets per timing wheel level (a power of two).
+         */
+        private int wheelSize = 512;
+
+        /**
+         * Maximum number of scheduled messages kept in memory; the others wait in the store.
+         */
+        private int maxPending = 100_000;
+    }
+
+    /**
+     * Micrometer metrics configuration.
+     */
+    @Data
+    public static class Metrics {
+        /**
+         * Maximum number of (topic, service) metric series; further topics are recorded as "_other".
+         */
+        private int maxWorkflows = 500;
+
+        /**
+         * Minimum interval between two reads of a RabbitMQ queue depth.
+         */
+        private Duration queueDepthRefresh = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Trace propagation and sampling configuration.
+     */
+    @Data
+    public static class Tracing {
+        /**
+         * Trace workflow executions across broker hops when a tracer is available.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time from publication (queue wait included) above which a hop is recorded even if unsampled.
+         */
+        private Duration slowThreshold = Duration.ofSeconds(5);
+
+        /**
+         * Record failed hops even if unsampled.
+         */
+        private boolean keepFailed = true;
+    }
 }
@@ -17,6 +17,21 @@ import java.lang.annotation.Target;
  *     // validation logic
  * }
  * </pre>
+ *
+ * <p>A step may return a {@link io.github.stepprflow.core.model.StepResult}
+ * to schedule the next step for later instead of running it right away.
+ *
+ * <p>Steps sharing the same {@link #group()} form a parallel group: all of
+ * them are dispatched concurrently once the previous step completes, and the
+ * workflow advances only after every branch has finished. Grouped steps must
+ * have consecutive IDs.
+ * <pre>
+ * &#64;Step(id = 2, label = "Reserve inventory", group = "prepare")
+ * public void reserve(OrderPayload payload) { ... }
+ *
+ * &#64;Step(id = 3, label = "Score fraud", group = "prepare")
+ * public void score(OrderPayload payload) { ... }
+ * </pre>
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -58,4 +73,13 @@ public @interface Step {
      * @return true if should continue on failure
      */
     boolean continueOnFailure() default false;
+
+    /**
+     * Parallel group this step belongs to.
+     * Steps with the same non-empty group run concurrently and are joined
+     * before the workflow moves on. Empty means the step runs on its own.
+     *
+     * @return the parallel group name
+     */
+    String group() default "";
 }
@@ -53,4 +53,13 @@ public @interface Topic {
      * @return the replication factor
      */
     short replication() default 1;
+
+    /**
+     * Payload paths indexed by the monitor as search keys, in the dot notation of
+     * {@link io.github.stepprflow.core.util.NestedPathResolver} (e.g. {@code "orderId"},
+     * {@code "customer.id"}).
+     *
+     * @return the search key paths
+     */
+    String[] searchKeys() default {};
 }
@@ -2,6 +2,7 @@ package io.github.stepprflow.core.broker;
 
 import io.github.stepprflow.core.model.WorkflowMessage;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -35,6 +36,23 @@ public interface MessageBroker {
      */
     void sendSync(String destination, WorkflowMessage message);
 
+    /**
+     * Send several messages to the same destination in one batch.
+     *
+     * <p>Brokers override this to amortize per-message overhead (a single
+     * producer flush, pipelined publisher confirms). The default sends each
+     * message with {@link #sendAsync(String, WorkflowMessage)}.
+     *
+     * @param destination the destination name
+     * @param messages    the workflow messages to send
+     * @return a future that completes when every message is acknowledged
+     */
+    default CompletableFuture<Void> sendBatch(String destination, List<WorkflowMessage> messages) {
+        return CompletableFuture.allOf(messages.stream()
+                .map(message -> sendAsync(destination, message))
+                .toArray(CompletableFuture[]::new));
+    }
+
     /**
      * Get the broker type identifier.
      *
@@ -9,6 +9,7 @@ import io.github.stepprflow.core.exception.CircuitBreakerOpenException;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -124,6 +125,28 @@ public class ResilientMessageBroker implements MessageBroker {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> sendBatch(
+            final String destination,
+            final List<WorkflowMessage> messages) {
+        if (!enabled) {
+            return delegate.sendBatch(destination, messages);
+        }
+
+        try {
+            return circuitBreaker.executeSupplier(
+                    () -> delegate.sendBatch(destination, messages));
+        } catch (CallNotPermittedException e) {
+            CompletableFuture<Void> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(
+                    new CircuitBreakerOpenException(
+                            circuitBreaker.getName(),
+                            circuitBreaker.getState(),
+                            e));
+            return failedFuture;
+        }
+    }
+
     @Override
     public void sendSync(final String destination, final WorkflowMessage message) {
         if (!enabled) {
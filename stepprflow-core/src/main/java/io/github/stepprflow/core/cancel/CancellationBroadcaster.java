@@ -0,0 +1,23 @@
+package io.github.stepprflow.core.cancel;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+
+/**
+ * Broadcasts execution cancellations to every agent instance.
+ *
+ * <p>Implementations are provided by the broker modules: Kafka publishes to
+ * the compacted {@link #CONTROL_TOPIC} keyed by execution ID, RabbitMQ
+ * publishes to a fanout exchange of the same name.
+ */
+public interface CancellationBroadcaster {
+
+    /** Control topic (Kafka) or fanout exchange (RabbitMQ) carrying cancellations. */
+    String CONTROL_TOPIC = "stepprflow.control";
+
+    /**
+     * Broadcast the cancellation of an execution.
+     *
+     * @param cancellation the cancellation notice (see {@link WorkflowMessage#cancellation()})
+     */
+    void broadcast(WorkflowMessage cancellation);
+}
@@ -0,0 +1,119 @@
+package io.github.stepprflow.core.cancel;
+
+import io.github.stepprflow.core.dedup.StepFingerprintSet;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.util.Fingerprints;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * In-memory set of cancelled executions, checked before every step.
+ *
+ * <p>Execution IDs are kept as 64-bit fingerprints in a bounded
+ * {@link StepFingerprintSet}, so a lookup is a few array probes and the
+ * memory footprint is fixed. Entries expire after the configured TTL, which
+ * must exceed the time a cancelled execution can still have steps in flight.
+ * When the set is full the entries closest to expiry are replaced first.
+ */
+@Slf4j
+public class CancellationRegistry {
+
+    /** Fingerprints of cancelled executions. */
+    private final StepFingerprintSet cancelled;
+
+    /** How long a cancellation is remembered, in milliseconds. */
+    private final long ttlMillis;
+
+    /** Clock used for expiry. */
+    private final Clock clock;
+
+    /**
+     * Create a registry.
+     *
+     * @param capacity maximum number of cancelled executions remembered
+     * @param ttl how long a cancellation is remembered
+     */
+    public CancellationRegistry(final int capacity, final Duration ttl) {
+        this(capacity, ttl, Clock.systemUTC());
+    }
+
+    /**
+     * Create a registry with a custom clock.
+     *
+     * @param capacity maximum number of cancelled executions remembered
+     * @param ttl how long a cancellation is remembered
+     * @param clock the clock used for expiry
+     */
+    CancellationRegistry(final int capacity, final Duration ttl, final Clock clock) {
+        this.cancelled = new StepFingerprintSet(capacity);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Record that an execution was cancelled now.
+     *
+     * @param executionId the cancelled execution
+     */
+    public void cancel(final String executionId) {
+        cancel(executionId, null);
+    }
+
+    /**
+     * Record that an execution was cancelled at a given time.
+     * Cancellations older than the TTL (e.g. replayed from the control
+     * channel after a restart) are ignored.
+     *
+     * @param executionId the cancelled execution
+     * @param cancelledAt when the execution was cancelled (now if null)
+     * @return true if the cancellation was recorded
+     */
+    public boolean cancel(final String executionId, final Instant cancelledAt) {
+        long now = clock.millis();
+        long expiresAt = (cancelledAt != null ? cancelledAt.toEpochMilli() : now) + ttlMillis;
+        if (executionId == null || expiresAt <= now) {
+            return false;
+        }
+        cancelled.add(fingerprint(executionId), expiresAt, now);
+        return true;
+    }
+
+    /**
+     * Record a cancellation notice received from the control channel.
+     *
+     * @param message the cancellation notice
+     */
+    public void onCancellation(final WorkflowMessage message) {
+        if (message == null || message.getStatus() != WorkflowStatus.CANCELLED) {
+            return;
+        }
+        if (cancel(message.getExecutionId(), message.getUpdatedAt())) {
+            log.info("Execution {} [{}] cancelled, its remaining steps will be skipped",
+                    message.getExecutionId(), message.getTopic());
+        }
+    }
+
+    /**
+     * Check whether an execution was cancelled.
+     *
+     * @param executionId the execution ID
+     * @return true if the execution was cancelled within the TTL
+     */
+    public boolean isCancelled(final String executionId) {
+        return executionId != null && cancelled.contains(fingerprint(executionId), clock.millis());
+    }
+
+    /**
+     * Compute the fingerprint of an execution ID.
+     *
+     * @param executionId the execution ID
+     * @return the fingerprint
+     */
+    static long fingerprint(final String executionId) {
+        return Fingerprints.of(executionId, 0);
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Cancellation of running workflow executions.
+ *
+ * <p>Cancelling an execution is broadcast on a control channel (a compacted
+ * Kafka topic or a RabbitMQ fanout exchange) so that every agent instance
+ * learns about it. Each instance keeps the cancelled execution IDs in a
+ * compact, time-expiring set that the step executor checks before running
+ * any step.
+ *
+ * <p>This package provides:
+ * <ul>
+ *   <li>The broadcaster contract implemented by the broker modules</li>
+ *   <li>The in-memory registry of cancelled executions</li>
+ * </ul>
+ */
+package io.github.stepprflow.core.cancel;
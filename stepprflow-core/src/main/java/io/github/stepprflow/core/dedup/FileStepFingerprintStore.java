@@ -0,0 +1,195 @@
+package io.github.stepprflow.core.dedup;
+
+import io.github.stepprflow.core.exception.WorkflowException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link StepFingerprintStore} backed by an append-only local file.
+ *
+ * <p>Each record is 16 bytes (fingerprint, expiry). Records are written
+ * without forcing the file to disk: they survive a process crash (the page
+ * cache is kept by the OS), which is the failure mode that causes
+ * redeliveries. The file is rewritten from the live fingerprints when it grows
+ * too large, while appends go on.
+ */
+@Slf4j
+public class FileStepFingerprintStore implements StepFingerprintStore, Closeable {
+
+    /** Size of one record in bytes. */
+    private static final int RECORD_SIZE = 16;
+
+    /** Number of records read per chunk on load. */
+    private static final int READ_CHUNK_RECORDS = 4096;
+
+    /** The store file. */
+    private final Path path;
+
+    /** Reusable buffer for one record. */
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    /** The open file channel. */
+    private FileChannel channel;
+
+    /** Number of complete records in the file. */
+    private long records;
+
+    /** Serializes rewrites, which do not hold the store lock throughout. */
+    private final Object rewriteLock = new Object();
+
+    /**
+     * Open (or create) a store file.
+     *
+     * @param path the store file
+     */
+    public FileStepFingerprintStore(final Path path) {
+        this.path = path;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = open(path);
+            this.records = channel.size() / RECORD_SIZE;
+        } catch (IOException e) {
+            throw new WorkflowException("Cannot open step fingerprint store " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void load(final long nowMillis, final FingerprintConsumer consumer) {
+        ByteBuffer chunk = ByteBuffer.allocate(RECORD_SIZE * READ_CHUNK_RECORDS);
+        long loaded = 0;
+        try {
+            // Ignore a trailing partial record left by a crash mid-write
+            long end = channel.size() - channel.size() % RECORD_SIZE;
+            long position = 0;
+            while (position < end) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), end - position));
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, position + chunk.position()) < 0) {
+                        throw new IOException("Unexpected end of file " + path);
+                    }
+                }
+                chunk.flip();
+                position += chunk.limit();
+                while (chunk.hasRemaining()) {
+                    long fingerprint = chunk.getLong();
+                    long expiresAt = chunk.getLong();
+                    if (fingerprint != 0 && expiresAt > nowMillis) {
+                        consumer.accept(fingerprint, expiresAt);
+                        loaded++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Loaded {} step fingerprints from {}", loaded, path);
+    }
+
+    @Override
+    public synchronized void append(final long fingerprint, final long expiresAtMillis) {
+        recordBuffer.clear();
+        recordBuffer.putLong(fingerprint).putLong(expiresAtMillis).flip();
+        try {
+            while (recordBuffer.hasRemaining()) {
+                channel.write(recordBuffer);
+            }
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized long recordCount() {
+        return records;
+    }
+
+    /**
+     * Write the fingerprints to keep to a new file without holding the lock,
+     * then, under the lock, copy the records appended meanwhile and swap the
+     * files: appends only wait for the copy of those few records.
+     */
+    @Override
+    public void rewrite(final FingerprintSource source) {
+        synchronized (rewriteLock) {
+            long mark = recordCount();
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * READ_CHUNK_RECORDS);
+                IOException[] failure = new IOException[1];
+                source.forEach((fingerprint, expiresAt) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        if (buffer.remaining() < RECORD_SIZE) {
+                            drain(out, buffer);
+                        }
+                        buffer.putLong(fingerprint).putLong(expiresAt);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                drain(out, buffer);
+                out.force(false);
+                swap(tmp, out, mark);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.debug("Rewrote step fingerprint store {} with {} records", path, recordCount());
+        }
+    }
+
+    /**
+     * Copy the records appended since {@code mark} to the new file and
+     * replace the store file with it.
+     */
+    private synchronized void swap(final Path tmp, final FileChannel out, final long mark) throws IOException {
+        long position = mark * RECORD_SIZE;
+        long end = records * RECORD_SIZE;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, out);
+        }
+        channel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+        records = channel.size() / RECORD_SIZE;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static void drain(final FileChannel out, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static FileChannel open(final Path path) throws IOException {
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        opened.position(opened.size() - opened.size() % RECORD_SIZE);
+        return opened;
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.stepprflow.core.dedup;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.util.Fingerprints;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects redelivered steps that were already executed.
+ *
+ * <p>A step is identified by its execution ID, step ID, retry attempt and
+ * execution attempt, so retries and resumes are never mistaken for
+ * redeliveries. Executed steps are remembered in a bounded
+ * {@link StepFingerprintSet} for a configurable time, and optionally
+ * written to a {@link StepFingerprintStore} to survive restarts. The store
+ * is compacted on a background thread, so consumer threads only append.
+ */
+@Slf4j
+public class StepDeduplicationGuard {
+
+    /** Name of the duplicate step counter. */
+    static final String DUPLICATE_METRIC = "stepprflow.step.duplicate";
+
+    /** Fingerprints of executed steps. */
+    private final StepFingerprintSet executed;
+
+    /** The optional persistent backing. */
+    private final StepFingerprintStore store;
+
+    /** How long an executed step is remembered, in milliseconds. */
+    private final long ttlMillis;
+
+    /** The optional meter registry. */
+    private final MeterRegistry meterRegistry;
+
+    /** Duplicate counters by topic. */
+    private final Map<String, Counter> duplicateCounters = new ConcurrentHashMap<>();
+
+    /** Total number of duplicates detected. */
+    private final LongAdder duplicates = new LongAdder();
+
+    /** The clock. */
+    private final Clock clock;
+
+    /** Runs the compactions of the store. */
+    private final Executor compactor;
+
+    /** Whether a compaction of the store is queued or running. */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * Create a guard.
+     *
+     * @param capacity the maximum number of executed steps remembered
+     * @param ttl how long an executed step is remembered
+     * @param store the persistent backing, or null
+     * @param meterRegistry the meter registry, or null
+     */
+    public StepDeduplicationGuard(
+            final int capacity,
+            final Duration ttl,
+            final StepFingerprintStore store,
+            final MeterRegistry meterRegistry) {
+        this(capacity, ttl, store, meterRegistry, Clock.systemUTC());
+    }
+
+    StepDeduplicationGuard(
+            final int capacity,
+            final Duration ttl,
+            final StepFingerprintStore store,
+            final MeterRegistry meterRegistry,
+            final Clock clock) {
+        this(capacity, ttl, store, meterRegistry, clock, task -> Thread.ofPlatform()
+                .name("stepprflow-dedup-compaction")
+                .daemon(true)
+                .start(task));
+    }
+
+    StepDeduplicationGuard(
+            final int capacity,
+            final Duration ttl,
+            final StepFingerprintStore store,
+            final MeterRegistry meterRegistry,
+            final Clock clock,
+            final Executor compactor) {
+        this.compactor = compactor;
+        this.executed = new StepFingerprintSet(capacity);
+        this.ttlMillis = ttl.toMillis();
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        if (store != null) {
+            long now = clock.millis();
+            store.load(now, (fingerprint, expiresAt) -> executed.add(fingerprint, expiresAt, now));
+        }
+    }
+
+    /**
+     * Check whether a message carries a step that was already executed.
+     * Duplicates are counted.
+     *
+     * @param message the workflow message
+     * @return true if the step was already executed
+     */
+    public boolean isDuplicate(final WorkflowMessage message) {
+        if (!executed.contains(fingerprint(message), clock.millis())) {
+            return false;
+        }
+        duplicates.increment();
+        if (meterRegistry != null && message.getTopic() != null) {
+            duplicateCounters.computeIfAbsent(message.getTopic(), topic -> Counter.builder(DUPLICATE_METRIC)
+                    .description("Redelivered steps skipped because they were already executed")
+                    .tag("topic", topic)
+                    .register(meterRegistry))
+                    .increment();
+        }
+        return true;
+    }
+
+    /**
+     * Remember that the step carried by a message was executed.
+     *
+     * @param message the workflow message
+     */
+    public void markExecuted(final WorkflowMessage message) {
+        long now = clock.millis();
+        long fingerprint = fingerprint(message);
+        long expiresAt = now + ttlMillis;
+        executed.add(fingerprint, expiresAt, now);
+
+        if (store != null) {
+            try {
+                store.append(fingerprint, expiresAt);
+                // The set forgets old fingerprints; shrink the file to match
+                if (store.recordCount() > 2L * executed.capacity()
+                        && compacting.compareAndSet(false, true)) {
+                    scheduleCompaction();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not persist executed step for [{}]: {}",
+                        message.getExecutionId(), e.getMessage());
+            }
+        }
+    }
+
+    private void scheduleCompaction() {
+        try {
+            compactor.execute(this::compact);
+        } catch (RuntimeException e) {
+            compacting.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrite the store from a snapshot of the live fingerprints.
+     */
+    private void compact() {
+        try {
+            store.rewrite(consumer -> executed.forEachLive(clock.millis(), consumer));
+        } catch (RuntimeException e) {
+            log.warn("Could not compact the step fingerprint store: {}", e.getMessage());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Get the number of duplicates detected since startup.
+     *
+     * @return the duplicate count
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Compute the fingerprint of the step carried by a message.
+     *
+     * @param message the workflow message
+     * @return a non-zero 64-bit fingerprint
+     */
+    static long fingerprint(final WorkflowMessage message) {
+        int retryAttempt = message.getRetryInfo() != null ? message.getRetryInfo().getAttempt() : 1;
+        int executionAttempt = message.getExecutionAttempt() != null ? message.getExecutionAttempt() : 1;
+        return Fingerprints.of(message.getExecutionId(), ((long) message.getCurrentStep() << 32)
+                ^ ((long) (retryAttempt & 0xFFFF) << 16)
+                ^ (executionAttempt & 0xFFFF));
+    }
+}
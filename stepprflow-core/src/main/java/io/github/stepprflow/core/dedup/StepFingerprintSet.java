@@ -0,0 +1,140 @@
+package io.github.stepprflow.core.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Bounded set of 64-bit fingerprints with per-entry expiry.
+ *
+ * <p>Entries are stored in two primitive arrays using open addressing with a
+ * bounded probe window, so lookups touch at most {@value #MAX_PROBES} slots
+ * and the set never allocates after construction. When the probe window of a
+ * new fingerprint is full, the entry closest to expiry is replaced: the set
+ * forgets the oldest fingerprints first rather than growing.
+ *
+ * <p>Fingerprint {@code 0} marks an empty slot and must not be used.
+ */
+public final class StepFingerprintSet {
+
+    /** Maximum number of slots probed per operation. */
+    static final int MAX_PROBES = 16;
+
+    /** Fingerprints, 0 for empty slots. */
+    private final long[] keys;
+
+    /** Expiry of each slot in epoch milliseconds. */
+    private final long[] expiries;
+
+    /** Mask applied to hashes (capacity - 1). */
+    private final int mask;
+
+    /**
+     * Create a set holding at most {@code capacity} fingerprints
+     * (rounded up to a power of two).
+     *
+     * @param capacity the maximum number of fingerprints
+     */
+    public StepFingerprintSet(final int capacity) {
+        int size = MAX_PROBES;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.keys = new long[size];
+        this.expiries = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Check whether a fingerprint is present and not expired.
+     *
+     * @param fingerprint the fingerprint
+     * @param nowMillis the current time in epoch milliseconds
+     * @return true if the fingerprint is present
+     */
+    public synchronized boolean contains(final long fingerprint, final long nowMillis) {
+        int start = index(fingerprint);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (start + i) & mask;
+            long key = keys[slot];
+            if (key == 0) {
+                return false;
+            }
+            if (key == fingerprint) {
+                return expiries[slot] > nowMillis;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a fingerprint, or extend its expiry if already present.
+     *
+     * @param fingerprint the fingerprint
+     * @param expiresAtMillis the expiry in epoch milliseconds
+     * @param nowMillis the current time in epoch milliseconds
+     */
+    public synchronized void add(final long fingerprint, final long expiresAtMillis, final long nowMillis) {
+        int start = index(fingerprint);
+        int candidate = -1;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (start + i) & mask;
+            long key = keys[slot];
+            if (key == fingerprint) {
+                expiries[slot] = Math.max(expiries[slot], expiresAtMillis);
+                return;
+            }
+            if (key == 0) {
+                if (candidate < 0 || expiries[candidate] > nowMillis) {
+                    candidate = slot;
+                }
+                break;
+            }
+            if (candidate < 0 || expiries[slot] < expiries[candidate]) {
+                candidate = slot;
+            }
+        }
+        keys[candidate] = fingerprint;
+        expiries[candidate] = expiresAtMillis;
+    }
+
+    /**
+     * Visit every fingerprint that has not expired. The fingerprints are
+     * copied under the lock and visited once it is released, so a slow
+     * consumer does not block lookups.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param consumer receives each fingerprint and its expiry
+     */
+    public void forEachLive(
+            final long nowMillis,
+            final StepFingerprintStore.FingerprintConsumer consumer) {
+        long[] live = snapshot(nowMillis);
+        for (int i = 0; i < live.length; i += 2) {
+            consumer.accept(live[i], live[i + 1]);
+        }
+    }
+
+    private synchronized long[] snapshot(final long nowMillis) {
+        long[] live = new long[keys.length * 2];
+        int size = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && expiries[slot] > nowMillis) {
+                live[size++] = keys[slot];
+                live[size++] = expiries[slot];
+            }
+        }
+        return Arrays.copyOf(live, size);
+    }
+
+    /**
+     * Get the maximum number of fingerprints held.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int index(final long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+}
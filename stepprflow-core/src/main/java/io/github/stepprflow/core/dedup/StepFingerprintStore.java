@@ -0,0 +1,71 @@
+package io.github.stepprflow.core.dedup;
+
+/**
+ * Persistent backing for executed step fingerprints.
+ *
+ * <p>Lets the deduplication guard remember executed steps across restarts,
+ * which is when most redeliveries happen (a consumer crashes before
+ * committing its offsets).
+ */
+public interface StepFingerprintStore {
+
+    /**
+     * Receives fingerprints read from, or written to, a store.
+     */
+    @FunctionalInterface
+    interface FingerprintConsumer {
+
+        /**
+         * Accept one fingerprint.
+         *
+         * @param fingerprint the fingerprint
+         * @param expiresAtMillis the expiry in epoch milliseconds
+         */
+        void accept(long fingerprint, long expiresAtMillis);
+    }
+
+    /**
+     * Source of fingerprints used to rewrite a store.
+     */
+    @FunctionalInterface
+    interface FingerprintSource {
+
+        /**
+         * Emit every fingerprint to keep.
+         *
+         * @param consumer receives each fingerprint
+         */
+        void forEach(FingerprintConsumer consumer);
+    }
+
+    /**
+     * Read the stored fingerprints that have not expired.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param consumer receives each fingerprint
+     */
+    void load(long nowMillis, FingerprintConsumer consumer);
+
+    /**
+     * Record an executed step.
+     *
+     * @param fingerprint the fingerprint
+     * @param expiresAtMillis the expiry in epoch milliseconds
+     */
+    void append(long fingerprint, long expiresAtMillis);
+
+    /**
+     * Get the number of records written since the last rewrite.
+     *
+     * @return the record count
+     */
+    long recordCount();
+
+    /**
+     * Replace the stored fingerprints, dropping forgotten or expired ones.
+     * Records appended while the store is rewritten must be kept.
+     *
+     * @param source the fingerprints to keep
+     */
+    void rewrite(FingerprintSource source);
+}
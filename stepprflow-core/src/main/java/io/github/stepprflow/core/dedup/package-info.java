@@ -0,0 +1,17 @@
+/**
+ * Redelivery deduplication for workflow steps.
+ *
+ * <p>Brokers deliver messages at least once: a Kafka rebalance or a RabbitMQ
+ * requeue can hand an already executed step to the executor again. This
+ * package provides a bounded, time-expiring record of executed steps so that
+ * such redeliveries are acknowledged and dropped instead of re-running the
+ * step's side effects.
+ *
+ * <p>This package provides:
+ * <ul>
+ *   <li>A primitive open-addressing fingerprint set with expiry</li>
+ *   <li>An optional file-backed store that survives restarts</li>
+ *   <li>The guard used by the step executor</li>
+ * </ul>
+ */
+package io.github.stepprflow.core.dedup;
@@ -0,0 +1,310 @@
+package io.github.stepprflow.core.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fleet-wide workflow metrics, merged from the {@link MetricsDelta deltas}
+ * that instances send with their registration heartbeats.
+ *
+ * <p>Counters of every instance are added per workflow and service. Duration
+ * sketches are added into {@link SlidingWindowHistogram sliding-window
+ * histograms} at arrival time, so recent rates and percentiles cover the whole
+ * fleet at heartbeat resolution. Active workflows are the sum of the last value
+ * of each instance; instances silent for longer than the instance timeout, or
+ * deregistered, no longer count. The number of (topic, service) aggregates is
+ * capped like {@link WorkflowMetrics}: beyond the cap, workflows are merged
+ * under {@value WorkflowMetrics#OVERFLOW}.
+ */
+@Slf4j
+public class ClusterMetrics {
+
+    /**
+     * The clock.
+     */
+    private final Clock clock;
+
+    /**
+     * How long the active count of a silent instance is kept, in milliseconds.
+     */
+    private final long instanceTimeoutMillis;
+
+    /**
+     * Maximum number of (topic, service) aggregates.
+     */
+    private final int maxWorkflows;
+
+    /**
+     * Aggregates by topic and service.
+     */
+    private final Map<WorkflowMetrics.WorkflowKey, Aggregate> aggregates =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param instanceTimeout how long the active count of a silent instance is kept
+     */
+    public ClusterMetrics(final Duration instanceTimeout) {
+        this(instanceTimeout, WorkflowMetrics.DEFAULT_MAX_WORKFLOWS, Clock.systemUTC());
+    }
+
+    ClusterMetrics(final Duration instanceTimeout,
+                   final int maxWorkflows,
+                   final Clock clock) {
+        this.instanceTimeoutMillis = instanceTimeout.toMillis();
+        this.maxWorkflows = maxWorkflows;
+        this.clock = clock;
+    }
+
+    /**
+     * Add the delta sent by an instance.
+     *
+     * @param serviceName the service name of the instance
+     * @param instanceId the instance ID
+     * @param delta the delta since the previous heartbeat of the instance
+     */
+    public void merge(final String serviceName,
+                      final String instanceId,
+                      final MetricsDelta delta) {
+        if (delta == null || delta.getWorkflows() == null) {
+            return;
+        }
+        long now = clock.millis();
+        for (MetricsDelta.WorkflowDelta workflow : delta.getWorkflows()) {
+            if (workflow.getTopic() == null) {
+                continue;
+            }
+            aggregate(workflow.getTopic(), serviceName)
+                    .merge(instanceId + ':' + workflow.getServiceName(), workflow, now);
+        }
+        log.debug("Merged metrics of {} workflow(s) from {} (instance: {})",
+                delta.getWorkflows().size(), serviceName, instanceId);
+    }
+
+    /**
+     * Stop counting the active workflows of a deregistered instance.
+     *
+     * @param serviceName the service name of the instance
+     * @param instanceId the instance ID
+     */
+    public void removeInstance(final String serviceName,
+                               final String instanceId) {
+        String prefix = instanceId + ':';
+        aggregates.forEach((key, aggregate) -> {
+            if (key.serviceName().equals(serviceName)) {
+                aggregate.actives.keySet().removeIf(k -> k.startsWith(prefix));
+            }
+        });
+    }
+
+    /**
+     * Get the fleet-wide summary of each workflow and service.
+     *
+     * @return the summaries
+     */
+    public List<MetricsSummary> getSummaries() {
+        long now = clock.millis();
+        List<MetricsSummary> summaries = new ArrayList<>();
+        aggregates.forEach((key, aggregate) -> summaries.add(aggregate.summary(key, now)));
+        return summaries;
+    }
+
+    /**
+     * Get the fleet-wide summary across all workflows.
+     *
+     * @return the global summary
+     */
+    public MetricsSummary getGlobalSummary() {
+        MetricsSummary.MetricsSummaryBuilder global = MetricsSummary.builder().topic("_global");
+        long started = 0;
+        long completed = 0;
+        long failed = 0;
+        long cancelled = 0;
+        long active = 0;
+        long retries = 0;
+        long dlq = 0;
+        for (MetricsSummary summary : getSummaries()) {
+            started += summary.getWorkflowsStarted();
+            completed += summary.getWorkflowsCompleted();
+            failed += summary.getWorkflowsFailed();
+            cancelled += summary.getWorkflowsCancelled();
+            active += summary.getWorkflowsActive();
+            retries += summary.getRetryCount();
+            dlq += summary.getDlqCount();
+        }
+        return global
+                .workflowsStarted(started)
+                .workflowsCompleted(completed)
+                .workflowsFailed(failed)
+                .workflowsCancelled(cancelled)
+                .workflowsActive(active)
+                .retryCount(retries)
+                .dlqCount(dlq)
+                .build();
+    }
+
+    /**
+     * Get fleet-wide recent throughput and latency percentiles of all workflows.
+     *
+     * @return the windowed metrics of each workflow and service
+     */
+    public List<WindowedMetrics> getWindowedMetrics() {
+        List<WindowedMetrics> windowed = new ArrayList<>();
+        aggregates.forEach((key, aggregate) ->
+                windowed.add(aggregate.windowed(key, WorkflowMetrics.WINDOW_MINUTES)));
+        return windowed;
+    }
+
+    private Aggregate aggregate(final String topic, final String serviceName) {
+        WorkflowMetrics.WorkflowKey key = new WorkflowMetrics.WorkflowKey(topic, serviceName);
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate != null) {
+            return aggregate;
+        }
+        synchronized (this) {
+            if (!aggregates.containsKey(key) && aggregates.size() >= maxWorkflows) {
+                key = new WorkflowMetrics.WorkflowKey(WorkflowMetrics.OVERFLOW, WorkflowMetrics.OVERFLOW);
+            }
+            return aggregates.computeIfAbsent(key, k -> new Aggregate());
+        }
+    }
+
+    /**
+     * Metrics of one workflow and service across the fleet.
+     */
+    private final class Aggregate {
+
+        /** Started workflows. */
+        private final AtomicLong started = new AtomicLong();
+
+        /** Completed workflows. */
+        private final AtomicLong completed = new AtomicLong();
+
+        /** Failed workflows. */
+        private final AtomicLong failed = new AtomicLong();
+
+        /** Cancelled workflows. */
+        private final AtomicLong cancelled = new AtomicLong();
+
+        /** Retry attempts. */
+        private final AtomicLong retries = new AtomicLong();
+
+        /** Messages sent to the DLQ. */
+        private final AtomicLong dlq = new AtomicLong();
+
+        /** Number of workflow durations received. */
+        private final AtomicLong durationCount = new AtomicLong();
+
+        /** Sum of the workflow durations received, in microseconds. */
+        private final AtomicLong durationSumMicros = new AtomicLong();
+
+        /** Recent workflow durations. */
+        private final SlidingWindowHistogram latency = new SlidingWindowHistogram(clock);
+
+        /** Recent step durations and dwell times by step label. */
+        private final Map<String, StepHistograms> steps = new ConcurrentHashMap<>();
+
+        /** Last active count of each instance. */
+        private final Map<String, InstanceActive> actives = new ConcurrentHashMap<>();
+
+        private void merge(final String instanceKey,
+                           final MetricsDelta.WorkflowDelta delta,
+                           final long now) {
+            started.addAndGet(delta.getStarted());
+            completed.addAndGet(delta.getCompleted());
+            failed.addAndGet(delta.getFailed());
+            cancelled.addAndGet(delta.getCancelled());
+            retries.addAndGet(delta.getRetries());
+            dlq.addAndGet(delta.getDlq());
+            actives.put(instanceKey, new InstanceActive(delta.getActive(), now));
+            if (delta.getDuration() != null) {
+                latency.merge(delta.getDuration());
+                durationCount.addAndGet(delta.getDuration().totalCount());
+                durationSumMicros.addAndGet(delta.getDuration().getSumMicros());
+            }
+            if (delta.getSteps() != null) {
+                delta.getSteps().forEach((label, step) -> {
+                    StepHistograms histograms = step(label);
+                    histograms.duration.merge(step.getDuration());
+                    histograms.dwell.merge(step.getDwell());
+                });
+            }
+        }
+
+        private StepHistograms step(final String stepLabel) {
+            StepHistograms histograms = steps.get(stepLabel);
+            if (histograms != null) {
+                return histograms;
+            }
+            String label = steps.size() < WorkflowMeters.MAX_STEP_LABELS
+                    ? stepLabel : WorkflowMetrics.OVERFLOW;
+            return steps.computeIfAbsent(label, l -> new StepHistograms());
+        }
+
+        private MetricsSummary summary(final WorkflowMetrics.WorkflowKey key, final long now) {
+            actives.values().removeIf(entry -> entry.seenMillis() <= now - instanceTimeoutMillis);
+            long active = 0;
+            for (InstanceActive entry : actives.values()) {
+                active += entry.active();
+            }
+            long count = durationCount.get();
+            return MetricsSummary.builder()
+                    .topic(key.topic())
+                    .serviceName(key.serviceName())
+                    .workflowsStarted(started.get())
+                    .workflowsCompleted(completed.get())
+                    .workflowsFailed(failed.get())
+                    .workflowsCancelled(cancelled.get())
+                    .workflowsActive(active)
+                    .retryCount(retries.get())
+                    .dlqCount(dlq.get())
+                    .avgWorkflowDurationMs(count > 0 ? durationSumMicros.get() / 1000.0 / count : 0.0)
+                    .build();
+        }
+
+        private WindowedMetrics windowed(final WorkflowMetrics.WorkflowKey key,
+                                         final List<Integer> windowMinutes) {
+            Map<String, List<LatencySnapshot>> stepSnapshots = new LinkedHashMap<>();
+            Map<String, List<LatencySnapshot>> dwellSnapshots = new LinkedHashMap<>();
+            steps.forEach((label, histograms) -> {
+                stepSnapshots.put(label, WorkflowMeters.snapshots(histograms.duration, windowMinutes));
+                dwellSnapshots.put(label, WorkflowMeters.snapshots(histograms.dwell, windowMinutes));
+            });
+            return WindowedMetrics.builder()
+                    .topic(key.topic())
+                    .serviceName(key.serviceName())
+                    .workflow(WorkflowMeters.snapshots(latency, windowMinutes))
+                    .steps(stepSnapshots)
+                    .dwell(dwellSnapshots)
+                    .build();
+        }
+    }
+
+    /**
+     * Recent durations and dwell times of one step across the fleet.
+     */
+    private final class StepHistograms {
+
+        /** Step durations. */
+        private final SlidingWindowHistogram duration = new SlidingWindowHistogram(clock);
+
+        /** Broker dwell times. */
+        private final SlidingWindowHistogram dwell = new SlidingWindowHistogram(clock);
+    }
+
+    /**
+     * Last active count reported by an instance.
+     *
+     * @param active the active workflows
+     * @param seenMillis the arrival time of the report
+     */
+    private record InstanceActive(long active, long seenMillis) { }
+}
@@ -0,0 +1,142 @@
+package io.github.stepprflow.core.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Sparse, mergeable latency histogram sent between JVMs.
+ *
+ * <p>Buckets follow the log-linear layout of the sliding-window histograms,
+ * so sketches from several instances merge by adding their counts. Only
+ * non-empty buckets are listed.
+ *
+ * <p>Sketches are also stored as-is by consumers keeping long-term histograms,
+ * which combine them with {@link #merge} and read them with {@link #percentileMs}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramSketch {
+
+    /**
+     * Indexes of the non-empty buckets, in increasing order.
+     */
+    private int[] buckets;
+
+    /**
+     * Count of each listed bucket.
+     */
+    private long[] counts;
+
+    /**
+     * Sum of the recorded values in microseconds.
+     */
+    private long sumMicros;
+
+    /**
+     * Largest recorded value in microseconds.
+     */
+    private long maxMicros;
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return the total count
+     */
+    public long totalCount() {
+        long total = 0;
+        if (counts != null) {
+            for (long count : counts) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Create a sketch of a single value.
+     *
+     * @param nanos the value in nanoseconds
+     * @return the sketch
+     */
+    public static HistogramSketch of(final long nanos) {
+        long micros = SlidingWindowHistogram.toMicros(nanos);
+        return HistogramSketch.builder()
+                .buckets(new int[] {SlidingWindowHistogram.bucketIndex(micros)})
+                .counts(new long[] {1})
+                .sumMicros(micros)
+                .maxMicros(micros)
+                .build();
+    }
+
+    /**
+     * Merge two sketches into a new one, adding the counts of common buckets.
+     *
+     * @param first the first sketch, or null
+     * @param second the second sketch, or null
+     * @return the merged sketch, or the non-null argument if the other one is null
+     */
+    public static HistogramSketch merge(final HistogramSketch first, final HistogramSketch second) {
+        if (first == null || first.buckets == null || first.counts == null) {
+            return second;
+        }
+        if (second == null || second.buckets == null || second.counts == null) {
+            return first;
+        }
+        int firstSize = Math.min(first.buckets.length, first.counts.length);
+        int secondSize = Math.min(second.buckets.length, second.counts.length);
+        int[] indexes = new int[firstSize + secondSize];
+        long[] counts = new long[firstSize + secondSize];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < firstSize || j < secondSize) {
+            if (j == secondSize || i < firstSize && first.buckets[i] < second.buckets[j]) {
+                indexes[size] = first.buckets[i];
+                counts[size++] = first.counts[i++];
+            } else if (i == firstSize || second.buckets[j] < first.buckets[i]) {
+                indexes[size] = second.buckets[j];
+                counts[size++] = second.counts[j++];
+            } else {
+                indexes[size] = first.buckets[i];
+                counts[size++] = first.counts[i++] + second.counts[j++];
+            }
+        }
+        return HistogramSketch.builder()
+                .buckets(Arrays.copyOf(indexes, size))
+                .counts(Arrays.copyOf(counts, size))
+                .sumMicros(first.sumMicros + second.sumMicros)
+                .maxMicros(Math.max(first.maxMicros, second.maxMicros))
+                .build();
+    }
+
+    /**
+     * Get a percentile of the recorded values.
+     *
+     * @param quantile the quantile, from 0 to 1
+     * @return the percentile in milliseconds, within 1/16 of its value, or 0 if the sketch is empty
+     */
+    public double percentileMs(final double quantile) {
+        long total = totalCount();
+        if (total == 0 || buckets == null) {
+            return 0.0;
+        }
+        double rank = total * quantile;
+        int size = Math.min(buckets.length, counts.length);
+        long seen = 0;
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            index = buckets[i];
+            if (seen >= rank && counts[i] > 0) {
+                break;
+            }
+        }
+        return Math.min(SlidingWindowHistogram.bucketValue(index), maxMicros) / 1000.0;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.stepprflow.core.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Throughput and latency percentiles over a recent time window.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencySnapshot {
+
+    /**
+     * Window length, e.g. "5m".
+     */
+    private String window;
+
+    /**
+     * Number of recorded values in the window.
+     */
+    private long count;
+
+    /**
+     * Recorded values per second over the window.
+     */
+    private double ratePerSecond;
+
+    /**
+     * Median latency in milliseconds.
+     */
+    private double p50Ms;
+
+    /**
+     * 95th percentile latency in milliseconds.
+     */
+    private double p95Ms;
+
+    /**
+     * 99th percentile latency in milliseconds.
+     */
+    private double p99Ms;
+
+    /**
+     * Maximum latency in milliseconds.
+     */
+    private double maxMs;
+}
@@ -0,0 +1,78 @@
+package io.github.stepprflow.core.metrics;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metrics recorded by an instance since its previous heartbeat.
+ *
+ * <p>Counters and histograms are deltas, so the monitoring server can add
+ * the deltas of every instance into a cluster view; the active gauge is the
+ * current value. Only workflows and steps with activity are listed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsDelta {
+
+    /**
+     * Length of the interval covered, in milliseconds.
+     */
+    private long intervalMillis;
+
+    /**
+     * Deltas of the workflows with activity.
+     */
+    private List<WorkflowDelta> workflows;
+
+    /**
+     * Delta of one workflow.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WorkflowDelta {
+        /** Topic name. */
+        private String topic;
+        /** Service name the instance recorded the workflow under. */
+        private String serviceName;
+        /** Started workflows. */
+        private long started;
+        /** Completed workflows. */
+        private long completed;
+        /** Failed workflows. */
+        private long failed;
+        /** Cancelled workflows. */
+        private long cancelled;
+        /** Retry attempts. */
+        private long retries;
+        /** Messages sent to the DLQ. */
+        private long dlq;
+        /** Currently active workflows (not a delta). */
+        private long active;
+        /** Completed and failed workflow durations. */
+        private HistogramSketch duration;
+        /** Deltas of the steps with activity, by step label. */
+        private Map<String, StepDelta> steps;
+    }
+
+    /**
+     * Delta of one step.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepDelta {
+        /** Step execution durations, one value per executed step. */
+        private HistogramSketch duration;
+        /** Time step messages waited in the broker. */
+        private HistogramSketch dwell;
+    }
+}
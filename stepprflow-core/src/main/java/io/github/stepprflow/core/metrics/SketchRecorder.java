@@ -0,0 +1,68 @@
+package io.github.stepprflow.core.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram accumulating values until drained into a
+ * {@link HistogramSketch}, which makes consecutive sketches deltas.
+ *
+ * <p>Draining takes each bucket with an atomic get-and-set, so values
+ * recorded concurrently land in this sketch or the next one, never in both.
+ */
+final class SketchRecorder {
+
+    /** Count per bucket since the last drain. */
+    private final AtomicLongArray buckets = new AtomicLongArray(SlidingWindowHistogram.BUCKETS);
+
+    /** Sum of the values since the last drain, in microseconds. */
+    private final AtomicLong sum = new AtomicLong();
+
+    /** Largest value since the last drain, in microseconds. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value.
+     *
+     * @param nanos the value in nanoseconds
+     */
+    void record(final long nanos) {
+        long micros = SlidingWindowHistogram.toMicros(nanos);
+        buckets.incrementAndGet(SlidingWindowHistogram.bucketIndex(micros));
+        sum.addAndGet(micros);
+        long current = max.get();
+        while (micros > current && !max.compareAndSet(current, micros)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Take the values recorded since the last drain.
+     *
+     * @return the sketch, or null if nothing was recorded
+     */
+    HistogramSketch drain() {
+        int[] indexes = new int[SlidingWindowHistogram.BUCKETS];
+        long[] counts = new long[SlidingWindowHistogram.BUCKETS];
+        int size = 0;
+        for (int i = 0; i < SlidingWindowHistogram.BUCKETS; i++) {
+            if (buckets.get(i) != 0) {
+                long count = buckets.getAndSet(i, 0);
+                if (count != 0) {
+                    indexes[size] = i;
+                    counts[size++] = count;
+                }
+            }
+        }
+        if (size == 0) {
+            return null;
+        }
+        return HistogramSketch.builder()
+                .buckets(Arrays.copyOf(indexes, size))
+                .counts(Arrays.copyOf(counts, size))
+                .sumMicros(sum.getAndSet(0))
+                .maxMicros(max.getAndSet(0))
+                .build();
+    }
+}
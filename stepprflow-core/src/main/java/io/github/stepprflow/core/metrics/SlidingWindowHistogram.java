@@ -0,0 +1,254 @@
+package io.github.stepprflow.core.metrics;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram over a sliding window of the last minutes.
+ *
+ * <p>Values are counted in log-linear buckets (HdrHistogram-style): each power
+ * of two of microseconds is split in {@value #SUB_BUCKETS} linear
+ * sub-buckets, so a percentile is reported within 1/16 of its value. Counts
+ * are kept per one-minute slice in a ring of {@value #SLICES} slices; a
+ * window of N minutes sums the current slice, the N - 1 previous ones, and the
+ * slice before them weighted by the part of it still inside the window.
+ *
+ * <p>Recording is lock-free: it increments one bucket of the current slice and
+ * a slice counter. Only the first value of a new minute takes the slice
+ * monitor, to clear the slice last used sixteen minutes earlier. Slices are
+ * allocated on first use, so a series that records nothing costs no buckets.
+ */
+final class SlidingWindowHistogram {
+
+    /** Number of one-minute slices kept (covers a 15 minute window). */
+    static final int SLICES = 16;
+
+    /** Duration of a slice in milliseconds. */
+    static final long SLICE_MILLIS = 60_000;
+
+    /** Linear sub-buckets per power of two. */
+    static final int SUB_BUCKETS = 8;
+
+    /** Bits of the sub-bucket index. */
+    private static final int SUB_BITS = 3;
+
+    /** Largest tracked exponent: values above 2^35 us (about 9.5 hours) are clamped. */
+    private static final int MAX_EXPONENT = 34;
+
+    /** Number of buckets per slice. */
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    /** Largest tracked value in microseconds. */
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    /** The clock. */
+    private final Clock clock;
+
+    /** Creation time, bounding the window at startup. */
+    private final long createdMillis;
+
+    /** The slices, allocated on first use. */
+    private final Slice[] slices = new Slice[SLICES];
+
+    /**
+     * Create an empty histogram.
+     *
+     * @param clock the clock
+     */
+    SlidingWindowHistogram(final Clock clock) {
+        this.clock = clock;
+        this.createdMillis = clock.millis();
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param nanos the value in nanoseconds
+     */
+    void record(final long nanos) {
+        long epoch = clock.millis() / SLICE_MILLIS;
+        Slice slice = slice(epoch);
+        long micros = toMicros(nanos);
+        slice.buckets.incrementAndGet(bucketIndex(micros));
+        slice.count.incrementAndGet();
+        slice.updateMax(micros);
+    }
+
+    /**
+     * Add the values of a sketch to the current minute.
+     *
+     * @param sketch the sketch, recorded with the same bucket layout
+     */
+    void merge(final HistogramSketch sketch) {
+        if (sketch == null || sketch.getBuckets() == null || sketch.getCounts() == null) {
+            return;
+        }
+        Slice slice = slice(clock.millis() / SLICE_MILLIS);
+        int size = Math.min(sketch.getBuckets().length, sketch.getCounts().length);
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int index = sketch.getBuckets()[i];
+            long count = sketch.getCounts()[i];
+            if (index >= 0 && index < BUCKETS && count > 0) {
+                slice.buckets.addAndGet(index, count);
+                total += count;
+            }
+        }
+        slice.count.addAndGet(total);
+        slice.updateMax(Math.min(Math.max(sketch.getMaxMicros(), 0), MAX_VALUE));
+    }
+
+    /**
+     * Summarize the last minutes.
+     *
+     * @param windowMinutes the window length, from 1 to {@value #SLICES} - 1 minutes
+     * @return the snapshot of the window
+     */
+    LatencySnapshot snapshot(final int windowMinutes) {
+        long now = clock.millis();
+        long epoch = now / SLICE_MILLIS;
+        // Part of the oldest slice still inside the window
+        double oldestWeight = 1.0 - (double) (now % SLICE_MILLIS) / SLICE_MILLIS;
+
+        double[] counts = new double[BUCKETS];
+        double total = 0;
+        long max = 0;
+        for (int back = 0; back <= windowMinutes; back++) {
+            Slice slice = slices[(int) ((epoch - back) & (SLICES - 1))];
+            if (slice == null || slice.epoch != epoch - back) {
+                continue;
+            }
+            double weight = back == windowMinutes ? oldestWeight : 1.0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = slice.buckets.get(i);
+                if (count > 0) {
+                    counts[i] += count * weight;
+                }
+            }
+            total += slice.count.get() * weight;
+            max = Math.max(max, slice.max.get());
+        }
+
+        long windowMillis = Math.min(windowMinutes * SLICE_MILLIS, now - createdMillis);
+        double maxMs = max / 1000.0;
+        return LatencySnapshot.builder()
+                .window(windowMinutes + "m")
+                .count(Math.round(total))
+                .ratePerSecond(total * 1000.0 / Math.max(windowMillis, 1000))
+                .p50Ms(Math.min(percentile(counts, total, 0.50), maxMs))
+                .p95Ms(Math.min(percentile(counts, total, 0.95), maxMs))
+                .p99Ms(Math.min(percentile(counts, total, 0.99), maxMs))
+                .maxMs(maxMs)
+                .build();
+    }
+
+    private Slice slice(final long epoch) {
+        int index = (int) (epoch & (SLICES - 1));
+        Slice slice = slices[index];
+        if (slice != null && slice.epoch == epoch) {
+            return slice;
+        }
+        synchronized (this) {
+            slice = slices[index];
+            if (slice == null) {
+                slice = new Slice();
+                slice.epoch = epoch;
+                slices[index] = slice;
+            } else if (slice.epoch != epoch) {
+                slice.reset(epoch);
+            }
+            return slice;
+        }
+    }
+
+    private static double percentile(final double[] counts, final double total, final double quantile) {
+        if (total <= 0) {
+            return 0.0;
+        }
+        double rank = total * quantile;
+        double seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return bucketValue(i) / 1000.0;
+            }
+        }
+        return bucketValue(counts.length - 1) / 1000.0;
+    }
+
+    /**
+     * Convert a value to the microseconds counted in buckets.
+     *
+     * @param nanos the value in nanoseconds
+     * @return the value in microseconds, clamped to the tracked range
+     */
+    static long toMicros(final long nanos) {
+        return Math.min(Math.max(nanos / 1000, 0), MAX_VALUE);
+    }
+
+    /**
+     * Get the bucket of a value.
+     *
+     * @param micros the value in microseconds
+     * @return the bucket index
+     */
+    static int bucketIndex(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get the value reported for a bucket: the middle of its range.
+     *
+     * @param index the bucket index
+     * @return the value in microseconds
+     */
+    static double bucketValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) * width;
+        return lower + width / 2.0;
+    }
+
+    /**
+     * Counts of one minute.
+     */
+    private static final class Slice {
+
+        /** Minute since the epoch this slice counts. */
+        private volatile long epoch;
+
+        /** Count per bucket. */
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /** Number of values. */
+        private final AtomicLong count = new AtomicLong();
+
+        /** Largest value in microseconds. */
+        private final AtomicLong max = new AtomicLong();
+
+        private void updateMax(final long micros) {
+            long current = max.get();
+            while (micros > current && !max.compareAndSet(current, micros)) {
+                current = max.get();
+            }
+        }
+
+        private void reset(final long newEpoch) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            max.set(0);
+            epoch = newEpoch;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.stepprflow.core.metrics;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Recent throughput and latency percentiles of a workflow and its steps.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowedMetrics {
+
+    /**
+     * Topic name.
+     */
+    private String topic;
+
+    /**
+     * Service name that owns this workflow.
+     */
+    private String serviceName;
+
+    /**
+     * Completed and failed workflow durations, one snapshot per window.
+     */
+    private List<LatencySnapshot> workflow;
+
+    /**
+     * Step durations by step label, one snapshot per window.
+     */
+    private Map<String, List<LatencySnapshot>> steps;
+
+    /**
+     * Time step messages waited in the broker, by step label, one snapshot per window.
+     */
+    private Map<String, List<LatencySnapshot>> dwell;
+}
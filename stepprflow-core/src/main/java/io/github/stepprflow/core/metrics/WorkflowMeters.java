@@ -0,0 +1,550 @@
+package io.github.stepprflow.core.metrics;
+
+import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of one workflow (topic and service), resolved once.
+ *
+ * <p>Recording through a bundle is a plain field access followed by the meter
+ * update: no tag arrays, key strings or map lookups. Step meters of a bound
+ * {@link io.github.stepprflow.core.model.WorkflowDefinition} are looked up by
+ * step ID in a sorted array; steps only known by label are cached per bundle,
+ * up to {@link #MAX_STEP_LABELS} labels, after which they share an overflow step.
+ *
+ * <p>Besides the Micrometer meters, workflow and step durations and the time
+ * step messages waited in the broker are kept in
+ * {@link SlidingWindowHistogram sliding-window histograms} that report recent
+ * rates and percentiles ({@link #windowed(List)}).
+ */
+public final class WorkflowMeters {
+
+    /** Maximum number of step labels tracked per workflow. */
+    static final int MAX_STEP_LABELS = 256;
+
+    /** The workflow topic. */
+    private final String topic;
+
+    /** The service name. */
+    private final String serviceName;
+
+    /** The meter registry. */
+    private final MeterRegistry registry;
+
+    /** Started workflows. */
+    private final Counter started;
+
+    /** Completed workflows. */
+    private final Counter completed;
+
+    /** Failed workflows. */
+    private final Counter failed;
+
+    /** Cancelled workflows. */
+    private final Counter cancelled;
+
+    /** Retry attempts (tagged by topic only). */
+    private final Counter retries;
+
+    /** Messages sent to the DLQ (tagged by topic only). */
+    private final Counter dlq;
+
+    /** Duration of completed workflows. */
+    private final Timer completedDuration;
+
+    /** Duration of failed workflows. */
+    private final Timer failedDuration;
+
+    /** Recent completed and failed workflow durations. */
+    private final SlidingWindowHistogram latency;
+
+    /** Completed and failed workflow durations since the last drain. */
+    private final SketchRecorder latencySketch = new SketchRecorder();
+
+    /** Counter values and active gauge sent with the last drain. */
+    private long sentStarted;
+    private long sentCompleted;
+    private long sentFailed;
+    private long sentCancelled;
+    private long sentRetries;
+    private long sentDlq;
+    private long sentActive;
+
+    /** The clock of the sliding windows. */
+    private final Clock clock;
+
+    /** Active workflows, backing the gauge. */
+    private final AtomicLong active = new AtomicLong();
+
+    /** Step meters by label. */
+    private final Map<String, StepMeters> stepsByLabel = new ConcurrentHashMap<>();
+
+    /** Sorted IDs of the bound steps. */
+    private volatile int[] stepIds = new int[0];
+
+    /** Meters of the bound steps, aligned with {@link #stepIds}. */
+    private volatile StepMeters[] steps = new StepMeters[0];
+
+    /**
+     * Register the meters of a workflow.
+     *
+     * @param registry the meter registry
+     * @param topic the workflow topic
+     * @param serviceName the service name
+     * @param clock the clock of the sliding windows
+     */
+    WorkflowMeters(final MeterRegistry registry,
+                   final String topic,
+                   final String serviceName,
+                   final Clock clock) {
+        this.registry = registry;
+        this.clock = clock;
+        this.latency = new SlidingWindowHistogram(clock);
+        this.topic = topic;
+        this.serviceName = serviceName;
+        this.started = counter(WorkflowMetrics.PREFIX + ".workflow.started");
+        this.completed = counter(WorkflowMetrics.PREFIX + ".workflow.completed");
+        this.failed = counter(WorkflowMetrics.PREFIX + ".workflow.failed");
+        this.cancelled = counter(WorkflowMetrics.PREFIX + ".workflow.cancelled");
+        this.retries = Counter.builder(WorkflowMetrics.PREFIX + ".retry.count")
+                .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                .register(registry);
+        this.dlq = Counter.builder(WorkflowMetrics.PREFIX + ".dlq.count")
+                .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                .register(registry);
+        this.completedDuration = timer(WorkflowStatus.COMPLETED);
+        this.failedDuration = timer(WorkflowStatus.FAILED);
+        Gauge.builder(WorkflowMetrics.PREFIX + ".workflow.active",
+                        active, AtomicLong::get)
+                .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                .description("Number of active workflows")
+                .register(registry);
+    }
+
+    /**
+     * Get the workflow topic.
+     *
+     * @return the topic
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Get the service name.
+     *
+     * @return the service name
+     */
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    // ========== Workflow Lifecycle ==========
+
+    /**
+     * Record a workflow start.
+     */
+    public void recordStarted() {
+        started.increment();
+        active.incrementAndGet();
+    }
+
+    /**
+     * Record a workflow completion.
+     *
+     * @param duration the workflow duration
+     */
+    public void recordCompleted(final Duration duration) {
+        completed.increment();
+        active.decrementAndGet();
+        completedDuration.record(duration.toMillis(), TimeUnit.MILLISECONDS);
+        latency.record(duration.toNanos());
+        latencySketch.record(duration.toNanos());
+    }
+
+    /**
+     * Record a workflow failure.
+     *
+     * @param duration the workflow duration
+     */
+    public void recordFailed(final Duration duration) {
+        failed.increment();
+        active.decrementAndGet();
+        failedDuration.record(duration.toMillis(), TimeUnit.MILLISECONDS);
+        latency.record(duration.toNanos());
+        latencySketch.record(duration.toNanos());
+    }
+
+    /**
+     * Record a workflow cancellation.
+     */
+    public void recordCancelled() {
+        cancelled.increment();
+        active.decrementAndGet();
+    }
+
+    /**
+     * Record a retry attempt.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Record a message sent to DLQ.
+     */
+    public void recordDlq() {
+        dlq.increment();
+    }
+
+    // ========== Steps ==========
+
+    /**
+     * Get the meters of a bound step.
+     *
+     * @param stepId the step ID
+     * @return the step meters, or null if the step was not bound
+     */
+    public StepMeters step(final int stepId) {
+        int index = Arrays.binarySearch(stepIds, stepId);
+        return index >= 0 ? steps[index] : null;
+    }
+
+    /**
+     * Get the meters of a step by label, registering them on first use.
+     *
+     * @param stepLabel the step label
+     * @return the step meters
+     */
+    public StepMeters step(final String stepLabel) {
+        StepMeters meters = stepsByLabel.get(stepLabel);
+        if (meters != null) {
+            return meters;
+        }
+        String label = stepsByLabel.size() < MAX_STEP_LABELS
+                ? stepLabel : WorkflowMetrics.OVERFLOW;
+        return stepsByLabel.computeIfAbsent(label, l -> new StepMeters(l));
+    }
+
+    /**
+     * Resolve the meters of the steps of a workflow definition.
+     *
+     * @param definitions the step definitions, sorted by ID
+     */
+    void bindSteps(final List<StepDefinition> definitions) {
+        int[] ids = new int[definitions.size()];
+        StepMeters[] meters = new StepMeters[definitions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = definitions.get(i).getId();
+            meters[i] = step(definitions.get(i).getLabel());
+        }
+        // Publish the meters before the IDs read first by step(int)
+        steps = meters;
+        stepIds = ids;
+    }
+
+    /**
+     * Record the time a message waited in the broker before its step ran.
+     * Steps that were not bound are ignored.
+     *
+     * @param stepId the step ID
+     * @param nanos the time from publish to consumption in nanoseconds
+     */
+    public void recordDwell(final int stepId, final long nanos) {
+        StepMeters meters = step(stepId);
+        if (meters != null) {
+            meters.recordDwell(Math.max(nanos, 0));
+        }
+    }
+
+    // ========== Summary ==========
+
+    /**
+     * Get the number of started workflows.
+     *
+     * @return the count
+     */
+    long getStarted() {
+        return (long) started.count();
+    }
+
+    /**
+     * Get the number of completed workflows.
+     *
+     * @return the count
+     */
+    long getCompleted() {
+        return (long) completed.count();
+    }
+
+    /**
+     * Get the number of failed workflows.
+     *
+     * @return the count
+     */
+    long getFailed() {
+        return (long) failed.count();
+    }
+
+    /**
+     * Get the number of cancelled workflows.
+     *
+     * @return the count
+     */
+    long getCancelled() {
+        return (long) cancelled.count();
+    }
+
+    /**
+     * Get the number of active workflows.
+     *
+     * @return the count
+     */
+    long getActive() {
+        return active.get();
+    }
+
+    /**
+     * Get the mean duration of completed and failed workflows.
+     *
+     * @return the mean duration in milliseconds
+     */
+    double getMeanDurationMs() {
+        long count = completedDuration.count() + failedDuration.count();
+        if (count == 0) {
+            return 0.0;
+        }
+        return (completedDuration.totalTime(TimeUnit.MILLISECONDS)
+                + failedDuration.totalTime(TimeUnit.MILLISECONDS)) / count;
+    }
+
+    /**
+     * Summarize the recent rates and latencies of the workflow and its steps.
+     * Bound steps come first, in step order.
+     *
+     * @param windowMinutes the window lengths in minutes
+     * @return the windowed metrics
+     */
+    WindowedMetrics windowed(final List<Integer> windowMinutes) {
+        Map<String, List<LatencySnapshot>> stepSnapshots = new LinkedHashMap<>();
+        Map<String, List<LatencySnapshot>> dwellSnapshots = new LinkedHashMap<>();
+        for (StepMeters step : steps) {
+            stepSnapshots.put(step.label, snapshots(step.latency, windowMinutes));
+            dwellSnapshots.put(step.label, snapshots(step.dwellLatency, windowMinutes));
+        }
+        stepsByLabel.forEach((label, step) -> {
+            stepSnapshots.computeIfAbsent(label, l -> snapshots(step.latency, windowMinutes));
+            dwellSnapshots.computeIfAbsent(label, l -> snapshots(step.dwellLatency, windowMinutes));
+        });
+        return WindowedMetrics.builder()
+                .topic(topic)
+                .serviceName(serviceName)
+                .workflow(snapshots(latency, windowMinutes))
+                .steps(stepSnapshots)
+                .dwell(dwellSnapshots)
+                .build();
+    }
+
+    /**
+     * Take the activity recorded since the previous drain.
+     *
+     * @return the delta, or null if nothing changed
+     */
+    synchronized MetricsDelta.WorkflowDelta drain() {
+        long startedNow = getStarted();
+        long completedNow = getCompleted();
+        long failedNow = getFailed();
+        long cancelledNow = getCancelled();
+        long retriesNow = (long) retries.count();
+        long dlqNow = (long) dlq.count();
+        long activeNow = active.get();
+        HistogramSketch duration = latencySketch.drain();
+        Map<String, MetricsDelta.StepDelta> stepDeltas = new LinkedHashMap<>();
+        stepsByLabel.forEach((label, step) -> {
+            MetricsDelta.StepDelta delta = step.drain();
+            if (delta != null) {
+                stepDeltas.put(label, delta);
+            }
+        });
+        if (startedNow == sentStarted && completedNow == sentCompleted && failedNow == sentFailed
+                && cancelledNow == sentCancelled && retriesNow == sentRetries && dlqNow == sentDlq
+                && activeNow == sentActive && duration == null && stepDeltas.isEmpty()) {
+            return null;
+        }
+        MetricsDelta.WorkflowDelta delta = MetricsDelta.WorkflowDelta.builder()
+                .topic(topic)
+                .serviceName(serviceName)
+                .started(startedNow - sentStarted)
+                .completed(completedNow - sentCompleted)
+                .failed(failedNow - sentFailed)
+                .cancelled(cancelledNow - sentCancelled)
+                .retries(retriesNow - sentRetries)
+                .dlq(dlqNow - sentDlq)
+                .active(activeNow)
+                .duration(duration)
+                .steps(stepDeltas)
+                .build();
+        sentStarted = startedNow;
+        sentCompleted = completedNow;
+        sentFailed = failedNow;
+        sentCancelled = cancelledNow;
+        sentRetries = retriesNow;
+        sentDlq = dlqNow;
+        sentActive = activeNow;
+        return delta;
+    }
+
+    static List<LatencySnapshot> snapshots(final SlidingWindowHistogram histogram,
+                                           final List<Integer> windowMinutes) {
+        List<LatencySnapshot> snapshots = new ArrayList<>(windowMinutes.size());
+        for (int minutes : windowMinutes) {
+            snapshots.add(histogram.snapshot(minutes));
+        }
+        return snapshots;
+    }
+
+    private Counter counter(final String name) {
+        return Counter.builder(name)
+                .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                .register(registry);
+    }
+
+    private Timer timer(final WorkflowStatus status) {
+        return Timer.builder(WorkflowMetrics.PREFIX + ".workflow.duration")
+                .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                .tag(WorkflowMetrics.TAG_STATUS, status.name())
+                .description("Workflow execution duration")
+                .register(registry);
+    }
+
+    /**
+     * Meters of one step of the workflow.
+     */
+    public final class StepMeters {
+
+        /** The step label. */
+        private final String label;
+
+        /** Recent step durations. */
+        private final SlidingWindowHistogram latency;
+
+        /** Executed steps. */
+        private final Counter executed;
+
+        /** Failed steps. */
+        private final Counter failedSteps;
+
+        /** Timed out steps. */
+        private final Counter timeouts;
+
+        /** Step execution duration. */
+        private final Timer duration;
+
+        /** Time the step message waited in the broker. */
+        private final Timer dwell;
+
+        /** Recent broker dwell times. */
+        private final SlidingWindowHistogram dwellLatency;
+
+        /** Step durations since the last drain. */
+        private final SketchRecorder latencySketch = new SketchRecorder();
+
+        /** Broker dwell times since the last drain. */
+        private final SketchRecorder dwellSketch = new SketchRecorder();
+
+        private StepMeters(final String stepLabel) {
+            this.label = stepLabel;
+            this.latency = new SlidingWindowHistogram(clock);
+            this.executed = stepCounter(WorkflowMetrics.PREFIX + ".step.executed", stepLabel);
+            this.failedSteps = stepCounter(WorkflowMetrics.PREFIX + ".step.failed", stepLabel);
+            this.timeouts = stepCounter(WorkflowMetrics.PREFIX + ".step.timeout", stepLabel);
+            this.duration = Timer.builder(WorkflowMetrics.PREFIX + ".step.duration")
+                    .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                    .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                    .tag(WorkflowMetrics.TAG_STEP, stepLabel)
+                    .description("Step execution duration")
+                    .register(registry);
+            this.dwellLatency = new SlidingWindowHistogram(clock);
+            this.dwell = Timer.builder(WorkflowMetrics.PREFIX + ".step.dwell")
+                    .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                    .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                    .tag(WorkflowMetrics.TAG_STEP, stepLabel)
+                    .description("Time from message publish to consumption")
+                    .register(registry);
+        }
+
+        /**
+         * Record a step execution.
+         *
+         * @param nanos the step duration in nanoseconds
+         */
+        public void recordExecuted(final long nanos) {
+            executed.increment();
+            duration.record(nanos, TimeUnit.NANOSECONDS);
+            latency.record(nanos);
+            latencySketch.record(nanos);
+        }
+
+        /**
+         * Record a step failure.
+         */
+        public void recordFailed() {
+            failedSteps.increment();
+        }
+
+        /**
+         * Record a step timeout.
+         */
+        public void recordTimeout() {
+            timeouts.increment();
+        }
+
+        /**
+         * Record the time a step message waited in the broker.
+         *
+         * @param nanos the time from publish to consumption in nanoseconds
+         */
+        public void recordDwell(final long nanos) {
+            dwell.record(nanos, TimeUnit.NANOSECONDS);
+            dwellLatency.record(nanos);
+            dwellSketch.record(nanos);
+        }
+
+        private MetricsDelta.StepDelta drain() {
+            HistogramSketch durations = latencySketch.drain();
+            HistogramSketch dwells = dwellSketch.drain();
+            if (durations == null && dwells == null) {
+                return null;
+            }
+            return MetricsDelta.StepDelta.builder()
+                    .duration(durations)
+                    .dwell(dwells)
+                    .build();
+        }
+
+        private Counter stepCounter(final String name, final String stepLabel) {
+            return Counter.builder(name)
+                    .tag(WorkflowMetrics.TAG_TOPIC, topic)
+                    .tag(WorkflowMetrics.TAG_SERVICE, serviceName)
+                    .tag(WorkflowMetrics.TAG_STEP, stepLabel)
+                    .register(registry);
+        }
+    }
+}
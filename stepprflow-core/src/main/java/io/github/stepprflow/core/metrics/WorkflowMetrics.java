@@ -3,15 +3,18 @@ package io.github.stepprflow.core.metrics;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
-import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.model.WorkflowDefinition;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -43,16 +46,44 @@ import lombok.extern.slf4j.Slf4j;
  *   (by topic)</li>
  *   <li>stepprflow.dlq.count - Counter of messages sent to DLQ
  *   (by topic)</li>
+ *   <li>stepprflow.step.dwell - Timer of the time a step message waited
+ *   in the broker, from publish to consumption (by topic, step)</li>
+ *   <li>stepprflow.consumer.lag - Gauge of Kafka consumer lag
+ *   (by topic, partition)</li>
+ *   <li>stepprflow.queue.depth - Gauge of RabbitMQ messages ready
+ *   (by topic, queue)</li>
  * </ul>
+ *
+ * <p>Meters are grouped in one {@link WorkflowMeters} bundle per topic and
+ * service, created on first use and cached in nested maps so that recording
+ * builds no key. Registered workflows are bound at startup
+ * ({@link #bind(WorkflowDefinition, String)}) and the step executor records
+ * through the bundle bound to their topic ({@link #getBound(String)}). The number of bundles is
+ * capped: once {@code maxWorkflows} is reached, unknown topics share an
+ * overflow bundle tagged {@value #OVERFLOW}, which bounds tag cardinality.
+ *
+ * <p>Recent throughput and latency percentiles over {@link #WINDOW_MINUTES}
+ * are available per workflow and step through {@link #getWindowedMetrics()}.
  */
 @Slf4j
 public class WorkflowMetrics {
 
-    private static final String PREFIX = "stepprflow";
-    private static final String TAG_TOPIC = "topic";
-    private static final String TAG_SERVICE = "service";
-    private static final String TAG_STEP = "step";
-    private static final String TAG_STATUS = "status";
+    /** Default maximum number of (topic, service) bundles. */
+    public static final int DEFAULT_MAX_WORKFLOWS = 500;
+
+    /** Tag value of the overflow bundle and step. */
+    public static final String OVERFLOW = "_other";
+
+    /** Lengths in minutes of the windows of the windowed metrics. */
+    public static final List<Integer> WINDOW_MINUTES = List.of(1, 5, 15);
+
+    static final String PREFIX = "stepprflow";
+    static final String TAG_TOPIC = "topic";
+    static final String TAG_SERVICE = "service";
+    static final String TAG_STEP = "step";
+    static final String TAG_STATUS = "status";
+    static final String TAG_PARTITION = "partition";
+    static final String TAG_QUEUE = "queue";
     private static final String UNKNOWN_SERVICE = "unknown";
 
     /**
@@ -61,76 +92,151 @@ public class WorkflowMetrics {
     private final MeterRegistry registry;
 
     /**
-     * Gauges for active workflows per topic.
-     */
-    private final Map<String, AtomicLong> activeWorkflowsByTopic =
-            new ConcurrentHashMap<>();
-
-    /**
-     * Cached counters for performance - started workflows.
+     * Maximum number of (topic, service) bundles.
      */
-    private final Map<String, Counter> startedCounters =
-            new ConcurrentHashMap<>();
+    private final int maxWorkflows;
 
     /**
-     * Cached counters for performance - completed workflows.
+     * The clock of the sliding windows.
      */
-    private final Map<String, Counter> completedCounters =
-            new ConcurrentHashMap<>();
+    private final Clock clock;
 
     /**
-     * Cached counters for performance - failed workflows.
+     * Meter bundles by topic, then service name.
      */
-    private final Map<String, Counter> failedCounters =
+    private final Map<String, Map<String, WorkflowMeters>> meters =
             new ConcurrentHashMap<>();
 
     /**
-     * Cached counters for performance - cancelled workflows.
+     * Bundles bound to the registered workflows, by topic.
      */
-    private final Map<String, Counter> cancelledCounters =
-            new ConcurrentHashMap<>();
+    private final Map<String, WorkflowMeters> bound = new ConcurrentHashMap<>();
 
     /**
-     * Cached counters for performance - retry attempts.
+     * Number of bundles created, the overflow bundle excluded.
      */
-    private final Map<String, Counter> retryCounters =
-            new ConcurrentHashMap<>();
+    private final AtomicInteger bundleCount = new AtomicInteger();
 
     /**
-     * Cached counters for performance - DLQ messages.
+     * Bundle shared by workflows beyond the cap, created on first use.
      */
-    private final Map<String, Counter> dlqCounters =
-            new ConcurrentHashMap<>();
+    private volatile WorkflowMeters overflow;
 
     /**
-     * Cached counters for performance - executed steps.
+     * Time of the last {@link #drainDelta()}, in epoch milliseconds.
      */
-    private final Map<String, Counter> stepExecutedCounters =
-            new ConcurrentHashMap<>();
+    private long lastDrainMillis;
 
     /**
-     * Cached counters for performance - failed steps.
+     * Consumer lag by "topic:partition", backing the lag gauges.
      */
-    private final Map<String, Counter> stepFailedCounters =
-            new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> consumerLags = new ConcurrentHashMap<>();
 
     /**
-     * Cached counters for performance - timed out steps.
+     * Constructor.
+     *
+     * @param registry the meter registry
      */
-    private final Map<String, Counter> stepTimeoutCounters =
-            new ConcurrentHashMap<>();
+    public WorkflowMetrics(final MeterRegistry registry) {
+        this(registry, DEFAULT_MAX_WORKFLOWS);
+    }
 
     /**
-     * Constructor.
+     * Constructor with a cap on the number of (topic, service) bundles.
      *
      * @param registry the meter registry
+     * @param maxWorkflows the maximum number of bundles before overflow
      */
-    public WorkflowMetrics(final MeterRegistry registry) {
+    public WorkflowMetrics(final MeterRegistry registry,
+                           final int maxWorkflows) {
+        this(registry, maxWorkflows, Clock.systemUTC());
+    }
+
+    WorkflowMetrics(final MeterRegistry registry,
+                    final int maxWorkflows,
+                    final Clock clock) {
         this.registry = registry;
+        this.maxWorkflows = maxWorkflows;
+        this.clock = clock;
+        this.lastDrainMillis = clock.millis();
         log.info("WorkflowMetrics initialized with registry: {}",
                 registry.getClass().getSimpleName());
     }
 
+    // ========== Meter Bundles ==========
+
+    /**
+     * Get the meter bundle of a workflow, creating it on first use.
+     * Beyond the cap, the overflow bundle is returned.
+     *
+     * @param topic the workflow topic
+     * @param serviceName the service name (unknown if null)
+     * @return the meter bundle
+     */
+    public WorkflowMeters forWorkflow(final String topic,
+                                      final String serviceName) {
+        String service = serviceName != null
+                ? serviceName : UNKNOWN_SERVICE;
+        Map<String, WorkflowMeters> byService = meters.get(topic);
+        if (byService != null) {
+            WorkflowMeters bundle = byService.get(service);
+            if (bundle != null) {
+                return bundle;
+            }
+        }
+        return create(topic, service);
+    }
+
+    /**
+     * Resolve the meters of a workflow definition, including its steps,
+     * and bind them to its topic.
+     *
+     * @param definition the workflow definition
+     * @param serviceName the service name
+     * @return the meter bundle
+     */
+    public WorkflowMeters bind(final WorkflowDefinition definition,
+                               final String serviceName) {
+        WorkflowMeters bundle = forWorkflow(definition.getTopic(), serviceName);
+        if (bundle != overflow) {
+            bundle.bindSteps(definition.getSteps());
+        }
+        bound.put(definition.getTopic(), bundle);
+        return bundle;
+    }
+
+    /**
+     * Get the meters bound to a registered workflow.
+     *
+     * @param topic the workflow topic
+     * @return the meter bundle, or null if no workflow of this topic was bound
+     */
+    public WorkflowMeters getBound(final String topic) {
+        return topic != null ? bound.get(topic) : null;
+    }
+
+    private synchronized WorkflowMeters create(final String topic,
+                                               final String service) {
+        Map<String, WorkflowMeters> byService = meters.get(topic);
+        WorkflowMeters bundle = byService != null ? byService.get(service) : null;
+        if (bundle != null) {
+            return bundle;
+        }
+        if (bundleCount.get() >= maxWorkflows) {
+            if (overflow == null) {
+                log.warn("More than {} workflow metric series, recording further "
+                        + "topics as '{}'", maxWorkflows, OVERFLOW);
+                overflow = new WorkflowMeters(registry, OVERFLOW, OVERFLOW, clock);
+            }
+            return overflow;
+        }
+        bundle = new WorkflowMeters(registry, topic, service, clock);
+        meters.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                .put(service, bundle);
+        bundleCount.incrementAndGet();
+        return bundle;
+    }
+
     // ========== Workflow Lifecycle Metrics ==========
 
     /**
@@ -150,14 +256,9 @@ public class WorkflowMetrics {
      */
     public void recordWorkflowStarted(final String topic,
                                       final String serviceName) {
-        String service = serviceName != null
-                ? serviceName : UNKNOWN_SERVICE;
-        getOrCreateCounter(startedCounters,
-                PREFIX + ".workflow.started",
-                TAG_TOPIC, topic, TAG_SERVICE, service).increment();
-        getOrCreateActiveGauge(topic, service).incrementAndGet();
+        forWorkflow(topic, serviceName).recordStarted();
         log.debug("Recorded workflow started: topic={}, service={}",
-                topic, service);
+                topic, serviceName);
     }
 
     /**
@@ -181,16 +282,9 @@ public class WorkflowMetrics {
     public void recordWorkflowCompleted(final String topic,
                                         final String serviceName,
                                         final Duration duration) {
-        String service = serviceName != null
-                ? serviceName : UNKNOWN_SERVICE;
-        getOrCreateCounter(completedCounters,
-                PREFIX + ".workflow.completed",
-                TAG_TOPIC, topic, TAG_SERVICE, service).increment();
-        getOrCreateActiveGauge(topic, service).decrementAndGet();
-        recordWorkflowDuration(topic, service,
-                WorkflowStatus.COMPLETED, duration);
+        forWorkflow(topic, serviceName).recordCompleted(duration);
         log.debug("Recorded workflow completed: topic={}, service={}, "
-                + "duration={}ms", topic, service, duration.toMillis());
+                + "duration={}ms", topic, serviceName, duration.toMillis());
     }
 
     /**
@@ -214,16 +308,9 @@ public class WorkflowMetrics {
     public void recordWorkflowFailed(final String topic,
                                      final String serviceName,
                                      final Duration duration) {
-        String service = serviceName != null
-                ? serviceName : UNKNOWN_SERVICE;
-        getOrCreateCounter(failedCounters,
-                PREFIX + ".workflow.failed",
-                TAG_TOPIC, topic, TAG_SERVICE, service).increment();
-        getOrCreateActiveGauge(topic, service).decrementAndGet();
-        recordWorkflowDuration(topic, service,
-                WorkflowStatus.FAILED, duration);
+        forWorkflow(topic, serviceName).recordFailed(duration);
         log.debug("Recorded workflow failed: topic={}, service={}, "
-                + "duration={}ms", topic, service, duration.toMillis());
+                + "duration={}ms", topic, serviceName, duration.toMillis());
     }
 
     /**
@@ -243,14 +330,9 @@ public class WorkflowMetrics {
      */
     public void recordWorkflowCancelled(final String topic,
                                         final String serviceName) {
-        String service = serviceName != null
-                ? serviceName : UNKNOWN_SERVICE;
-        getOrCreateCounter(cancelledCounters,
-                PREFIX + ".workflow.cancelled",
-                TAG_TOPIC, topic, TAG_SERVICE, service).increment();
-        getOrCreateActiveGauge(topic, service).decrementAndGet();
+        forWorkflow(topic, serviceName).recordCancelled();
         log.debug("Recorded workflow cancelled: topic={}, service={}",
-                topic, service);
+                topic, serviceName);
     }
 
     // ========== Step Metrics ==========
@@ -265,11 +347,7 @@ public class WorkflowMetrics {
     public void recordStepExecuted(final String topic,
                                    final String stepLabel,
                                    final Duration duration) {
-        String key = topic + ":" + stepLabel;
-        getOrCreateCounter(stepExecutedCounters,
-                PREFIX + ".step.executed",
-                TAG_TOPIC, topic, TAG_STEP, stepLabel).increment();
-        recordStepDuration(topic, stepLabel, duration);
+        forWorkflow(topic, null).step(stepLabel).recordExecuted(duration.toNanos());
         log.debug("Recorded step executed: topic={}, step={}, "
                 + "duration={}ms", topic, stepLabel, duration.toMillis());
     }
@@ -282,10 +360,7 @@ public class WorkflowMetrics {
      */
     public void recordStepFailed(final String topic,
                                  final String stepLabel) {
-        String key = topic + ":" + stepLabel;
-        getOrCreateCounter(stepFailedCounters,
-                PREFIX + ".step.failed",
-                TAG_TOPIC, topic, TAG_STEP, stepLabel).increment();
+        forWorkflow(topic, null).step(stepLabel).recordFailed();
         log.debug("Recorded step failed: topic={}, step={}",
                 topic, stepLabel);
     }
@@ -298,10 +373,7 @@ public class WorkflowMetrics {
      */
     public void recordStepTimeout(final String topic,
                                   final String stepLabel) {
-        String key = topic + ":" + stepLabel;
-        getOrCreateCounter(stepTimeoutCounters,
-                PREFIX + ".step.timeout",
-                TAG_TOPIC, topic, TAG_STEP, stepLabel).increment();
+        forWorkflow(topic, null).step(stepLabel).recordTimeout();
         log.debug("Recorded step timeout: topic={}, step={}",
                 topic, stepLabel);
     }
@@ -315,104 +387,80 @@ public class WorkflowMetrics {
      * @param attempt the retry attempt number
      */
     public void recordRetry(final String topic, final int attempt) {
-        getOrCreateCounter(retryCounters,
-                PREFIX + ".retry.count", TAG_TOPIC, topic).increment();
-        log.debug("Recorded retry: topic={}, attempt={}", topic, attempt);
+        recordRetry(topic, null, attempt);
     }
 
     /**
-     * Record a message sent to DLQ.
+     * Record a retry attempt with service name.
      *
      * @param topic the workflow topic
+     * @param serviceName the service name
+     * @param attempt the retry attempt number
      */
-    public void recordDlq(final String topic) {
-        getOrCreateCounter(dlqCounters,
-                PREFIX + ".dlq.count", TAG_TOPIC, topic).increment();
-        log.debug("Recorded DLQ: topic={}", topic);
+    public void recordRetry(final String topic,
+                            final String serviceName,
+                            final int attempt) {
+        forWorkflow(topic, serviceName).recordRetry();
+        log.debug("Recorded retry: topic={}, attempt={}", topic, attempt);
     }
 
-    // ========== Duration Recording ==========
-
     /**
-     * Record workflow duration.
+     * Record a message sent to DLQ.
      *
      * @param topic the workflow topic
-     * @param serviceName the service name
-     * @param status the workflow status
-     * @param duration the duration
      */
-    private void recordWorkflowDuration(final String topic,
-                                        final String serviceName,
-                                        final WorkflowStatus status,
-                                        final Duration duration) {
-        Timer.builder(PREFIX + ".workflow.duration")
-                .tag(TAG_TOPIC, topic)
-                .tag(TAG_SERVICE, serviceName)
-                .tag(TAG_STATUS, status.name())
-                .description("Workflow execution duration")
-                .register(registry)
-                .record(duration.toMillis(), TimeUnit.MILLISECONDS);
+    public void recordDlq(final String topic) {
+        recordDlq(topic, null);
     }
 
     /**
-     * Record step duration.
+     * Record a message sent to DLQ with service name.
      *
      * @param topic the workflow topic
-     * @param stepLabel the step label
-     * @param duration the duration
+     * @param serviceName the service name
      */
-    private void recordStepDuration(final String topic,
-                                    final String stepLabel,
-                                    final Duration duration) {
-        Timer.builder(PREFIX + ".step.duration")
-                .tag(TAG_TOPIC, topic)
-                .tag(TAG_STEP, stepLabel)
-                .description("Step execution duration")
-                .register(registry)
-                .record(duration.toMillis(), TimeUnit.MILLISECONDS);
+    public void recordDlq(final String topic, final String serviceName) {
+        forWorkflow(topic, serviceName).recordDlq();
+        log.debug("Recorded DLQ: topic={}", topic);
     }
 
-    // ========== Helper Methods ==========
+    // ========== Broker Metrics ==========
 
     /**
-     * Get or create a counter.
+     * Get the consumer lag of a partition, registering its gauge on first use.
+     * Consumers set the returned value as they poll.
      *
-     * @param cache the counter cache
-     * @param name the counter name
-     * @param tags the tags
-     * @return the counter
-     */
-    private Counter getOrCreateCounter(final Map<String, Counter> cache,
-                                       final String name,
-                                       final String... tags) {
-        String key = name + ":" + String.join(":", tags);
-        return cache.computeIfAbsent(key, k ->
-                Counter.builder(name)
-                        .tags(tags)
-                        .register(registry)
-        );
+     * @param topic the consumed topic
+     * @param partition the partition
+     * @return the lag backing the gauge
+     */
+    public AtomicLong consumerLag(final String topic, final int partition) {
+        return consumerLags.computeIfAbsent(topic + ':' + partition, key -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder(PREFIX + ".consumer.lag", lag, AtomicLong::get)
+                    .tag(TAG_TOPIC, topic)
+                    .tag(TAG_PARTITION, String.valueOf(partition))
+                    .description("Records behind the end of the partition")
+                    .register(registry);
+            return lag;
+        });
     }
 
     /**
-     * Get or create an active gauge.
+     * Register the depth gauge of a workflow queue.
      *
      * @param topic the workflow topic
-     * @param serviceName the service name
-     * @return the atomic long for the gauge
-     */
-    private AtomicLong getOrCreateActiveGauge(final String topic,
-                                              final String serviceName) {
-        String key = topic + ":" + serviceName;
-        return activeWorkflowsByTopic.computeIfAbsent(key, k -> {
-            AtomicLong gauge = new AtomicLong(0);
-            Gauge.builder(PREFIX + ".workflow.active",
-                    gauge, AtomicLong::get)
-                    .tag(TAG_TOPIC, topic)
-                    .tag(TAG_SERVICE, serviceName)
-                    .description("Number of active workflows")
-                    .register(registry);
-            return gauge;
-        });
+     * @param queue the queue name
+     * @param depth supplies the number of messages ready in the queue
+     */
+    public void registerQueueDepth(final String topic,
+                                   final String queue,
+                                   final Supplier<Number> depth) {
+        Gauge.builder(PREFIX + ".queue.depth", depth)
+                .tag(TAG_TOPIC, topic)
+                .tag(TAG_QUEUE, queue)
+                .description("Messages ready in the queue")
+                .register(registry);
     }
 
     // ========== Metrics Summary (for API) ==========
@@ -444,30 +492,23 @@ public class WorkflowMetrics {
      */
     public MetricsSummary getSummary(final String topic,
                                      final String serviceName) {
-        String key = topic + ":" + serviceName;
-        return MetricsSummary.builder()
+        MetricsSummary.MetricsSummaryBuilder summary = MetricsSummary.builder()
                 .topic(topic)
                 .serviceName(serviceName)
-                .workflowsStarted(getCounterValue(startedCounters,
-                        PREFIX + ".workflow.started",
-                        TAG_TOPIC, topic, TAG_SERVICE, serviceName))
-                .workflowsCompleted(getCounterValue(completedCounters,
-                        PREFIX + ".workflow.completed",
-                        TAG_TOPIC, topic, TAG_SERVICE, serviceName))
-                .workflowsFailed(getCounterValue(failedCounters,
-                        PREFIX + ".workflow.failed",
-                        TAG_TOPIC, topic, TAG_SERVICE, serviceName))
-                .workflowsCancelled(getCounterValue(cancelledCounters,
-                        PREFIX + ".workflow.cancelled",
-                        TAG_TOPIC, topic, TAG_SERVICE, serviceName))
-                .workflowsActive(activeWorkflowsByTopic.getOrDefault(key,
-                        new AtomicLong(0)).get())
-                .retryCount(getCounterValue(retryCounters,
-                        PREFIX + ".retry.count", TAG_TOPIC, topic))
-                .dlqCount(getCounterValue(dlqCounters,
-                        PREFIX + ".dlq.count", TAG_TOPIC, topic))
-                .avgWorkflowDurationMs(getTimerMeanWithService(topic,
-                        serviceName))
+                .retryCount(getTopicCounterValue(PREFIX + ".retry.count", topic))
+                .dlqCount(getTopicCounterValue(PREFIX + ".dlq.count", topic));
+        Map<String, WorkflowMeters> byService = meters.get(topic);
+        WorkflowMeters bundle = byService != null ? byService.get(serviceName) : null;
+        if (bundle == null) {
+            return summary.build();
+        }
+        return summary
+                .workflowsStarted(bundle.getStarted())
+                .workflowsCompleted(bundle.getCompleted())
+                .workflowsFailed(bundle.getFailed())
+                .workflowsCancelled(bundle.getCancelled())
+                .workflowsActive(bundle.getActive())
+                .avgWorkflowDurationMs(bundle.getMeanDurationMs())
                 .build();
     }
 
@@ -478,17 +519,9 @@ public class WorkflowMetrics {
      */
     public Set<WorkflowKey> getActiveWorkflowKeys() {
         Set<WorkflowKey> keys = new HashSet<>();
-        String prefix = PREFIX + ".workflow.started:";
-        for (String key : startedCounters.keySet()) {
-            if (key.startsWith(prefix)) {
-                // Key format:
-                // stepprflow.workflow.started:topic:{topic}:service:{service}
-                String remainder = key.substring(prefix.length());
-                String[] parts = remainder.split(":");
-                if (parts.length >= 4 && "topic".equals(parts[0])
-                        && "service".equals(parts[2])) {
-                    keys.add(new WorkflowKey(parts[1], parts[3]));
-                }
+        for (WorkflowMeters bundle : bundles()) {
+            if (bundle.getStarted() > 0) {
+                keys.add(new WorkflowKey(bundle.getTopic(), bundle.getServiceName()));
             }
         }
         return keys;
@@ -500,14 +533,21 @@ public class WorkflowMetrics {
      * @return the global metrics summary
      */
     public MetricsSummary getGlobalSummary() {
-        long started = sumCounterValues(startedCounters);
-        long completed = sumCounterValues(completedCounters);
-        long failed = sumCounterValues(failedCounters);
-        long cancelled = sumCounterValues(cancelledCounters);
-        long active = activeWorkflowsByTopic.values().stream()
-                .mapToLong(AtomicLong::get).sum();
-        long retries = sumCounterValues(retryCounters);
-        long dlq = sumCounterValues(dlqCounters);
+        long started = 0;
+        long completed = 0;
+        long failed = 0;
+        long cancelled = 0;
+        long active = 0;
+        for (WorkflowMeters bundle : bundles()) {
+            started += bundle.getStarted();
+            completed += bundle.getCompleted();
+            failed += bundle.getFailed();
+            cancelled += bundle.getCancelled();
+            active += bundle.getActive();
+        }
+        // Retry and DLQ counters are per topic, shared by the services
+        long retries = sumCounterValues(PREFIX + ".retry.count");
+        long dlq = sumCounterValues(PREFIX + ".dlq.count");
 
         return MetricsSummary.builder()
                 .topic("_global")
@@ -524,75 +564,110 @@ public class WorkflowMetrics {
     }
 
     /**
-     * Get counter value.
+     * Get all topics that have recorded metrics.
      *
-     * @param cache the counter cache
-     * @param name the counter name
-     * @param tags the tags
-     * @return the counter value
+     * @return the set of active topics
      */
-    private long getCounterValue(final Map<String, Counter> cache,
-                                 final String name,
-                                 final String... tags) {
-        String key = name + ":" + String.join(":", tags);
-        Counter counter = cache.get(key);
-        return counter != null ? (long) counter.count() : 0L;
+    public Set<String> getActiveTopics() {
+        Set<String> topics = new HashSet<>();
+        for (WorkflowKey key : getActiveWorkflowKeys()) {
+            topics.add(key.topic());
+        }
+        return topics;
     }
 
     /**
-     * Sum all counter values in a cache.
+     * Get recent throughput and latency percentiles of all workflows.
      *
-     * @param cache the counter cache
-     * @return the sum of all counter values
+     * @return the windowed metrics of each workflow and service
      */
-    private long sumCounterValues(final Map<String, Counter> cache) {
-        return cache.values().stream()
-                .mapToLong(c -> (long) c.count())
-                .sum();
+    public List<WindowedMetrics> getWindowedMetrics() {
+        List<WindowedMetrics> windowed = new ArrayList<>();
+        for (WorkflowMeters bundle : bundles()) {
+            windowed.add(bundle.windowed(WINDOW_MINUTES));
+        }
+        return windowed;
     }
 
     /**
-     * Get timer mean value.
+     * Get recent throughput and latency percentiles of a workflow.
      *
-     * @param name the timer name
-     * @param tags the tags
-     * @return the mean value in milliseconds
+     * @param topic the workflow topic
+     * @return the windowed metrics of each service running the workflow
      */
-    private double getTimerMean(final String name, final String... tags) {
-        Timer timer = registry.find(name).tags(tags).timer();
-        return timer != null ? timer.mean(TimeUnit.MILLISECONDS) : 0.0;
+    public List<WindowedMetrics> getWindowedMetrics(final String topic) {
+        Map<String, WorkflowMeters> byService = meters.get(topic);
+        if (byService == null) {
+            return List.of();
+        }
+        List<WindowedMetrics> windowed = new ArrayList<>();
+        for (WorkflowMeters bundle : byService.values()) {
+            windowed.add(bundle.windowed(WINDOW_MINUTES));
+        }
+        return windowed;
+    }
+
+    /**
+     * Take the activity recorded since the previous call. Heartbeats carry
+     * the result to the monitoring server, which adds the deltas of every
+     * instance into a {@link ClusterMetrics cluster view}.
+     *
+     * @return the delta of the workflows with activity
+     */
+    public synchronized MetricsDelta drainDelta() {
+        long now = clock.millis();
+        List<MetricsDelta.WorkflowDelta> workflows = new ArrayList<>();
+        for (WorkflowMeters bundle : bundles()) {
+            MetricsDelta.WorkflowDelta delta = bundle.drain();
+            if (delta != null) {
+                workflows.add(delta);
+            }
+        }
+        MetricsDelta delta = MetricsDelta.builder()
+                .intervalMillis(now - lastDrainMillis)
+                .workflows(workflows)
+                .build();
+        lastDrainMillis = now;
+        return delta;
     }
 
     /**
-     * Get timer mean value with service tag.
+     * Get all meter bundles, the overflow bundle included.
      *
+     * @return the bundles
+     */
+    private Set<WorkflowMeters> bundles() {
+        Set<WorkflowMeters> bundles = new HashSet<>();
+        for (Map<String, WorkflowMeters> byService : meters.values()) {
+            bundles.addAll(byService.values());
+        }
+        if (overflow != null) {
+            bundles.add(overflow);
+        }
+        return bundles;
+    }
+
+    /**
+     * Get the value of a counter tagged by topic only.
+     *
+     * @param name the counter name
      * @param topic the workflow topic
-     * @param serviceName the service name
-     * @return the mean value in milliseconds
+     * @return the counter value
      */
-    private double getTimerMeanWithService(final String topic,
-                                           final String serviceName) {
-        Timer timer = registry.find(PREFIX + ".workflow.duration")
-                .tag(TAG_TOPIC, topic)
-                .tag(TAG_SERVICE, serviceName)
-                .timer();
-        return timer != null ? timer.mean(TimeUnit.MILLISECONDS) : 0.0;
+    private long getTopicCounterValue(final String name, final String topic) {
+        Counter counter = registry.find(name).tag(TAG_TOPIC, topic).counter();
+        return counter != null ? (long) counter.count() : 0L;
     }
 
     /**
-     * Get all topics that have recorded metrics.
-     * Extracts topic names from the startedCounters cache keys.
+     * Sum all counter values of a name.
      *
-     * @return the set of active topics
+     * @param name the counter name
+     * @return the sum of all counter values
      */
-    public Set<String> getActiveTopics() {
-        Set<String> topics = new HashSet<>();
-        String prefix = PREFIX + ".workflow.started:topic:";
-        for (String key : startedCounters.keySet()) {
-            if (key.startsWith(prefix)) {
-                topics.add(key.substring(prefix.length()));
-            }
-        }
-        return topics;
+    private long sumCounterValues(final String name) {
+        return registry.find(name).counters().stream()
+                .mapToLong(c -> (long) c.count())
+                .sum();
     }
 }
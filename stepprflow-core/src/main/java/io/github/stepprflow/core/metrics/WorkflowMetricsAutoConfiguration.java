@@ -1,6 +1,11 @@
 package io.github.stepprflow.core.metrics;
 
+import io.github.stepprflow.core.StepprFlowProperties;
+import io.github.stepprflow.core.service.WorkflowRegistry;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -20,12 +25,19 @@ public class WorkflowMetricsAutoConfiguration {
      * Creates the WorkflowMetrics bean.
      *
      * @param meterRegistry the meter registry
+     * @param properties the stepprflow properties (optional)
      * @return the workflow metrics instance
      */
     @Bean
     @ConditionalOnBean(MeterRegistry.class)
-    public WorkflowMetrics workflowMetrics(final MeterRegistry meterRegistry) {
-        return new WorkflowMetrics(meterRegistry);
+    public WorkflowMetrics workflowMetrics(
+            final MeterRegistry meterRegistry,
+            final ObjectProvider<StepprFlowProperties> properties) {
+        StepprFlowProperties props = properties.getIfAvailable();
+        int maxWorkflows = props != null
+                ? props.getMetrics().getMaxWorkflows()
+                : WorkflowMetrics.DEFAULT_MAX_WORKFLOWS;
+        return new WorkflowMetrics(meterRegistry, maxWorkflows);
     }
 
     /**
@@ -40,4 +52,23 @@ public class WorkflowMetricsAutoConfiguration {
             final WorkflowMetrics workflowMetrics) {
         return new WorkflowMetricsListener(workflowMetrics);
     }
+
+    /**
+     * Binds the meters of the registered workflows once all singletons
+     * are created, before the broker listeners start.
+     *
+     * @param workflowMetrics the workflow metrics instance
+     * @param registry the workflow registry (optional)
+     * @param appName the service name
+     * @return the binder
+     */
+    @Bean
+    @ConditionalOnBean(WorkflowMetrics.class)
+    public SmartInitializingSingleton workflowMetersBinder(
+            final WorkflowMetrics workflowMetrics,
+            final ObjectProvider<WorkflowRegistry> registry,
+            @Value("${spring.application.name:unknown}") final String appName) {
+        return () -> registry.ifAvailable(r -> r.getAllDefinitions().forEach(
+                definition -> workflowMetrics.bind(definition, appName)));
+    }
 }
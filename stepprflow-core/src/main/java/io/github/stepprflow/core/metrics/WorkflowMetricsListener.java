@@ -3,11 +3,9 @@ package io.github.stepprflow.core.metrics;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 
@@ -16,8 +14,14 @@ import org.springframework.context.event.EventListener;
  * Works with WorkflowMetrics to update in-memory metrics counters.
  * Bean is created by WorkflowMetricsAutoConfiguration when
  * MeterRegistry is available.
+ *
+ * <p>Workflow durations are computed from the {@code createdAt} and
+ * {@code updatedAt} timestamps carried by the terminal message, so they need
+ * no per-execution state and work for executions started on other instances.
+ * Steps report their own timing with the messages they send
+ * ({@link io.github.stepprflow.core.model.StepTiming}), so no step state is
+ * kept either.
  */
-@RequiredArgsConstructor
 @Slf4j
 public class WorkflowMetricsListener {
 
@@ -27,16 +31,23 @@ public class WorkflowMetricsListener {
     private final WorkflowMetrics metrics;
 
     /**
-     * Track workflow start times for duration calculation.
+     * The clock.
      */
-    private final Map<String, Instant> workflowStartTimes =
-            new ConcurrentHashMap<>();
+    private final Clock clock;
 
     /**
-     * Track step start times for duration calculation.
+     * Creates a listener.
+     *
+     * @param metrics the workflow metrics instance
      */
-    private final Map<String, Instant> stepStartTimes =
-            new ConcurrentHashMap<>();
+    public WorkflowMetricsListener(final WorkflowMetrics metrics) {
+        this(metrics, Clock.systemUTC());
+    }
+
+    WorkflowMetricsListener(final WorkflowMetrics metrics, final Clock clock) {
+        this.metrics = metrics;
+        this.clock = clock;
+    }
 
     /**
      * Handles workflow message events.
@@ -53,7 +64,6 @@ public class WorkflowMetricsListener {
         try {
             switch (status) {
                 case PENDING -> handlePending(message);
-                case IN_PROGRESS -> handleInProgress(message);
                 case COMPLETED -> handleCompleted(message);
                 case FAILED -> handleFailed(message);
                 case CANCELLED -> handleCancelled(message);
@@ -73,36 +83,18 @@ public class WorkflowMetricsListener {
      * @param message the workflow message
      */
     private void handlePending(final WorkflowMessage message) {
-        String executionId = message.getExecutionId();
-        workflowStartTimes.put(executionId, Instant.now());
         metrics.recordWorkflowStarted(message.getTopic(),
                 message.getServiceName());
     }
 
-    /**
-     * Handles in-progress workflow status.
-     *
-     * @param message the workflow message
-     */
-    private void handleInProgress(final WorkflowMessage message) {
-        String executionId = message.getExecutionId();
-        String stepKey = executionId + ":" + message.getCurrentStep();
-        stepStartTimes.put(stepKey, Instant.now());
-    }
-
     /**
      * Handles completed workflow status.
      *
      * @param message the workflow message
      */
     private void handleCompleted(final WorkflowMessage message) {
-        String executionId = message.getExecutionId();
-        Instant startTime = workflowStartTimes.remove(executionId);
-        Duration duration = startTime != null
-                ? Duration.between(startTime, Instant.now())
-                : Duration.ZERO;
         metrics.recordWorkflowCompleted(message.getTopic(),
-                message.getServiceName(), duration);
+                message.getServiceName(), workflowDuration(message));
     }
 
     /**
@@ -111,14 +103,9 @@ public class WorkflowMetricsListener {
      * @param message the workflow message
      */
     private void handleFailed(final WorkflowMessage message) {
-        String executionId = message.getExecutionId();
-        Instant startTime = workflowStartTimes.remove(executionId);
-        Duration duration = startTime != null
-                ? Duration.between(startTime, Instant.now())
-                : Duration.ZERO;
         metrics.recordWorkflowFailed(message.getTopic(),
-                message.getServiceName(), duration);
-        metrics.recordDlq(message.getTopic());
+                message.getServiceName(), workflowDuration(message));
+        metrics.recordDlq(message.getTopic(), message.getServiceName());
     }
 
     /**
@@ -127,42 +114,36 @@ public class WorkflowMetricsListener {
      * @param message the workflow message
      */
     private void handleCancelled(final WorkflowMessage message) {
-        String executionId = message.getExecutionId();
-        workflowStartTimes.remove(executionId);
         metrics.recordWorkflowCancelled(message.getTopic(),
                 message.getServiceName());
     }
 
     /**
-     * Handles retry pending workflow status.
+     * Computes the duration of a workflow from the timestamps of its terminal message.
      *
-     * @param message the workflow message
+     * @param message the terminal workflow message
+     * @return the duration, or zero if the message carries no creation time
      */
-    private void handleRetryPending(final WorkflowMessage message) {
-        int attempt = message.getRetryInfo() != null
-                ? message.getRetryInfo().getAttempt() : 1;
-        metrics.recordRetry(message.getTopic(), attempt);
+    private Duration workflowDuration(final WorkflowMessage message) {
+        Instant createdAt = message.getCreatedAt();
+        if (createdAt == null) {
+            return Duration.ZERO;
+        }
+        Instant endedAt = message.getUpdatedAt() != null
+                ? message.getUpdatedAt() : clock.instant();
+        Duration duration = Duration.between(createdAt, endedAt);
+        return duration.isNegative() ? Duration.ZERO : duration;
     }
 
     /**
-     * Record step completion with duration.
-     * Called directly from StepExecutor after successful step execution.
+     * Handles retry pending workflow status.
      *
-     * @param topic the workflow topic
-     * @param stepLabel the step label
-     * @param executionId the execution ID
-     * @param stepId the step ID
+     * @param message the workflow message
      */
-    public void recordStepCompleted(final String topic,
-                                    final String stepLabel,
-                                    final String executionId,
-                                    final int stepId) {
-        String stepKey = executionId + ":" + stepId;
-        Instant startTime = stepStartTimes.remove(stepKey);
-        Duration duration = startTime != null
-                ? Duration.between(startTime, Instant.now())
-                : Duration.ZERO;
-        metrics.recordStepExecuted(topic, stepLabel, duration);
+    private void handleRetryPending(final WorkflowMessage message) {
+        int attempt = message.getRetryInfo() != null
+                ? message.getRetryInfo().getAttempt() : 1;
+        metrics.recordRetry(message.getTopic(), message.getServiceName(), attempt);
     }
 
     /**
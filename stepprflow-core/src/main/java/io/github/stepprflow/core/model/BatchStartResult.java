@@ -0,0 +1,22 @@
+package io.github.stepprflow.core.model;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Result of starting several workflow executions in one batch.
+ *
+ * @param executionIds the execution IDs, in the order of the submitted payloads
+ * @param delivery a future that completes once the broker acknowledged every message
+ */
+public record BatchStartResult(List<String> executionIds, CompletableFuture<Void> delivery) {
+
+    /**
+     * Get the number of executions started.
+     *
+     * @return the batch size
+     */
+    public int size() {
+        return executionIds.size();
+    }
+}
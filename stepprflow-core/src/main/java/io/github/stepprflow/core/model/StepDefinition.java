@@ -51,4 +51,18 @@ public class StepDefinition {
      * Step timeout.
      */
     private Duration timeout;
+
+    /**
+     * Parallel group name, or null if the step runs on its own.
+     */
+    private String group;
+
+    /**
+     * Check if this step is a branch of a parallel group.
+     *
+     * @return true if the step belongs to a parallel group
+     */
+    public boolean isGrouped() {
+        return group != null && !group.isEmpty();
+    }
 }
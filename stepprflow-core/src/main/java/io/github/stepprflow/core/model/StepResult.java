@@ -0,0 +1,57 @@
+package io.github.stepprflow.core.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Optional return value of a step method.
+ *
+ * <p>Steps usually return {@code void}. A step returning a {@code StepResult}
+ * can delay the rest of the workflow: the next step (or the next parallel
+ * group) is scheduled for the given time instead of running right away.
+ * The last step and the steps of a parallel group have no next step of their
+ * own: a delay returned by one of them fails the step.
+ * <pre>
+ * &#64;Step(id = 2, label = "Send reminder")
+ * public StepResult remind(OrderPayload payload) {
+ *     mailer.sendReminder(payload);
+ *     return StepResult.delayFor(Duration.ofDays(3));
+ * }
+ * </pre>
+ *
+ * @param delayUntil the time before which the next step must not run, or null
+ */
+public record StepResult(Instant delayUntil) {
+
+    /** Result continuing immediately. */
+    private static final StepResult PROCEED = new StepResult(null);
+
+    /**
+     * Continue with the next step immediately.
+     *
+     * @return the result
+     */
+    public static StepResult proceed() {
+        return PROCEED;
+    }
+
+    /**
+     * Run the next step at the given time.
+     *
+     * @param instant the time of the next step
+     * @return the result
+     */
+    public static StepResult delayUntil(final Instant instant) {
+        return new StepResult(instant);
+    }
+
+    /**
+     * Run the next step after the given delay.
+     *
+     * @param delay the delay before the next step
+     * @return the result
+     */
+    public static StepResult delayFor(final Duration delay) {
+        return new StepResult(Instant.now().plus(delay));
+    }
+}
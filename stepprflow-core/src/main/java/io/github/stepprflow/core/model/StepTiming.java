@@ -0,0 +1,64 @@
+package io.github.stepprflow.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Timing of a step run, reported by the agent that executed it.
+ * Carried by the messages the step sends, so that monitoring can tell the
+ * time spent in the broker from the time spent running the step.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepTiming {
+
+    /**
+     * ID of the step that was run.
+     */
+    private int stepId;
+
+    /**
+     * Time the message of the step was sent, null if unknown.
+     */
+    private Instant sentAt;
+
+    /**
+     * Time the agent started the step.
+     */
+    private Instant startedAt;
+
+    /**
+     * Time the message waited before the agent started the step, in milliseconds.
+     */
+    private long queuedMs;
+
+    /**
+     * Time the agent spent running the step, in milliseconds.
+     */
+    private long executionMs;
+
+    /**
+     * Start the timing of a step.
+     *
+     * @param stepId the step ID
+     * @param sentAt the time the message of the step was sent, or null
+     * @param startedAt the time the agent started the step
+     * @return the timing, with no execution time yet
+     */
+    public static StepTiming start(final int stepId, final Instant sentAt, final Instant startedAt) {
+        long queuedMs = sentAt != null ? Math.max(0, Duration.between(sentAt, startedAt).toMillis()) : 0;
+        return StepTiming.builder()
+                .stepId(stepId)
+                .sentAt(sentAt)
+                .startedAt(startedAt)
+                .queuedMs(queuedMs)
+                .build();
+    }
+}
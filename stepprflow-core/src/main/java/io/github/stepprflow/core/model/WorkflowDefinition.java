@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Definition of a workflow.
@@ -69,6 +70,11 @@ public class WorkflowDefinition {
      */
     private short replication;
 
+    /**
+     * Payload paths indexed by the monitor as search keys.
+     */
+    private List<String> searchKeys;
+
     /**
      * Get step by ID.
      *
@@ -103,4 +109,49 @@ public class WorkflowDefinition {
                 .max()
                 .orElse(0) == stepId;
     }
+
+    /**
+     * Get the branches of a parallel group, ordered by step ID.
+     *
+     * @param group the group name
+     * @return the grouped steps, empty if the group is unknown
+     */
+    public List<StepDefinition> getGroupSteps(final String group) {
+        if (group == null) {
+            return List.of();
+        }
+        return steps.stream()
+                .filter(s -> Objects.equals(group, s.getGroup()))
+                .toList();
+    }
+
+    /**
+     * Get the ID of the step that follows the given one.
+     * For a branch of a parallel group, this is the step after the whole group.
+     *
+     * @param stepId the step ID
+     * @return the next step ID
+     */
+    public int getNextStepId(final int stepId) {
+        StepDefinition step = getStep(stepId);
+        if (step == null || !step.isGrouped()) {
+            return stepId + 1;
+        }
+        return getGroupSteps(step.getGroup()).stream()
+                .mapToInt(StepDefinition::getId)
+                .max()
+                .orElse(stepId) + 1;
+    }
+
+    /**
+     * Check if the workflow ends after the given step.
+     * For a branch of a parallel group, this is true when the group is the
+     * last part of the workflow.
+     *
+     * @param stepId the step ID
+     * @return true if no step runs after this one
+     */
+    public boolean endsAfter(final int stepId) {
+        return isLastStep(getNextStepId(stepId) - 1);
+    }
 }
@@ -55,6 +55,11 @@ public class WorkflowMessage {
      */
     private String currentStepLabel;
 
+    /**
+     * Parallel group of the current step, if it is a branch of a group.
+     */
+    private String currentStepGroup;
+
     /**
      * Workflow status.
      */
@@ -75,6 +80,11 @@ public class WorkflowMessage {
      */
     private String securityContext;
 
+    /**
+     * W3C trace context of the sender ({@code traceparent} format).
+     */
+    private String traceParent;
+
     /**
      * Additional metadata.
      */
@@ -90,6 +100,23 @@ public class WorkflowMessage {
      */
     private ErrorInfo errorInfo;
 
+    /**
+     * Timing of the step that sent this message, reported for monitoring.
+     */
+    private StepTiming stepTiming;
+
+    /**
+     * Execution attempt number, incremented each time the execution is resumed.
+     * Null for the first attempt.
+     */
+    private Integer executionAttempt;
+
+    /**
+     * Time before which the message must not be executed, if it was scheduled.
+     * Receivers hold such messages until they are due.
+     */
+    private Instant scheduledAt;
+
     /**
      * Timestamp when message was created.
      */
@@ -148,7 +175,10 @@ public class WorkflowMessage {
                 .payload(updatedPayload)
                 .payloadType(this.payloadType)
                 .securityContext(this.securityContext)
+                .traceParent(this.traceParent)
                 .metadata(this.metadata)
+                .executionAttempt(this.executionAttempt)
+                .stepTiming(this.stepTiming)
                 .createdAt(this.createdAt)
                 .updatedAt(Instant.now())
                 .build();
@@ -169,12 +199,16 @@ public class WorkflowMessage {
                 .currentStep(this.currentStep)
                 .totalSteps(this.totalSteps)
                 .currentStepLabel(this.currentStepLabel)
+                .currentStepGroup(this.currentStepGroup)
                 .status(WorkflowStatus.FAILED)
                 .payload(this.payload)
                 .payloadType(this.payloadType)
                 .securityContext(this.securityContext)
+                .traceParent(this.traceParent)
                 .metadata(this.metadata)
+                .executionAttempt(this.executionAttempt)
                 .retryInfo(this.retryInfo)
+                .stepTiming(this.stepTiming)
                 .errorInfo(ErrorInfo.builder()
                         .message(errorMessage)
                         .code(errorCode)
@@ -202,7 +236,33 @@ public class WorkflowMessage {
                 .payload(this.payload)
                 .payloadType(this.payloadType)
                 .securityContext(this.securityContext)
+                .traceParent(this.traceParent)
                 .metadata(this.metadata)
+                .executionAttempt(this.executionAttempt)
+                .stepTiming(this.stepTiming)
+                .createdAt(this.createdAt)
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    /**
+     * Create the cancellation notice broadcast to agents.
+     * Payload and security context are left out: only the identity and
+     * position of the execution are needed to stop its remaining steps.
+     *
+     * @return a new message marked as cancelled
+     */
+    public WorkflowMessage cancellation() {
+        return WorkflowMessage.builder()
+                .executionId(this.executionId)
+                .correlationId(this.correlationId)
+                .topic(this.topic)
+                .serviceName(this.serviceName)
+                .currentStep(this.currentStep)
+                .totalSteps(this.totalSteps)
+                .currentStepLabel(this.currentStepLabel)
+                .status(WorkflowStatus.CANCELLED)
+                .executionAttempt(this.executionAttempt)
                 .createdAt(this.createdAt)
                 .updatedAt(Instant.now())
                 .build();
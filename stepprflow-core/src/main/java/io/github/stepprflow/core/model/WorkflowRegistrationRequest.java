@@ -82,6 +82,8 @@ public class WorkflowRegistrationRequest {
         private short replication;
         /** Timeout in milliseconds. */
         private Long timeoutMs;
+        /** Payload paths indexed as search keys. */
+        private List<String> searchKeys;
     }
 
     /**
@@ -104,5 +106,7 @@ public class WorkflowRegistrationRequest {
         private boolean continueOnFailure;
         /** Timeout in milliseconds. */
         private Long timeoutMs;
+        /** Parallel group, or null if the step runs on its own. */
+        private String group;
     }
 }
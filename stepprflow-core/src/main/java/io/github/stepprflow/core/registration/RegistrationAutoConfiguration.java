@@ -1,7 +1,9 @@
 package io.github.stepprflow.core.registration;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -29,6 +31,7 @@ public class RegistrationAutoConfiguration {
      * @param messageBroker    the message broker
      * @param appName          the application name
      * @param serverPort       the server port
+     * @param workflowMetrics  the workflow metrics sent with heartbeats (optional)
      * @return the registration client
      */
     @Bean
@@ -37,8 +40,9 @@ public class RegistrationAutoConfiguration {
             final WorkflowRegistry workflowRegistry,
             final MessageBroker messageBroker,
             @Value("${spring.application.name:unknown}") final String appName,
-            @Value("${server.port:8080}") final int serverPort) {
-        return new WorkflowRegistrationClient(
-                properties, workflowRegistry, messageBroker, appName, serverPort);
+            @Value("${server.port:8080}") final int serverPort,
+            final ObjectProvider<WorkflowMetrics> workflowMetrics) {
+        return new WorkflowRegistrationClient(properties, workflowRegistry, messageBroker,
+                appName, serverPort, workflowMetrics.getIfAvailable());
     }
 }
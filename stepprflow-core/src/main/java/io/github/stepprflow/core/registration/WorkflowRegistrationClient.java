@@ -1,6 +1,8 @@
 package io.github.stepprflow.core.registration;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.metrics.MetricsDelta;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
@@ -30,6 +32,10 @@ import java.util.concurrent.TimeUnit;
  * from {@link WorkflowRegistry} and sends them on the
  * {@code stepprflow.registration} topic. Maintains a heartbeat and
  * sends a deregistration message on shutdown.
+ *
+ * <p>When {@link WorkflowMetrics} are available, each heartbeat carries the
+ * {@link MetricsDelta} recorded since the previous one, which the monitoring
+ * server merges into a cluster-wide view.
  */
 @Slf4j
 public class WorkflowRegistrationClient {
@@ -42,6 +48,7 @@ public class WorkflowRegistrationClient {
     private final String appName;
     private final int serverPort;
     private final String instanceId;
+    private final WorkflowMetrics workflowMetrics;
 
     private ScheduledExecutorService initExecutor;
     private volatile boolean registered;
@@ -61,12 +68,33 @@ public class WorkflowRegistrationClient {
             final MessageBroker messageBroker,
             @Value("${spring.application.name:unknown}") final String appName,
             @Value("${server.port:8080}") final int serverPort) {
+        this(properties, workflowRegistry, messageBroker, appName, serverPort, null);
+    }
+
+    /**
+     * Creates a new WorkflowRegistrationClient sending metrics with heartbeats.
+     *
+     * @param properties       the registration properties
+     * @param workflowRegistry the workflow registry
+     * @param messageBroker    the message broker
+     * @param appName          the application name
+     * @param serverPort       the server port
+     * @param workflowMetrics  the workflow metrics (optional)
+     */
+    public WorkflowRegistrationClient(
+            final RegistrationProperties properties,
+            final WorkflowRegistry workflowRegistry,
+            final MessageBroker messageBroker,
+            final String appName,
+            final int serverPort,
+            final WorkflowMetrics workflowMetrics) {
         this.properties = properties;
         this.workflowRegistry = workflowRegistry;
         this.messageBroker = messageBroker;
         this.appName = appName;
         this.serverPort = serverPort;
         this.instanceId = UUID.randomUUID().toString();
+        this.workflowMetrics = workflowMetrics;
     }
 
     /**
@@ -93,7 +121,8 @@ public class WorkflowRegistrationClient {
     }
 
     /**
-     * Sends a heartbeat message via the broker.
+     * Sends a heartbeat message via the broker, with the metrics recorded
+     * since the previous heartbeat as payload.
      */
     @Scheduled(fixedDelayString = "${stepprflow.registration.heartbeat-interval-seconds:30}000")
     public void heartbeat() {
@@ -112,6 +141,7 @@ public class WorkflowRegistrationClient {
                     .topic(WorkflowRegistrationRequest.REGISTRATION_TOPIC)
                     .serviceName(appName)
                     .status(WorkflowStatus.COMPLETED)
+                    .payload(drainMetrics())
                     .metadata(metadata)
                     .build();
 
@@ -192,6 +222,18 @@ public class WorkflowRegistrationClient {
         }
     }
 
+    /**
+     * Take the metrics recorded since the previous heartbeat. A heartbeat
+     * that fails to send loses its interval.
+     */
+    private MetricsDelta drainMetrics() {
+        if (workflowMetrics == null) {
+            return null;
+        }
+        MetricsDelta delta = workflowMetrics.drainDelta();
+        return delta.getWorkflows().isEmpty() ? null : delta;
+    }
+
     private WorkflowRegistrationRequest buildRegistrationRequest(
             final List<WorkflowDefinition> definitions) {
         List<WorkflowRegistrationRequest.WorkflowInfo> workflows = definitions.stream()
@@ -218,6 +260,7 @@ public class WorkflowRegistrationClient {
                         .continueOnFailure(step.isContinueOnFailure())
                         .timeoutMs(step.getTimeout() != null
                                 ? step.getTimeout().toMillis() : null)
+                        .group(step.getGroup())
                         .build())
                 .toList();
 
@@ -229,6 +272,7 @@ public class WorkflowRegistrationClient {
                 .replication(definition.getReplication())
                 .timeoutMs(definition.getTimeout() != null
                         ? definition.getTimeout().toMillis() : null)
+                .searchKeys(definition.getSearchKeys())
                 .build();
     }
 
@@ -0,0 +1,48 @@
+package io.github.stepprflow.core.schedule;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+
+import java.util.List;
+
+/**
+ * Durable storage of the messages held by the {@link WorkflowScheduler}.
+ *
+ * <p>Messages are keyed by execution ID and step, so that the branches of a
+ * parallel group scheduled for the same execution are held side by side.
+ * A message is acknowledged to the broker only once {@link #hold} returned,
+ * so the store must have recorded it by then.
+ */
+public interface ScheduledMessageStore {
+
+    /**
+     * Record a message held until its scheduled time, replacing the message
+     * held for the same execution and step.
+     *
+     * @param message the scheduled message
+     */
+    void hold(WorkflowMessage message);
+
+    /**
+     * Forget a held message once it was published back to the broker.
+     *
+     * @param executionId the execution ID
+     * @param stepId the step ID
+     * @return true if a message was held for this execution and step
+     */
+    boolean release(String executionId, int stepId);
+
+    /**
+     * Get the held messages that are due first.
+     *
+     * @param limit the maximum number of messages
+     * @return the held messages, by ascending scheduled time
+     */
+    List<WorkflowMessage> findHeld(int limit);
+
+    /**
+     * Get the number of held messages.
+     *
+     * @return the number of held messages
+     */
+    int heldCount();
+}
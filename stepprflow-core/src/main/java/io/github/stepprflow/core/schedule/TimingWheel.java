@@ -0,0 +1,202 @@
+package io.github.stepprflow.core.schedule;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding items until a deadline.
+ *
+ * <p>Level 0 has one bucket per tick; each higher level has buckets
+ * {@code wheelSize} times wider than the level below. An item is linked into
+ * the lowest level whose window covers its deadline, and higher-level buckets
+ * are cascaded down when the wheel reaches them. Insertion and expiry are O(1)
+ * per item (an item is moved at most once per level), whatever the number of
+ * pending items.
+ *
+ * <p>Deadlines are rounded up to the next tick: an item never expires early,
+ * and at most one tick late. Not thread-safe; callers synchronize access.
+ *
+ * @param <T> the type of the scheduled items
+ */
+public final class TimingWheel<T> {
+
+    /** Duration of a tick in milliseconds. */
+    private final long tickMillis;
+
+    /** Number of bits of a level's bucket index (log2 of the wheel size). */
+    private final int shift;
+
+    /** Mask applied to bucket indexes (wheel size - 1). */
+    private final int mask;
+
+    /** Buckets of each level, allocated on first use. */
+    private final Node<T>[][] levels;
+
+    /** The last tick processed. */
+    private long currentTick;
+
+    /** Number of pending items. */
+    private int size;
+
+    /**
+     * Create a timing wheel.
+     *
+     * @param tickMillis the duration of a tick in milliseconds
+     * @param wheelSize the number of buckets per level (a power of two)
+     * @param startMillis the current time in epoch milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final long tickMillis, final int wheelSize, final long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.shift = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        // Enough levels to cover any positive tick number
+        this.levels = new Node[(Long.SIZE - 1 + shift - 1) / shift][];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Add an item expiring at the given deadline. Deadlines already passed
+     * expire on the next tick.
+     *
+     * @param deadlineMillis the deadline in epoch milliseconds
+     * @param item the item
+     */
+    public void add(final long deadlineMillis, final T item) {
+        long expiryTick = Math.ceilDiv(deadlineMillis, tickMillis);
+        insert(new Node<>(Math.max(expiryTick, currentTick + 1), item));
+        size++;
+    }
+
+    /**
+     * Advance the wheel to the given time, handing every expired item to the consumer.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param expired the consumer of expired items
+     * @return the number of expired items
+     */
+    public int advanceTo(final long nowMillis, final Consumer<? super T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return 0;
+        }
+
+        int count = 0;
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            // A new slot of a level starts: move its items down, highest level first
+            for (int level = levels.length - 1; level > 0; level--) {
+                if (levels[level] != null && (currentTick & ((1L << (shift * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+
+            Node<T>[] buckets = levels[0];
+            if (buckets == null) {
+                continue;
+            }
+            int index = (int) (currentTick & mask);
+            Node<T> node = buckets[index];
+            buckets[index] = null;
+            while (node != null) {
+                Node<T> next = node.next;
+                size--;
+                count++;
+                expired.accept(node.item);
+                node = next;
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return count;
+    }
+
+    /**
+     * Remove every pending item, handing each to the consumer.
+     *
+     * @param consumer the consumer of the removed items
+     * @return the number of removed items
+     */
+    public int drain(final Consumer<? super T> consumer) {
+        int count = 0;
+        for (Node<T>[] buckets : levels) {
+            if (buckets == null) {
+                continue;
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                for (Node<T> node = buckets[i]; node != null; node = node.next) {
+                    consumer.accept(node.item);
+                    count++;
+                }
+                buckets[i] = null;
+            }
+        }
+        size = 0;
+        return count;
+    }
+
+    /**
+     * Get the number of pending items.
+     *
+     * @return the number of pending items
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(final int level) {
+        Node<T>[] buckets = levels[level];
+        int index = (int) ((currentTick >> (shift * level)) & mask);
+        Node<T> node = buckets[index];
+        buckets[index] = null;
+        while (node != null) {
+            Node<T> next = node.next;
+            insert(node);
+            node = next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void insert(final Node<T> node) {
+        long expiry = node.expiryTick;
+        int level = 0;
+        while ((expiry >> (shift * level)) - (currentTick >> (shift * level)) > mask) {
+            level++;
+        }
+        Node<T>[] buckets = levels[level];
+        if (buckets == null) {
+            buckets = new Node[mask + 1];
+            levels[level] = buckets;
+        }
+        int index = (int) ((expiry >> (shift * level)) & mask);
+        node.next = buckets[index];
+        buckets[index] = node;
+    }
+
+    /**
+     * Entry of a bucket's linked list.
+     *
+     * @param <T> the type of the item
+     */
+    private static final class Node<T> {
+
+        /** The tick at which the item expires. */
+        private final long expiryTick;
+
+        /** The scheduled item. */
+        private final T item;
+
+        /** The next entry of the bucket. */
+        private Node<T> next;
+
+        Node(final long expiryTick, final T item) {
+            this.expiryTick = expiryTick;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package io.github.stepprflow.core.schedule;
+
+import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds workflow messages scheduled for later until they are due, then
+ * publishes them back to their workflow topic.
+ *
+ * <p>A deferred message is recorded in the {@link ScheduledMessageStore},
+ * keyed by execution ID and step, before the listener acknowledges it to the
+ * broker: a crash or a restart loses no scheduled step, since the held
+ * messages are reloaded on startup. A message is removed from the store once
+ * it was published back.
+ *
+ * <p>The messages due first are kept in a {@link TimingWheel} advanced by a
+ * single daemon thread every tick. The wheel holds at most
+ * {@code maxPending} messages; beyond that, messages are held in the store
+ * only, and loaded into the wheel as it drains or as soon as they are due.
+ */
+@Slf4j
+public class WorkflowScheduler {
+
+    /** Delay before publishing a due message again after a send failure. */
+    private static final long RESEND_DELAY_MILLIS = 1000;
+
+    /** No message is held in the store only. */
+    private static final long NO_OVERFLOW = Long.MAX_VALUE;
+
+    /** The message broker. */
+    private final MessageBroker messageBroker;
+
+    /** The store of held messages. */
+    private final ScheduledMessageStore store;
+
+    /** The execution store checked for cancellations, or null if none. */
+    private final WorkflowExecutionStore executionStore;
+
+    /** The clock. */
+    private final Clock clock;
+
+    /** Duration of a wheel tick in milliseconds. */
+    private final long tickMillis;
+
+    /** Maximum number of messages in the wheel. */
+    private final int maxPending;
+
+    /** Pending messages, guarded by its own monitor. */
+    private final TimingWheel<WorkflowMessage> wheel;
+
+    /** Execution ID and step of the messages in the wheel, guarded by the wheel monitor. */
+    private final Set<String> inWheel = new HashSet<>();
+
+    /** Earliest scheduled time of the messages held in the store only, guarded by the wheel monitor. */
+    private long overflowDueMillis = NO_OVERFLOW;
+
+    /** The thread advancing the wheel. */
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Create a scheduler.
+     *
+     * @param messageBroker the message broker
+     * @param store the store of held messages
+     * @param executionStore the execution store checked for cancellations (optional)
+     * @param tick the wheel tick, i.e. the scheduling precision
+     * @param wheelSize the number of buckets per wheel level
+     * @param maxPending the maximum number of messages kept in memory
+     */
+    public WorkflowScheduler(
+            final MessageBroker messageBroker,
+            final ScheduledMessageStore store,
+            final WorkflowExecutionStore executionStore,
+            final Duration tick,
+            final int wheelSize,
+            final int maxPending) {
+        this(messageBroker, store, executionStore, tick, wheelSize, maxPending, Clock.systemUTC());
+    }
+
+    WorkflowScheduler(
+            final MessageBroker messageBroker,
+            final ScheduledMessageStore store,
+            final WorkflowExecutionStore executionStore,
+            final Duration tick,
+            final int wheelSize,
+            final int maxPending,
+            final Clock clock) {
+        this.messageBroker = messageBroker;
+        this.store = store;
+        this.executionStore = executionStore;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.maxPending = maxPending;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, clock.millis());
+    }
+
+    /**
+     * Hold a message until its scheduled time if that time is still ahead.
+     * The message is recorded in the store when this method returns.
+     *
+     * @param message the received workflow message
+     * @return true if the message was deferred, false if it is due now
+     */
+    public boolean defer(final WorkflowMessage message) {
+        Instant scheduledAt = message.getScheduledAt();
+        if (scheduledAt == null || !scheduledAt.isAfter(clock.instant())) {
+            return false;
+        }
+        store.hold(message);
+        long dueMillis = scheduledAt.toEpochMilli();
+        synchronized (wheel) {
+            // A redelivered message is already in the wheel
+            String key = key(message);
+            if (!inWheel.contains(key)) {
+                if (wheel.size() < maxPending) {
+                    wheel.add(dueMillis, message);
+                    inWheel.add(key);
+                } else {
+                    overflowDueMillis = Math.min(overflowDueMillis, dueMillis);
+                }
+            }
+        }
+        log.info("Deferred step {} of workflow {} [{}] until {}",
+                message.getCurrentStep(), message.getTopic(), message.getExecutionId(), scheduledAt);
+        return true;
+    }
+
+    /**
+     * Get the number of messages waiting in memory for their scheduled time.
+     *
+     * @return the number of pending messages in the wheel
+     */
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Advance the wheel to the current time and publish the due messages,
+     * then load the messages held in the store only if the wheel has room
+     * for them or they are due.
+     */
+    public void tick() {
+        long now = clock.millis();
+        List<WorkflowMessage> due = new ArrayList<>();
+        boolean reload;
+        synchronized (wheel) {
+            wheel.advanceTo(now, due::add);
+            for (WorkflowMessage message : due) {
+                inWheel.remove(key(message));
+            }
+            reload = overflowDueMillis != NO_OVERFLOW
+                    && (overflowDueMillis <= now || wheel.size() <= maxPending / 2);
+        }
+        for (WorkflowMessage message : due) {
+            release(message);
+        }
+        if (reload) {
+            reload();
+        }
+    }
+
+    /**
+     * Reload the held messages from the store and start the ticker.
+     */
+    @PostConstruct
+    public void start() {
+        reload();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stepprflow-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::safeTick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the ticker. Pending messages stay in the store and are reloaded on
+     * the next start.
+     */
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (Exception e) {
+            log.error("Error advancing the workflow scheduler", e);
+        }
+    }
+
+    private void release(final WorkflowMessage message) {
+        if (executionStore != null && isCancelled(message.getExecutionId())) {
+            log.info("Dropping scheduled step {} of workflow {} [{}]: execution was cancelled",
+                    message.getCurrentStep(), message.getTopic(), message.getExecutionId());
+            forget(message);
+            return;
+        }
+
+        WorkflowMessage released = message.toBuilder()
+                .scheduledAt(null)
+                .updatedAt(clock.instant())
+                .build();
+        try {
+            messageBroker.send(released.getTopic(), released);
+        } catch (Exception e) {
+            log.warn("Failed to release scheduled step {} of workflow {} [{}], retrying: {}",
+                    message.getCurrentStep(), message.getTopic(), message.getExecutionId(), e.getMessage());
+            synchronized (wheel) {
+                wheel.add(clock.millis() + RESEND_DELAY_MILLIS, message);
+                inWheel.add(key(message));
+            }
+            return;
+        }
+
+        forget(message);
+        log.debug("Released scheduled step {} of workflow {} [{}]",
+                message.getCurrentStep(), message.getTopic(), message.getExecutionId());
+    }
+
+    private void forget(final WorkflowMessage message) {
+        try {
+            store.release(message.getExecutionId(), message.getCurrentStep());
+        } catch (Exception e) {
+            // The message is published again on the next start, the step deduplication skips it
+            log.warn("Failed to remove released step {} of workflow {} [{}] from the store: {}",
+                    message.getCurrentStep(), message.getTopic(), message.getExecutionId(), e.getMessage());
+        }
+    }
+
+    private boolean isCancelled(final String executionId) {
+        return executionStore.findByExecutionId(executionId)
+                .map(stored -> stored.getStatus() == WorkflowStatus.CANCELLED)
+                .orElse(false);
+    }
+
+    /**
+     * Load the held messages due first into the wheel, up to its capacity.
+     * Messages already due are published right away.
+     */
+    void reload() {
+        synchronized (wheel) {
+            // Messages deferred from now on lower it again if they overflow
+            overflowDueMillis = NO_OVERFLOW;
+        }
+        List<WorkflowMessage> held = store.findHeld(maxPending);
+        boolean truncated = held.size() < store.heldCount();
+        long now = clock.millis();
+        List<WorkflowMessage> due = new ArrayList<>();
+        int loaded = 0;
+        synchronized (wheel) {
+            long nextOverflow = NO_OVERFLOW;
+            for (WorkflowMessage message : held) {
+                String key = key(message);
+                long dueMillis = message.getScheduledAt() != null ? message.getScheduledAt().toEpochMilli() : now;
+                if (inWheel.contains(key)) {
+                    continue;
+                }
+                if (dueMillis <= now) {
+                    due.add(message);
+                } else if (wheel.size() < maxPending) {
+                    wheel.add(dueMillis, message);
+                    inWheel.add(key);
+                    loaded++;
+                } else {
+                    nextOverflow = dueMillis;
+                    break;
+                }
+            }
+            if (nextOverflow == NO_OVERFLOW && truncated) {
+                // Further messages may be held beyond the page read
+                nextOverflow = held.get(held.size() - 1).getScheduledAt().toEpochMilli();
+            }
+            overflowDueMillis = Math.min(overflowDueMillis, nextOverflow);
+        }
+        for (WorkflowMessage message : due) {
+            release(message);
+        }
+        if (loaded + due.size() > 0) {
+            log.info("Loaded {} scheduled messages from the store, {} of them due", loaded + due.size(), due.size());
+        }
+    }
+
+    private static String key(final WorkflowMessage message) {
+        return message.getExecutionId() + "#" + message.getCurrentStep();
+    }
+}
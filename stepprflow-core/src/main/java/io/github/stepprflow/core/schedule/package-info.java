@@ -0,0 +1,19 @@
+/**
+ * Delayed execution of workflow messages.
+ *
+ * <p>Messages carrying a future {@code scheduledAt} (workflows started with
+ * {@code WorkflowStarter.startAt}, or steps following one that returned
+ * {@code StepResult.delayUntil}) are recorded in a durable store before they
+ * are acknowledged, and held until they are due, then published back to their
+ * workflow topic. Since the messages travel through the broker, scheduled work
+ * is spread across instances by the usual consumer groups. Scheduling requires
+ * the store: without it, scheduled starts and delayed steps are rejected.
+ *
+ * <p>This package provides:
+ * <ul>
+ *   <li>A hierarchical timing wheel with O(1) insertion and expiry</li>
+ *   <li>The store of held messages, implemented by the embedded execution store</li>
+ *   <li>The scheduler used by the broker listeners</li>
+ * </ul>
+ */
+package io.github.stepprflow.core.schedule;
@@ -0,0 +1,112 @@
+package io.github.stepprflow.core.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory {@link StepJoinStore}.
+ *
+ * <p>Suitable when every branch of a workflow execution is handled by the
+ * same service instance: branches are spread over the consumers of a topic,
+ * so several instances need a shared store. Joins are removed once complete. A join whose
+ * branch failed stays pending so that resuming the branch can still complete
+ * the group; such joins are evicted after a time-to-live.
+ */
+public class InMemoryStepJoinStore implements StepJoinStore {
+
+    /** Default time-to-live of a pending join. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    /** Number of completions between two eviction sweeps. */
+    private static final int EVICTION_INTERVAL = 1024;
+
+    /** Pending joins keyed by execution ID and group. */
+    private final Map<String, PendingJoin> joins = new ConcurrentHashMap<>();
+
+    /** Completions since the last eviction sweep. */
+    private final AtomicInteger completionsSinceSweep = new AtomicInteger();
+
+    /** Time-to-live of a pending join. */
+    private final Duration ttl;
+
+    /**
+     * Create a store with the default time-to-live.
+     */
+    public InMemoryStepJoinStore() {
+        this(DEFAULT_TTL);
+    }
+
+    /**
+     * Create a store with the given time-to-live for pending joins.
+     *
+     * @param ttl how long a pending join is kept
+     */
+    public InMemoryStepJoinStore(final Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<Map<Integer, Map<String, Object>>> complete(
+            final String executionId,
+            final String group,
+            final int stepId,
+            final Map<String, Object> changes,
+            final int expectedBranches) {
+        if (completionsSinceSweep.incrementAndGet() >= EVICTION_INTERVAL) {
+            completionsSinceSweep.set(0);
+            evictExpired();
+        }
+
+        AtomicReference<Map<Integer, Map<String, Object>>> completed = new AtomicReference<>();
+        joins.compute(key(executionId, group), (k, join) -> {
+            PendingJoin current = join != null ? join : new PendingJoin(Instant.now());
+            current.branches().put(stepId, changes != null ? changes : Map.of());
+            if (current.branches().size() >= expectedBranches) {
+                completed.set(current.branches());
+                return null;
+            }
+            return current;
+        });
+        return Optional.ofNullable(completed.get());
+    }
+
+    /**
+     * Get the number of joins still waiting for branches.
+     *
+     * @return the pending join count
+     */
+    public int pendingJoins() {
+        return joins.size();
+    }
+
+    /**
+     * Remove pending joins older than the time-to-live.
+     */
+    void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        joins.values().removeIf(join -> join.startedAt().isBefore(cutoff));
+    }
+
+    private static String key(final String executionId, final String group) {
+        return executionId + ":" + group;
+    }
+
+    /**
+     * Branch contributions of a join that is not complete yet.
+     *
+     * @param startedAt when the first branch reported
+     * @param branches contributions keyed by step ID
+     */
+    private record PendingJoin(Instant startedAt, Map<Integer, Map<String, Object>> branches) {
+
+        PendingJoin(final Instant startedAt) {
+            this(startedAt, new TreeMap<>());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.stepprflow.core.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes and merges the payload changes of parallel step branches.
+ *
+ * <p>Every branch starts from the same payload. A branch contributes only the
+ * top-level fields it changed, so that branches working on different fields
+ * do not overwrite each other. When two branches change the same field, the
+ * branch with the highest step ID wins. Payloads that are not JSON objects
+ * are replaced as a whole.
+ */
+@Slf4j
+final class ParallelBranchMerger {
+
+    /** Key used for payloads that are not JSON objects. */
+    static final String WHOLE_PAYLOAD = "$payload";
+
+    /** Type of a branch contribution. */
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    /** The JSON object mapper. */
+    private final ObjectMapper objectMapper;
+
+    ParallelBranchMerger(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Take a snapshot of a payload before a branch runs.
+     *
+     * @param payload the payload
+     * @return the JSON tree of the payload
+     */
+    JsonNode snapshot(final Object payload) {
+        JsonNode node = objectMapper.valueToTree(payload);
+        return node != null ? node : NullNode.getInstance();
+    }
+
+    /**
+     * Compute the fields changed by a branch.
+     *
+     * @param before the payload snapshot taken before the branch ran
+     * @param result the payload after the branch ran
+     * @return the changed fields
+     */
+    Map<String, Object> changes(final JsonNode before, final Object result) {
+        JsonNode after = snapshot(result);
+        if (before instanceof ObjectNode && after instanceof ObjectNode) {
+            ObjectNode changed = objectMapper.createObjectNode();
+            for (Map.Entry<String, JsonNode> field : after.properties()) {
+                if (!field.getValue().equals(before.get(field.getKey()))) {
+                    changed.set(field.getKey(), field.getValue());
+                }
+            }
+            return objectMapper.convertValue(changed, MAP_TYPE);
+        }
+        if (after.equals(before)) {
+            return Map.of();
+        }
+        Map<String, Object> whole = new HashMap<>();
+        whole.put(WHOLE_PAYLOAD, objectMapper.convertValue(after, Object.class));
+        return whole;
+    }
+
+    /**
+     * Merge branch contributions into the payload the branches started from.
+     *
+     * @param before the payload snapshot taken before the branches ran
+     * @param contributions the changed fields of each branch, keyed by step ID
+     * @return the merged payload (maps and lists, as read from JSON)
+     */
+    Object merge(final JsonNode before, final Map<Integer, Map<String, Object>> contributions) {
+        JsonNode merged = before.deepCopy();
+        Map<String, Integer> writers = new HashMap<>();
+        for (Map.Entry<Integer, Map<String, Object>> branch : new TreeMap<>(contributions).entrySet()) {
+            for (Map.Entry<String, Object> change : branch.getValue().entrySet()) {
+                Integer previous = writers.put(change.getKey(), branch.getKey());
+                if (previous != null) {
+                    log.warn("Parallel steps {} and {} both changed '{}', keeping the value of step {}",
+                            previous, branch.getKey(), change.getKey(), branch.getKey());
+                }
+                JsonNode value = objectMapper.valueToTree(change.getValue());
+                if (merged instanceof ObjectNode object) {
+                    object.set(change.getKey(), value);
+                } else {
+                    merged = value != null ? value : NullNode.getInstance();
+                }
+            }
+        }
+        return objectMapper.convertValue(merged, Object.class);
+    }
+}
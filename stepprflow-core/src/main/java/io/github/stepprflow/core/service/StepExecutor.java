@@ -1,17 +1,30 @@
 package io.github.stepprflow.core.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.stepprflow.core.StepprFlowProperties;
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.dedup.StepDeduplicationGuard;
+import io.github.stepprflow.core.exception.WorkflowException;
+import io.github.stepprflow.core.exception.StepTimeoutException;
+import io.github.stepprflow.core.metrics.WorkflowMeters;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.model.ErrorInfo;
 import io.github.stepprflow.core.model.RetryInfo;
 import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.StepResult;
+import io.github.stepprflow.core.model.StepTiming;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.security.SecurityContextPropagator;
+import io.github.stepprflow.core.tracing.TraceHop;
+import io.github.stepprflow.core.tracing.WorkflowHopTracer;
 import io.github.stepprflow.core.util.StackTraceUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
@@ -19,6 +32,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Executes workflow steps.
@@ -48,6 +65,27 @@ public class StepExecutor {
     /** The security context propagator. */
     private final SecurityContextPropagator securityContextPropagator;
 
+    /** The join store for parallel step groups. */
+    private final StepJoinStore stepJoinStore;
+
+    /** The guard skipping redelivered steps, or null if disabled. */
+    private final StepDeduplicationGuard deduplicationGuard;
+
+    /** The registry of cancelled executions, or null if disabled. */
+    private final CancellationRegistry cancellationRegistry;
+
+    /** The metrics holding the meters of each workflow, or null if disabled. */
+    private final WorkflowMetrics workflowMetrics;
+
+    /** The tracer of broker hops, or null if tracing is disabled. */
+    private final WorkflowHopTracer hopTracer;
+
+    /** The scheduler holding delayed steps, or null if disabled. */
+    private final WorkflowScheduler scheduler;
+
+    /** Computes and merges the payload changes of parallel branches. */
+    private final ParallelBranchMerger branchMerger;
+
     /**
      * Constructor with qualified ObjectMapper.
      *
@@ -58,7 +96,9 @@ public class StepExecutor {
      * @param backoffCalculator the backoff calculator
      * @param callbackMethodInvoker the callback method invoker
      * @param securityContextPropagator the security context propagator
+     * @param collaborators the optional collaborators (all disabled if null)
      */
+    @Autowired
     public StepExecutor(
             final WorkflowRegistry registry,
             final MessageBroker messageBroker,
@@ -66,7 +106,8 @@ public class StepExecutor {
             @Qualifier("stepprflowObjectMapper") final ObjectMapper objectMapper,
             final BackoffCalculator backoffCalculator,
             final CallbackMethodInvoker callbackMethodInvoker,
-            final SecurityContextPropagator securityContextPropagator) {
+            final SecurityContextPropagator securityContextPropagator,
+            @Autowired(required = false) final StepExecutorCollaborators collaborators) {
         this.registry = registry;
         this.messageBroker = messageBroker;
         this.properties = properties;
@@ -74,6 +115,16 @@ public class StepExecutor {
         this.backoffCalculator = backoffCalculator;
         this.callbackMethodInvoker = callbackMethodInvoker;
         this.securityContextPropagator = securityContextPropagator;
+        StepExecutorCollaborators optional = collaborators != null
+                ? collaborators : StepExecutorCollaborators.none();
+        this.stepJoinStore = optional.getStepJoinStore() != null
+                ? optional.getStepJoinStore() : new InMemoryStepJoinStore();
+        this.deduplicationGuard = optional.getDeduplicationGuard();
+        this.cancellationRegistry = optional.getCancellationRegistry();
+        this.workflowMetrics = optional.getWorkflowMetrics();
+        this.hopTracer = optional.getHopTracer();
+        this.scheduler = optional.getScheduler();
+        this.branchMerger = new ParallelBranchMerger(objectMapper);
     }
 
     /**
@@ -82,9 +133,43 @@ public class StepExecutor {
      * @param message the workflow message
      */
     public void execute(final WorkflowMessage message) {
+        execute(message, 0);
+    }
+
+    /**
+     * Execute a workflow step consumed from the broker, as a traced hop
+     * started at the publish time of the message. The time the message
+     * waited in the broker is recorded on the meters of the workflow.
+     *
+     * @param message the workflow message
+     * @param publishedAtMillis the publish time in epoch milliseconds, or 0 if unknown
+     */
+    public void execute(final WorkflowMessage message, final long publishedAtMillis) {
+        WorkflowMeters meters = workflowMetrics != null
+                ? workflowMetrics.getBound(message.getTopic()) : null;
+        if (meters != null && publishedAtMillis > 0) {
+            meters.recordDwell(message.getCurrentStep(),
+                    TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - publishedAtMillis));
+        }
+        if (hopTracer == null) {
+            executeStep(message, meters, null);
+            return;
+        }
+        try (TraceHop hop = hopTracer.startHop(message, publishedAtMillis)) {
+            executeStep(message, meters, hop);
+        }
+    }
+
+    private void executeStep(final WorkflowMessage message, final WorkflowMeters meters, final TraceHop hop) {
         String topic = message.getTopic();
         int stepId = message.getCurrentStep();
 
+        if (cancellationRegistry != null && cancellationRegistry.isCancelled(message.getExecutionId())) {
+            log.info("Skipping step {} for workflow {} [{}]: execution was cancelled",
+                    stepId, topic, message.getExecutionId());
+            return;
+        }
+
         WorkflowDefinition definition = registry.getDefinition(topic);
         if (definition == null) {
             log.error("Unknown workflow topic: {}", topic);
@@ -97,6 +182,12 @@ public class StepExecutor {
             return;
         }
 
+        if (deduplicationGuard != null && deduplicationGuard.isDuplicate(message)) {
+            log.warn("Skipping step {} ({}) for workflow {} [{}]: already executed, message was redelivered",
+                    stepId, step.getLabel(), topic, message.getExecutionId());
+            return;
+        }
+
         log.info("Executing step {}/{} ({}) for workflow {} [{}]",
                 stepId, message.getTotalSteps(), step.getLabel(),
                 topic, message.getExecutionId());
@@ -113,38 +204,165 @@ public class StepExecutor {
         // Set the current step label on the message for monitoring
         message.setCurrentStepLabel(step.getLabel());
 
+        // Report the queue and run time of the step with the messages it sends
+        StepTiming timing = StepTiming.start(stepId, message.getUpdatedAt(), Instant.now());
+        message.setStepTiming(timing);
+        long receivedNanos = System.nanoTime();
+
+        JsonNode branchInput = null;
         try {
+            // Snapshot the payload a parallel branch starts from
+            if (step.isGrouped()) {
+                branchInput = branchMerger.snapshot(message.getPayload());
+            }
+
             // Deserialize payload
             Object payload = deserializePayload(message);
 
             // Execute step method
-            Method method = step.getMethod();
-            method.invoke(definition.getHandler(), payload);
+            long startNanos = System.nanoTime();
+            Object result = invokeStep(message, definition, step, payload, hop);
+            long endNanos = System.nanoTime();
+            timing.setExecutionMs(TimeUnit.NANOSECONDS.toMillis(endNanos - receivedNanos));
+            WorkflowMeters.StepMeters stepMeters = meters != null ? meters.step(stepId) : null;
+            if (stepMeters != null) {
+                stepMeters.recordExecuted(endNanos - startNanos);
+            }
+            Instant delayUntil = result instanceof StepResult stepResult ? stepResult.delayUntil() : null;
+            if (delayUntil != null && scheduler == null) {
+                throw new WorkflowException("Step " + stepId + " of workflow " + message.getTopic()
+                        + " returned a delay, but delaying steps requires the workflow scheduler"
+                        + " and its durable store (stepprflow.store.enabled=true)");
+            }
+            // The delay applies to the next step: a branch joins its group, the last step completes
+            if (delayUntil != null && (step.isGrouped() || definition.isLastStep(stepId))) {
+                throw new WorkflowException("Step " + stepId + " of workflow " + message.getTopic()
+                        + " returned a delay, but " + (step.isGrouped() ? "parallel steps" : "the last step")
+                        + " cannot delay the rest of the workflow");
+            }
 
-            // Check if last step
-            if (definition.isLastStep(stepId)) {
-                handleCompletion(message, definition, payload);
+            if (step.isGrouped()) {
+                joinBranch(message, definition, step, branchInput,
+                        branchMerger.changes(branchInput, payload), hop);
+            } else if (definition.isLastStep(stepId)) {
+                handleCompletion(message, definition, payload, hop);
             } else {
-                WorkflowMessage nextMessage = message.nextStepWithPayload(payload);
-                // Look up the next step's label
-                StepDefinition nextStep = definition.getStep(nextMessage.getCurrentStep());
-                if (nextStep != null) {
-                    nextMessage.setCurrentStepLabel(nextStep.getLabel());
-                }
-                messageBroker.send(topic, nextMessage);
-                log.info("Advanced to step {}/{} for workflow {} [{}]",
-                        nextMessage.getCurrentStep(), message.getTotalSteps(),
-                        topic, message.getExecutionId());
+                advance(message, definition, stepId, payload, delayUntil, hop);
+            }
+
+            if (deduplicationGuard != null) {
+                deduplicationGuard.markExecuted(message);
             }
 
         } catch (Exception e) {
-            handleFailure(message, step, definition, e);
+            timing.setExecutionMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - receivedNanos));
+            handleFailure(message, step, definition, branchInput, e, meters, hop);
         } finally {
             // Always clear security context after execution
             securityContextPropagator.clear();
         }
     }
 
+    private void advance(
+            final WorkflowMessage message,
+            final WorkflowDefinition definition,
+            final int stepId,
+            final Object payload,
+            final Instant scheduledAt,
+            final TraceHop hop) {
+        stampTrace(message, hop);
+        int nextStepId = definition.getNextStepId(stepId);
+        StepDefinition nextStep = definition.getStep(nextStepId);
+
+        if (nextStep != null && nextStep.isGrouped()) {
+            List<StepDefinition> branches = definition.getGroupSteps(nextStep.getGroup());
+            for (StepDefinition branch : branches) {
+                WorkflowMessage branchMessage = message.nextStepWithPayload(payload);
+                branchMessage.setCurrentStep(branch.getId());
+                branchMessage.setCurrentStepLabel(branch.getLabel());
+                branchMessage.setCurrentStepGroup(branch.getGroup());
+                branchMessage.setScheduledAt(scheduledAt);
+                messageBroker.send(message.getTopic(), branchMessage);
+            }
+            log.info("Dispatched {} parallel steps of group '{}' for workflow {} [{}]",
+                    branches.size(), nextStep.getGroup(),
+                    message.getTopic(), message.getExecutionId());
+            return;
+        }
+
+        WorkflowMessage nextMessage = message.nextStepWithPayload(payload);
+        nextMessage.setCurrentStep(nextStepId);
+        // Look up the next step's label
+        if (nextStep != null) {
+            nextMessage.setCurrentStepLabel(nextStep.getLabel());
+        }
+        nextMessage.setScheduledAt(scheduledAt);
+        messageBroker.send(message.getTopic(), nextMessage);
+        if (scheduledAt != null) {
+            log.info("Scheduled step {}/{} for workflow {} [{}] at {}",
+                    nextMessage.getCurrentStep(), message.getTotalSteps(),
+                    message.getTopic(), message.getExecutionId(), scheduledAt);
+        } else {
+            log.info("Advanced to step {}/{} for workflow {} [{}]",
+                    nextMessage.getCurrentStep(), message.getTotalSteps(),
+                    message.getTopic(), message.getExecutionId());
+        }
+    }
+
+    private Object invokeStep(
+            final WorkflowMessage message,
+            final WorkflowDefinition definition,
+            final StepDefinition step,
+            final Object payload,
+            final TraceHop hop) throws Exception {
+        Method method = step.getMethod();
+        if (hop == null) {
+            return method.invoke(definition.getHandler(), payload);
+        }
+        return hop.traceStep(message, step, () -> method.invoke(definition.getHandler(), payload));
+    }
+
+    private static void stampTrace(final WorkflowMessage message, final TraceHop hop) {
+        if (hop != null) {
+            hop.stamp(message);
+        }
+    }
+
+    private void joinBranch(
+            final WorkflowMessage message,
+            final WorkflowDefinition definition,
+            final StepDefinition step,
+            final JsonNode branchInput,
+            final Map<String, Object> changes,
+            final TraceHop hop) throws Exception {
+        List<StepDefinition> branches = definition.getGroupSteps(step.getGroup());
+        Optional<Map<Integer, Map<String, Object>>> joined = stepJoinStore.complete(
+                message.getExecutionId(), step.getGroup(), step.getId(), changes, branches.size());
+
+        if (joined.isEmpty()) {
+            log.info("Parallel step {} of group '{}' done, waiting for the other branches [{}]",
+                    step.getId(), step.getGroup(), message.getExecutionId());
+            return;
+        }
+
+        log.info("All {} parallel steps of group '{}' done for workflow {} [{}]",
+                branches.size(), step.getGroup(), message.getTopic(), message.getExecutionId());
+
+        // Continue from the last branch of the group with the merged payload
+        WorkflowMessage joinedMessage = message.toBuilder()
+                .currentStep(branches.get(branches.size() - 1).getId())
+                .currentStepGroup(null)
+                .payload(branchMerger.merge(branchInput, joined.get()))
+                .build();
+
+        if (definition.endsAfter(step.getId())) {
+            handleCompletion(joinedMessage, definition, deserializePayload(joinedMessage), hop);
+        } else {
+            advance(joinedMessage, definition, joinedMessage.getCurrentStep(),
+                    joinedMessage.getPayload(), null, hop);
+        }
+    }
+
     private Object deserializePayload(
             final WorkflowMessage message) throws Exception {
         if (message.getPayload() == null) {
@@ -169,9 +387,11 @@ public class StepExecutor {
     private void handleCompletion(
             final WorkflowMessage message,
             final WorkflowDefinition definition,
-            final Object updatedPayload) {
+            final Object updatedPayload,
+            final TraceHop hop) {
         log.info("Workflow {} completed successfully [{}]",
                  message.getTopic(), message.getExecutionId());
+        stampTrace(message, hop);
 
         // Create message with updated payload for callback and completion
         WorkflowMessage messageWithPayload = message.toBuilder()
@@ -197,7 +417,10 @@ public class StepExecutor {
             final WorkflowMessage message,
             final StepDefinition step,
             final WorkflowDefinition definition,
-            final Exception e) {
+            final JsonNode branchInput,
+            final Exception e,
+            final WorkflowMeters meters,
+            final TraceHop hop) {
         Throwable cause = e instanceof InvocationTargetException
                 ? e.getCause() : e;
         String errorMessage = cause.getMessage();
@@ -206,11 +429,33 @@ public class StepExecutor {
                 step.getId(), message.getTotalSteps(), step.getLabel(),
                 message.getTopic(), message.getExecutionId(), errorMessage, cause);
 
+        if (hop != null) {
+            hop.failed(cause);
+            hop.stamp(message);
+        }
+
+        WorkflowMeters.StepMeters stepMeters = meters != null ? meters.step(step.getId()) : null;
+        if (stepMeters != null) {
+            stepMeters.recordFailed();
+            if (cause instanceof StepTimeoutException) {
+                stepMeters.recordTimeout();
+            }
+        }
+
         // Check if should continue on failure
-        if (step.isContinueOnFailure() && !definition.isLastStep(step.getId())) {
+        if (step.isContinueOnFailure() && step.isGrouped()) {
+            log.info("Joining parallel group without changes despite failure (continueOnFailure=true)");
+            try {
+                joinBranch(message, definition, step, branchInput != null
+                        ? branchInput : branchMerger.snapshot(message.getPayload()), Map.of(), hop);
+                return;
+            } catch (Exception ex) {
+                log.error("Failed to join parallel group '{}' [{}]",
+                        step.getGroup(), message.getExecutionId(), ex);
+            }
+        } else if (step.isContinueOnFailure() && !definition.isLastStep(step.getId())) {
             log.info("Continuing to next step despite failure (continueOnFailure=true)");
-            WorkflowMessage nextMessage = message.nextStep();
-            messageBroker.send(message.getTopic(), nextMessage);
+            advance(message, definition, step.getId(), message.getPayload(), null, hop);
             return;
         }
 
@@ -262,11 +507,15 @@ public class StepExecutor {
                 .currentStep(message.getCurrentStep())
                 .totalSteps(message.getTotalSteps())
                 .currentStepLabel(message.getCurrentStepLabel())
+                .currentStepGroup(message.getCurrentStepGroup())
                 .status(WorkflowStatus.RETRY_PENDING)
                 .payload(message.getPayload())
                 .payloadType(message.getPayloadType())
                 .securityContext(message.getSecurityContext())
+                .traceParent(message.getTraceParent())
                 .metadata(message.getMetadata())
+                .executionAttempt(message.getExecutionAttempt())
+                .stepTiming(message.getStepTiming())
                 .retryInfo(newRetryInfo)
                 .createdAt(message.getCreatedAt())
                 .updatedAt(Instant.now())
@@ -305,11 +554,15 @@ public class StepExecutor {
                 .currentStep(message.getCurrentStep())
                 .totalSteps(message.getTotalSteps())
                 .currentStepLabel(message.getCurrentStepLabel())
+                .currentStepGroup(message.getCurrentStepGroup())
                 .status(WorkflowStatus.FAILED)
                 .payload(message.getPayload())
                 .payloadType(message.getPayloadType())
                 .securityContext(message.getSecurityContext())
+                .traceParent(message.getTraceParent())
                 .metadata(message.getMetadata())
+                .executionAttempt(message.getExecutionAttempt())
+                .stepTiming(message.getStepTiming())
                 .retryInfo(message.getRetryInfo())
                 .errorInfo(errorInfo)
                 .createdAt(message.getCreatedAt())
@@ -0,0 +1,47 @@
+package io.github.stepprflow.core.service;
+
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.dedup.StepDeduplicationGuard;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
+import io.github.stepprflow.core.tracing.WorkflowHopTracer;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Optional collaborators of the {@link StepExecutor}.
+ *
+ * <p>Each one is created by its own auto-configuration and may be disabled;
+ * a null collaborator turns the matching feature off.
+ */
+@Getter
+@Builder
+public final class StepExecutorCollaborators {
+
+    /** The join store for parallel step groups, or null for an in-memory one. */
+    private final StepJoinStore stepJoinStore;
+
+    /** The guard skipping redelivered steps, or null if disabled. */
+    private final StepDeduplicationGuard deduplicationGuard;
+
+    /** The registry of cancelled executions, or null if disabled. */
+    private final CancellationRegistry cancellationRegistry;
+
+    /** The metrics holding the meters bound to each workflow, or null if disabled. */
+    private final WorkflowMetrics workflowMetrics;
+
+    /** The tracer of broker hops, or null if tracing is disabled. */
+    private final WorkflowHopTracer hopTracer;
+
+    /** The scheduler holding delayed steps, or null if disabled; a delayed step then fails. */
+    private final WorkflowScheduler scheduler;
+
+    /**
+     * Get collaborators with every optional feature disabled.
+     *
+     * @return the empty collaborators
+     */
+    public static StepExecutorCollaborators none() {
+        return builder().build();
+    }
+}
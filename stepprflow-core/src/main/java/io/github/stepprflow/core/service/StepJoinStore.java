@@ -0,0 +1,42 @@
+package io.github.stepprflow.core.service;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Collects the results of parallel step branches until a group can be joined.
+ *
+ * <p>Each branch of a parallel group reports the payload fields it changed.
+ * The branch that completes the group receives every contribution and is
+ * responsible for merging them and advancing the workflow.
+ *
+ * <p>The default implementation keeps joins in memory, which is enough when
+ * all branches of an execution are consumed by the same service. Provide a
+ * shared implementation (database, cache) as a bean when branches may be
+ * processed by several instances.
+ */
+public interface StepJoinStore {
+
+    /**
+     * Record the completion of a branch.
+     *
+     * <p>Must be atomic: exactly one call per join returns the contributions,
+     * the one that brings the number of distinct completed branches to
+     * {@code expectedBranches}. A branch reporting twice (redelivery)
+     * replaces its previous contribution.
+     *
+     * @param executionId the workflow execution ID
+     * @param group the parallel group name
+     * @param stepId the ID of the completed branch
+     * @param changes the payload fields changed by the branch
+     * @param expectedBranches the number of branches in the group
+     * @return the contributions of all branches keyed by step ID once the
+     *         group is complete, empty otherwise
+     */
+    Optional<Map<Integer, Map<String, Object>>> complete(
+            String executionId,
+            String group,
+            int stepId,
+            Map<String, Object> changes,
+            int expectedBranches);
+}
@@ -5,6 +5,7 @@ import io.github.stepprflow.core.annotation.OnSuccess;
 import io.github.stepprflow.core.annotation.Step;
 import io.github.stepprflow.core.annotation.Timeout;
 import io.github.stepprflow.core.annotation.Topic;
+import io.github.stepprflow.core.exception.WorkflowDefinitionException;
 import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import lombok.RequiredArgsConstructor;
@@ -16,8 +17,11 @@ import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -99,6 +103,7 @@ public class WorkflowRegistry {
                         .skippable(stepAnnotation.skippable())
                         .continueOnFailure(stepAnnotation.continueOnFailure())
                         .timeout(timeout)
+                        .group(stepAnnotation.group().isEmpty() ? null : stepAnnotation.group())
                         .build());
             }
 
@@ -113,6 +118,7 @@ public class WorkflowRegistry {
 
         // Sort steps by ID
         steps.sort(Comparator.comparingInt(StepDefinition::getId));
+        validateGroups(topic.value(), steps);
 
         // Workflow-level timeout
         Timeout workflowTimeout = beanClass.getAnnotation(Timeout.class);
@@ -132,9 +138,41 @@ public class WorkflowRegistry {
                 .timeout(timeout)
                 .partitions(topic.partitions())
                 .replication(topic.replication())
+                .searchKeys(List.of(topic.searchKeys()))
                 .build();
     }
 
+    /**
+     * Check that parallel groups can be dispatched and joined.
+     * A group must be made of consecutive steps and cannot start the workflow.
+     */
+    private void validateGroups(final String topic, final List<StepDefinition> steps) {
+        Set<String> closedGroups = new HashSet<>();
+        String currentGroup = null;
+        for (int i = 0; i < steps.size(); i++) {
+            StepDefinition step = steps.get(i);
+            String group = step.getGroup();
+            if (group != null && i == 0) {
+                throw new WorkflowDefinitionException(topic,
+                        "first step " + step.getId() + " cannot belong to parallel group '" + group + "'");
+            }
+            if (!Objects.equals(group, currentGroup)) {
+                if (currentGroup != null) {
+                    closedGroups.add(currentGroup);
+                }
+                if (group != null && closedGroups.contains(group)) {
+                    throw new WorkflowDefinitionException(topic,
+                            "steps of parallel group '" + group + "' must have consecutive IDs");
+                }
+                currentGroup = group;
+            }
+            if (group != null && steps.get(i - 1).getId() + 1 != step.getId()) {
+                throw new WorkflowDefinitionException(topic,
+                        "parallel step " + step.getId() + " must directly follow step " + steps.get(i - 1).getId());
+            }
+        }
+    }
+
     /**
      * Get workflow definition by topic.
      *
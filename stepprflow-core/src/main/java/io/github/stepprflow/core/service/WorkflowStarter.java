@@ -1,7 +1,10 @@
 package io.github.stepprflow.core.service;
 
+import io.github.stepprflow.core.model.BatchStartResult;
 import io.github.stepprflow.core.model.WorkflowMessage;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -29,6 +32,20 @@ public interface WorkflowStarter {
      */
     String start(String topic, Object payload, Map<String, Object> metadata);
 
+    /**
+     * Start a workflow at a later time.
+     * The start message is published now and held by the receiving instance
+     * until the given time. Requires the workflow scheduler, which keeps the
+     * held messages in the execution store.
+     *
+     * @param topic   The workflow topic
+     * @param payload The payload object
+     * @param startAt The time at which the first step runs
+     * @return The execution ID
+     * @throws io.github.stepprflow.core.exception.WorkflowException if no scheduler is configured
+     */
+    String startAt(String topic, Object payload, Instant startAt);
+
     /**
      * Start a workflow asynchronously.
      *
@@ -38,6 +55,18 @@ public interface WorkflowStarter {
      */
     CompletableFuture<String> startAsync(String topic, Object payload);
 
+    /**
+     * Start one workflow execution per payload in a single batch.
+     * The definition lookup and security context capture happen once, and the
+     * messages are handed to the broker together.
+     *
+     * @param topic    The workflow topic
+     * @param payloads The payload objects
+     * @param metadata Additional metadata shared by every execution
+     * @return The execution IDs and a future for the combined delivery
+     */
+    BatchStartResult startBatch(String topic, Collection<?> payloads, Map<String, Object> metadata);
+
     /**
      * Start a workflow and return the full message.
      *
@@ -49,6 +78,7 @@ public interface WorkflowStarter {
 
     /**
      * Resume a paused or failed workflow.
+     * Requires a {@link WorkflowExecutionStore} holding the execution state.
      *
      * @param executionId The execution ID
      * @param stepId      The step to resume from (or null for next step)
@@ -56,7 +86,9 @@ public interface WorkflowStarter {
     void resume(String executionId, Integer stepId);
 
     /**
-     * Cancel a running workflow.
+     * Cancel a running workflow: the cancellation is broadcast to all agents,
+     * which skip the remaining steps of the execution.
+     * Requires a {@link WorkflowExecutionStore} or a cancellation broadcaster.
      *
      * @param executionId The execution ID
      */
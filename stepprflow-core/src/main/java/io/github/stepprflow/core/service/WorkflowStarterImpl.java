@@ -1,15 +1,27 @@
 package io.github.stepprflow.core.service;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
 import io.github.stepprflow.core.exception.WorkflowException;
+import io.github.stepprflow.core.exception.WorkflowNotFoundException;
+import io.github.stepprflow.core.exception.WorkflowStateException;
+import io.github.stepprflow.core.model.BatchStartResult;
+import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.security.SecurityContextPropagator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -33,6 +45,18 @@ public class WorkflowStarterImpl implements WorkflowStarter {
     /** The service name. */
     private final String serviceName;
 
+    /** The local execution store, if any (required for resume). */
+    private final WorkflowExecutionStore executionStore;
+
+    /** The registry of cancelled executions, if enabled. */
+    private final CancellationRegistry cancellationRegistry;
+
+    /** The broadcaster of cancellations to other agents, if any. */
+    private final CancellationBroadcaster cancellationBroadcaster;
+
+    /** The scheduler holding scheduled starts, if enabled (required for startAt). */
+    private final WorkflowScheduler scheduler;
+
     /**
      * Constructs a new WorkflowStarterImpl.
      *
@@ -40,16 +64,29 @@ public class WorkflowStarterImpl implements WorkflowStarter {
      * @param broker the message broker
      * @param propagator the security context propagator
      * @param appName the service name
+     * @param store the local execution store (optional)
+     * @param cancellations the registry of cancelled executions (optional)
+     * @param broadcaster the broadcaster of cancellations (optional)
+     * @param workflowScheduler the scheduler of scheduled starts (optional)
      */
+    @Autowired
     public WorkflowStarterImpl(
             final WorkflowRegistry workflowRegistry,
             final MessageBroker broker,
             final SecurityContextPropagator propagator,
-            @Value("${spring.application.name:unknown}") final String appName) {
+            @Value("${spring.application.name:unknown}") final String appName,
+            @Autowired(required = false) final WorkflowExecutionStore store,
+            @Autowired(required = false) final CancellationRegistry cancellations,
+            @Autowired(required = false) final CancellationBroadcaster broadcaster,
+            @Autowired(required = false) final WorkflowScheduler workflowScheduler) {
         this.registry = workflowRegistry;
         this.messageBroker = broker;
         this.securityContextPropagator = propagator;
         this.serviceName = appName;
+        this.executionStore = store;
+        this.cancellationRegistry = cancellations;
+        this.cancellationBroadcaster = broadcaster;
+        this.scheduler = workflowScheduler;
         log.info("WorkflowStarterImpl initialized with SecurityContextPropagator: {}",
                 propagator.getClass().getName());
     }
@@ -69,30 +106,13 @@ public class WorkflowStarterImpl implements WorkflowStarter {
             throw new WorkflowException("Unknown workflow topic: " + topic);
         }
 
-        String executionId = UUID.randomUUID().toString();
-
         // Capture security context from current thread
         String securityContext = securityContextPropagator.capture();
         log.debug("Captured security context: {}", securityContext != null ? "present" : "null");
 
-        // Get the first step's label
-        String firstStepLabel = definition.getStep(1) != null
-                ? definition.getStep(1).getLabel() : null;
-
-        WorkflowMessage message = WorkflowMessage.builder()
-                .executionId(executionId)
-                .correlationId(UUID.randomUUID().toString())
-                .topic(topic)
-                .serviceName(serviceName)
-                .currentStep(1)
-                .totalSteps(definition.getTotalSteps())
-                .currentStepLabel(firstStepLabel)
-                .status(WorkflowStatus.PENDING)
-                .payload(payload)
-                .payloadType(payload.getClass().getName())
-                .securityContext(securityContext)
-                .metadata(metadata)
-                .build();
+        WorkflowMessage message = newStartMessage(topic, definition, firstStepLabel(definition),
+                payload, metadata, securityContext);
+        String executionId = message.getExecutionId();
 
         log.info("Starting workflow: topic={}, serviceName={}, executionId={}, securityContext={}",
                  topic, serviceName, executionId, securityContext != null ? "present" : "null");
@@ -101,6 +121,32 @@ public class WorkflowStarterImpl implements WorkflowStarter {
         return executionId;
     }
 
+    @Override
+    public String startAt(
+            final String topic,
+            final Object payload,
+            final Instant startAt) {
+        if (scheduler == null) {
+            throw new WorkflowException("Scheduled starts require the workflow scheduler and its durable store "
+                    + "(stepprflow.store.enabled=true)");
+        }
+        WorkflowDefinition definition = registry.getDefinition(topic);
+        if (definition == null) {
+            throw new WorkflowException("Unknown workflow topic: " + topic);
+        }
+
+        String securityContext = securityContextPropagator.capture();
+        WorkflowMessage message = newStartMessage(topic, definition, firstStepLabel(definition),
+                payload, null, securityContext);
+        message.setScheduledAt(startAt);
+
+        log.info("Scheduling workflow: topic={}, serviceName={}, executionId={}, startAt={}",
+                 topic, serviceName, message.getExecutionId(), startAt);
+        messageBroker.send(topic, message);
+
+        return message.getExecutionId();
+    }
+
     @Override
     public CompletableFuture<String> startAsync(
             final String topic,
@@ -108,6 +154,38 @@ public class WorkflowStarterImpl implements WorkflowStarter {
         return CompletableFuture.supplyAsync(() -> start(topic, payload));
     }
 
+    @Override
+    public BatchStartResult startBatch(
+            final String topic,
+            final Collection<?> payloads,
+            final Map<String, Object> metadata) {
+        WorkflowDefinition definition = registry.getDefinition(topic);
+        if (definition == null) {
+            throw new WorkflowException("Unknown workflow topic: " + topic);
+        }
+
+        // Capture security context and first step once for the whole batch
+        String securityContext = securityContextPropagator.capture();
+        String firstStepLabel = firstStepLabel(definition);
+
+        List<WorkflowMessage> messages = new ArrayList<>(payloads.size());
+        List<String> executionIds = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            WorkflowMessage message = newStartMessage(topic, definition, firstStepLabel,
+                    payload, metadata, securityContext);
+            messages.add(message);
+            executionIds.add(message.getExecutionId());
+        }
+
+        log.info("Starting {} workflows in batch: topic={}, serviceName={}, securityContext={}",
+                 messages.size(), topic, serviceName, securityContext != null ? "present" : "null");
+        CompletableFuture<Void> delivery = messages.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : messageBroker.sendBatch(topic, messages);
+
+        return new BatchStartResult(List.copyOf(executionIds), delivery);
+    }
+
     @Override
     public WorkflowMessage startAndGetMessage(
             final String topic,
@@ -117,17 +195,28 @@ public class WorkflowStarterImpl implements WorkflowStarter {
             throw new WorkflowException("Unknown workflow topic: " + topic);
         }
 
-        String executionId = UUID.randomUUID().toString();
-
         // Capture security context from current thread
         String securityContext = securityContextPropagator.capture();
 
-        // Get the first step's label
-        String firstStepLabel = definition.getStep(1) != null
-                ? definition.getStep(1).getLabel() : null;
+        WorkflowMessage message = newStartMessage(topic, definition, firstStepLabel(definition),
+                payload, null, securityContext);
+        String executionId = message.getExecutionId();
 
-        WorkflowMessage message = WorkflowMessage.builder()
-                .executionId(executionId)
+        log.info("Starting workflow: topic={}, executionId={}", topic, executionId);
+        messageBroker.send(topic, message);
+
+        return message;
+    }
+
+    private WorkflowMessage newStartMessage(
+            final String topic,
+            final WorkflowDefinition definition,
+            final String firstStepLabel,
+            final Object payload,
+            final Map<String, Object> metadata,
+            final String securityContext) {
+        return WorkflowMessage.builder()
+                .executionId(UUID.randomUUID().toString())
                 .correlationId(UUID.randomUUID().toString())
                 .topic(topic)
                 .serviceName(serviceName)
@@ -138,26 +227,93 @@ public class WorkflowStarterImpl implements WorkflowStarter {
                 .payload(payload)
                 .payloadType(payload.getClass().getName())
                 .securityContext(securityContext)
+                .metadata(metadata)
                 .build();
+    }
 
-        log.info("Starting workflow: topic={}, executionId={}", topic, executionId);
-        messageBroker.send(topic, message);
-
-        return message;
+    private static String firstStepLabel(final WorkflowDefinition definition) {
+        StepDefinition firstStep = definition.getStep(1);
+        return firstStep != null ? firstStep.getLabel() : null;
     }
 
     @Override
     public void resume(final String executionId, final Integer stepId) {
-        log.info("Resume workflow is not yet implemented");
-        throw new UnsupportedOperationException(
-                "Resume is implemented in async-workflow-monitor");
+        WorkflowMessage current = findStoredExecution(executionId);
+        WorkflowStatus status = current.getStatus();
+        if (status != WorkflowStatus.FAILED
+                && status != WorkflowStatus.PAUSED
+                && status != WorkflowStatus.RETRY_PENDING) {
+            throw new WorkflowStateException(executionId, status, "resumed");
+        }
+
+        int step = stepId != null ? stepId : current.getCurrentStep();
+        WorkflowDefinition definition = registry.getDefinition(current.getTopic());
+        StepDefinition stepDefinition = definition != null ? definition.getStep(step) : null;
+        int attempt = current.getExecutionAttempt() != null ? current.getExecutionAttempt() + 1 : 2;
+
+        WorkflowMessage message = current.toBuilder()
+                .currentStep(step)
+                .currentStepLabel(stepDefinition != null ? stepDefinition.getLabel() : null)
+                .currentStepGroup(stepDefinition != null ? stepDefinition.getGroup() : null)
+                .status(WorkflowStatus.IN_PROGRESS)
+                .retryInfo(null)
+                .errorInfo(null)
+                .executionAttempt(attempt)
+                .scheduledAt(null)
+                .updatedAt(Instant.now())
+                .build();
+
+        executionStore.save(message);
+        log.info("Resuming workflow {} from step {} (attempt {})", executionId, step, attempt);
+        messageBroker.send(message.getTopic(), message);
     }
 
     @Override
     public void cancel(final String executionId) {
-        log.info("Cancel workflow is not yet implemented");
-        throw new UnsupportedOperationException(
-                "Cancel is implemented in async-workflow-monitor");
+        if (executionStore == null && cancellationBroadcaster == null) {
+            throw new UnsupportedOperationException(
+                    "Cancel requires a WorkflowExecutionStore or a cancellation broadcaster: "
+                            + "enable stepprflow.store or stepprflow.cancellation");
+        }
+
+        WorkflowMessage cancelled;
+        if (executionStore != null) {
+            WorkflowMessage current = findStoredExecution(executionId);
+            if (current.getStatus() == WorkflowStatus.COMPLETED
+                    || current.getStatus() == WorkflowStatus.CANCELLED) {
+                throw new WorkflowStateException(executionId, current.getStatus(), "cancelled");
+            }
+            cancelled = current.toBuilder()
+                    .status(WorkflowStatus.CANCELLED)
+                    .updatedAt(Instant.now())
+                    .build();
+            executionStore.save(cancelled);
+        } else {
+            cancelled = WorkflowMessage.builder()
+                    .executionId(executionId)
+                    .status(WorkflowStatus.CANCELLED)
+                    .updatedAt(Instant.now())
+                    .build();
+        }
+
+        // Stop local steps right away, then tell the other agents
+        if (cancellationRegistry != null) {
+            cancellationRegistry.cancel(executionId);
+        }
+        if (cancellationBroadcaster != null) {
+            cancellationBroadcaster.broadcast(cancelled.cancellation());
+        }
+        log.info("Cancelled workflow {}", executionId);
+    }
+
+    private WorkflowMessage findStoredExecution(final String executionId) {
+        if (executionStore == null) {
+            throw new UnsupportedOperationException(
+                    "Resume requires a WorkflowExecutionStore: enable stepprflow.store "
+                            + "or use the stepprflow monitor");
+        }
+        return executionStore.findByExecutionId(executionId)
+                .orElseThrow(() -> new WorkflowNotFoundException(executionId));
     }
 
     @Override
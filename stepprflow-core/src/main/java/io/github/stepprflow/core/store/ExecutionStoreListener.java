@@ -0,0 +1,54 @@
+package io.github.stepprflow.core.store;
+
+import io.github.stepprflow.core.event.WorkflowMessageEvent;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+
+import java.util.Optional;
+
+/**
+ * Records the state carried by each received workflow message in the
+ * {@link WorkflowExecutionStore}.
+ *
+ * <p>The stored state is the latest message seen for an execution on any
+ * topic the agent consumes (workflow, retry, completed and DLQ topics).
+ * A cancelled execution keeps its status, so that in-flight step messages
+ * do not overwrite the cancellation.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionStoreListener {
+
+    /**
+     * The execution store.
+     */
+    private final WorkflowExecutionStore store;
+
+    /**
+     * Handles workflow message events.
+     *
+     * @param event the workflow message event
+     */
+    @EventListener
+    public void onWorkflowMessage(final WorkflowMessageEvent event) {
+        WorkflowMessage message = event.getMessage();
+        if (message.getExecutionId() == null) {
+            return;
+        }
+        try {
+            Optional<WorkflowMessage> current = store.findByExecutionId(message.getExecutionId());
+            if (current.isPresent() && current.get().getStatus() == WorkflowStatus.CANCELLED) {
+                log.debug("Ignoring message for cancelled execution {}", message.getExecutionId());
+                return;
+            }
+            store.save(message);
+        } catch (Exception e) {
+            log.warn("Error storing state of workflow {} [{}]: {}",
+                    message.getTopic(), message.getExecutionId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,794 @@
+package io.github.stepprflow.core.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.stepprflow.core.exception.WorkflowException;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.ScheduledMessageStore;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded {@link WorkflowExecutionStore} backed by a memory-mapped,
+ * append-only log file.
+ *
+ * <p>Every save appends the full message as a JSON record, every delete
+ * appends a tombstone. An in-memory index maps each execution ID to the
+ * offset of its latest record, with secondary indexes by topic and status,
+ * so lookups never scan the log. Records carry a CRC32 checksum: when the
+ * file is reopened, replay stops at the first torn or corrupt record.
+ *
+ * <p>The same log holds the messages of the
+ * {@link io.github.stepprflow.core.schedule.WorkflowScheduler}: each one is
+ * appended as a hold record keyed by execution ID and step, and a release
+ * record retires it once it was published back to the broker.
+ *
+ * <p>Superseded records are reclaimed by compaction, which rewrites the live
+ * records to a new file and atomically replaces the log. Once the dead
+ * fraction of the log exceeds the configured ratio, a write queues a
+ * compaction on a background thread: it copies the live records without
+ * blocking writes, then copies the records appended meanwhile and swaps the
+ * files under the write lock.
+ *
+ * <p>By default writes are not forced to disk: they survive a process crash
+ * (the mapped pages belong to the OS page cache) but not a power loss. Enable
+ * {@code syncWrites} to force each record before the write returns.
+ */
+@Slf4j
+public class MappedWorkflowExecutionStore implements WorkflowExecutionStore, ScheduledMessageStore, Closeable {
+
+    /** Magic number at the start of the file ("SFES"). */
+    private static final int MAGIC = 0x53464553;
+
+    /** File format version. */
+    private static final int VERSION = 1;
+
+    /** Size of the file header in bytes. */
+    private static final int FILE_HEADER_SIZE = 8;
+
+    /** Size of a record header in bytes (length, checksum, operation). */
+    private static final int RECORD_HEADER_SIZE = 9;
+
+    /** Record operation: save. */
+    private static final byte OP_SAVE = 1;
+
+    /** Record operation: delete. */
+    private static final byte OP_DELETE = 2;
+
+    /** Record operation: hold a scheduled message. */
+    private static final byte OP_HOLD = 3;
+
+    /** Record operation: release a scheduled message. */
+    private static final byte OP_RELEASE = 4;
+
+    /** Logs smaller than this are never compacted. */
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+    /** Order of the held scheduled messages: due first, then by execution ID and step. */
+    private static final Comparator<HeldEntry> DUE_ORDER = Comparator.comparingLong(HeldEntry::dueMillis)
+            .thenComparing(HeldEntry::key);
+
+    /** The log file. */
+    private final Path path;
+
+    /** Mapper used to serialize messages. */
+    private final ObjectMapper objectMapper;
+
+    /** Whether each record is forced to disk before the write returns. */
+    private final boolean syncWrites;
+
+    /** Dead fraction of the log that triggers compaction. */
+    private final double compactionRatio;
+
+    /** Guards the mapping: reads share it, writes and remaps are exclusive. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Location of the latest record of each execution. */
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    /** Execution IDs by topic. */
+    private final Map<String, Set<String>> byTopic = new ConcurrentHashMap<>();
+
+    /** Execution IDs by status. */
+    private final Map<WorkflowStatus, Set<String>> byStatus = new ConcurrentHashMap<>();
+
+    /** Location of the held scheduled messages, by execution ID and step. */
+    private final Map<String, HeldEntry> held = new ConcurrentHashMap<>();
+
+    /** The held scheduled messages, due first. */
+    private final NavigableSet<HeldEntry> heldByDue = new ConcurrentSkipListSet<>(DUE_ORDER);
+
+    /** Runs the compactions queued by writes. */
+    private final Executor compactor;
+
+    /** Whether a compaction is queued or running. */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /** Serializes compactions, which do not hold the store lock throughout. */
+    private final Object compactionLock = new Object();
+
+    /** The open file channel. */
+    private FileChannel channel;
+
+    /** The mapped region of the file. */
+    private MappedByteBuffer buffer;
+
+    /** Offset at which the next record is written. */
+    private int writePosition;
+
+    /** Bytes held by records that are still referenced by the index. */
+    private long liveBytes;
+
+    /** Whether the store has been closed. */
+    private boolean closed;
+
+    /**
+     * Open (or create) a store and replay its log.
+     *
+     * @param path the log file
+     * @param objectMapper the mapper used to serialize messages
+     * @param initialSize the initial size of the mapped region in bytes
+     * @param syncWrites whether each record is forced to disk
+     * @param compactionRatio dead fraction of the log that triggers compaction
+     */
+    public MappedWorkflowExecutionStore(
+            final Path path,
+            final ObjectMapper objectMapper,
+            final long initialSize,
+            final boolean syncWrites,
+            final double compactionRatio) {
+        this(path, objectMapper, initialSize, syncWrites, compactionRatio, task -> Thread.ofPlatform()
+                .name("stepprflow-store-compaction")
+                .daemon(true)
+                .start(task));
+    }
+
+    MappedWorkflowExecutionStore(
+            final Path path,
+            final ObjectMapper objectMapper,
+            final long initialSize,
+            final boolean syncWrites,
+            final double compactionRatio,
+            final Executor compactor) {
+        this.compactor = compactor;
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.syncWrites = syncWrites;
+        this.compactionRatio = compactionRatio;
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+            if (!created && !hasHeader()) {
+                channel.close();
+                throw new WorkflowException("Not a workflow execution store: " + path);
+            }
+            long size = Math.max(Math.max(initialSize, channel.size()), FILE_HEADER_SIZE);
+            this.buffer = map(checkedSize(size));
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+            }
+            replay();
+        } catch (IOException e) {
+            throw new WorkflowException("Failed to open workflow execution store " + path, e);
+        }
+        log.info("Opened workflow execution store {} with {} executions ({} bytes)",
+                path, index.size(), writePosition);
+    }
+
+    @Override
+    public Optional<WorkflowMessage> findByExecutionId(final String executionId) {
+        lock.readLock().lock();
+        byte[] json;
+        try {
+            Entry entry = index.get(executionId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            json = readBody(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Optional.of(deserialize(json));
+    }
+
+    @Override
+    public void save(final WorkflowMessage message) {
+        byte[] json = serialize(message);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int offset = append(OP_SAVE, json);
+            Entry entry = new Entry(offset, RECORD_HEADER_SIZE + json.length,
+                    message.getTopic(), message.getStatus());
+            Entry previous = index.put(message.getExecutionId(), entry);
+            if (previous != null) {
+                liveBytes -= previous.length();
+                unindex(message.getExecutionId(), previous);
+            }
+            liveBytes += entry.length();
+            addTo(byTopic, entry.topic(), message.getExecutionId());
+            addTo(byStatus, entry.status(), message.getExecutionId());
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<WorkflowMessage> findByStatus(final WorkflowStatus status) {
+        return findAll(idsOf(byStatus, status), null);
+    }
+
+    @Override
+    public List<WorkflowMessage> findByTopic(final String topic) {
+        return findAll(idsOf(byTopic, topic), null);
+    }
+
+    @Override
+    public List<WorkflowMessage> findByTopicAndStatus(final String topic, final WorkflowStatus status) {
+        Set<String> topicIds = idsOf(byTopic, topic);
+        Set<String> statusIds = idsOf(byStatus, status);
+        // Walk the smaller index and filter on the other attribute
+        return topicIds.size() <= statusIds.size()
+                ? findAll(topicIds, entry -> entry.status() == status)
+                : findAll(statusIds, entry -> topic.equals(entry.topic()));
+    }
+
+    @Override
+    public boolean delete(final String executionId) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            Entry previous = index.remove(executionId);
+            if (previous == null) {
+                return false;
+            }
+            liveBytes -= previous.length();
+            unindex(executionId, previous);
+            append(OP_DELETE, executionId.getBytes(StandardCharsets.UTF_8));
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(final String executionId) {
+        return index.containsKey(executionId);
+    }
+
+    @Override
+    public void hold(final WorkflowMessage message) {
+        byte[] json = serialize(message);
+        String key = heldKey(message.getExecutionId(), message.getCurrentStep());
+        long dueMillis = message.getScheduledAt() != null ? message.getScheduledAt().toEpochMilli() : 0;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int offset = append(OP_HOLD, json);
+            HeldEntry entry = new HeldEntry(key, offset, RECORD_HEADER_SIZE + json.length, dueMillis);
+            HeldEntry previous = putHeld(entry);
+            if (previous != null) {
+                liveBytes -= previous.length();
+            }
+            liveBytes += entry.length();
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean release(final String executionId, final int stepId) {
+        String key = heldKey(executionId, stepId);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            HeldEntry previous = removeHeld(key);
+            if (previous == null) {
+                return false;
+            }
+            liveBytes -= previous.length();
+            append(OP_RELEASE, key.getBytes(StandardCharsets.UTF_8));
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<WorkflowMessage> findHeld(final int limit) {
+        List<byte[]> bodies = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (HeldEntry entry : heldByDue) {
+                if (bodies.size() >= limit) {
+                    break;
+                }
+                bodies.add(readBody(entry.offset(), entry.length()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<WorkflowMessage> messages = new ArrayList<>(bodies.size());
+        for (byte[] body : bodies) {
+            messages.add(deserialize(body));
+        }
+        return messages;
+    }
+
+    @Override
+    public int heldCount() {
+        return held.size();
+    }
+
+    /**
+     * Get the number of executions in the store.
+     *
+     * @return the number of executions
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Get the number of bytes used by the log, live and dead records included.
+     *
+     * @return the used size of the log in bytes
+     */
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return writePosition;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the log with only the latest record of each execution and the
+     * held scheduled messages.
+     */
+    public void compact() {
+        try {
+            doCompact();
+        } catch (IOException e) {
+            throw new WorkflowException("Failed to compact workflow execution store " + path, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                buffer.force();
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean hasHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        return channel.read(header, 0) == FILE_HEADER_SIZE && header.getInt(0) == MAGIC;
+    }
+
+    private void replay() {
+        int position = FILE_HEADER_SIZE;
+        int limit = buffer.capacity();
+        boolean torn = false;
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            byte op = buffer.get(position + 8);
+            byte[] body = length > 0 && length <= limit - position - RECORD_HEADER_SIZE ? new byte[length] : null;
+            if (body != null) {
+                buffer.get(position + RECORD_HEADER_SIZE, body);
+            }
+            if (body == null || buffer.getInt(position + 4) != checksum(op, body)) {
+                log.warn("Workflow execution store {} has a torn record at offset {}, "
+                        + "ignoring the rest of the log", path, position);
+                torn = true;
+                break;
+            }
+            int recordLength = RECORD_HEADER_SIZE + length;
+            if (op == OP_SAVE) {
+                replaySave(position, recordLength, body);
+            } else if (op == OP_DELETE) {
+                replayDelete(new String(body, StandardCharsets.UTF_8));
+            } else if (op == OP_HOLD) {
+                replayHold(position, recordLength, body);
+            } else if (op == OP_RELEASE) {
+                replayRelease(new String(body, StandardCharsets.UTF_8));
+            }
+            position += recordLength;
+        }
+        writePosition = position;
+        if (torn) {
+            // Clear the torn tail so that its bytes are never replayed after new appends
+            for (int i = position; i < limit; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private void replaySave(final int offset, final int recordLength, final byte[] body) {
+        WorkflowMessage message = deserialize(body);
+        Entry entry = new Entry(offset, recordLength, message.getTopic(), message.getStatus());
+        Entry previous = index.put(message.getExecutionId(), entry);
+        if (previous != null) {
+            liveBytes -= previous.length();
+            unindex(message.getExecutionId(), previous);
+        }
+        liveBytes += recordLength;
+        addTo(byTopic, entry.topic(), message.getExecutionId());
+        addTo(byStatus, entry.status(), message.getExecutionId());
+    }
+
+    private void replayDelete(final String executionId) {
+        Entry previous = index.remove(executionId);
+        if (previous != null) {
+            liveBytes -= previous.length();
+            unindex(executionId, previous);
+        }
+    }
+
+    private void replayHold(final int offset, final int recordLength, final byte[] body) {
+        WorkflowMessage message = deserialize(body);
+        long dueMillis = message.getScheduledAt() != null ? message.getScheduledAt().toEpochMilli() : 0;
+        HeldEntry previous = putHeld(new HeldEntry(heldKey(message.getExecutionId(), message.getCurrentStep()),
+                offset, recordLength, dueMillis));
+        if (previous != null) {
+            liveBytes -= previous.length();
+        }
+        liveBytes += recordLength;
+    }
+
+    private void replayRelease(final String key) {
+        HeldEntry previous = removeHeld(key);
+        if (previous != null) {
+            liveBytes -= previous.length();
+        }
+    }
+
+    private int append(final byte op, final byte[] body) {
+        int recordLength = RECORD_HEADER_SIZE + body.length;
+        ensureCapacity((long) writePosition + recordLength + RECORD_HEADER_SIZE);
+        int offset = writePosition;
+        // Write the body first and the length last, so a crash never exposes
+        // a length pointing at an unwritten body
+        buffer.put(offset + 8, op);
+        buffer.put(offset + RECORD_HEADER_SIZE, body);
+        buffer.putInt(offset + 4, checksum(op, body));
+        buffer.putInt(offset, body.length);
+        if (syncWrites) {
+            buffer.force(offset, recordLength);
+        }
+        writePosition += recordLength;
+        return offset;
+    }
+
+    private void ensureCapacity(final long required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        // Fail once the records no longer fit, before clamping the doubled size to the limit
+        long newSize = Math.min(Math.max(checkedSize(required), (long) buffer.capacity() * 2), Integer.MAX_VALUE);
+        try {
+            buffer.force();
+            buffer = map((int) newSize);
+        } catch (IOException e) {
+            throw new WorkflowException("Failed to grow workflow execution store " + path, e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        long used = writePosition - FILE_HEADER_SIZE;
+        long dead = used - liveBytes;
+        if (used >= MIN_COMPACTION_BYTES && dead > used * compactionRatio
+                && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(this::compactInBackground);
+            } catch (RuntimeException e) {
+                // The write succeeded, compaction is retried on a later write
+                compacting.set(false);
+                log.warn("Failed to queue the compaction of workflow execution store {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            doCompact();
+        } catch (IOException | RuntimeException e) {
+            // The current log is still valid, compaction is retried on a later write
+            log.warn("Failed to compact workflow execution store {}: {}", path, e.getMessage());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Copy the live records below the current write position to a new file
+     * without holding the lock: appends never touch those bytes. Then, under
+     * the write lock, copy the records appended meanwhile and swap the files.
+     */
+    private void doCompact() throws IOException {
+        synchronized (compactionLock) {
+            MappedByteBuffer source;
+            int mark;
+            Map<String, Entry> entries;
+            List<HeldEntry> heldEntries;
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                source = buffer;
+                mark = writePosition;
+                entries = new HashMap<>(index);
+                heldEntries = new ArrayList<>(held.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            long size = FILE_HEADER_SIZE;
+            for (Entry entry : entries.values()) {
+                size += entry.length();
+            }
+            for (HeldEntry entry : heldEntries) {
+                size += entry.length();
+            }
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            Map<String, Entry> relocated = new HashMap<>(entries.size() * 2);
+            Map<String, HeldEntry> relocatedHeld = new HashMap<>(heldEntries.size() * 2);
+            int position = FILE_HEADER_SIZE;
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = target.map(FileChannel.MapMode.READ_WRITE, 0, checkedSize(size));
+                out.putInt(0, MAGIC);
+                out.putInt(4, VERSION);
+                for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                    Entry entry = e.getValue();
+                    out.put(position, source, entry.offset(), entry.length());
+                    relocated.put(e.getKey(), new Entry(position, entry.length(), entry.topic(), entry.status()));
+                    position += entry.length();
+                }
+                for (HeldEntry entry : heldEntries) {
+                    out.put(position, source, entry.offset(), entry.length());
+                    relocatedHeld.put(entry.key(), entry.at(position));
+                    position += entry.length();
+                }
+                out.force();
+
+                lock.writeLock().lock();
+                try {
+                    ensureOpen();
+                    swap(target, compacted, mark, position, relocated, relocatedHeld);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Append the records written since {@code mark} to the compacted file,
+     * replace the log with it and relocate the index. The tail is copied as is,
+     * tombstones included, so replaying the new file gives the same state.
+     */
+    private void swap(final FileChannel target, final Path compacted, final int mark, final int position,
+                      final Map<String, Entry> relocated, final Map<String, HeldEntry> relocatedHeld)
+            throws IOException {
+        long before = writePosition;
+        ByteBuffer appended = buffer.slice(mark, writePosition - mark);
+        int end = position + appended.remaining();
+        long offset = position;
+        while (appended.hasRemaining()) {
+            offset += target.write(appended, offset);
+        }
+        target.force(false);
+        long size = Math.max((long) end + RECORD_HEADER_SIZE, buffer.capacity() / 2);
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = map(checkedSize(size));
+
+        // Records below the mark are the ones of the snapshot, the others moved with the tail
+        int shift = position - mark;
+        index.replaceAll((executionId, entry) -> entry.offset() >= mark
+                ? new Entry(entry.offset() + shift, entry.length(), entry.topic(), entry.status())
+                : relocated.get(executionId));
+        for (HeldEntry entry : new ArrayList<>(held.values())) {
+            putHeld(entry.offset() >= mark ? entry.at(entry.offset() + shift) : relocatedHeld.get(entry.key()));
+        }
+        writePosition = end;
+        log.debug("Compacted workflow execution store {} from {} to {} bytes", path, before, end);
+    }
+
+    private MappedByteBuffer map(final int size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private List<WorkflowMessage> findAll(final Set<String> executionIds,
+                                          final Predicate<Entry> filter) {
+        List<byte[]> bodies = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String executionId : executionIds) {
+                Entry entry = index.get(executionId);
+                if (entry != null && (filter == null || filter.test(entry))) {
+                    bodies.add(readBody(entry));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<WorkflowMessage> messages = new ArrayList<>(bodies.size());
+        for (byte[] body : bodies) {
+            messages.add(deserialize(body));
+        }
+        return messages;
+    }
+
+    private byte[] readBody(final Entry entry) {
+        ensureOpen();
+        return readBody(entry.offset(), entry.length());
+    }
+
+    private byte[] readBody(final int offset, final int length) {
+        byte[] body = new byte[length - RECORD_HEADER_SIZE];
+        buffer.get(offset + RECORD_HEADER_SIZE, body);
+        return body;
+    }
+
+    private HeldEntry putHeld(final HeldEntry entry) {
+        HeldEntry previous = held.put(entry.key(), entry);
+        if (previous != null) {
+            heldByDue.remove(previous);
+        }
+        heldByDue.add(entry);
+        return previous;
+    }
+
+    private HeldEntry removeHeld(final String key) {
+        HeldEntry previous = held.remove(key);
+        if (previous != null) {
+            heldByDue.remove(previous);
+        }
+        return previous;
+    }
+
+    private void unindex(final String executionId, final Entry entry) {
+        removeFrom(byTopic, entry.topic(), executionId);
+        removeFrom(byStatus, entry.status(), executionId);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new WorkflowException("Workflow execution store is closed: " + path);
+        }
+    }
+
+    private byte[] serialize(final WorkflowMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new WorkflowException("Failed to serialize execution " + message.getExecutionId(), e);
+        }
+    }
+
+    private WorkflowMessage deserialize(final byte[] json) {
+        try {
+            return objectMapper.readValue(json, WorkflowMessage.class);
+        } catch (IOException e) {
+            throw new WorkflowException("Failed to deserialize stored execution", e);
+        }
+    }
+
+    private static <K> Set<String> idsOf(final Map<K, Set<String>> secondaryIndex, final K key) {
+        Set<String> ids = key != null ? secondaryIndex.get(key) : null;
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    private static <K> void addTo(final Map<K, Set<String>> secondaryIndex, final K key, final String executionId) {
+        if (key != null) {
+            secondaryIndex.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(executionId);
+        }
+    }
+
+    private static <K> void removeFrom(final Map<K, Set<String>> secondaryIndex, final K key,
+                                       final String executionId) {
+        if (key != null) {
+            secondaryIndex.computeIfPresent(key, (k, ids) -> {
+                ids.remove(executionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static String heldKey(final String executionId, final int stepId) {
+        return executionId + "#" + stepId;
+    }
+
+    private static int checksum(final byte op, final byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static int checkedSize(final long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new WorkflowException("Workflow execution store exceeds the 2 GB mapping limit");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Location and indexed attributes of the latest record of an execution.
+     *
+     * @param offset the record offset in the log
+     * @param length the record length, header included
+     * @param topic the workflow topic
+     * @param status the workflow status
+     */
+    private record Entry(int offset, int length, String topic, WorkflowStatus status) {
+    }
+
+    /**
+     * Location of a held scheduled message.
+     *
+     * @param key the execution ID and step
+     * @param offset the record offset in the log
+     * @param length the record length, header included
+     * @param dueMillis the scheduled time in epoch milliseconds
+     */
+    private record HeldEntry(String key, int offset, int length, long dueMillis) {
+
+        HeldEntry at(final int newOffset) {
+            return new HeldEntry(key, newOffset, length, dueMillis);
+        }
+    }
+}
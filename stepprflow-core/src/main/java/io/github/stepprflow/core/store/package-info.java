@@ -0,0 +1,14 @@
+/**
+ * Embedded workflow execution state for agents running without MongoDB.
+ *
+ * <p>The monitor keeps execution state in MongoDB; an agent that has no
+ * monitor can still resume and cancel its own executions by enabling the
+ * embedded store ({@code stepprflow.store.enabled=true}).
+ *
+ * <p>This package provides:
+ * <ul>
+ *   <li>A memory-mapped, append-only execution log with in-memory indexes</li>
+ *   <li>A listener that records the state carried by received messages</li>
+ * </ul>
+ */
+package io.github.stepprflow.core.store;
@@ -0,0 +1,248 @@
+package io.github.stepprflow.core.tracing;
+
+import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One broker hop of a workflow execution: the consumption of a step message,
+ * from its publication to the messages the step sends.
+ *
+ * <p>A recorded hop is a consumer span, child of the span that sent the
+ * message, started at the publish time so that it covers the queue wait, the
+ * step run and the sends. Hops of unsampled traces create no span: the
+ * incoming trace context is passed on unchanged. Such a hop is still recorded
+ * when it fails or runs longer than the slow threshold: the span is then
+ * started late, back-dated to the publish time, and the trace is sampled from
+ * there on, so retries and the remaining steps are recorded too.
+ *
+ * <p>The hop is passed along with the step it traces, to the step invocation
+ * and the sends.
+ */
+public final class TraceHop implements AutoCloseable {
+
+    /** Tag of the time the message waited in the broker. */
+    static final String QUEUE_WAIT_TAG = "stepprflow.queue.wait.ms";
+
+    /** Tag of the reason an unsampled hop was recorded. */
+    static final String KEPT_TAG = "stepprflow.trace.kept";
+
+    /** The tracer creating the hop. */
+    private final WorkflowHopTracer hopTracer;
+
+    /** The consumed message. */
+    private final WorkflowMessage message;
+
+    /** Publish time of the message, in epoch milliseconds. */
+    private final long startMillis;
+
+    /** Receive time of the message, in epoch milliseconds. */
+    private final long receivedMillis;
+
+    /** The trace context of the sender, or of the unrecorded root of the trace. */
+    private TraceParent parent;
+
+    /** The span of the hop, once recorded. */
+    private Span span;
+
+    /** The scope of the span on the thread. */
+    private Tracer.SpanInScope scope;
+
+    TraceHop(final WorkflowHopTracer hopTracer,
+             final WorkflowMessage message,
+             final TraceParent parent,
+             final long startMillis,
+             final long receivedMillis) {
+        this.hopTracer = hopTracer;
+        this.message = message;
+        this.parent = parent;
+        this.startMillis = startMillis;
+        this.receivedMillis = receivedMillis;
+    }
+
+    /**
+     * Whether the hop is recorded.
+     *
+     * @return true if the hop has a span
+     */
+    public boolean isRecording() {
+        return span != null;
+    }
+
+    /**
+     * Run a step, observed as a child of the hop span if the hop is recorded.
+     *
+     * @param stepMessage the message of the step
+     * @param step the step definition
+     * @param invocation the step invocation
+     * @param <T> the result type
+     * @return the step result
+     * @throws Exception if the step fails
+     */
+    public <T> T traceStep(final WorkflowMessage stepMessage,
+                           final StepDefinition step,
+                           final Callable<T> invocation) throws Exception {
+        WorkflowTracing workflowTracing = hopTracer.getWorkflowTracing();
+        if (span == null || workflowTracing == null) {
+            return invocation.call();
+        }
+        try {
+            return workflowTracing.traceStep(stepMessage, step, () -> {
+                try {
+                    return invocation.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CheckedStepException(e);
+                }
+            });
+        } catch (CheckedStepException e) {
+            throw e.checked;
+        }
+    }
+
+    /**
+     * Set the trace context of a message sent by the hop.
+     * A hop found slow at this point is recorded first.
+     *
+     * @param outgoing the message to send
+     */
+    public void stamp(final WorkflowMessage outgoing) {
+        if (span == null && isSlow()) {
+            keep("slow");
+        }
+        TraceParent context = span != null ? spanContext() : parent;
+        if (context != null) {
+            outgoing.setTraceParent(context.value());
+        }
+    }
+
+    /**
+     * Report a step failure: the hop is recorded if failed hops are kept.
+     *
+     * @param cause the failure
+     */
+    public void failed(final Throwable cause) {
+        if (span == null && hopTracer.isKeepFailed()) {
+            keep("failed");
+        }
+        if (span != null) {
+            span.error(cause);
+        }
+    }
+
+    /**
+     * End the hop, recording it if it was slow.
+     */
+    @Override
+    public void close() {
+        if (span == null && isSlow()) {
+            keep("slow");
+        }
+        if (scope != null) {
+            scope.close();
+        }
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    /**
+     * Start the span of the hop as a child of the sender.
+     *
+     * @param sender the trace context of the sender
+     */
+    void record(final TraceParent sender) {
+        Tracer tracer = hopTracer.getTracer();
+        TraceContext senderContext = tracer.traceContextBuilder()
+                .traceId(sender.traceId())
+                .spanId(sender.parentId())
+                .sampled(true)
+                .build();
+        start(tracer.spanBuilder().setParent(senderContext));
+    }
+
+    /**
+     * Start the hop as the root of a new trace; the tracer decides whether it
+     * is sampled.
+     */
+    void recordRoot() {
+        Tracer tracer = hopTracer.getTracer();
+        Span root = tracer.spanBuilder()
+                .name(spanName())
+                .kind(Span.Kind.CONSUMER)
+                .startTimestamp(startMillis, TimeUnit.MILLISECONDS)
+                .start();
+        TraceContext context = root.context();
+        if (Boolean.TRUE.equals(context.sampled())) {
+            tag(root);
+            span = root;
+            scope = tracer.withSpan(root);
+            stamp(message);
+        } else {
+            // Keep the IDs so that a slow or failed hop joins the same trace
+            parent = TraceParent.of(context.traceId(), context.spanId(), false);
+            root.abandon();
+            stamp(message);
+        }
+    }
+
+    private void keep(final String reason) {
+        if (parent == null) {
+            return;
+        }
+        record(parent);
+        span.tag(KEPT_TAG, reason);
+    }
+
+    private void start(final Span.Builder builder) {
+        span = builder
+                .name(spanName())
+                .kind(Span.Kind.CONSUMER)
+                .startTimestamp(startMillis, TimeUnit.MILLISECONDS)
+                .start();
+        tag(span);
+        scope = hopTracer.getTracer().withSpan(span);
+        stamp(message);
+    }
+
+    private void tag(final Span hopSpan) {
+        hopSpan.tag("stepprflow.workflow.topic", String.valueOf(message.getTopic()))
+                .tag("stepprflow.workflow.step.id", String.valueOf(message.getCurrentStep()))
+                .tag("stepprflow.workflow.execution.id", String.valueOf(message.getExecutionId()))
+                .tag(QUEUE_WAIT_TAG, String.valueOf(receivedMillis - startMillis));
+    }
+
+    private TraceParent spanContext() {
+        TraceContext context = span.context();
+        return TraceParent.of(context.traceId(), context.spanId(), true);
+    }
+
+    private String spanName() {
+        return message.getTopic() + " process";
+    }
+
+    private boolean isSlow() {
+        return hopTracer.getClock().millis() - startMillis >= hopTracer.getSlowThresholdMillis();
+    }
+
+    /**
+     * Carries a checked step exception through the observation.
+     */
+    private static final class CheckedStepException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The step exception. */
+        private final transient Exception checked;
+
+        private CheckedStepException(final Exception checked) {
+            super(checked);
+            this.checked = checked;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.stepprflow.core.tracing;
+
+/**
+ * W3C Trace Context {@code traceparent} value carried by workflow messages.
+ *
+ * <p>Format: {@code 00-<32 hex trace ID>-<16 hex parent span ID>-<2 hex flags>},
+ * where bit 0 of the flags is the sampled flag.
+ *
+ * @param traceId the trace ID (32 lowercase hex characters)
+ * @param parentId the span ID of the parent (16 lowercase hex characters)
+ * @param sampled whether the trace is recorded
+ */
+public record TraceParent(String traceId, String parentId, boolean sampled) {
+
+    /** Header carrying the trace context on both brokers. */
+    public static final String HEADER = "traceparent";
+
+    /** Length of a trace ID in hex characters. */
+    private static final int TRACE_ID_LENGTH = 32;
+
+    /** Length of a span ID in hex characters. */
+    private static final int SPAN_ID_LENGTH = 16;
+
+    /** Length of a version 00 traceparent value. */
+    private static final int VALUE_LENGTH = 55;
+
+    /**
+     * Parse a traceparent value.
+     *
+     * @param value the header value
+     * @return the trace context, or null if absent or invalid
+     */
+    public static TraceParent parse(final String value) {
+        if (value == null || value.length() < VALUE_LENGTH
+                || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-'
+                || value.startsWith("ff")) {
+            return null;
+        }
+        // Later versions may append fields: only the version 00 prefix is read
+        if (value.length() > VALUE_LENGTH && (value.startsWith("00") || value.charAt(VALUE_LENGTH) != '-')) {
+            return null;
+        }
+        String traceId = value.substring(3, 35);
+        String parentId = value.substring(36, 52);
+        String flags = value.substring(53, 55);
+        if (!isHex(value.substring(0, 2)) || !isId(traceId) || !isId(parentId) || !isHex(flags)) {
+            return null;
+        }
+        return new TraceParent(traceId, parentId, (Integer.parseInt(flags, 16) & 1) == 1);
+    }
+
+    /**
+     * Create a trace context from the IDs of a span.
+     * 64-bit trace IDs are left-padded with zeros, as the W3C format requires.
+     *
+     * @param traceId the trace ID (16 or 32 hex characters)
+     * @param spanId the span ID (16 hex characters)
+     * @param sampled whether the trace is recorded
+     * @return the trace context, or null if an ID is invalid
+     */
+    public static TraceParent of(final String traceId, final String spanId, final boolean sampled) {
+        if (traceId == null || spanId == null) {
+            return null;
+        }
+        String paddedTraceId = traceId.length() == SPAN_ID_LENGTH ? "0".repeat(SPAN_ID_LENGTH) + traceId : traceId;
+        if (paddedTraceId.length() != TRACE_ID_LENGTH || spanId.length() != SPAN_ID_LENGTH
+                || !isId(paddedTraceId) || !isId(spanId)) {
+            return null;
+        }
+        return new TraceParent(paddedTraceId, spanId, sampled);
+    }
+
+    /**
+     * Format as a traceparent header value.
+     *
+     * @return the header value
+     */
+    public String value() {
+        return "00-" + traceId + '-' + parentId + (sampled ? "-01" : "-00");
+    }
+
+    private static boolean isId(final String id) {
+        // An all-zero ID is invalid
+        return isHex(id) && id.chars().anyMatch(c -> c != '0');
+    }
+
+    private static boolean isHex(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,17 +1,24 @@
 package io.github.stepprflow.core.tracing;
 
+import io.github.stepprflow.core.StepprFlowProperties;
 import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 
 /**
  * Auto-configuration for workflow tracing.
  * Automatically configures WorkflowTracing when Micrometer Observation
- * is on the classpath.
+ * is on the classpath, and traces executions across broker hops when a
+ * Micrometer Tracing bridge provides a tracer.
  */
-@AutoConfiguration
+@AutoConfiguration(afterName = "org.springframework.boot.actuate"
+        + ".autoconfigure.tracing.MicrometerTracingAutoConfiguration")
 @ConditionalOnClass(ObservationRegistry.class)
 public class TracingAutoConfiguration {
 
@@ -27,4 +34,25 @@ public class TracingAutoConfiguration {
             final ObservationRegistry observationRegistry) {
         return new WorkflowTracing(observationRegistry);
     }
+
+    /**
+     * Creates the WorkflowHopTracer bean.
+     *
+     * @param tracer the tracer
+     * @param workflowTracing the tracing of step runs (optional)
+     * @param properties the stepprflow properties (optional)
+     * @return the hop tracer
+     */
+    @Bean
+    @ConditionalOnBean(Tracer.class)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "stepprflow.tracing.enabled", havingValue = "true", matchIfMissing = true)
+    public WorkflowHopTracer workflowHopTracer(
+            final Tracer tracer,
+            final ObjectProvider<WorkflowTracing> workflowTracing,
+            final ObjectProvider<StepprFlowProperties> properties) {
+        StepprFlowProperties.Tracing config = properties.getIfAvailable(StepprFlowProperties::new).getTracing();
+        return new WorkflowHopTracer(tracer, workflowTracing.getIfAvailable(),
+                config.getSlowThreshold(), config.isKeepFailed());
+    }
 }
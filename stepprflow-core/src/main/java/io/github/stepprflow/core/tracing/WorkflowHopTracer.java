@@ -0,0 +1,113 @@
+package io.github.stepprflow.core.tracing;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.micrometer.tracing.Tracer;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Traces workflow executions across broker hops.
+ *
+ * <p>The trace context travels in the {@code traceparent} field of
+ * {@link WorkflowMessage}, which the brokers also write to and read from the
+ * W3C {@value TraceParent#HEADER} message header. Each consumed step message
+ * becomes a {@link TraceHop}, child of the hop that sent it.
+ *
+ * <p>Sampling is adaptive. The head decision is taken once per execution, by
+ * the sampler of the tracer, when the first step is consumed; later hops
+ * follow the sampled flag of the message and unsampled ones create no span at
+ * all. On top of that, failed hops and hops slower than the threshold (queue
+ * wait included) are always recorded, and turn the trace sampled for the rest
+ * of the execution.
+ */
+public class WorkflowHopTracer {
+
+    /** The tracer. */
+    private final Tracer tracer;
+
+    /** The tracing of step runs, or null if not available. */
+    private final WorkflowTracing workflowTracing;
+
+    /** Duration from publication above which an unsampled hop is recorded, in milliseconds. */
+    private final long slowThresholdMillis;
+
+    /** Whether failed unsampled hops are recorded. */
+    private final boolean keepFailed;
+
+    /** The clock. */
+    private final Clock clock;
+
+    /**
+     * Constructor.
+     *
+     * @param tracer the tracer
+     * @param workflowTracing the tracing of step runs (optional)
+     * @param slowThreshold duration from publication above which a hop is always recorded
+     * @param keepFailed whether failed hops are always recorded
+     */
+    public WorkflowHopTracer(final Tracer tracer,
+                             final WorkflowTracing workflowTracing,
+                             final Duration slowThreshold,
+                             final boolean keepFailed) {
+        this(tracer, workflowTracing, slowThreshold, keepFailed, Clock.systemUTC());
+    }
+
+    WorkflowHopTracer(final Tracer tracer,
+                      final WorkflowTracing workflowTracing,
+                      final Duration slowThreshold,
+                      final boolean keepFailed,
+                      final Clock clock) {
+        this.tracer = tracer;
+        this.workflowTracing = workflowTracing;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.keepFailed = keepFailed;
+        this.clock = clock;
+    }
+
+    /**
+     * Start the hop of a consumed step message.
+     * The message gets the trace context of the hop, so the messages derived
+     * from it inherit it.
+     *
+     * @param message the consumed message
+     * @param publishedAtMillis the publish time in epoch milliseconds, or 0 if unknown
+     * @return the hop, to close once the step and its sends are done
+     */
+    public TraceHop startHop(final WorkflowMessage message, final long publishedAtMillis) {
+        long now = clock.millis();
+        long start = publishedAtMillis > 0 && publishedAtMillis <= now ? publishedAtMillis : now;
+        TraceParent incoming = TraceParent.parse(message.getTraceParent());
+        TraceHop hop = new TraceHop(this, message, incoming, start, now);
+        try {
+            if (incoming == null) {
+                hop.recordRoot();
+            } else if (incoming.sampled()) {
+                hop.record(incoming);
+            }
+        } catch (RuntimeException e) {
+            hop.close();
+            throw e;
+        }
+        return hop;
+    }
+
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    WorkflowTracing getWorkflowTracing() {
+        return workflowTracing;
+    }
+
+    long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    boolean isKeepFailed() {
+        return keepFailed;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.stepprflow.core.util;
+
+/**
+ * 64-bit fingerprints of execution IDs, for the primitive hash tables that
+ * track executions and steps without building string keys.
+ */
+public final class Fingerprints {
+
+    /** FNV-1a 64-bit offset basis. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** FNV-1a 64-bit prime. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprints() {
+        // Utility class
+    }
+
+    /**
+     * Compute the fingerprint of an execution ID combined with a
+     * discriminator, such as a step ID shifted into the high bits: FNV-1a of
+     * the ID, XORed with the discriminator, then spread by the Murmur3
+     * finalizer so that the low bits can select a slot.
+     *
+     * @param executionId the execution ID, or null
+     * @param discriminator the value telling apart keys of one execution, 0 if none
+     * @return a non-zero 64-bit fingerprint
+     */
+    public static long of(final String executionId, final long discriminator) {
+        long hash = FNV_OFFSET;
+        if (executionId != null) {
+            for (int i = 0; i < executionId.length(); i++) {
+                hash ^= executionId.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        hash ^= discriminator;
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+}
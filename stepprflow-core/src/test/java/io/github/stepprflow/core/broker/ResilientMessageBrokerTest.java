@@ -15,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -178,6 +179,19 @@ class ResilientMessageBrokerTest {
             verify(delegateBroker).sendAsync("topic", message);
         }
 
+        @Test
+        @DisplayName("should delegate sendBatch() to underlying broker")
+        void shouldDelegateSendBatch() {
+            List<WorkflowMessage> messages = List.of(createTestMessage(), createTestMessage());
+            when(delegateBroker.sendBatch(any(), any()))
+                    .thenReturn(CompletableFuture.completedFuture(null));
+
+            CompletableFuture<Void> result = resilientBroker.sendBatch("topic", messages);
+
+            assertThat(result).isCompleted();
+            verify(delegateBroker).sendBatch("topic", messages);
+        }
+
         @Test
         @DisplayName("should return delegate broker type")
         void shouldReturnBrokerType() {
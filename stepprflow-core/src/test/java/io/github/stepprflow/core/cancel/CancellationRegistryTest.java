@@ -0,0 +1,111 @@
+package io.github.stepprflow.core.cancel;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CancellationRegistry Tests")
+class CancellationRegistryTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private MutableClock clock;
+
+    private CancellationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        registry = new CancellationRegistry(1024, TTL, clock);
+    }
+
+    @Test
+    @DisplayName("Should report cancelled executions only")
+    void shouldReportCancelledExecutions() {
+        registry.cancel("exec-1");
+
+        assertThat(registry.isCancelled("exec-1")).isTrue();
+        assertThat(registry.isCancelled("exec-2")).isFalse();
+        assertThat(registry.isCancelled(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should forget a cancellation after the TTL")
+    void shouldExpireCancellation() {
+        registry.cancel("exec-1");
+
+        clock.advance(TTL.minusSeconds(1));
+        assertThat(registry.isCancelled("exec-1")).isTrue();
+
+        clock.advance(Duration.ofSeconds(2));
+        assertThat(registry.isCancelled("exec-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should ignore cancellations older than the TTL")
+    void shouldIgnoreStaleCancellation() {
+        boolean recorded = registry.cancel("exec-1", clock.instant().minus(TTL).minusSeconds(1));
+
+        assertThat(recorded).isFalse();
+        assertThat(registry.isCancelled("exec-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should expire a replayed cancellation relative to when it happened")
+    void shouldExpireRelativeToCancellationTime() {
+        registry.cancel("exec-1", clock.instant().minus(Duration.ofMinutes(50)));
+
+        assertThat(registry.isCancelled("exec-1")).isTrue();
+        clock.advance(Duration.ofMinutes(11));
+        assertThat(registry.isCancelled("exec-1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should record cancellation notices and ignore other statuses")
+    void shouldRecordCancellationNotices() {
+        registry.onCancellation(WorkflowMessage.builder()
+                .executionId("exec-1").status(WorkflowStatus.CANCELLED).updatedAt(clock.instant()).build());
+        registry.onCancellation(WorkflowMessage.builder()
+                .executionId("exec-2").status(WorkflowStatus.IN_PROGRESS).build());
+
+        assertThat(registry.isCancelled("exec-1")).isTrue();
+        assertThat(registry.isCancelled("exec-2")).isFalse();
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
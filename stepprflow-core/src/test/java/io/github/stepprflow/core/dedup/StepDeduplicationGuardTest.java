@@ -0,0 +1,224 @@
+package io.github.stepprflow.core.dedup;
+
+import io.github.stepprflow.core.model.RetryInfo;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("StepDeduplicationGuard Tests")
+class StepDeduplicationGuardTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private WorkflowMessage message(final String executionId, final int step) {
+        return WorkflowMessage.builder()
+                .executionId(executionId)
+                .topic("orders")
+                .currentStep(step)
+                .status(WorkflowStatus.IN_PROGRESS)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("In memory")
+    class InMemoryTests {
+
+        @Test
+        @DisplayName("Should detect a redelivered step and count it")
+        void shouldDetectRedeliveredStep() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            StepDeduplicationGuard guard = new StepDeduplicationGuard(
+                    1024, Duration.ofHours(1), null, meterRegistry, clock);
+            WorkflowMessage message = message("exec-1", 2);
+
+            assertThat(guard.isDuplicate(message)).isFalse();
+            guard.markExecuted(message);
+
+            assertThat(guard.isDuplicate(message("exec-1", 2))).isTrue();
+            assertThat(guard.getDuplicateCount()).isEqualTo(1);
+            assertThat(meterRegistry.get(StepDeduplicationGuard.DUPLICATE_METRIC)
+                    .tag("topic", "orders").counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Should not treat other steps, retries or resumes as duplicates")
+        void shouldNotTreatRetriesOrResumesAsDuplicates() {
+            StepDeduplicationGuard guard = new StepDeduplicationGuard(
+                    1024, Duration.ofHours(1), null, null, clock);
+            guard.markExecuted(message("exec-1", 2));
+
+            WorkflowMessage otherStep = message("exec-1", 3);
+            WorkflowMessage retry = message("exec-1", 2).toBuilder()
+                    .retryInfo(RetryInfo.builder().attempt(2).maxAttempts(3).build())
+                    .build();
+            WorkflowMessage resume = message("exec-1", 2).toBuilder()
+                    .executionAttempt(2)
+                    .build();
+
+            assertThat(guard.isDuplicate(otherStep)).isFalse();
+            assertThat(guard.isDuplicate(retry)).isFalse();
+            assertThat(guard.isDuplicate(resume)).isFalse();
+            assertThat(guard.isDuplicate(message("exec-2", 2))).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should forget executed steps after the TTL")
+        void shouldForgetExecutedStepsAfterTtl() {
+            MutableClock mutableClock = new MutableClock(clock.instant());
+            StepDeduplicationGuard guard = new StepDeduplicationGuard(
+                    1024, Duration.ofMinutes(5), null, null, mutableClock);
+            guard.markExecuted(message("exec-1", 1));
+
+            mutableClock.advance(Duration.ofMinutes(4));
+            assertThat(guard.isDuplicate(message("exec-1", 1))).isTrue();
+
+            mutableClock.advance(Duration.ofMinutes(2));
+            assertThat(guard.isDuplicate(message("exec-1", 1))).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("With file store")
+    class FileStoreTests {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("Should remember executed steps across restarts")
+        void shouldRememberExecutedStepsAcrossRestarts() throws Exception {
+            Path file = tempDir.resolve("dedup/steps.bin");
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                StepDeduplicationGuard guard = new StepDeduplicationGuard(
+                        1024, Duration.ofHours(1), store, null, clock);
+                guard.markExecuted(message("exec-1", 1));
+                guard.markExecuted(message("exec-1", 2));
+            }
+
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                StepDeduplicationGuard restarted = new StepDeduplicationGuard(
+                        1024, Duration.ofHours(1), store, null, clock);
+
+                assertThat(restarted.isDuplicate(message("exec-1", 1))).isTrue();
+                assertThat(restarted.isDuplicate(message("exec-1", 2))).isTrue();
+                assertThat(restarted.isDuplicate(message("exec-1", 3))).isFalse();
+            }
+        }
+
+        @Test
+        @DisplayName("Should skip expired records and a torn trailing record on load")
+        void shouldSkipExpiredAndTornRecordsOnLoad() throws Exception {
+            Path file = tempDir.resolve("steps.bin");
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                store.append(7L, clock.millis() - 1);
+                store.append(8L, clock.millis() + 1_000);
+            }
+            Files.write(file, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                StepFingerprintSet set = new StepFingerprintSet(64);
+                store.load(clock.millis(), (fingerprint, expiresAt) -> set.add(fingerprint, expiresAt, 0L));
+
+                assertThat(set.contains(7L, clock.millis())).isFalse();
+                assertThat(set.contains(8L, clock.millis())).isTrue();
+                assertThat(store.recordCount()).isEqualTo(2);
+            }
+        }
+
+        @Test
+        @DisplayName("Should shrink the file to the live fingerprints off the consumer thread")
+        void shouldShrinkFileToLiveFingerprints() throws Exception {
+            Path file = tempDir.resolve("steps.bin");
+            List<Runnable> compactions = new ArrayList<>();
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                StepDeduplicationGuard guard = new StepDeduplicationGuard(
+                        16, Duration.ofHours(1), store, null, clock, compactions::add);
+                for (int step = 1; step <= 40; step++) {
+                    guard.markExecuted(message("exec-1", step));
+                }
+
+                // One compaction queued, the consumer only appended
+                assertThat(compactions).hasSize(1);
+                assertThat(store.recordCount()).isEqualTo(40);
+
+                compactions.get(0).run();
+                assertThat(store.recordCount()).isLessThanOrEqualTo(16);
+
+                guard.markExecuted(message("exec-1", 41));
+                assertThat(compactions).hasSize(1);
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep the records appended while the file is rewritten")
+        void shouldKeepRecordsAppendedDuringRewrite() throws Exception {
+            Path file = tempDir.resolve("steps.bin");
+            try (FileStepFingerprintStore store = new FileStepFingerprintStore(file)) {
+                store.append(7L, clock.millis() + 1_000);
+
+                store.rewrite(consumer -> {
+                    consumer.accept(7L, clock.millis() + 1_000);
+                    // A consumer thread appending while the snapshot is written
+                    Thread appender = new Thread(() -> store.append(8L, clock.millis() + 1_000));
+                    appender.start();
+                    try {
+                        appender.join(5_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    assertThat(appender.isAlive()).isFalse();
+                });
+
+                StepFingerprintSet set = new StepFingerprintSet(64);
+                store.load(clock.millis(), (fingerprint, expiresAt) -> set.add(fingerprint, expiresAt, 0L));
+                assertThat(store.recordCount()).isEqualTo(2);
+                assertThat(set.contains(7L, clock.millis())).isTrue();
+                assertThat(set.contains(8L, clock.millis())).isTrue();
+            }
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.stepprflow.core.dedup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("StepFingerprintSet Tests")
+class StepFingerprintSetTest {
+
+    @Test
+    @DisplayName("Should round capacity up to a power of two")
+    void shouldRoundCapacityUpToPowerOfTwo() {
+        assertThat(new StepFingerprintSet(1000).capacity()).isEqualTo(1024);
+        assertThat(new StepFingerprintSet(1).capacity()).isEqualTo(StepFingerprintSet.MAX_PROBES);
+    }
+
+    @Test
+    @DisplayName("Should contain added fingerprint until it expires")
+    void shouldContainAddedFingerprintUntilItExpires() {
+        StepFingerprintSet set = new StepFingerprintSet(64);
+
+        set.add(42L, 1_000L, 0L);
+
+        assertThat(set.contains(42L, 999L)).isTrue();
+        assertThat(set.contains(42L, 1_000L)).isFalse();
+        assertThat(set.contains(43L, 0L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should extend expiry when fingerprint is added again")
+    void shouldExtendExpiryWhenAddedAgain() {
+        StepFingerprintSet set = new StepFingerprintSet(64);
+
+        set.add(42L, 1_000L, 0L);
+        set.add(42L, 5_000L, 500L);
+
+        assertThat(set.contains(42L, 4_000L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should evict the entry closest to expiry when full")
+    void shouldEvictEntryClosestToExpiryWhenFull() {
+        StepFingerprintSet set = new StepFingerprintSet(16);
+        for (long fingerprint = 1; fingerprint <= 16; fingerprint++) {
+            set.add(fingerprint, 1_000L + fingerprint, 0L);
+        }
+
+        set.add(100L, 10_000L, 0L);
+
+        assertThat(set.contains(100L, 0L)).isTrue();
+        assertThat(set.contains(1L, 0L)).isFalse();
+        assertThat(set.contains(16L, 0L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reuse expired slots")
+    void shouldReuseExpiredSlots() {
+        StepFingerprintSet set = new StepFingerprintSet(16);
+        for (long fingerprint = 1; fingerprint <= 16; fingerprint++) {
+            set.add(fingerprint, fingerprint == 5 ? 10L : 10_000L, 0L);
+        }
+
+        set.add(100L, 20_000L, 50L);
+
+        assertThat(set.contains(100L, 50L)).isTrue();
+        assertThat(set.contains(4L, 50L)).isTrue();
+        assertThat(set.contains(6L, 50L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should visit only live fingerprints")
+    void shouldVisitOnlyLiveFingerprints() {
+        StepFingerprintSet set = new StepFingerprintSet(64);
+        set.add(1L, 100L, 0L);
+        set.add(2L, 1_000L, 0L);
+
+        List<Long> live = new ArrayList<>();
+        set.forEachLive(500L, (fingerprint, expiresAt) -> live.add(fingerprint));
+
+        assertThat(live).containsExactly(2L);
+    }
+}
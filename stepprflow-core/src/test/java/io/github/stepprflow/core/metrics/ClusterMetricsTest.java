@@ -0,0 +1,181 @@
+package io.github.stepprflow.core.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("ClusterMetrics Tests")
+class ClusterMetricsTest {
+
+    private MutableClock clock;
+    private ClusterMetrics clusterMetrics;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        clusterMetrics = new ClusterMetrics(Duration.ofSeconds(90), 10, clock);
+    }
+
+    @Nested
+    @DisplayName("merge()")
+    class MergeTests {
+
+        @Test
+        @DisplayName("Should add the counters of every instance")
+        void shouldAddCountersOfEveryInstance() {
+            clusterMetrics.merge("order-service", "inst-1", delta(10, 8, 3, Duration.ofMillis(100)));
+            clusterMetrics.merge("order-service", "inst-2", delta(5, 4, 1, Duration.ofMillis(300)));
+            clusterMetrics.merge("order-service", "inst-1", delta(2, 2, 1, Duration.ofMillis(100)));
+
+            List<MetricsSummary> summaries = clusterMetrics.getSummaries();
+
+            assertThat(summaries).hasSize(1);
+            MetricsSummary summary = summaries.get(0);
+            assertThat(summary.getTopic()).isEqualTo("order-workflow");
+            assertThat(summary.getServiceName()).isEqualTo("order-service");
+            assertThat(summary.getWorkflowsStarted()).isEqualTo(17);
+            assertThat(summary.getWorkflowsCompleted()).isEqualTo(14);
+            // Last value of each instance
+            assertThat(summary.getWorkflowsActive()).isEqualTo(2);
+            assertThat(summary.getAvgWorkflowDurationMs()).isCloseTo((8 * 100 + 4 * 300 + 2 * 100) / 14.0, within(0.001));
+            assertThat(clusterMetrics.getGlobalSummary().getWorkflowsStarted()).isEqualTo(17);
+        }
+
+        @Test
+        @DisplayName("Should report fleet-wide percentiles of workflows and steps")
+        void shouldReportFleetWidePercentiles() {
+            clusterMetrics.merge("order-service", "inst-1", delta(1, 1, 0, Duration.ofMillis(100)));
+            clusterMetrics.merge("order-service", "inst-2", delta(1, 1, 0, Duration.ofMillis(900)));
+            clock.advance(Duration.ofSeconds(30));
+
+            WindowedMetrics windowed = clusterMetrics.getWindowedMetrics().get(0);
+
+            assertThat(windowed.getWorkflow().get(0).getCount()).isEqualTo(2);
+            assertThat(windowed.getWorkflow().get(0).getMaxMs()).isEqualTo(900.0);
+            assertThat(windowed.getSteps().get("validate").get(0).getCount()).isEqualTo(2);
+            assertThat(windowed.getDwell().get("validate").get(0).getCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should merge workflows beyond the cap under the overflow key")
+        void shouldMergeWorkflowsBeyondCapUnderOverflow() {
+            clusterMetrics = new ClusterMetrics(Duration.ofSeconds(90), 1, clock);
+
+            clusterMetrics.merge("order-service", "inst-1", delta(1, 0, 1, null));
+            clusterMetrics.merge("payment-service", "inst-2", delta(1, 0, 1, null));
+
+            assertThat(clusterMetrics.getSummaries()).extracting(MetricsSummary::getTopic)
+                    .containsExactlyInAnyOrder("order-workflow", WorkflowMetrics.OVERFLOW);
+        }
+    }
+
+    @Nested
+    @DisplayName("Instances")
+    class InstanceTests {
+
+        @Test
+        @DisplayName("Should stop counting active workflows of a deregistered instance")
+        void shouldStopCountingDeregisteredInstance() {
+            clusterMetrics.merge("order-service", "inst-1", delta(4, 0, 4, null));
+            clusterMetrics.merge("order-service", "inst-2", delta(3, 0, 3, null));
+
+            clusterMetrics.removeInstance("order-service", "inst-1");
+
+            assertThat(clusterMetrics.getSummaries().get(0).getWorkflowsActive()).isEqualTo(3);
+            assertThat(clusterMetrics.getSummaries().get(0).getWorkflowsStarted()).isEqualTo(7);
+        }
+
+        @Test
+        @DisplayName("Should stop counting active workflows of a silent instance")
+        void shouldStopCountingSilentInstance() {
+            clusterMetrics.merge("order-service", "inst-1", delta(4, 0, 4, null));
+            clock.advance(Duration.ofSeconds(60));
+            clusterMetrics.merge("order-service", "inst-2", delta(3, 0, 3, null));
+            clock.advance(Duration.ofSeconds(40));
+
+            assertThat(clusterMetrics.getSummaries().get(0).getWorkflowsActive()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should round-trip the deltas drained from an agent")
+    void shouldMergeDeltasDrainedFromAgent() {
+        WorkflowMetrics agent = new WorkflowMetrics(new SimpleMeterRegistry(), 10, clock);
+        agent.recordWorkflowStarted("order-workflow", "order-service");
+        agent.recordWorkflowCompleted("order-workflow", "order-service", Duration.ofMillis(250));
+
+        clusterMetrics.merge("order-service", "inst-1", agent.drainDelta());
+
+        MetricsSummary summary = clusterMetrics.getSummaries().get(0);
+        assertThat(summary.getWorkflowsCompleted()).isEqualTo(1);
+        assertThat(summary.getWorkflowsActive()).isZero();
+        assertThat(summary.getAvgWorkflowDurationMs()).isEqualTo(250.0);
+    }
+
+    private MetricsDelta delta(final long started, final long completed, final long active,
+                               final Duration duration) {
+        HistogramSketch sketch = null;
+        if (duration != null) {
+            SketchRecorder recorder = new SketchRecorder();
+            for (int i = 0; i < completed; i++) {
+                recorder.record(duration.toNanos());
+            }
+            sketch = recorder.drain();
+        }
+        HistogramSketch stepSketch = sketch;
+        return MetricsDelta.builder()
+                .intervalMillis(30_000)
+                .workflows(List.of(MetricsDelta.WorkflowDelta.builder()
+                        .topic("order-workflow")
+                        .serviceName("order-service")
+                        .started(started)
+                        .completed(completed)
+                        .active(active)
+                        .duration(sketch)
+                        .steps(stepSketch != null
+                                ? Map.of("validate", MetricsDelta.StepDelta.builder().duration(stepSketch).build())
+                                : Map.of())
+                        .build()))
+                .build();
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
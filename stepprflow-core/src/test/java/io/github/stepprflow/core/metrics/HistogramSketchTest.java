@@ -0,0 +1,56 @@
+package io.github.stepprflow.core.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("HistogramSketch Tests")
+class HistogramSketchTest {
+
+    @Test
+    @DisplayName("Should add the counts of common buckets when merging")
+    void shouldAddCountsOfCommonBuckets() {
+        HistogramSketch merged = HistogramSketch.merge(
+                HistogramSketch.merge(HistogramSketch.of(Duration.ofMillis(5).toNanos()),
+                        HistogramSketch.of(Duration.ofMillis(50).toNanos())),
+                HistogramSketch.of(Duration.ofMillis(5).toNanos()));
+
+        assertThat(merged.getBuckets()).hasSize(2).isSorted();
+        assertThat(merged.getCounts()).containsExactly(2, 1);
+        assertThat(merged.totalCount()).isEqualTo(3);
+        assertThat(merged.getSumMicros()).isEqualTo(60_000);
+        assertThat(merged.getMaxMicros()).isEqualTo(50_000);
+    }
+
+    @Test
+    @DisplayName("Should return the other sketch when merging with null")
+    void shouldReturnOtherSketchWhenMergingWithNull() {
+        HistogramSketch sketch = HistogramSketch.of(1_000_000);
+
+        assertThat(HistogramSketch.merge(null, sketch)).isSameAs(sketch);
+        assertThat(HistogramSketch.merge(sketch, null)).isSameAs(sketch);
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void shouldReportPercentilesWithinBucketPrecision() {
+        HistogramSketch sketch = null;
+        for (int ms = 1; ms <= 100; ms++) {
+            sketch = HistogramSketch.merge(sketch, HistogramSketch.of(Duration.ofMillis(ms).toNanos()));
+        }
+
+        assertThat(sketch.percentileMs(0.50)).isCloseTo(50.0, within(50.0 / 16));
+        assertThat(sketch.percentileMs(0.99)).isCloseTo(99.0, within(99.0 / 16));
+        assertThat(sketch.percentileMs(1.0)).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("Should report zero for an empty sketch")
+    void shouldReportZeroForEmptySketch() {
+        assertThat(new HistogramSketch().percentileMs(0.5)).isZero();
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.stepprflow.core.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("SlidingWindowHistogram Tests")
+class SlidingWindowHistogramTest {
+
+    private MutableClock clock;
+    private SlidingWindowHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        histogram = new SlidingWindowHistogram(clock);
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void shouldReportPercentilesWithinBucketPrecision() {
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(Duration.ofMillis(ms).toNanos());
+        }
+        clock.advance(Duration.ofSeconds(30));
+
+        LatencySnapshot snapshot = histogram.snapshot(1);
+
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getP50Ms()).isCloseTo(50.0, within(50.0 / 16));
+        assertThat(snapshot.getP99Ms()).isCloseTo(99.0, within(99.0 / 16));
+        assertThat(snapshot.getMaxMs()).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("Should compute the rate over the window")
+    void shouldComputeRateOverWindow() {
+        for (int second = 0; second < 300; second++) {
+            for (int i = 0; i < 10; i++) {
+                histogram.record(Duration.ofMillis(5).toNanos());
+            }
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        assertThat(histogram.snapshot(1).getRatePerSecond()).isCloseTo(10.0, within(0.5));
+        assertThat(histogram.snapshot(5).getRatePerSecond()).isCloseTo(10.0, within(0.5));
+        assertThat(histogram.snapshot(5).getCount()).isCloseTo(3000, within(60L));
+    }
+
+    @Test
+    @DisplayName("Should forget values older than the window")
+    void shouldForgetValuesOlderThanWindow() {
+        histogram.record(Duration.ofSeconds(5).toNanos());
+        clock.advance(Duration.ofMinutes(3));
+        histogram.record(Duration.ofMillis(10).toNanos());
+
+        assertThat(histogram.snapshot(1).getMaxMs()).isEqualTo(10.0);
+        assertThat(histogram.snapshot(5).getMaxMs()).isEqualTo(5000.0);
+
+        clock.advance(Duration.ofMinutes(20));
+        assertThat(histogram.snapshot(15).getCount()).isZero();
+        assertThat(histogram.snapshot(15).getP99Ms()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should merge a sketch into the current minute")
+    void shouldMergeSketchIntoCurrentMinute() {
+        SketchRecorder recorder = new SketchRecorder();
+        for (int ms = 1; ms <= 100; ms++) {
+            recorder.record(Duration.ofMillis(ms).toNanos());
+        }
+        histogram.record(Duration.ofMillis(50).toNanos());
+
+        histogram.merge(recorder.drain());
+        clock.advance(Duration.ofSeconds(30));
+        LatencySnapshot snapshot = histogram.snapshot(1);
+
+        assertThat(snapshot.getCount()).isEqualTo(101);
+        assertThat(snapshot.getP50Ms()).isCloseTo(50.0, within(50.0 / 16));
+        assertThat(snapshot.getMaxMs()).isEqualTo(100.0);
+        assertThat(recorder.drain()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should map values to increasing buckets")
+    void shouldMapValuesToIncreasingBuckets() {
+        int previous = -1;
+        for (long micros = 0; micros < 1_000_000; micros += 97) {
+            int index = SlidingWindowHistogram.bucketIndex(micros);
+            assertThat(index).isGreaterThanOrEqualTo(previous).isLessThan(SlidingWindowHistogram.BUCKETS);
+            assertThat(SlidingWindowHistogram.bucketValue(index)).isCloseTo(micros, within(micros / 16.0 + 1));
+            previous = index;
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.time.Instant;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -62,8 +63,8 @@ class WorkflowMetricsListenerTest {
         }
 
         @Test
-        @DisplayName("should track step start time on IN_PROGRESS status")
-        void shouldTrackStepStartTimeOnInProgressStatus() {
+        @DisplayName("should keep no state on IN_PROGRESS status")
+        void shouldKeepNoStateOnInProgressStatus() {
             // Given
             WorkflowMessage message = WorkflowMessage.builder()
                     .executionId("exec-123")
@@ -76,7 +77,7 @@ class WorkflowMetricsListenerTest {
             // When
             listener.onWorkflowMessage(event);
 
-            // Then - no metrics recorded directly, just tracking
+            // Then - steps report their own timing
             verify(metrics, never()).recordWorkflowStarted(anyString(), anyString());
         }
 
@@ -109,20 +110,43 @@ class WorkflowMetricsListenerTest {
         }
 
         @Test
-        @DisplayName("should record workflow completed with zero duration when start time not tracked")
-        void shouldRecordWorkflowCompletedWithZeroDurationWhenStartTimeNotTracked() {
+        @DisplayName("should compute workflow duration from message timestamps")
+        void shouldComputeWorkflowDurationFromMessageTimestamps() {
             // Given - directly send COMPLETED without PENDING
+            Instant createdAt = Instant.parse("2025-01-01T00:00:00Z");
             WorkflowMessage message = WorkflowMessage.builder()
                     .executionId("exec-456")
                     .topic("payment-workflow")
                     .serviceName("payment-service")
                     .status(WorkflowStatus.COMPLETED)
+                    .createdAt(createdAt)
+                    .updatedAt(createdAt.plusSeconds(5))
                     .build();
             WorkflowMessageEvent event = new WorkflowMessageEvent(this, message);
 
             // When
             listener.onWorkflowMessage(event);
 
+            // Then
+            verify(metrics).recordWorkflowCompleted(eq("payment-workflow"), eq("payment-service"),
+                    eq(Duration.ofSeconds(5)));
+        }
+
+        @Test
+        @DisplayName("should record workflow completed with zero duration when creation time unknown")
+        void shouldRecordWorkflowCompletedWithZeroDurationWhenCreationTimeUnknown() {
+            // Given
+            WorkflowMessage message = WorkflowMessage.builder()
+                    .executionId("exec-457")
+                    .topic("payment-workflow")
+                    .serviceName("payment-service")
+                    .status(WorkflowStatus.COMPLETED)
+                    .createdAt(null)
+                    .build();
+
+            // When
+            listener.onWorkflowMessage(new WorkflowMessageEvent(this, message));
+
             // Then
             verify(metrics).recordWorkflowCompleted(eq("payment-workflow"), eq("payment-service"), eq(Duration.ZERO));
         }
@@ -144,7 +168,7 @@ class WorkflowMetricsListenerTest {
 
             // Then
             verify(metrics).recordWorkflowFailed(eq("inventory-workflow"), eq("inventory-service"), any(Duration.class));
-            verify(metrics).recordDlq("inventory-workflow");
+            verify(metrics).recordDlq("inventory-workflow", "inventory-service");
         }
 
         @Test
@@ -185,7 +209,7 @@ class WorkflowMetricsListenerTest {
             listener.onWorkflowMessage(event);
 
             // Then
-            verify(metrics).recordRetry("notification-workflow", 3);
+            verify(metrics).recordRetry("notification-workflow", null, 3);
         }
 
         @Test
@@ -204,7 +228,7 @@ class WorkflowMetricsListenerTest {
             listener.onWorkflowMessage(event);
 
             // Then
-            verify(metrics).recordRetry("email-workflow", 1);
+            verify(metrics).recordRetry("email-workflow", null, 1);
         }
 
         @Test
@@ -226,7 +250,7 @@ class WorkflowMetricsListenerTest {
             verify(metrics, never()).recordWorkflowCompleted(anyString(), anyString(), any());
             verify(metrics, never()).recordWorkflowFailed(anyString(), anyString(), any());
             verify(metrics, never()).recordWorkflowCancelled(anyString(), anyString());
-            verify(metrics, never()).recordRetry(anyString(), anyInt());
+            verify(metrics, never()).recordRetry(anyString(), any(), anyInt());
         }
 
         @Test
@@ -248,40 +272,6 @@ class WorkflowMetricsListenerTest {
         }
     }
 
-    @Nested
-    @DisplayName("recordStepCompleted()")
-    class RecordStepCompletedTests {
-
-        @Test
-        @DisplayName("should record step executed with duration when step was tracked")
-        void shouldRecordStepExecutedWithDurationWhenStepWasTracked() {
-            // Given - first start tracking the step
-            WorkflowMessage inProgressMessage = WorkflowMessage.builder()
-                    .executionId("exec-step-1")
-                    .topic("order-workflow")
-                    .currentStep(2)
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
-            listener.onWorkflowMessage(new WorkflowMessageEvent(this, inProgressMessage));
-
-            // When
-            listener.recordStepCompleted("order-workflow", "Validate Order", "exec-step-1", 2);
-
-            // Then
-            verify(metrics).recordStepExecuted(eq("order-workflow"), eq("Validate Order"), any(Duration.class));
-        }
-
-        @Test
-        @DisplayName("should record step executed with zero duration when step was not tracked")
-        void shouldRecordStepExecutedWithZeroDurationWhenStepWasNotTracked() {
-            // When - directly record completion without IN_PROGRESS
-            listener.recordStepCompleted("payment-workflow", "Process Payment", "exec-step-2", 3);
-
-            // Then
-            verify(metrics).recordStepExecuted("payment-workflow", "Process Payment", Duration.ZERO);
-        }
-    }
-
     @Nested
     @DisplayName("recordStepFailed()")
     class RecordStepFailedTests {
@@ -308,4 +298,4 @@ class WorkflowMetricsListenerTest {
             verify(metrics).recordStepFailed("payment-workflow", "Process Payment");
         }
     }
-}
\ No newline at end of file
+}
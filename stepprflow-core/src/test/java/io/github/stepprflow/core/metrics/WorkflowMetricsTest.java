@@ -1,5 +1,7 @@
 package io.github.stepprflow.core.metrics;
 
+import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -9,7 +11,9 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -348,7 +352,7 @@ class WorkflowMetricsTest {
 
             Set<String> topics = workflowMetrics.getActiveTopics();
 
-            assertThat(topics).isNotEmpty();
+            assertThat(topics).containsExactlyInAnyOrder("order-workflow", "payment-workflow");
         }
 
         @Test
@@ -393,4 +397,199 @@ class WorkflowMetricsTest {
             assertThat(counter.count()).isEqualTo(1.0);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Meter bundles")
+    class MeterBundleTests {
+
+        @Test
+        @DisplayName("Should return the same bundle for a topic and service")
+        void shouldReturnSameBundleForTopicAndService() {
+            WorkflowMeters first = workflowMetrics.forWorkflow("order-workflow", "kafka-sample");
+            WorkflowMeters second = workflowMetrics.forWorkflow("order-workflow", "kafka-sample");
+
+            assertThat(second).isSameAs(first);
+            assertThat(workflowMetrics.forWorkflow("order-workflow", null).getServiceName()).isEqualTo("unknown");
+        }
+
+        @Test
+        @DisplayName("Should record unknown topics beyond the cap in the overflow bundle")
+        void shouldRecordTopicsBeyondCapInOverflowBundle() {
+            workflowMetrics = new WorkflowMetrics(meterRegistry, 2);
+
+            workflowMetrics.recordWorkflowStarted("topic-1", "svc");
+            workflowMetrics.recordWorkflowStarted("topic-2", "svc");
+            workflowMetrics.recordWorkflowStarted("topic-3", "svc");
+            workflowMetrics.recordWorkflowStarted("topic-4", "svc");
+
+            assertThat(meterRegistry.find("stepprflow.workflow.started").counters()).hasSize(3);
+            assertThat(meterRegistry.find("stepprflow.workflow.started")
+                    .tag("topic", WorkflowMetrics.OVERFLOW).counter().count()).isEqualTo(2.0);
+            assertThat(workflowMetrics.getActiveTopics())
+                    .containsExactlyInAnyOrder("topic-1", "topic-2", WorkflowMetrics.OVERFLOW);
+            assertThat(workflowMetrics.getGlobalSummary().getWorkflowsStarted()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should resolve step meters of a bound definition by step ID")
+        void shouldResolveStepMetersByStepId() {
+            WorkflowDefinition definition = WorkflowDefinition.builder()
+                    .topic("order-workflow")
+                    .steps(List.of(
+                            StepDefinition.builder().id(1).label("validate").build(),
+                            StepDefinition.builder().id(2).label("pay").build()))
+                    .build();
+
+            WorkflowMeters meters = workflowMetrics.bind(definition, "kafka-sample");
+            meters.step(2).recordExecuted(Duration.ofMillis(5).toNanos());
+
+            assertThat(workflowMetrics.getBound("order-workflow")).isSameAs(meters);
+            assertThat(workflowMetrics.getBound("unknown-workflow")).isNull();
+            assertThat(meters.step(1)).isSameAs(meters.step("validate"));
+            assertThat(meters.step(3)).isNull();
+            assertThat(meterRegistry.find("stepprflow.step.executed")
+                    .tags("topic", "order-workflow", "service", "kafka-sample", "step", "pay")
+                    .counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("Should cap the number of step labels per workflow")
+        void shouldCapStepLabelsPerWorkflow() {
+            for (int i = 0; i < WorkflowMeters.MAX_STEP_LABELS + 10; i++) {
+                workflowMetrics.recordStepExecuted("order-workflow", "step-" + i, Duration.ofMillis(1));
+            }
+
+            assertThat(meterRegistry.find("stepprflow.step.executed").counters())
+                    .hasSize(WorkflowMeters.MAX_STEP_LABELS + 1);
+            assertThat(meterRegistry.find("stepprflow.step.executed")
+                    .tag("step", WorkflowMetrics.OVERFLOW).counter().count()).isEqualTo(10.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Windowed metrics")
+    class WindowedMetricsTests {
+
+        @Test
+        @DisplayName("Should report windowed latencies of the workflow and its steps")
+        void shouldReportWindowedLatenciesOfWorkflowAndSteps() {
+            workflowMetrics.recordWorkflowStarted("order-workflow", "kafka-sample");
+            workflowMetrics.recordWorkflowCompleted("order-workflow", "kafka-sample", Duration.ofMillis(200));
+            workflowMetrics.forWorkflow("order-workflow", "kafka-sample")
+                    .step("validate").recordExecuted(Duration.ofMillis(20).toNanos());
+
+            List<WindowedMetrics> windowed = workflowMetrics.getWindowedMetrics("order-workflow");
+
+            assertThat(windowed).hasSize(1);
+            WindowedMetrics metrics = windowed.get(0);
+            assertThat(metrics.getServiceName()).isEqualTo("kafka-sample");
+            assertThat(metrics.getWorkflow()).extracting(LatencySnapshot::getWindow)
+                    .containsExactly("1m", "5m", "15m");
+            assertThat(metrics.getWorkflow().get(0).getCount()).isEqualTo(1);
+            assertThat(metrics.getWorkflow().get(0).getMaxMs()).isEqualTo(200.0);
+            assertThat(metrics.getSteps().get("validate").get(0).getMaxMs()).isEqualTo(20.0);
+        }
+
+        @Test
+        @DisplayName("Should return no windowed metrics for an unknown topic")
+        void shouldReturnNoWindowedMetricsForUnknownTopic() {
+            assertThat(workflowMetrics.getWindowedMetrics("unknown-workflow")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Broker metrics")
+    class BrokerMetricsTests {
+
+        @Test
+        @DisplayName("Should record the dwell time of bound steps only")
+        void shouldRecordDwellTimeOfBoundStepsOnly() {
+            WorkflowDefinition definition = WorkflowDefinition.builder()
+                    .topic("order-workflow")
+                    .steps(List.of(StepDefinition.builder().id(1).label("validate").build()))
+                    .build();
+            WorkflowMeters meters = workflowMetrics.bind(definition, "kafka-sample");
+
+            meters.recordDwell(1, Duration.ofMillis(40).toNanos());
+            meters.recordDwell(7, Duration.ofMillis(40).toNanos());
+            meters.recordDwell(1, -5);
+
+            assertThat(meterRegistry.find("stepprflow.step.dwell")
+                    .tags("topic", "order-workflow", "step", "validate")
+                    .timer().count()).isEqualTo(2);
+            WindowedMetrics windowed = workflowMetrics.getWindowedMetrics("order-workflow").get(0);
+            assertThat(windowed.getDwell().get("validate").get(0).getMaxMs()).isEqualTo(40.0);
+        }
+
+        @Test
+        @DisplayName("Should register one lag gauge per partition")
+        void shouldRegisterOneLagGaugePerPartition() {
+            AtomicLong lag = workflowMetrics.consumerLag("order-workflow", 3);
+            lag.set(42);
+
+            assertThat(workflowMetrics.consumerLag("order-workflow", 3)).isSameAs(lag);
+            assertThat(meterRegistry.find("stepprflow.consumer.lag")
+                    .tags("topic", "order-workflow", "partition", "3")
+                    .gauge().value()).isEqualTo(42.0);
+        }
+
+        @Test
+        @DisplayName("Should read the queue depth when the gauge is read")
+        void shouldReadQueueDepthWhenGaugeIsRead() {
+            AtomicLong depth = new AtomicLong(5);
+            workflowMetrics.registerQueueDepth("order-workflow", "order-workflow.retry", depth::get);
+            depth.set(8);
+
+            assertThat(meterRegistry.find("stepprflow.queue.depth")
+                    .tags("topic", "order-workflow", "queue", "order-workflow.retry")
+                    .gauge().value()).isEqualTo(8.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics deltas")
+    class MetricsDeltaTests {
+
+        @Test
+        @DisplayName("Should report the activity since the previous drain")
+        void shouldReportActivitySincePreviousDrain() {
+            WorkflowMeters meters = workflowMetrics.forWorkflow("order-workflow", "kafka-sample");
+            meters.recordStarted();
+            meters.recordStarted();
+            meters.recordCompleted(Duration.ofMillis(200));
+            meters.step("validate").recordExecuted(Duration.ofMillis(20).toNanos());
+
+            MetricsDelta first = workflowMetrics.drainDelta();
+            meters.recordStarted();
+            MetricsDelta second = workflowMetrics.drainDelta();
+
+            assertThat(first.getWorkflows()).hasSize(1);
+            MetricsDelta.WorkflowDelta delta = first.getWorkflows().get(0);
+            assertThat(delta.getTopic()).isEqualTo("order-workflow");
+            assertThat(delta.getServiceName()).isEqualTo("kafka-sample");
+            assertThat(delta.getStarted()).isEqualTo(2);
+            assertThat(delta.getCompleted()).isEqualTo(1);
+            assertThat(delta.getActive()).isEqualTo(1);
+            assertThat(delta.getDuration().totalCount()).isEqualTo(1);
+            assertThat(delta.getDuration().getMaxMicros()).isEqualTo(200_000);
+            assertThat(delta.getSteps().get("validate").getDuration().getSumMicros()).isEqualTo(20_000);
+            assertThat(delta.getSteps().get("validate").getDwell()).isNull();
+
+            MetricsDelta.WorkflowDelta next = second.getWorkflows().get(0);
+            assertThat(next.getStarted()).isEqualTo(1);
+            assertThat(next.getCompleted()).isZero();
+            assertThat(next.getActive()).isEqualTo(2);
+            assertThat(next.getDuration()).isNull();
+            assertThat(next.getSteps()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should leave idle workflows out of the delta")
+        void shouldLeaveIdleWorkflowsOutOfDelta() {
+            workflowMetrics.recordWorkflowStarted("order-workflow", "kafka-sample");
+            workflowMetrics.drainDelta();
+
+            assertThat(workflowMetrics.drainDelta().getWorkflows()).isEmpty();
+        }
+    }
+}
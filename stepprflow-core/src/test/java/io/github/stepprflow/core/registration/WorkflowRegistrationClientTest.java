@@ -1,12 +1,15 @@
 package io.github.stepprflow.core.registration;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.metrics.MetricsDelta;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -60,6 +63,7 @@ class WorkflowRegistrationClientTest {
                     .partitions(3)
                     .replication((short) 2)
                     .timeout(Duration.ofMinutes(5))
+                    .searchKeys(List.of("orderId", "customer.id"))
                     .steps(List.of(
                             StepDefinition.builder()
                                     .id(1)
@@ -87,6 +91,7 @@ class WorkflowRegistrationClientTest {
             assertThat(info.getPartitions()).isEqualTo(3);
             assertThat(info.getReplication()).isEqualTo((short) 2);
             assertThat(info.getTimeoutMs()).isEqualTo(300000L);
+            assertThat(info.getSearchKeys()).containsExactly("orderId", "customer.id");
             assertThat(info.getSteps()).hasSize(2);
 
             WorkflowRegistrationRequest.StepInfo step1 = info.getSteps().get(0);
@@ -271,6 +276,45 @@ class WorkflowRegistrationClientTest {
                     .isEqualTo(WorkflowRegistrationRequest.ACTION_HEARTBEAT);
         }
 
+        @Test
+        @DisplayName("Should send metrics delta with HEARTBEAT")
+        void shouldSendMetricsDeltaWithHeartbeat() {
+            when(workflowRegistry.getAllDefinitions()).thenReturn(List.of(
+                    WorkflowDefinition.builder()
+                            .topic("test-workflow")
+                            .description("Test")
+                            .steps(List.of(
+                                    StepDefinition.builder()
+                                            .id(1)
+                                            .label("Step 1")
+                                            .build()
+                            ))
+                            .build()
+            ));
+            WorkflowMetrics workflowMetrics = new WorkflowMetrics(new SimpleMeterRegistry());
+            client = new WorkflowRegistrationClient(
+                    new RegistrationProperties(), workflowRegistry, messageBroker,
+                    "test-app", 8080, workflowMetrics);
+
+            client.registerWorkflows();
+            workflowMetrics.recordWorkflowStarted("test-workflow", "test-app");
+            workflowMetrics.recordWorkflowCompleted("test-workflow", "test-app", Duration.ofMillis(20));
+            client.heartbeat();
+            client.heartbeat();
+
+            ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+            verify(messageBroker, org.mockito.Mockito.times(3)).send(
+                    eq(WorkflowRegistrationRequest.REGISTRATION_TOPIC), captor.capture());
+
+            MetricsDelta delta = (MetricsDelta) captor.getAllValues().get(1).getPayload();
+            assertThat(delta.getWorkflows()).hasSize(1);
+            assertThat(delta.getWorkflows().get(0).getTopic()).isEqualTo("test-workflow");
+            assertThat(delta.getWorkflows().get(0).getCompleted()).isEqualTo(1);
+            assertThat(delta.getWorkflows().get(0).getDuration().totalCount()).isEqualTo(1);
+            // Nothing happened since the previous heartbeat
+            assertThat(captor.getAllValues().get(2).getPayload()).isNull();
+        }
+
         @Test
         @DisplayName("Should send DEREGISTER message on shutdown")
         void shouldSendDeregisterOnShutdown() {
@@ -0,0 +1,108 @@
+package io.github.stepprflow.core.schedule;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    private static final long START = 1_767_225_600_000L;
+
+    @Test
+    @DisplayName("Should expire items once their deadline is reached")
+    void shouldExpireItemsAtDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        wheel.add(START + 25, "a");
+        wheel.add(START + 50, "b");
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(START + 20, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advanceTo(START + 30, expired::add);
+        assertThat(expired).containsExactly("a");
+
+        wheel.advanceTo(START + 50, expired::add);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should expire past deadlines on the next tick")
+    void shouldExpirePastDeadlinesOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        wheel.add(START - 1_000, "late");
+        List<String> expired = new ArrayList<>();
+
+        wheel.advanceTo(START, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advanceTo(START + 10, expired::add);
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    @DisplayName("Should cascade far deadlines through the levels without firing early or late")
+    void shouldCascadeFarDeadlines() {
+        TimingWheel<long[]> wheel = new TimingWheel<>(10, 8, START);
+        Random random = new Random(42);
+        List<long[]> items = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long[] item = {START + 1 + random.nextInt(5_000_000), -1};
+            items.add(item);
+            wheel.add(item[0], item);
+        }
+
+        for (long now = START; wheel.size() > 0; now += 10) {
+            long time = now;
+            wheel.advanceTo(now, item -> item[1] = time);
+        }
+
+        assertThat(items).allSatisfy(item -> {
+            assertThat(item[1]).isGreaterThanOrEqualTo(item[0]);
+            assertThat(item[1]).isLessThan(item[0] + 10);
+        });
+    }
+
+    @Test
+    @DisplayName("Should catch up after a long pause")
+    void shouldCatchUpAfterPause() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(100, 16, START);
+        for (int i = 1; i <= 100; i++) {
+            wheel.add(START + i * 60_000L, i);
+        }
+
+        int expired = wheel.advanceTo(START + 3_600_000, item -> { });
+
+        assertThat(expired).isEqualTo(60);
+        assertThat(wheel.size()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("Should drain every pending item")
+    void shouldDrainPendingItems() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        wheel.add(START + 50, "near");
+        wheel.add(START + 86_400_000, "far");
+        List<String> drained = new ArrayList<>();
+
+        assertThat(wheel.drain(drained::add)).isEqualTo(2);
+        assertThat(drained).containsExactlyInAnyOrder("near", "far");
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(START + 86_400_000, item -> { })).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a wheel size that is not a power of two")
+    void shouldRejectInvalidWheelSize() {
+        assertThatThrownBy(() -> new TimingWheel<String>(10, 10, START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
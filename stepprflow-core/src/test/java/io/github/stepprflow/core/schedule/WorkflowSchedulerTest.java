@@ -0,0 +1,280 @@
+package io.github.stepprflow.core.schedule;
+
+import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WorkflowScheduler Tests")
+class WorkflowSchedulerTest {
+
+    @Mock
+    private MessageBroker messageBroker;
+
+    @Mock
+    private WorkflowExecutionStore executionStore;
+
+    private MutableClock clock;
+
+    private HeldMessages store;
+
+    private WorkflowScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        store = new HeldMessages();
+        scheduler = new WorkflowScheduler(messageBroker, store, null, Duration.ofMillis(100), 64, 100, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    @DisplayName("Should not defer messages that are due")
+    void shouldNotDeferDueMessages() {
+        assertThat(scheduler.defer(message(null))).isFalse();
+        assertThat(scheduler.defer(message(clock.instant().minusSeconds(1)))).isFalse();
+        assertThat(scheduler.pending()).isZero();
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold a deferred message in the store and publish it once it is due")
+    void shouldPublishDeferredMessageWhenDue() {
+        Instant scheduledAt = clock.instant().plus(Duration.ofMinutes(10));
+        assertThat(scheduler.defer(message(scheduledAt))).isTrue();
+        assertThat(store.heldCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(9));
+        scheduler.tick();
+        verify(messageBroker, never()).send(any(), any());
+
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.tick();
+
+        ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+        verify(messageBroker).send(eq("order-workflow"), captor.capture());
+        assertThat(captor.getValue().getScheduledAt()).isNull();
+        assertThat(captor.getValue().getExecutionId()).isEqualTo("exec-1");
+        assertThat(scheduler.pending()).isZero();
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not defer a message the store failed to hold")
+    void shouldPropagateStoreFailure() {
+        ScheduledMessageStore failing = mock(ScheduledMessageStore.class);
+        doThrow(new IllegalStateException("Disk full")).when(failing).hold(any());
+        scheduler = new WorkflowScheduler(messageBroker, failing, null, Duration.ofMillis(100), 64, 100, clock);
+
+        assertThatThrownBy(() -> scheduler.defer(message(clock.instant().plusSeconds(1))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(scheduler.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold the parallel branches of an execution side by side")
+    void shouldHoldParallelBranches() {
+        Instant scheduledAt = clock.instant().plusSeconds(1);
+        scheduler.defer(message(scheduledAt));
+        scheduler.defer(message(scheduledAt).toBuilder().currentStep(2).build());
+        // A redelivered message is held once
+        scheduler.defer(message(scheduledAt));
+
+        assertThat(scheduler.pending()).isEqualTo(2);
+        assertThat(store.heldCount()).isEqualTo(2);
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+
+        verify(messageBroker, times(2)).send(eq("order-workflow"), any());
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should retry a release that failed to send")
+    void shouldRetryFailedRelease() {
+        scheduler.defer(message(clock.instant().plusSeconds(1)));
+        doThrow(new RuntimeException("Broker down")).doNothing()
+                .when(messageBroker).send(eq("order-workflow"), any());
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+        assertThat(scheduler.pending()).isEqualTo(1);
+        assertThat(store.heldCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+        verify(messageBroker, times(2)).send(eq("order-workflow"), any());
+        assertThat(scheduler.pending()).isZero();
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep pending messages in the store on shutdown")
+    void shouldKeepPendingMessagesOnShutdown() {
+        scheduler.defer(message(clock.instant().plus(Duration.ofHours(1))));
+
+        scheduler.stop();
+
+        verify(messageBroker, never()).send(any(), any());
+        assertThat(store.heldCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reload held messages from the store, publishing the due ones")
+    void shouldReloadFromStore() {
+        store.hold(message(clock.instant().plusSeconds(30)));
+        store.hold(message(clock.instant().minusSeconds(30)).toBuilder().currentStep(2).build());
+
+        scheduler.reload();
+
+        verify(messageBroker).send(eq("order-workflow"), any());
+        assertThat(scheduler.pending()).isEqualTo(1);
+        assertThat(store.heldCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(30));
+        scheduler.tick();
+
+        verify(messageBroker, times(2)).send(eq("order-workflow"), any());
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep messages beyond the in-memory bound in the store until the wheel drains")
+    void shouldBoundPendingMessages() {
+        scheduler = new WorkflowScheduler(messageBroker, store, null, Duration.ofMillis(100), 64, 2, clock);
+        for (int step = 1; step <= 3; step++) {
+            scheduler.defer(message(clock.instant().plusSeconds(step)).toBuilder().currentStep(step).build());
+        }
+
+        assertThat(scheduler.pending()).isEqualTo(2);
+        assertThat(store.heldCount()).isEqualTo(3);
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+        assertThat(scheduler.pending()).isEqualTo(2);
+
+        clock.advance(Duration.ofSeconds(2));
+        scheduler.tick();
+
+        verify(messageBroker, times(3)).send(eq("order-workflow"), any());
+        assertThat(scheduler.pending()).isZero();
+        assertThat(store.heldCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop scheduled messages of executions cancelled in the store")
+    void shouldDropCancelledExecutions() {
+        scheduler = new WorkflowScheduler(messageBroker, store, executionStore, Duration.ofMillis(100), 64, 100, clock);
+        scheduler.defer(message(clock.instant().plusSeconds(1)));
+        when(executionStore.findByExecutionId("exec-1")).thenReturn(Optional.of(
+                WorkflowMessage.builder().executionId("exec-1").status(WorkflowStatus.CANCELLED).build()));
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+
+        verify(messageBroker, never()).send(any(), any());
+        assertThat(store.heldCount()).isZero();
+    }
+
+    private static WorkflowMessage message(final Instant scheduledAt) {
+        return WorkflowMessage.builder()
+                .executionId("exec-1")
+                .topic("order-workflow")
+                .currentStep(1)
+                .totalSteps(3)
+                .status(WorkflowStatus.PENDING)
+                .scheduledAt(scheduledAt)
+                .build();
+    }
+
+    /** Held messages kept in memory, ordered by scheduled time. */
+    static class HeldMessages implements ScheduledMessageStore {
+        private final Map<String, WorkflowMessage> held = new HashMap<>();
+
+        @Override
+        public void hold(final WorkflowMessage message) {
+            held.put(message.getExecutionId() + "#" + message.getCurrentStep(), message);
+        }
+
+        @Override
+        public boolean release(final String executionId, final int stepId) {
+            return held.remove(executionId + "#" + stepId) != null;
+        }
+
+        @Override
+        public List<WorkflowMessage> findHeld(final int limit) {
+            return held.values().stream()
+                    .sorted(Comparator.comparing(WorkflowMessage::getScheduledAt))
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        public int heldCount() {
+            return held.size();
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
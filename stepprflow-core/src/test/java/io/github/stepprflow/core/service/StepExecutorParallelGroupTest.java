@@ -0,0 +1,212 @@
+package io.github.stepprflow.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.stepprflow.core.StepprFlowProperties;
+import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.WorkflowDefinition;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.security.SecurityContextPropagator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StepExecutor Parallel Group Tests")
+class StepExecutorParallelGroupTest {
+
+    @Mock
+    private WorkflowRegistry registry;
+
+    @Mock
+    private MessageBroker messageBroker;
+
+    @Mock
+    private StepprFlowProperties properties;
+
+    @Mock
+    private BackoffCalculator backoffCalculator;
+
+    @Mock
+    private CallbackMethodInvoker callbackMethodInvoker;
+
+    @Mock
+    private SecurityContextPropagator securityContextPropagator;
+
+    private InMemoryStepJoinStore joinStore;
+    private StepExecutor stepExecutor;
+    private ParallelWorkflow workflow;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        joinStore = new InMemoryStepJoinStore();
+        stepExecutor = new StepExecutor(registry, messageBroker, properties, new ObjectMapper(),
+                backoffCalculator, callbackMethodInvoker, securityContextPropagator,
+                StepExecutorCollaborators.builder().stepJoinStore(joinStore).build());
+        workflow = new ParallelWorkflow();
+    }
+
+    @Test
+    @DisplayName("Should dispatch every branch of the next group")
+    void shouldDispatchEveryBranchOfNextGroup() throws Exception {
+        when(registry.getDefinition("orders")).thenReturn(definition(true));
+
+        stepExecutor.execute(message(1, null));
+
+        ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+        verify(messageBroker, times(2)).send(eq("orders"), captor.capture());
+        assertThat(captor.getAllValues())
+                .extracting(WorkflowMessage::getCurrentStep)
+                .containsExactly(2, 3);
+        assertThat(captor.getAllValues())
+                .extracting(WorkflowMessage::getCurrentStepGroup)
+                .containsOnly("prepare");
+    }
+
+    @Test
+    @DisplayName("Should wait for all branches and advance with merged payload")
+    void shouldJoinBranchesAndAdvanceWithMergedPayload() throws Exception {
+        when(registry.getDefinition("orders")).thenReturn(definition(true));
+
+        stepExecutor.execute(message(2, "prepare"));
+        verify(messageBroker, never()).send(any(), any());
+        assertThat(joinStore.pendingJoins()).isEqualTo(1);
+
+        stepExecutor.execute(message(3, "prepare"));
+
+        ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+        verify(messageBroker).send(eq("orders"), captor.capture());
+        WorkflowMessage next = captor.getValue();
+        assertThat(next.getCurrentStep()).isEqualTo(4);
+        assertThat(next.getCurrentStepLabel()).isEqualTo("Confirm");
+        assertThat(next.getCurrentStepGroup()).isNull();
+        assertThat((Map<String, Object>) next.getPayload())
+                .containsEntry("orderId", "o-1")
+                .containsEntry("reserved", true)
+                .containsEntry("score", 42);
+        assertThat(joinStore.pendingJoins()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should complete workflow when the group is last")
+    void shouldCompleteWorkflowWhenGroupIsLast() throws Exception {
+        when(registry.getDefinition("orders")).thenReturn(definition(false));
+
+        stepExecutor.execute(message(3, "prepare"));
+        stepExecutor.execute(message(2, "prepare"));
+
+        ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+        verify(messageBroker).send(eq("orders.completed"), captor.capture());
+        WorkflowMessage completed = captor.getValue();
+        assertThat(completed.getStatus()).isEqualTo(WorkflowStatus.COMPLETED);
+        assertThat(completed.getCurrentStep()).isEqualTo(3);
+        assertThat((Map<String, Object>) completed.getPayload())
+                .containsEntry("reserved", true)
+                .containsEntry("score", 42);
+    }
+
+    @Test
+    @DisplayName("Should join with unchanged payload when a continueOnFailure branch fails")
+    void shouldJoinWhenContinueOnFailureBranchFails() throws Exception {
+        WorkflowDefinition definition = definition(true);
+        StepDefinition failing = definition.getStep(3);
+        failing.setMethod(ParallelWorkflow.class.getDeclaredMethod("failingScore", Object.class));
+        failing.setContinueOnFailure(true);
+        when(registry.getDefinition("orders")).thenReturn(definition);
+
+        stepExecutor.execute(message(2, "prepare"));
+        clearInvocations(messageBroker);
+        stepExecutor.execute(message(3, "prepare"));
+
+        ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+        verify(messageBroker).send(eq("orders"), captor.capture());
+        assertThat(captor.getValue().getCurrentStep()).isEqualTo(4);
+        assertThat((Map<String, Object>) captor.getValue().getPayload())
+                .containsEntry("reserved", true)
+                .doesNotContainKey("score");
+    }
+
+    private WorkflowMessage message(final int step, final String group) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("orderId", "o-1");
+        return WorkflowMessage.builder()
+                .executionId("exec-1")
+                .topic("orders")
+                .currentStep(step)
+                .currentStepGroup(group)
+                .totalSteps(4)
+                .status(WorkflowStatus.IN_PROGRESS)
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private WorkflowDefinition definition(final boolean withConfirmStep) throws Exception {
+        List<StepDefinition> steps = new ArrayList<>(List.of(
+                step(1, "Validate", "validate", null),
+                step(2, "Reserve", "reserve", "prepare"),
+                step(3, "Score", "score", "prepare")));
+        if (withConfirmStep) {
+            steps.add(step(4, "Confirm", "confirm", null));
+        }
+        return WorkflowDefinition.builder()
+                .topic("orders")
+                .handler(workflow)
+                .handlerClass(ParallelWorkflow.class)
+                .steps(steps)
+                .build();
+    }
+
+    private StepDefinition step(final int id, final String label, final String method, final String group)
+            throws Exception {
+        return StepDefinition.builder()
+                .id(id)
+                .label(label)
+                .method(ParallelWorkflow.class.getDeclaredMethod(method, Object.class))
+                .group(group)
+                .build();
+    }
+
+    static class ParallelWorkflow implements StepprFlow {
+
+        public void validate(Object payload) {
+        }
+
+        public void reserve(Object payload) {
+            ((Map<String, Object>) payload).put("reserved", true);
+        }
+
+        public void score(Object payload) {
+            ((Map<String, Object>) payload).put("score", 42);
+        }
+
+        public void failingScore(Object payload) {
+            ((Map<String, Object>) payload).put("score", -1);
+            throw new IllegalStateException("scoring unavailable");
+        }
+
+        public void confirm(Object payload) {
+        }
+    }
+}
@@ -65,7 +65,8 @@ class StepExecutorSecurityTest {
                 objectMapper,
                 backoffCalculator,
                 callbackMethodInvoker,
-                securityContextPropagator
+                securityContextPropagator,
+                null
         );
 
         testWorkflow = new TestWorkflow();
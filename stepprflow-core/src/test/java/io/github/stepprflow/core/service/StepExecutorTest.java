@@ -3,8 +3,16 @@ package io.github.stepprflow.core.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.stepprflow.core.StepprFlowProperties;
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.dedup.StepDeduplicationGuard;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.model.*;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.security.SecurityContextPropagator;
+import io.github.stepprflow.core.tracing.TraceHop;
+import io.github.stepprflow.core.tracing.WorkflowHopTracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,7 +21,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -22,6 +29,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -53,7 +62,12 @@ class StepExecutorTest {
     @Mock
     private SecurityContextPropagator securityContextPropagator;
 
-    @InjectMocks
+    @Mock
+    private StepDeduplicationGuard deduplicationGuard;
+
+    @Mock
+    private CancellationRegistry cancellationRegistry;
+
     private StepExecutor stepExecutor;
 
     @Captor
@@ -68,6 +82,7 @@ class StepExecutorTest {
 
     @BeforeEach
     void setUp() {
+        stepExecutor = createStepExecutor(StepExecutorCollaborators.builder());
         testWorkflow = new TestWorkflow();
 
         // Ne pas mettre payloadType pour éviter l'appel à objectMapper.convertValue()
@@ -451,6 +466,296 @@ class StepExecutorTest {
         }
     }
 
+    @Nested
+    @DisplayName("Redelivery deduplication")
+    class DeduplicationTests {
+
+        @Test
+        @DisplayName("Should skip a step that was already executed")
+        void shouldSkipAlreadyExecutedStep() throws Exception {
+            testDefinition = createWorkflowDefinition(List.of(
+                    createStepDefinition(1, "step1"), createStepDefinition(2, "step2")));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+            when(deduplicationGuard.isDuplicate(testMessage)).thenReturn(true);
+
+            stepExecutor.execute(testMessage);
+
+            assertThat(testWorkflow.step1Called).isFalse();
+            verify(messageBroker, never()).send(any(), any());
+            verify(deduplicationGuard, never()).markExecuted(any());
+        }
+
+        @Test
+        @DisplayName("Should remember a step once it succeeded")
+        void shouldRememberStepOnceItSucceeded() throws Exception {
+            testDefinition = createWorkflowDefinition(List.of(
+                    createStepDefinition(1, "step1"), createStepDefinition(2, "step2")));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            assertThat(testWorkflow.step1Called).isTrue();
+            verify(deduplicationGuard).markExecuted(testMessage);
+        }
+    }
+
+    @Nested
+    @DisplayName("Scheduling")
+    class SchedulingTests {
+
+        @Mock
+        private WorkflowScheduler scheduler;
+
+        @BeforeEach
+        void setUp() {
+            stepExecutor = createStepExecutor(StepExecutorCollaborators.builder().scheduler(scheduler));
+        }
+
+        @Test
+        @DisplayName("Should schedule the next step when the step returns a delay")
+        void shouldScheduleNextStepWhenStepReturnsDelay() throws Exception {
+            StepDefinition step1 = createStepDefinition(1, "delayedStep");
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getCurrentStep()).isEqualTo(2);
+            assertThat(messageCaptor.getValue().getScheduledAt()).isEqualTo(Instant.parse("2030-01-01T09:00:00Z"));
+            assertThat(testWorkflow.step2Called).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should not carry the schedule of the current message to the next step")
+        void shouldNotCarryScheduleToNextStep() throws Exception {
+            testMessage.setScheduledAt(Instant.parse("2020-01-01T00:00:00Z"));
+            StepDefinition step1 = createStepDefinition(1, "step1");
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getScheduledAt()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should fail a step returning a delay when the scheduler is disabled")
+        void shouldFailDelayWithoutScheduler() throws Exception {
+            stepExecutor = createStepExecutor(StepExecutorCollaborators.builder());
+            StepprFlowProperties.Retry retryConfig = new StepprFlowProperties.Retry();
+            retryConfig.setMaxAttempts(3);
+            when(properties.getRetry()).thenReturn(retryConfig);
+            StepDefinition step1 = createStepDefinition(1, "delayedStep");
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic.retry"), messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getStatus()).isEqualTo(WorkflowStatus.RETRY_PENDING);
+            verify(messageBroker, never()).send(eq("test-topic"), any(WorkflowMessage.class));
+        }
+
+        @Test
+        @DisplayName("Should fail the last step when it returns a delay")
+        void shouldFailDelayOnLastStep() throws Exception {
+            StepprFlowProperties.Retry retryConfig = new StepprFlowProperties.Retry();
+            retryConfig.setMaxAttempts(3);
+            when(properties.getRetry()).thenReturn(retryConfig);
+            StepDefinition step1 = createStepDefinition(1, "delayedStep");
+            testDefinition = createWorkflowDefinition(List.of(step1));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic.retry"), messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getStatus()).isEqualTo(WorkflowStatus.RETRY_PENDING);
+            assertThat(messageCaptor.getValue().getRetryInfo().getLastError()).contains("the last step");
+            verify(messageBroker, never()).send(eq("test-topic.completed"), any(WorkflowMessage.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class MetricsTests {
+
+        private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        @Test
+        @DisplayName("Should record executed steps on the bound meters")
+        void shouldRecordExecutedStepsOnBoundMeters() throws Exception {
+            StepDefinition step1 = createStepDefinition(1, "step1");
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            bindMeters();
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            assertThat(meterRegistry.find("stepprflow.step.executed")
+                    .tags("topic", "test-topic", "service", "test-service", "step", "step1")
+                    .counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.find("stepprflow.step.duration")
+                    .tags("step", "step1").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should record failed steps on the bound meters")
+        void shouldRecordFailedStepsOnBoundMeters() throws Exception {
+            StepDefinition step1 = createFailingStepDefinition(1, "failingStep", true);
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            bindMeters();
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            assertThat(meterRegistry.find("stepprflow.step.failed")
+                    .tags("step", "failingStep").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.find("stepprflow.step.executed")
+                    .tags("step", "failingStep").counter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should record the time the message waited since its publish time")
+        void shouldRecordDwellTimeFromPublishTime() throws Exception {
+            testDefinition = createWorkflowDefinition(List.of(
+                    createStepDefinition(1, "step1"), createStepDefinition(2, "step2")));
+            bindMeters();
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage, System.currentTimeMillis() - 250);
+
+            assertThat(meterRegistry.find("stepprflow.step.dwell")
+                    .tags("step", "step1").timer().totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(250);
+        }
+
+        private void bindMeters() {
+            WorkflowMetrics workflowMetrics = new WorkflowMetrics(meterRegistry);
+            workflowMetrics.bind(testDefinition, "test-service");
+            stepExecutor = createStepExecutor(StepExecutorCollaborators.builder().workflowMetrics(workflowMetrics));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tracing")
+    class TracingTests {
+
+        @Mock
+        private WorkflowHopTracer hopTracer;
+
+        @Mock
+        private TraceHop hop;
+
+        @BeforeEach
+        void setUp() {
+            stepExecutor = createStepExecutor(StepExecutorCollaborators.builder().hopTracer(hopTracer));
+        }
+
+        @Test
+        @DisplayName("Should run the step within the hop and stamp the next step message with its context")
+        void shouldRunStepWithinHop() throws Exception {
+            testDefinition = createWorkflowDefinition(List.of(
+                    createStepDefinition(1, "step1"), createStepDefinition(2, "step2")));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+            when(hopTracer.startHop(testMessage, 1_000L)).thenReturn(hop);
+            when(hop.traceStep(eq(testMessage), any(), any()))
+                    .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(2).call());
+
+            stepExecutor.execute(testMessage, 1_000L);
+
+            assertThat(testWorkflow.step1Called).isTrue();
+            InOrder inOrder = inOrder(hop, messageBroker);
+            inOrder.verify(hop).stamp(testMessage);
+            inOrder.verify(messageBroker).send(eq("test-topic"), any());
+            inOrder.verify(hop).close();
+        }
+
+        @Test
+        @DisplayName("Should report a failed step to the hop")
+        void shouldReportFailureToHop() throws Exception {
+            StepprFlowProperties.Retry retryConfig = new StepprFlowProperties.Retry();
+            retryConfig.setMaxAttempts(3);
+            when(properties.getRetry()).thenReturn(retryConfig);
+            when(backoffCalculator.calculate(anyInt())).thenReturn(Duration.ofSeconds(1));
+            testDefinition = createWorkflowDefinition(List.of(createFailingStepDefinition(1, "failingStep")));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+            when(hopTracer.startHop(testMessage, 0L)).thenReturn(hop);
+            when(hop.traceStep(eq(testMessage), any(), any()))
+                    .thenAnswer(invocation -> invocation.<Callable<?>>getArgument(2).call());
+
+            stepExecutor.execute(testMessage);
+
+            verify(hop).failed(any(RuntimeException.class));
+            verify(hop).close();
+        }
+    }
+
+    @Nested
+    @DisplayName("Step timing")
+    class StepTimingTests {
+
+        @Test
+        @DisplayName("Should report the queue time and run time of the step with the next step message")
+        void shouldReportTimingWithNextStepMessage() throws Exception {
+            testMessage.setUpdatedAt(Instant.now().minusMillis(300));
+            StepDefinition step1 = createStepDefinition(1, "step1");
+            StepDefinition step2 = createStepDefinition(2, "step2");
+            testDefinition = createWorkflowDefinition(List.of(step1, step2));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            StepTiming timing = messageCaptor.getValue().getStepTiming();
+            assertThat(timing.getStepId()).isEqualTo(1);
+            assertThat(timing.getSentAt()).isEqualTo(testMessage.getUpdatedAt());
+            assertThat(timing.getQueuedMs()).isGreaterThanOrEqualTo(300);
+            assertThat(timing.getExecutionMs()).isNotNegative();
+        }
+
+        @Test
+        @DisplayName("Should report the timing of a failed attempt with the retry message")
+        void shouldReportTimingWithRetryMessage() throws Exception {
+            StepprFlowProperties.Retry retryConfig = new StepprFlowProperties.Retry();
+            retryConfig.setMaxAttempts(3);
+            when(properties.getRetry()).thenReturn(retryConfig);
+            when(backoffCalculator.calculate(anyInt())).thenReturn(Duration.ofSeconds(1));
+            testDefinition = createWorkflowDefinition(List.of(createFailingStepDefinition(1, "failingStep")));
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            stepExecutor.execute(testMessage);
+
+            verify(messageBroker).send(eq("test-topic.retry"), messageCaptor.capture());
+            StepTiming timing = messageCaptor.getValue().getStepTiming();
+            assertThat(timing.getStepId()).isEqualTo(1);
+            assertThat(timing.getSentAt()).isNull();
+            assertThat(timing.getQueuedMs()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation")
+    class CancellationTests {
+
+        @Test
+        @DisplayName("Should skip steps of a cancelled execution")
+        void shouldSkipStepsOfCancelledExecution() {
+            when(cancellationRegistry.isCancelled(testMessage.getExecutionId())).thenReturn(true);
+
+            stepExecutor.execute(testMessage);
+
+            assertThat(testWorkflow.step1Called).isFalse();
+            verify(registry, never()).getDefinition(any());
+            verify(messageBroker, never()).send(any(), any());
+        }
+    }
+
     @Nested
     @DisplayName("Backoff calculation")
     class BackoffCalculationTests {
@@ -493,6 +798,14 @@ class StepExecutorTest {
     }
 
     // Helper methods
+    private StepExecutor createStepExecutor(StepExecutorCollaborators.StepExecutorCollaboratorsBuilder collaborators) {
+        return new StepExecutor(registry, messageBroker, properties, objectMapper, backoffCalculator,
+                callbackMethodInvoker, securityContextPropagator, collaborators
+                        .deduplicationGuard(deduplicationGuard)
+                        .cancellationRegistry(cancellationRegistry)
+                        .build());
+    }
+
     private StepDefinition createStepDefinition(int id, String methodName) throws Exception {
         Method method = TestWorkflow.class.getDeclaredMethod(methodName, Object.class);
         return StepDefinition.builder()
@@ -589,6 +902,11 @@ class StepExecutorTest {
             step3Called = true;
         }
 
+        public StepResult delayedStep(Object payload) {
+            step1Called = true;
+            return StepResult.delayUntil(Instant.parse("2030-01-01T09:00:00Z"));
+        }
+
         public void failingStep(Object payload) {
             throw new RuntimeException("Step failed intentionally");
         }
@@ -5,6 +5,7 @@ import io.github.stepprflow.core.annotation.OnSuccess;
 import io.github.stepprflow.core.annotation.Step;
 import io.github.stepprflow.core.annotation.Timeout;
 import io.github.stepprflow.core.annotation.Topic;
+import io.github.stepprflow.core.exception.WorkflowDefinitionException;
 import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +24,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -241,6 +243,21 @@ class WorkflowRegistryTest {
             assertThat(definition.getPartitions()).isEqualTo(3);
             assertThat(definition.getReplication()).isEqualTo((short) 2);
         }
+
+        @Test
+        @DisplayName("Should extract search keys")
+        void shouldExtractSearchKeys() {
+            Map<String, Object> beans = Map.of(
+                    "testWorkflow", new TestWorkflow(),
+                    "anotherWorkflow", new AnotherWorkflow());
+            when(applicationContext.getBeansWithAnnotation(Topic.class)).thenReturn(beans);
+
+            workflowRegistry.init();
+
+            assertThat(workflowRegistry.getDefinition("test-workflow").getSearchKeys())
+                    .containsExactly("orderId", "customer.id");
+            assertThat(workflowRegistry.getDefinition("another-workflow").getSearchKeys()).isEmpty();
+        }
     }
 
     @Nested
@@ -319,8 +336,55 @@ class WorkflowRegistryTest {
         }
     }
 
+    @Nested
+    @DisplayName("Parallel groups")
+    class ParallelGroupTests {
+
+        @Test
+        @DisplayName("Should register grouped steps")
+        void shouldRegisterGroupedSteps() {
+            when(applicationContext.getBeansWithAnnotation(Topic.class))
+                    .thenReturn(Map.of("parallelWorkflow", new ParallelWorkflow()));
+
+            workflowRegistry.init();
+
+            WorkflowDefinition definition = workflowRegistry.getDefinition("parallel-workflow");
+            assertThat(definition.getStep(1).getGroup()).isNull();
+            assertThat(definition.getGroupSteps("prepare"))
+                    .extracting(StepDefinition::getId)
+                    .containsExactly(2, 3);
+            assertThat(definition.getNextStepId(1)).isEqualTo(2);
+            assertThat(definition.getNextStepId(2)).isEqualTo(4);
+            assertThat(definition.endsAfter(3)).isFalse();
+            assertThat(definition.endsAfter(4)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject a group starting the workflow")
+        void shouldRejectGroupStartingWorkflow() {
+            when(applicationContext.getBeansWithAnnotation(Topic.class))
+                    .thenReturn(Map.of("leadingGroupWorkflow", new LeadingGroupWorkflow()));
+
+            assertThatThrownBy(() -> workflowRegistry.init())
+                    .isInstanceOf(WorkflowDefinitionException.class)
+                    .hasMessageContaining("first step");
+        }
+
+        @Test
+        @DisplayName("Should reject a group with non consecutive steps")
+        void shouldRejectGroupWithNonConsecutiveSteps() {
+            when(applicationContext.getBeansWithAnnotation(Topic.class))
+                    .thenReturn(Map.of("splitGroupWorkflow", new SplitGroupWorkflow()));
+
+            assertThatThrownBy(() -> workflowRegistry.init())
+                    .isInstanceOf(WorkflowDefinitionException.class)
+                    .hasMessageContaining("consecutive");
+        }
+    }
+
     // Test workflow classes
-    @Topic(value = "test-workflow", description = "Test workflow description", partitions = 3, replication = 2)
+    @Topic(value = "test-workflow", description = "Test workflow description", partitions = 3, replication = 2,
+            searchKeys = {"orderId", "customer.id"})
     static class TestWorkflow implements StepprFlow {
 
         @Step(id = 1, label = "Validate Input", description = "Validates the input payload")
@@ -387,4 +451,53 @@ class WorkflowRegistryTest {
     static class NoTopicWorkflowProxy$$EnhancerByCGLIB$$xyz789 extends NoTopicWorkflowBase {
         // Proxy class - superclass has no @Topic, so this should be skipped
     }
-}
\ No newline at end of file
+
+    @Topic("parallel-workflow")
+    static class ParallelWorkflow implements StepprFlow {
+        @Step(id = 1, label = "Validate")
+        public void validate(Object payload) {
+        }
+
+        @Step(id = 2, label = "Reserve", group = "prepare")
+        public void reserve(Object payload) {
+        }
+
+        @Step(id = 3, label = "Score", group = "prepare")
+        public void score(Object payload) {
+        }
+
+        @Step(id = 4, label = "Confirm")
+        public void confirm(Object payload) {
+        }
+    }
+
+    @Topic("leading-group-workflow")
+    static class LeadingGroupWorkflow implements StepprFlow {
+        @Step(id = 1, label = "Reserve", group = "prepare")
+        public void reserve(Object payload) {
+        }
+
+        @Step(id = 2, label = "Score", group = "prepare")
+        public void score(Object payload) {
+        }
+    }
+
+    @Topic("split-group-workflow")
+    static class SplitGroupWorkflow implements StepprFlow {
+        @Step(id = 1, label = "Validate")
+        public void validate(Object payload) {
+        }
+
+        @Step(id = 2, label = "Reserve", group = "prepare")
+        public void reserve(Object payload) {
+        }
+
+        @Step(id = 3, label = "Charge")
+        public void charge(Object payload) {
+        }
+
+        @Step(id = 4, label = "Score", group = "prepare")
+        public void score(Object payload) {
+        }
+    }
+}
@@ -49,7 +49,11 @@ class WorkflowStarterImplSecurityTest {
                 registry,
                 messageBroker,
                 securityContextPropagator,
-                "test-service"
+                "test-service",
+                null,
+                null,
+                null,
+                null
         );
 
         testDefinition = WorkflowDefinition.builder()
@@ -1,11 +1,18 @@
 package io.github.stepprflow.core.service;
 
 import io.github.stepprflow.core.exception.WorkflowException;
+import io.github.stepprflow.core.exception.WorkflowNotFoundException;
+import io.github.stepprflow.core.exception.WorkflowStateException;
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.model.BatchStartResult;
+import io.github.stepprflow.core.model.ErrorInfo;
 import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.security.NoOpSecurityContextPropagator;
 import io.github.stepprflow.core.security.SecurityContextPropagator;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,8 +25,10 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +50,9 @@ class WorkflowStarterImplTest {
     @Mock
     private MessageBroker messageBroker;
 
+    @Mock
+    private WorkflowScheduler scheduler;
+
     private SecurityContextPropagator securityContextPropagator;
 
     private WorkflowStarterImpl workflowStarter;
@@ -57,7 +69,11 @@ class WorkflowStarterImplTest {
                 registry,
                 messageBroker,
                 securityContextPropagator,
-                "test-service"
+                "test-service",
+                null,
+                null,
+                null,
+                scheduler
         );
 
         testDefinition = WorkflowDefinition.builder()
@@ -182,6 +198,48 @@ class WorkflowStarterImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("startAt() method")
+    class StartAtTests {
+
+        @Test
+        @DisplayName("Should send start message scheduled at the given time")
+        void shouldSendScheduledStartMessage() {
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+            Instant startAt = Instant.parse("2030-01-01T09:00:00Z");
+
+            String executionId = workflowStarter.startAt("test-topic", new TestPayload("test"), startAt);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            WorkflowMessage message = messageCaptor.getValue();
+            assertThat(message.getExecutionId()).isEqualTo(executionId);
+            assertThat(message.getStatus()).isEqualTo(WorkflowStatus.PENDING);
+            assertThat(message.getScheduledAt()).isEqualTo(startAt);
+        }
+
+        @Test
+        @DisplayName("Should throw exception when topic is unknown")
+        void shouldThrowExceptionWhenTopicUnknown() {
+            when(registry.getDefinition("unknown-topic")).thenReturn(null);
+
+            assertThatThrownBy(() -> workflowStarter.startAt("unknown-topic", new TestPayload(""), Instant.now()))
+                    .isInstanceOf(WorkflowException.class);
+            verify(messageBroker, never()).send(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should reject scheduled starts without a scheduler")
+        void shouldRejectWithoutScheduler() {
+            WorkflowStarterImpl withoutScheduler = new WorkflowStarterImpl(
+                    registry, messageBroker, securityContextPropagator, "test-service", null, null, null, null);
+
+            assertThatThrownBy(() -> withoutScheduler.startAt("test-topic", new TestPayload(""), Instant.now()))
+                    .isInstanceOf(WorkflowException.class)
+                    .hasMessageContaining("stepprflow.store.enabled");
+            verify(messageBroker, never()).send(any(), any());
+        }
+    }
+
     @Nested
     @DisplayName("startAsync() method")
     class StartAsyncTests {
@@ -214,6 +272,60 @@ class WorkflowStarterImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("startBatch() method")
+    class StartBatchTests {
+
+        @Test
+        @DisplayName("Should send all messages in one broker batch")
+        void shouldSendAllMessagesInOneBrokerBatch() {
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+            when(messageBroker.sendBatch(eq("test-topic"), any()))
+                    .thenReturn(CompletableFuture.completedFuture(null));
+
+            BatchStartResult result = workflowStarter.startBatch(
+                    "test-topic", List.of("a", "b", "c"), Map.of("source", "nightly"));
+
+            ArgumentCaptor<List<WorkflowMessage>> batchCaptor = ArgumentCaptor.forClass(List.class);
+            verify(messageBroker).sendBatch(eq("test-topic"), batchCaptor.capture());
+            verify(messageBroker, never()).send(any(), any());
+
+            List<WorkflowMessage> sent = batchCaptor.getValue();
+            assertThat(result.size()).isEqualTo(3);
+            assertThat(result.delivery()).isCompleted();
+            assertThat(sent).extracting(WorkflowMessage::getExecutionId)
+                    .containsExactlyElementsOf(result.executionIds());
+            assertThat(sent).extracting(WorkflowMessage::getPayload).containsExactly("a", "b", "c");
+            assertThat(sent).allSatisfy(message -> {
+                assertThat(message.getStatus()).isEqualTo(WorkflowStatus.PENDING);
+                assertThat(message.getServiceName()).isEqualTo("test-service");
+                assertThat(message.getMetadata()).containsEntry("source", "nightly");
+            });
+        }
+
+        @Test
+        @DisplayName("Should not call broker for an empty batch")
+        void shouldNotCallBrokerForEmptyBatch() {
+            when(registry.getDefinition("test-topic")).thenReturn(testDefinition);
+
+            BatchStartResult result = workflowStarter.startBatch("test-topic", List.of(), null);
+
+            assertThat(result.executionIds()).isEmpty();
+            assertThat(result.delivery()).isCompleted();
+            verifyNoInteractions(messageBroker);
+        }
+
+        @Test
+        @DisplayName("Should throw exception when topic is unknown")
+        void shouldThrowExceptionWhenTopicUnknown() {
+            when(registry.getDefinition("unknown-topic")).thenReturn(null);
+
+            assertThatThrownBy(() -> workflowStarter.startBatch("unknown-topic", List.of("a"), null))
+                    .isInstanceOf(WorkflowException.class)
+                    .hasMessageContaining("unknown-topic");
+        }
+    }
+
     @Nested
     @DisplayName("startAndGetMessage() method")
     class StartAndGetMessageTests {
@@ -264,19 +376,163 @@ class WorkflowStarterImplTest {
     class UnsupportedOperationsTests {
 
         @Test
-        @DisplayName("resume() should throw UnsupportedOperationException")
+        @DisplayName("resume() should throw UnsupportedOperationException without an execution store")
         void resumeShouldThrowUnsupportedOperationException() {
             assertThatThrownBy(() -> workflowStarter.resume("exec-123", 1))
                     .isInstanceOf(UnsupportedOperationException.class)
-                    .hasMessageContaining("async-workflow-monitor");
+                    .hasMessageContaining("WorkflowExecutionStore");
         }
 
         @Test
-        @DisplayName("cancel() should throw UnsupportedOperationException")
+        @DisplayName("cancel() should throw UnsupportedOperationException without an execution store")
         void cancelShouldThrowUnsupportedOperationException() {
             assertThatThrownBy(() -> workflowStarter.cancel("exec-123"))
                     .isInstanceOf(UnsupportedOperationException.class)
-                    .hasMessageContaining("async-workflow-monitor");
+                    .hasMessageContaining("WorkflowExecutionStore");
+        }
+    }
+
+    @Nested
+    @DisplayName("resume() and cancel() with an execution store")
+    class ExecutionStoreTests {
+
+        @Mock
+        private WorkflowExecutionStore executionStore;
+
+        @Mock
+        private CancellationRegistry cancellationRegistry;
+
+        @Mock
+        private CancellationBroadcaster cancellationBroadcaster;
+
+        private WorkflowStarterImpl starterWithStore;
+
+        @BeforeEach
+        void setUp() {
+            starterWithStore = new WorkflowStarterImpl(
+                    registry, messageBroker, securityContextPropagator, "test-service", executionStore,
+                    cancellationRegistry, cancellationBroadcaster, null);
+        }
+
+        private WorkflowMessage stored(WorkflowStatus status) {
+            return WorkflowMessage.builder()
+                    .executionId("exec-123")
+                    .topic("test-topic")
+                    .currentStep(2)
+                    .totalSteps(3)
+                    .status(status)
+                    .payload(Map.of("data", "test"))
+                    .errorInfo(ErrorInfo.builder().message("boom").build())
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Should resume a failed execution from its current step with a new attempt")
+        void shouldResumeFailedExecution() {
+            when(executionStore.findByExecutionId("exec-123")).thenReturn(Optional.of(stored(WorkflowStatus.FAILED)));
+            when(registry.getDefinition("test-topic")).thenReturn(WorkflowDefinition.builder()
+                    .topic("test-topic")
+                    .steps(List.of(StepDefinition.builder().id(2).label("Charge").build()))
+                    .build());
+
+            starterWithStore.resume("exec-123", null);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            WorkflowMessage sent = messageCaptor.getValue();
+            assertThat(sent.getCurrentStep()).isEqualTo(2);
+            assertThat(sent.getCurrentStepLabel()).isEqualTo("Charge");
+            assertThat(sent.getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+            assertThat(sent.getExecutionAttempt()).isEqualTo(2);
+            assertThat(sent.getErrorInfo()).isNull();
+            verify(executionStore).save(sent);
+        }
+
+        @Test
+        @DisplayName("Should resume from the requested step")
+        void shouldResumeFromRequestedStep() {
+            when(executionStore.findByExecutionId("exec-123")).thenReturn(Optional.of(stored(WorkflowStatus.PAUSED)));
+
+            starterWithStore.resume("exec-123", 1);
+
+            verify(messageBroker).send(eq("test-topic"), messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getCurrentStep()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject resuming a completed execution")
+        void shouldRejectResumingCompletedExecution() {
+            when(executionStore.findByExecutionId("exec-123"))
+                    .thenReturn(Optional.of(stored(WorkflowStatus.COMPLETED)));
+
+            assertThatThrownBy(() -> starterWithStore.resume("exec-123", null))
+                    .isInstanceOf(WorkflowStateException.class);
+            verifyNoInteractions(messageBroker);
+        }
+
+        @Test
+        @DisplayName("Should throw WorkflowNotFoundException for unknown execution")
+        void shouldThrowForUnknownExecution() {
+            when(executionStore.findByExecutionId("exec-123")).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> starterWithStore.cancel("exec-123"))
+                    .isInstanceOf(WorkflowNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should cancel a running execution")
+        void shouldCancelRunningExecution() {
+            when(executionStore.findByExecutionId("exec-123"))
+                    .thenReturn(Optional.of(stored(WorkflowStatus.IN_PROGRESS)));
+
+            starterWithStore.cancel("exec-123");
+
+            verify(executionStore).save(messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
+            verifyNoInteractions(messageBroker);
+        }
+
+        @Test
+        @DisplayName("Should register the cancellation locally and broadcast it without the payload")
+        void shouldBroadcastCancellation() {
+            when(executionStore.findByExecutionId("exec-123"))
+                    .thenReturn(Optional.of(stored(WorkflowStatus.IN_PROGRESS)));
+
+            starterWithStore.cancel("exec-123");
+
+            verify(cancellationRegistry).cancel("exec-123");
+            verify(cancellationBroadcaster).broadcast(messageCaptor.capture());
+            WorkflowMessage notice = messageCaptor.getValue();
+            assertThat(notice.getExecutionId()).isEqualTo("exec-123");
+            assertThat(notice.getTopic()).isEqualTo("test-topic");
+            assertThat(notice.getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
+            assertThat(notice.getPayload()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should reject cancelling a cancelled execution")
+        void shouldRejectCancellingCancelledExecution() {
+            when(executionStore.findByExecutionId("exec-123"))
+                    .thenReturn(Optional.of(stored(WorkflowStatus.CANCELLED)));
+
+            assertThatThrownBy(() -> starterWithStore.cancel("exec-123"))
+                    .isInstanceOf(WorkflowStateException.class);
+            verify(executionStore, never()).save(any());
+            verifyNoInteractions(cancellationBroadcaster);
+        }
+
+        @Test
+        @DisplayName("Should broadcast a cancellation without an execution store")
+        void shouldBroadcastWithoutStore() {
+            WorkflowStarterImpl broadcastOnly = new WorkflowStarterImpl(
+                    registry, messageBroker, securityContextPropagator, "test-service", null,
+                    cancellationRegistry, cancellationBroadcaster, null);
+
+            broadcastOnly.cancel("exec-456");
+
+            verify(cancellationRegistry).cancel("exec-456");
+            verify(cancellationBroadcaster).broadcast(messageCaptor.capture());
+            assertThat(messageCaptor.getValue().getExecutionId()).isEqualTo("exec-456");
+            assertThat(messageCaptor.getValue().getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
         }
     }
 
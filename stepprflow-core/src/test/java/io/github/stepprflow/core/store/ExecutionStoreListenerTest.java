@@ -0,0 +1,76 @@
+package io.github.stepprflow.core.store;
+
+import io.github.stepprflow.core.event.WorkflowMessageEvent;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.service.WorkflowExecutionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionStoreListener Tests")
+class ExecutionStoreListenerTest {
+
+    @Mock
+    private WorkflowExecutionStore store;
+
+    private ExecutionStoreListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new ExecutionStoreListener(store);
+    }
+
+    private static WorkflowMessage message(WorkflowStatus status) {
+        return WorkflowMessage.builder()
+                .executionId("exec-1")
+                .topic("orders")
+                .currentStep(2)
+                .status(status)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should save received messages")
+    void shouldSaveReceivedMessage() {
+        WorkflowMessage message = message(WorkflowStatus.IN_PROGRESS);
+        when(store.findByExecutionId("exec-1")).thenReturn(Optional.empty());
+
+        listener.onWorkflowMessage(new WorkflowMessageEvent(this, message));
+
+        verify(store).save(message);
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a cancelled execution")
+    void shouldNotOverwriteCancelledExecution() {
+        when(store.findByExecutionId("exec-1")).thenReturn(Optional.of(message(WorkflowStatus.CANCELLED)));
+
+        listener.onWorkflowMessage(new WorkflowMessageEvent(this, message(WorkflowStatus.IN_PROGRESS)));
+
+        verify(store, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should not propagate store failures")
+    void shouldSwallowStoreFailures() {
+        when(store.findByExecutionId("exec-1")).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("disk full")).when(store).save(any());
+
+        listener.onWorkflowMessage(new WorkflowMessageEvent(this, message(WorkflowStatus.IN_PROGRESS)));
+
+        verify(store).save(any());
+    }
+}
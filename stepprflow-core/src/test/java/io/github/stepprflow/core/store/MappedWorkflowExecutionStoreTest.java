@@ -0,0 +1,360 @@
+package io.github.stepprflow.core.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.stepprflow.core.exception.WorkflowException;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MappedWorkflowExecutionStore Tests")
+class MappedWorkflowExecutionStoreTest {
+
+    private static final long INITIAL_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private Path file;
+
+    private MappedWorkflowExecutionStore store;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("executions.log");
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    private MappedWorkflowExecutionStore open() {
+        return new MappedWorkflowExecutionStore(file, objectMapper, INITIAL_SIZE, false, 0.5);
+    }
+
+    private MappedWorkflowExecutionStore reopen() throws IOException {
+        store.close();
+        store = open();
+        return store;
+    }
+
+    private static WorkflowMessage message(String executionId, String topic, WorkflowStatus status) {
+        return WorkflowMessage.builder()
+                .executionId(executionId)
+                .topic(topic)
+                .currentStep(1)
+                .totalSteps(3)
+                .status(status)
+                .payload(Map.of("orderId", executionId))
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Lookups")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should find a saved execution by ID")
+        void shouldFindSavedExecution() {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+
+            assertThat(store.findByExecutionId("exec-1"))
+                    .hasValueSatisfying(found -> {
+                        assertThat(found.getTopic()).isEqualTo("orders");
+                        assertThat(found.getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+                        assertThat(found.getPayload()).isEqualTo(Map.of("orderId", "exec-1"));
+                    });
+            assertThat(store.exists("exec-1")).isTrue();
+            assertThat(store.findByExecutionId("unknown")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should return the latest state after an update")
+        void shouldReturnLatestState() {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+            store.save(message("exec-1", "orders", WorkflowStatus.COMPLETED));
+
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.findByExecutionId("exec-1").orElseThrow().getStatus())
+                    .isEqualTo(WorkflowStatus.COMPLETED);
+        }
+
+        @Test
+        @DisplayName("Should keep topic and status indexes in sync with updates")
+        void shouldMaintainSecondaryIndexes() {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+            store.save(message("exec-2", "orders", WorkflowStatus.FAILED));
+            store.save(message("exec-3", "payments", WorkflowStatus.FAILED));
+            store.save(message("exec-1", "orders", WorkflowStatus.FAILED));
+
+            assertThat(store.findByTopic("orders")).extracting(WorkflowMessage::getExecutionId)
+                    .containsExactlyInAnyOrder("exec-1", "exec-2");
+            assertThat(store.findByStatus(WorkflowStatus.FAILED)).extracting(WorkflowMessage::getExecutionId)
+                    .containsExactlyInAnyOrder("exec-1", "exec-2", "exec-3");
+            assertThat(store.findByStatus(WorkflowStatus.IN_PROGRESS)).isEmpty();
+            assertThat(store.findByTopicAndStatus("payments", WorkflowStatus.FAILED))
+                    .extracting(WorkflowMessage::getExecutionId)
+                    .containsExactly("exec-3");
+        }
+
+        @Test
+        @DisplayName("Should delete an execution")
+        void shouldDeleteExecution() {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+
+            assertThat(store.delete("exec-1")).isTrue();
+            assertThat(store.delete("exec-1")).isFalse();
+            assertThat(store.findByExecutionId("exec-1")).isEmpty();
+            assertThat(store.findByTopic("orders")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should grow beyond the initial mapped size")
+        void shouldGrowBeyondInitialSize() {
+            for (int i = 0; i < 200; i++) {
+                store.save(message("exec-" + i, "orders", WorkflowStatus.PENDING));
+            }
+
+            assertThat(store.usedBytes()).isGreaterThan(INITIAL_SIZE);
+            assertThat(store.size()).isEqualTo(200);
+            assertThat(store.findByExecutionId("exec-199")).isPresent();
+        }
+    }
+
+    @Nested
+    @DisplayName("Durability")
+    class DurabilityTests {
+
+        @Test
+        @DisplayName("Should replay saves and deletes when reopened")
+        void shouldReplayLogWhenReopened() throws IOException {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+            store.save(message("exec-2", "orders", WorkflowStatus.IN_PROGRESS));
+            store.save(message("exec-1", "orders", WorkflowStatus.COMPLETED));
+            store.delete("exec-2");
+
+            MappedWorkflowExecutionStore reopened = reopen();
+
+            assertThat(reopened.size()).isEqualTo(1);
+            assertThat(reopened.findByExecutionId("exec-1").orElseThrow().getStatus())
+                    .isEqualTo(WorkflowStatus.COMPLETED);
+            assertThat(reopened.findByStatus(WorkflowStatus.COMPLETED)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should ignore a torn trailing record and keep appending")
+        void shouldIgnoreTornRecord() throws IOException {
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+            long validEnd = store.usedBytes();
+            store.save(message("exec-2", "orders", WorkflowStatus.IN_PROGRESS));
+            store.close();
+
+            // Corrupt the body of the second record
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.seek(validEnd + 20);
+                raf.write(new byte[] {'#', '#', '#'});
+            }
+
+            store = open();
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.usedBytes()).isEqualTo(validEnd);
+
+            store.save(message("exec-3", "orders", WorkflowStatus.PENDING));
+            MappedWorkflowExecutionStore reopened = reopen();
+            assertThat(reopened.findByTopic("orders")).extracting(WorkflowMessage::getExecutionId)
+                    .containsExactlyInAnyOrder("exec-1", "exec-3");
+        }
+
+        @Test
+        @DisplayName("Should reject a file that is not an execution store")
+        void shouldRejectForeignFile() throws IOException {
+            Path foreign = tempDir.resolve("foreign.log");
+            Files.writeString(foreign, "not a store");
+
+            assertThatThrownBy(() -> new MappedWorkflowExecutionStore(foreign, objectMapper, INITIAL_SIZE, false, 0.5))
+                    .isInstanceOf(WorkflowException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject writes after close")
+        void shouldRejectWritesAfterClose() throws IOException {
+            store.close();
+
+            assertThatThrownBy(() -> store.save(message("exec-1", "orders", WorkflowStatus.PENDING)))
+                    .isInstanceOf(WorkflowException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Compaction")
+    class CompactionTests {
+
+        @Test
+        @DisplayName("Should drop superseded records and keep the latest state")
+        void shouldCompactLog() throws IOException {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 20; i++) {
+                    store.save(message("exec-" + i, "orders", WorkflowStatus.IN_PROGRESS));
+                }
+            }
+            store.save(message("exec-0", "orders", WorkflowStatus.COMPLETED));
+            store.delete("exec-1");
+            long before = store.usedBytes();
+
+            store.compact();
+
+            assertThat(store.usedBytes()).isLessThan(before / 5);
+            assertThat(store.size()).isEqualTo(19);
+            assertThat(store.findByExecutionId("exec-0").orElseThrow().getStatus())
+                    .isEqualTo(WorkflowStatus.COMPLETED);
+
+            store.save(message("exec-20", "orders", WorkflowStatus.PENDING));
+            MappedWorkflowExecutionStore reopened = reopen();
+            assertThat(reopened.size()).isEqualTo(20);
+            assertThat(reopened.findByExecutionId("exec-1")).isEmpty();
+            assertThat(reopened.findByStatus(WorkflowStatus.COMPLETED)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should queue one background compaction once most of the log is dead")
+        void shouldCompactAutomatically() throws IOException {
+            List<Runnable> compactions = new ArrayList<>();
+            store.close();
+            store = new MappedWorkflowExecutionStore(file, objectMapper, INITIAL_SIZE, false, 0.5, compactions::add);
+            Map<String, String> largePayload = Map.of("data", "x".repeat(4096));
+            for (int i = 0; i < 600; i++) {
+                store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS).toBuilder()
+                        .payload(largePayload)
+                        .build());
+            }
+
+            // The writes only appended, one compaction is queued
+            assertThat(compactions).hasSize(1);
+            assertThat(store.usedBytes()).isGreaterThan(2 * 1024 * 1024);
+
+            compactions.get(0).run();
+
+            assertThat(store.usedBytes()).isLessThan(8192);
+            assertThat(store.findByExecutionId("exec-1")).isPresent();
+        }
+
+        @Test
+        @DisplayName("Should keep the records written while a compaction runs")
+        void shouldKeepWritesDuringCompaction() throws Exception {
+            for (int i = 0; i < 50; i++) {
+                store.save(message("exec-" + i, "orders", WorkflowStatus.PENDING));
+            }
+            AtomicBoolean writing = new AtomicBoolean(true);
+            CompletableFuture<Void> compactions = CompletableFuture.runAsync(() -> {
+                while (writing.get()) {
+                    store.compact();
+                }
+            });
+            try {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < 50; i++) {
+                        store.save(message("exec-" + i, "orders", WorkflowStatus.IN_PROGRESS).toBuilder()
+                                .currentStep(round + 1)
+                                .build());
+                    }
+                    store.delete("exec-" + round);
+                }
+            } finally {
+                writing.set(false);
+                compactions.get();
+            }
+            store.compact();
+
+            MappedWorkflowExecutionStore reopened = reopen();
+            assertThat(reopened.size()).isEqualTo(30);
+            assertThat(reopened.findByExecutionId("exec-10")).isEmpty();
+            assertThat(reopened.findByExecutionId("exec-49").orElseThrow().getCurrentStep()).isEqualTo(20);
+            assertThat(reopened.findByStatus(WorkflowStatus.IN_PROGRESS)).hasSize(30);
+        }
+    }
+
+    @Nested
+    @DisplayName("Held messages")
+    class HeldMessageTests {
+
+        private WorkflowMessage scheduled(String executionId, int step, Instant scheduledAt) {
+            return message(executionId, "orders", WorkflowStatus.PENDING).toBuilder()
+                    .currentStep(step)
+                    .scheduledAt(scheduledAt)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Should hold the parallel branches of an execution side by side")
+        void shouldHoldPerExecutionAndStep() {
+            Instant at = Instant.parse("2030-01-01T09:00:00Z");
+            store.hold(scheduled("exec-1", 2, at));
+            store.hold(scheduled("exec-1", 3, at.plusSeconds(1)));
+            store.hold(scheduled("exec-1", 2, at));
+
+            assertThat(store.heldCount()).isEqualTo(2);
+            assertThat(store.findHeld(10)).extracting(WorkflowMessage::getCurrentStep).containsExactly(2, 3);
+
+            assertThat(store.release("exec-1", 2)).isTrue();
+            assertThat(store.release("exec-1", 2)).isFalse();
+            assertThat(store.findHeld(10)).extracting(WorkflowMessage::getCurrentStep).containsExactly(3);
+        }
+
+        @Test
+        @DisplayName("Should return the held messages due first")
+        void shouldFindHeldByScheduledTime() {
+            Instant at = Instant.parse("2030-01-01T09:00:00Z");
+            store.hold(scheduled("exec-3", 1, at.plusSeconds(30)));
+            store.hold(scheduled("exec-1", 1, at));
+            store.hold(scheduled("exec-2", 1, at.plusSeconds(10)));
+
+            assertThat(store.findHeld(2)).extracting(WorkflowMessage::getExecutionId)
+                    .containsExactly("exec-1", "exec-2");
+        }
+
+        @Test
+        @DisplayName("Should keep held messages across reopen and compaction")
+        void shouldKeepHeldMessagesDurable() throws IOException {
+            Instant at = Instant.parse("2030-01-01T09:00:00Z");
+            store.save(message("exec-1", "orders", WorkflowStatus.IN_PROGRESS));
+            store.hold(scheduled("exec-1", 2, at));
+            store.hold(scheduled("exec-1", 3, at));
+            store.hold(scheduled("exec-2", 1, at));
+            store.release("exec-2", 1);
+
+            MappedWorkflowExecutionStore reopened = reopen();
+            assertThat(reopened.heldCount()).isEqualTo(2);
+
+            reopened.compact();
+            reopened = reopen();
+
+            assertThat(reopened.findHeld(10))
+                    .extracting(WorkflowMessage::getCurrentStep).containsExactlyInAnyOrder(2, 3);
+            assertThat(reopened.findHeld(10).get(0).getScheduledAt()).isEqualTo(at);
+            assertThat(reopened.findByExecutionId("exec-1")).isPresent();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.stepprflow.core.tracing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TraceParent Tests")
+class TraceParentTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String SPAN_ID = "b7ad6b7169203331";
+
+    @Nested
+    @DisplayName("parse()")
+    class ParseTests {
+
+        @Test
+        @DisplayName("Should parse a sampled traceparent")
+        void shouldParseSampled() {
+            TraceParent traceParent = TraceParent.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-01");
+
+            assertThat(traceParent).isEqualTo(new TraceParent(TRACE_ID, SPAN_ID, true));
+        }
+
+        @Test
+        @DisplayName("Should read the sampled flag from bit 0 of the flags")
+        void shouldReadSampledFlag() {
+            assertThat(TraceParent.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-00").sampled()).isFalse();
+            assertThat(TraceParent.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-03").sampled()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should read the version 00 prefix of later versions")
+        void shouldReadPrefixOfLaterVersions() {
+            TraceParent traceParent = TraceParent.parse("01-" + TRACE_ID + "-" + SPAN_ID + "-01-extra");
+
+            assertThat(traceParent).isEqualTo(new TraceParent(TRACE_ID, SPAN_ID, true));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "",
+                "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331",
+                "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01-extra",
+                "ff-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+                "00-0AF7651916CD43DD8448EB211C80319C-b7ad6b7169203331-01",
+                "00-00000000000000000000000000000000-b7ad6b7169203331-01",
+                "00-0af7651916cd43dd8448eb211c80319c-0000000000000000-01",
+                "00_0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+                "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-zz"
+        })
+        @DisplayName("Should reject invalid values")
+        void shouldRejectInvalidValues(final String value) {
+            assertThat(TraceParent.parse(value)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should return null for a missing value")
+        void shouldReturnNullForMissingValue() {
+            assertThat(TraceParent.parse(null)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("of()")
+    class OfTests {
+
+        @Test
+        @DisplayName("Should left-pad 64-bit trace IDs")
+        void shouldPad64BitTraceIds() {
+            TraceParent traceParent = TraceParent.of("8448eb211c80319c", SPAN_ID, false);
+
+            assertThat(traceParent.traceId()).isEqualTo("00000000000000008448eb211c80319c");
+        }
+
+        @Test
+        @DisplayName("Should return null for empty IDs of a no-op tracer")
+        void shouldReturnNullForEmptyIds() {
+            assertThat(TraceParent.of("", "", true)).isNull();
+            assertThat(TraceParent.of(null, SPAN_ID, true)).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should format the value parsed back to the same trace context")
+    void shouldRoundTripValue() {
+        TraceParent traceParent = TraceParent.of(TRACE_ID, SPAN_ID, true);
+
+        assertThat(traceParent.value()).isEqualTo("00-" + TRACE_ID + "-" + SPAN_ID + "-01");
+        assertThat(TraceParent.parse(traceParent.value())).isEqualTo(traceParent);
+    }
+}
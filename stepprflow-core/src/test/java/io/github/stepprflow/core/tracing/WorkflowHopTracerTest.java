@@ -0,0 +1,230 @@
+package io.github.stepprflow.core.tracing;
+
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("WorkflowHopTracer Tests")
+class WorkflowHopTracerTest {
+
+    private static final String SENDER_TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String SENDER_SPAN_ID = "b7ad6b7169203331";
+    private static final String HOP_SPAN_ID = "00f067aa0ba902b7";
+
+    private MutableClock clock;
+    private Tracer tracer;
+    private Span.Builder spanBuilder;
+    private Span span;
+    private TraceContext.Builder contextBuilder;
+    private WorkflowHopTracer hopTracer;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:10Z"));
+        tracer = mock(Tracer.class);
+        spanBuilder = mock(Span.Builder.class, RETURNS_SELF);
+        span = mock(Span.class, RETURNS_SELF);
+        contextBuilder = mock(TraceContext.Builder.class, RETURNS_SELF);
+        when(tracer.spanBuilder()).thenReturn(spanBuilder);
+        when(tracer.traceContextBuilder()).thenReturn(contextBuilder);
+        when(contextBuilder.build()).thenReturn(mock(TraceContext.class));
+        when(tracer.withSpan(span)).thenReturn(mock(Tracer.SpanInScope.class));
+        when(spanBuilder.start()).thenReturn(span);
+        TraceContext spanContext = context(SENDER_TRACE_ID, HOP_SPAN_ID, true);
+        when(span.context()).thenReturn(spanContext);
+        hopTracer = new WorkflowHopTracer(tracer, null, Duration.ofSeconds(5), true, clock);
+    }
+
+    @Nested
+    @DisplayName("Sampled traces")
+    class SampledTests {
+
+        @Test
+        @DisplayName("Should record the hop as a child of the sender from the publish time")
+        void shouldRecordHopAsChildOfSender() {
+            WorkflowMessage message = message(traceParent(true));
+
+            try (TraceHop hop = hopTracer.startHop(message, publishedAt(Duration.ofMillis(200)))) {
+                assertThat(hop.isRecording()).isTrue();
+            }
+
+            verify(contextBuilder).traceId(SENDER_TRACE_ID);
+            verify(contextBuilder).spanId(SENDER_SPAN_ID);
+            verify(spanBuilder).kind(Span.Kind.CONSUMER);
+            verify(spanBuilder).startTimestamp(publishedAt(Duration.ofMillis(200)), TimeUnit.MILLISECONDS);
+            verify(span).tag(TraceHop.QUEUE_WAIT_TAG, "200");
+            verify(span).end();
+            assertThat(message.getTraceParent()).isEqualTo("00-" + SENDER_TRACE_ID + "-" + HOP_SPAN_ID + "-01");
+        }
+
+        @Test
+        @DisplayName("Should start a root hop sampled by the tracer")
+        void shouldStartRootHopSampledByTracer() {
+            WorkflowMessage message = message(null);
+
+            try (TraceHop hop = hopTracer.startHop(message, 0)) {
+                assertThat(hop.isRecording()).isTrue();
+            }
+
+            verify(tracer, never()).traceContextBuilder();
+            verify(span).end();
+            assertThat(message.getTraceParent()).isEqualTo("00-" + SENDER_TRACE_ID + "-" + HOP_SPAN_ID + "-01");
+        }
+    }
+
+    @Nested
+    @DisplayName("Unsampled traces")
+    class UnsampledTests {
+
+        @Test
+        @DisplayName("Should pass the trace context on without a span")
+        void shouldPassContextOnWithoutSpan() {
+            WorkflowMessage message = message(traceParent(false));
+            WorkflowMessage next = message(null);
+
+            try (TraceHop hop = hopTracer.startHop(message, publishedAt(Duration.ofMillis(200)))) {
+                hop.stamp(next);
+                assertThat(hop.isRecording()).isFalse();
+            }
+
+            verify(tracer, never()).spanBuilder();
+            assertThat(next.getTraceParent()).isEqualTo(traceParent(false));
+        }
+
+        @Test
+        @DisplayName("Should keep the IDs of a root hop not sampled by the tracer")
+        void shouldKeepIdsOfUnsampledRoot() {
+            Span root = mock(Span.class, RETURNS_SELF);
+            TraceContext rootContext = context(SENDER_TRACE_ID, SENDER_SPAN_ID, false);
+            when(root.context()).thenReturn(rootContext);
+            when(spanBuilder.start()).thenReturn(root);
+            WorkflowMessage message = message(null);
+
+            try (TraceHop hop = hopTracer.startHop(message, 0)) {
+                assertThat(hop.isRecording()).isFalse();
+            }
+
+            verify(root).abandon();
+            assertThat(message.getTraceParent()).isEqualTo(traceParent(false));
+        }
+
+        @Test
+        @DisplayName("Should record a failed hop and sample the rest of the trace")
+        void shouldRecordFailedHop() {
+            WorkflowMessage message = message(traceParent(false));
+            RuntimeException failure = new RuntimeException("boom");
+
+            try (TraceHop hop = hopTracer.startHop(message, publishedAt(Duration.ofMillis(200)))) {
+                hop.failed(failure);
+                assertThat(hop.isRecording()).isTrue();
+            }
+
+            verify(span).tag(TraceHop.KEPT_TAG, "failed");
+            verify(span).error(failure);
+            verify(spanBuilder).startTimestamp(publishedAt(Duration.ofMillis(200)), TimeUnit.MILLISECONDS);
+            verify(span).end();
+            assertThat(message.getTraceParent()).endsWith("-01");
+        }
+
+        @Test
+        @DisplayName("Should not record a failed hop when failed hops are not kept")
+        void shouldNotRecordFailedHopWhenDisabled() {
+            hopTracer = new WorkflowHopTracer(tracer, null, Duration.ofSeconds(5), false, clock);
+
+            try (TraceHop hop = hopTracer.startHop(message(traceParent(false)), 0)) {
+                hop.failed(new RuntimeException("boom"));
+                assertThat(hop.isRecording()).isFalse();
+            }
+
+            verify(tracer, never()).spanBuilder();
+        }
+
+        @Test
+        @DisplayName("Should record a hop slower than the threshold, queue wait included")
+        void shouldRecordSlowHop() {
+            WorkflowMessage message = message(traceParent(false));
+
+            try (TraceHop hop = hopTracer.startHop(message, publishedAt(Duration.ofSeconds(4)))) {
+                clock.advance(Duration.ofSeconds(1));
+            }
+
+            verify(span).tag(TraceHop.KEPT_TAG, "slow");
+            verify(span).tag(TraceHop.QUEUE_WAIT_TAG, "4000");
+            verify(span).end();
+        }
+    }
+
+    private long publishedAt(final Duration ago) {
+        return clock.millis() - ago.toMillis();
+    }
+
+    private static String traceParent(final boolean sampled) {
+        return new TraceParent(SENDER_TRACE_ID, SENDER_SPAN_ID, sampled).value();
+    }
+
+    private static TraceContext context(final String traceId, final String spanId, final boolean sampled) {
+        TraceContext context = mock(TraceContext.class);
+        when(context.traceId()).thenReturn(traceId);
+        when(context.spanId()).thenReturn(spanId);
+        when(context.sampled()).thenReturn(sampled);
+        return context;
+    }
+
+    private static WorkflowMessage message(final String traceParent) {
+        return WorkflowMessage.builder()
+                .executionId("exec-123")
+                .topic("order-workflow")
+                .currentStep(1)
+                .totalSteps(3)
+                .status(WorkflowStatus.IN_PROGRESS)
+                .traceParent(traceParent)
+                .build();
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.stepprflow.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Fingerprints Tests")
+class FingerprintsTest {
+
+    @Nested
+    @DisplayName("of()")
+    class OfTests {
+
+        @Test
+        @DisplayName("Should keep the values of fingerprints already stored")
+        void shouldKeepStoredValues() {
+            assertThat(Fingerprints.of("exec-1", 0)).isEqualTo(-815578122166440139L);
+            assertThat(Fingerprints.of("exec-1", 2L << 32)).isEqualTo(-3485936021746719087L);
+        }
+
+        @Test
+        @DisplayName("Should tell apart the keys of one execution by their discriminator")
+        void shouldTellApartDiscriminators() {
+            assertThat(Fingerprints.of("exec-1", 1L << 32)).isNotEqualTo(Fingerprints.of("exec-1", 2L << 32));
+        }
+
+        @Test
+        @DisplayName("Should accept a null execution ID")
+        void shouldAcceptNullExecutionId() {
+            assertThat(Fingerprints.of(null, 0)).isNotZero();
+        }
+
+        @Test
+        @DisplayName("Should spread similar IDs over the low bits")
+        void shouldSpreadLowBits() {
+            Set<Long> slots = new HashSet<>();
+            for (int i = 0; i < 1024; i++) {
+                slots.add(Fingerprints.of("exec-" + i, 0) & 63);
+            }
+
+            assertThat(slots).hasSize(64);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.stepprflow.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.store.MappedWorkflowExecutionStore;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Benchmark of execution state reads and writes: embedded memory-mapped store
+ * versus a MongoDB round-trip.
+ *
+ * This test measures:
+ * - Save latency (with and without forcing each write to disk)
+ * - Lookup latency by execution ID
+ * - Recovery time when reopening the embedded store
+ *
+ * Run with: mvn test -pl stepprflow-load-tests -Dtest=ExecutionStoreBenchmark
+ *
+ * Prerequisites:
+ * - Docker for the MongoDB comparison (skipped otherwise)
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ExecutionStoreBenchmark {
+
+    private static final int EXECUTIONS = 10_000;
+    private static final int LOOKUPS = 50_000;
+    private static final int WARMUP = 5_000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Order(1)
+    @DisplayName("Benchmark: Embedded store (page cache durability)")
+    void benchmarkEmbeddedStore() throws Exception {
+        benchmarkEmbedded("Embedded store", false);
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Benchmark: Embedded store (fsync per write)")
+    void benchmarkEmbeddedStoreWithSyncWrites() throws Exception {
+        benchmarkEmbedded("Embedded store, sync writes", true);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Benchmark: MongoDB")
+    void benchmarkMongo() {
+        Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+
+        try (MongoDBContainer mongo = new MongoDBContainer("mongo:7.0")) {
+            mongo.start();
+            try (MongoClient client = MongoClients.create(mongo.getConnectionString())) {
+                MongoCollection<Document> collection = client.getDatabase("benchmark")
+                        .getCollection("executions");
+                ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+
+                List<Long> saveTimes = new ArrayList<>(EXECUTIONS);
+                for (int i = 0; i < EXECUTIONS; i++) {
+                    WorkflowMessage message = message(i, WorkflowStatus.IN_PROGRESS);
+                    long start = System.nanoTime();
+                    Document document = Document.parse(objectMapper.writeValueAsString(message))
+                            .append("_id", message.getExecutionId());
+                    collection.replaceOne(Filters.eq("_id", message.getExecutionId()), document, upsert);
+                    saveTimes.add(System.nanoTime() - start);
+                }
+
+                Random random = new Random(42);
+                List<Long> lookupTimes = new ArrayList<>(LOOKUPS);
+                for (int i = 0; i < WARMUP + LOOKUPS; i++) {
+                    String executionId = "exec-" + random.nextInt(EXECUTIONS);
+                    long start = System.nanoTime();
+                    Document document = collection.find(Filters.eq("_id", executionId)).first();
+                    WorkflowMessage found = objectMapper.readValue(document.toJson(), WorkflowMessage.class);
+                    long elapsed = System.nanoTime() - start;
+                    Assertions.assertEquals(executionId, found.getExecutionId());
+                    if (i >= WARMUP) {
+                        lookupTimes.add(elapsed);
+                    }
+                }
+
+                printStatistics("MongoDB - save", saveTimes);
+                printStatistics("MongoDB - findByExecutionId", lookupTimes);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("MongoDB benchmark failed", e);
+        }
+    }
+
+    private void benchmarkEmbedded(String name, boolean syncWrites) throws Exception {
+        Path file = tempDir.resolve(syncWrites ? "sync.log" : "async.log");
+
+        List<Long> saveTimes = new ArrayList<>(EXECUTIONS);
+        try (MappedWorkflowExecutionStore store = open(file, syncWrites)) {
+            for (int i = 0; i < EXECUTIONS; i++) {
+                WorkflowMessage message = message(i, WorkflowStatus.IN_PROGRESS);
+                long start = System.nanoTime();
+                store.save(message);
+                saveTimes.add(System.nanoTime() - start);
+            }
+        }
+
+        long reopenStart = System.nanoTime();
+        try (MappedWorkflowExecutionStore store = open(file, syncWrites)) {
+            long reopenNanos = System.nanoTime() - reopenStart;
+            Assertions.assertEquals(EXECUTIONS, store.size());
+
+            Random random = new Random(42);
+            List<Long> lookupTimes = new ArrayList<>(LOOKUPS);
+            for (int i = 0; i < WARMUP + LOOKUPS; i++) {
+                String executionId = "exec-" + random.nextInt(EXECUTIONS);
+                long start = System.nanoTime();
+                WorkflowMessage found = store.findByExecutionId(executionId).orElseThrow();
+                long elapsed = System.nanoTime() - start;
+                Assertions.assertEquals(executionId, found.getExecutionId());
+                if (i >= WARMUP) {
+                    lookupTimes.add(elapsed);
+                }
+            }
+
+            printStatistics(name + " - save", saveTimes);
+            printStatistics(name + " - findByExecutionId", lookupTimes);
+            System.out.println("Reopen (replay " + EXECUTIONS + " records): "
+                    + String.format("%.2f", reopenNanos / 1_000_000.0) + " ms");
+        }
+    }
+
+    private static MappedWorkflowExecutionStore open(Path file, boolean syncWrites) {
+        return new MappedWorkflowExecutionStore(file, objectMapper, 16 * 1024 * 1024, syncWrites, 0.5);
+    }
+
+    private static WorkflowMessage message(int i, WorkflowStatus status) {
+        return WorkflowMessage.builder()
+                .executionId("exec-" + i)
+                .correlationId(UUID.randomUUID().toString())
+                .topic("order-workflow")
+                .serviceName("benchmark")
+                .currentStep(2)
+                .totalSteps(5)
+                .status(status)
+                .payload(Map.of(
+                        "customerId", "CUST-" + i,
+                        "items", List.of(Map.of("productId", "PROD-" + i, "quantity", 1, "price", 19.99))))
+                .payloadType("java.util.Map")
+                .build();
+    }
+
+    private void printStatistics(String name, List<Long> nanos) {
+        List<Long> values = new ArrayList<>(nanos);
+        Collections.sort(values);
+        double avg = values.stream().mapToLong(Long::longValue).average().orElse(0);
+
+        System.out.println("\n=== " + name + " ===");
+        System.out.println("Iterations: " + values.size());
+        System.out.println("Avg: " + micros(avg) + " us");
+        System.out.println("P50: " + micros(values.get((int) (values.size() * 0.50))) + " us");
+        System.out.println("P95: " + micros(values.get((int) (values.size() * 0.95))) + " us");
+        System.out.println("P99: " + micros(values.get((int) (values.size() * 0.99))) + " us");
+        System.out.println("Max: " + micros(values.get(values.size() - 1)) + " us");
+    }
+
+    private static String micros(double nanos) {
+        return String.format("%.1f", nanos / 1_000.0);
+    }
+}
@@ -2,6 +2,8 @@ package io.github.stepprflow.dashboard.controller;
 
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
 import io.github.stepprflow.monitor.model.RegisteredWorkflow;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.service.WorkflowQueryService;
@@ -129,10 +131,10 @@ public class DashboardController {
     }
 
     @Operation(summary = "List executions",
-            description = "Get a paginated list of workflow executions with optional filtering")
+            description = "Get a paginated list of workflow execution summaries with optional filtering")
     @ApiResponse(responseCode = "200", description = "List of executions")
     @GetMapping("/executions")
-    public ResponseEntity<Page<WorkflowExecution>> listExecutions(
+    public ResponseEntity<Page<ExecutionSummaryDto>> listExecutions(
             @Parameter(description = "Filter by workflow topic")
             @RequestParam(required = false) String topic,
             @Parameter(description = "Filter by statuses (comma-separated)")
@@ -159,15 +161,54 @@ public class DashboardController {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         PageRequest pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
 
-        List<WorkflowStatus> statusList = null;
-        if (statuses != null && !statuses.isBlank()) {
-            statusList = Arrays.stream(statuses.split(","))
-                    .map(String::trim)
-                    .map(WorkflowStatus::valueOf)
-                    .toList();
+        return ResponseEntity.ok(queryService.findExecutions(topic, parseStatuses(statuses), pageable));
+    }
+
+    @Operation(summary = "Scroll executions",
+            description = "Get a window of workflow execution summaries ordered by creation date, "
+                    + "starting after the cursor returned with the previous window")
+    @ApiResponse(responseCode = "200", description = "Window of executions")
+    @GetMapping("/executions/scroll")
+    public ResponseEntity<ExecutionWindowDto> scrollExecutions(
+            @Parameter(description = "Filter by workflow topic")
+            @RequestParam(required = false) String topic,
+            @Parameter(description = "Filter by statuses (comma-separated)")
+            @RequestParam(name = "status", required = false) String statuses,
+            @Parameter(description = "Cursor returned with the previous window, omitted for the first one")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Window size (1-100)")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Creation date order (asc or desc)")
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Include the approximate number of matching executions")
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        // Clamp size to valid range
+        size = Math.max(1, Math.min(100, size));
+
+        return ResponseEntity.ok(queryService.scrollExecutions(topic, parseStatuses(statuses), cursor, size,
+                Sort.Direction.fromString(direction), withTotal));
+    }
+
+    @Operation(summary = "Search executions",
+            description = "Find the workflow executions with a search key equal to, or starting with, a value")
+    @ApiResponse(responseCode = "200", description = "Matching executions")
+    @GetMapping("/executions/search")
+    public ResponseEntity<List<ExecutionSummaryDto>> searchExecutions(
+            @Parameter(description = "Search key path (e.g. orderId), omitted for any search key")
+            @RequestParam(required = false) String key,
+            @Parameter(description = "Value, or start of the value with prefix=true")
+            @RequestParam String value,
+            @Parameter(description = "Match the values starting with the value")
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @Parameter(description = "Maximum number of executions (1-100)")
+            @RequestParam(defaultValue = "20") int size) {
+        if (value.isBlank()) {
+            return ResponseEntity.ok(List.of());
         }
+        // Clamp size to valid range
+        size = Math.max(1, Math.min(100, size));
 
-        return ResponseEntity.ok(queryService.findExecutions(topic, statusList, pageable));
+        return ResponseEntity.ok(queryService.searchExecutions(key, value, prefix, size));
     }
 
     /**
@@ -208,6 +249,7 @@ public class DashboardController {
                         .toList());
                 workflow.put("partitions", rw.getPartitions());
                 workflow.put("replication", rw.getReplication());
+                workflow.put("searchKeys", rw.getSearchKeys());
                 workflow.put("registeredBy", rw.getRegisteredBy() != null ?
                         rw.getRegisteredBy().stream()
                                 .map(si -> Map.of(
@@ -254,6 +296,7 @@ public class DashboardController {
                             .toList());
                     workflow.put("partitions", def.getPartitions());
                     workflow.put("replication", def.getReplication());
+                    workflow.put("searchKeys", def.getSearchKeys() != null ? def.getSearchKeys() : List.of());
                     workflow.put("registeredBy", List.of(Map.of("serviceName", "local", "instanceId", "local")));
                     workflowsByKey.put(key, workflow);
                 }
@@ -368,4 +411,14 @@ public class DashboardController {
 
         return new ArrayList<>(workflowsByKey.values());
     }
+
+    private static List<WorkflowStatus> parseStatuses(String statuses) {
+        if (statuses == null || statuses.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(statuses.split(","))
+                .map(String::trim)
+                .map(WorkflowStatus::valueOf)
+                .toList();
+    }
 }
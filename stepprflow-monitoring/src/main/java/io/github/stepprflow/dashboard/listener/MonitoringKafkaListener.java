@@ -1,5 +1,6 @@
 package io.github.stepprflow.dashboard.listener;
 
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
@@ -58,6 +59,12 @@ public class MonitoringKafkaListener {
             return;
         }
 
+        // Cancellation notices carry no payload; the cancel command already persisted the state
+        if (CancellationBroadcaster.CONTROL_TOPIC.equals(record.topic())) {
+            ack.acknowledge();
+            return;
+        }
+
         log.debug("Monitoring received: topic={}, executionId={}, step={}, status={}",
                 record.topic(), message.getExecutionId(), message.getCurrentStep(), message.getStatus());
 
@@ -2,6 +2,9 @@ package io.github.stepprflow.monitor;
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.github.stepprflow.core.StepprFlowAutoConfiguration;
+import io.github.stepprflow.core.metrics.ClusterMetrics;
+import io.github.stepprflow.core.service.StepJoinStore;
 import io.github.stepprflow.monitor.config.OpenApiConfig;
 import io.github.stepprflow.monitor.config.WebSocketConfig;
 import io.github.stepprflow.monitor.controller.CircuitBreakerController;
@@ -9,19 +12,27 @@ import io.github.stepprflow.monitor.controller.GlobalExceptionHandler;
 import io.github.stepprflow.monitor.controller.HealthController;
 import io.github.stepprflow.monitor.controller.OutboxController;
 import io.github.stepprflow.monitor.controller.RegistryController;
+import io.github.stepprflow.monitor.controller.RollupController;
 import io.github.stepprflow.monitor.controller.WorkflowController;
 import io.github.stepprflow.monitor.outbox.OutboxMessageRepository;
 import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
 import io.github.stepprflow.monitor.outbox.OutboxRelayService;
 import io.github.stepprflow.monitor.outbox.OutboxService;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
+import io.github.stepprflow.monitor.service.ChangeStreamWakeUpService;
+import io.github.stepprflow.monitor.service.ExecutionCounterService;
+import io.github.stepprflow.monitor.service.ExecutionRetentionService;
 import io.github.stepprflow.monitor.service.ExecutionPersistenceService;
+import io.github.stepprflow.monitor.service.MongoStepJoinStore;
 import io.github.stepprflow.monitor.service.PayloadManagementService;
 import io.github.stepprflow.monitor.service.RetrySchedulerService;
+import io.github.stepprflow.monitor.service.SearchKeyService;
 import io.github.stepprflow.monitor.service.WorkflowCommandService;
 import io.github.stepprflow.monitor.service.WorkflowQueryService;
 import io.github.stepprflow.monitor.service.WorkflowRegistryService;
 import io.github.stepprflow.monitor.util.WorkflowMessageFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
 import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
@@ -30,6 +41,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -37,10 +49,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Auto-configuration for StepprFlow Monitor module.
- * Runs before Spring Boot's MongoDB auto-configuration to use StepprFlow properties.
+ * Runs before Spring Boot's MongoDB auto-configuration to use StepprFlow properties,
+ * and before the core auto-configuration so that its join store replaces the in-memory one.
  */
 @AutoConfiguration(
-        before = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class},
+        before = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+                StepprFlowAutoConfiguration.class},
         after = io.github.stepprflow.core.metrics.WorkflowMetricsAutoConfiguration.class
 )
 @EnableConfigurationProperties(MonitorProperties.class)
@@ -57,11 +71,17 @@ import org.springframework.scheduling.annotation.EnableScheduling;
         HealthController.class,
         OutboxController.class,
         RegistryController.class,
+        RollupController.class,
         ExecutionPersistenceService.class,
+        ExecutionCounterService.class,
+        ExecutionRollupService.class,
         RetrySchedulerService.class,
+        ExecutionRetentionService.class,
+        ChangeStreamWakeUpService.class,
         WorkflowQueryService.class,
         WorkflowCommandService.class,
         PayloadManagementService.class,
+        SearchKeyService.class,
         WorkflowRegistryService.class,
         WorkflowMessageFactory.class,
         OutboxService.class,
@@ -87,4 +107,22 @@ public class MonitorAutoConfiguration {
         return new SimpleMongoClientDatabaseFactory(mongoClient, properties.getMongodb().getDatabase());
     }
 
+    /**
+     * Creates the cluster-wide metrics merged from agent heartbeats.
+     */
+    @Bean
+    public ClusterMetrics clusterMetrics(MonitorProperties properties) {
+        return new ClusterMetrics(properties.getRegistry().getInstanceTimeout());
+    }
+
+    /**
+     * Creates the join store of parallel step groups shared through MongoDB, so that
+     * the branches of a group can be consumed by several instances.
+     */
+    @Bean
+    @ConditionalOnMissingBean(StepJoinStore.class)
+    public StepJoinStore stepJoinStore(MongoTemplate mongoTemplate) {
+        return new MongoStepJoinStore(mongoTemplate);
+    }
+
 }
@@ -49,6 +49,21 @@ public class MonitorProperties {
      */
     private MongoDB mongodb = new MongoDB();
 
+    /**
+     * Execution persistence configuration.
+     */
+    private Persistence persistence = new Persistence();
+
+    /**
+     * Time-bucketed execution rollups configuration.
+     */
+    private Rollups rollups = new Rollups();
+
+    /**
+     * Change stream wake-ups of the outbox relay and retry scheduler.
+     */
+    private ChangeStreams changeStreams = new ChangeStreams();
+
     @Data
     public static class WebSocket {
         private boolean enabled = true;
@@ -58,6 +73,26 @@ public class MonitorProperties {
 
     @Data
     public static class Retention {
+        /**
+         * Enable the scheduled deletion of old executions.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Cron expression of the deletion of old executions.
+         */
+        private String cleanupCron = "0 0 2 * * ?";
+
+        /**
+         * Number of executions deleted per batch.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Pause between two batches, leaving MongoDB to the workflow writes.
+         */
+        private Duration batchPause = Duration.ofMillis(100);
+
         /**
          * How long to keep completed executions.
          */
@@ -77,9 +112,33 @@ public class MonitorProperties {
         private boolean enabled = true;
 
         /**
-         * Interval for checking pending retries.
+         * Longest time the dispatcher sleeps between two checks for pending retries.
+         * It otherwise wakes up when the next retry is due.
          */
         private Duration checkInterval = Duration.ofSeconds(30);
+
+        /**
+         * How long a claimed retry is reserved to its instance before another one may claim it.
+         * A retry whose message could not be sent is tried again when its lease expires.
+         * It also bounds the wait for the broker to acknowledge a retry message.
+         */
+        private Duration leaseDuration = Duration.ofSeconds(30);
+
+        /**
+         * How long a sent retry waits for the next event of its execution before it may be claimed
+         * and sent again, in case its message was lost.
+         */
+        private Duration redispatchTimeout = Duration.ofMinutes(5);
+
+        /**
+         * Maximum number of retries claimed in one pass.
+         */
+        private int pageSize = 100;
+
+        /**
+         * Maximum number of retry messages sent at the same time.
+         */
+        private int maxParallelism = 16;
     }
 
     @Data
@@ -112,9 +171,22 @@ public class MonitorProperties {
 
         /**
          * Batch size for processing outbox messages.
+         * A batch is claimed at once, its messages sent together and their results written in one bulk write.
          */
         private int batchSize = 100;
 
+        /**
+         * How long a claimed batch is reserved to its relay before another relay may claim its messages.
+         * Must exceed the send timeout.
+         */
+        private Duration leaseDuration = Duration.ofMinutes(1);
+
+        /**
+         * How long the relay waits for the broker to acknowledge the sends of a batch.
+         * Sends not acknowledged by then are retried with backoff.
+         */
+        private Duration sendTimeout = Duration.ofSeconds(30);
+
         /**
          * Maximum number of send attempts before marking a message as failed.
          */
@@ -160,6 +232,99 @@ public class MonitorProperties {
         private long failedThreshold = 0;
     }
 
+    @Data
+    public static class Persistence {
+        /**
+         * Number of lanes persisting workflow events in parallel.
+         * The events of an execution always go through the same lane, in order.
+         */
+        private int lanes = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Write-behind buffering of execution updates.
+         */
+        private WriteBehind writeBehind = new WriteBehind();
+
+        /**
+         * Interval between rebuilds of the execution counters from the executions.
+         */
+        private Duration countersReconcileInterval = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class WriteBehind {
+        /**
+         * Buffer execution updates and write them in bulk.
+         * When disabled, each workflow message is written on arrival.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Interval between flushes of the buffer, i.e. the coalescing window.
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        /**
+         * Number of buffered messages that triggers an immediate flush.
+         */
+        private int maxBufferedMessages = 1000;
+
+        /**
+         * Maximum number of buffered messages. While writes fail, the messages beyond it
+         * are dropped, so that a MongoDB outage does not exhaust the heap.
+         */
+        private int capacity = 50_000;
+
+        /**
+         * Maximum delay before writing a window again after a failed write.
+         * The delay starts at the flush interval and doubles on each consecutive failure.
+         */
+        private Duration maxRetryDelay = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Rollups {
+        /**
+         * Interval between writes of the minute rollups of the minutes that ended.
+         */
+        private Duration flushInterval = Duration.ofSeconds(30);
+
+        /**
+         * Interval between compactions of minute rollups into hour rollups, and of hour rollups into day rollups.
+         */
+        private Duration compactInterval = Duration.ofMinutes(5);
+
+        /**
+         * How long to keep minute rollups.
+         */
+        private Duration minuteRetention = Duration.ofDays(7);
+
+        /**
+         * How long to keep hour rollups.
+         */
+        private Duration hourRetention = Duration.ofDays(90);
+
+        /**
+         * How long to keep day rollups. Zero keeps them forever.
+         */
+        private Duration dayRetention = Duration.ZERO;
+    }
+
+    @Data
+    public static class ChangeStreams {
+        /**
+         * Wake the outbox relay and the retry scheduler up on MongoDB change streams.
+         * Requires a replica set or sharded cluster. The pollers keep running as a safety net,
+         * so their intervals can be raised when enabled.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay before watching a collection again after its change stream failed.
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+    }
+
     @Data
     public static class MongoDB {
         /**
@@ -1,6 +1,8 @@
 package io.github.stepprflow.monitor.controller;
 
+import io.github.stepprflow.core.metrics.ClusterMetrics;
 import io.github.stepprflow.core.metrics.MetricsSummary;
+import io.github.stepprflow.core.metrics.WindowedMetrics;
 import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.monitor.dto.MetricsDashboard;
 import io.github.stepprflow.monitor.dto.WorkflowMetricsDto;
@@ -21,6 +23,10 @@ import java.util.stream.Collectors;
 /**
  * REST API for workflow metrics.
  * Exposes metrics for all workflows that have recorded activity.
+ * Lifetime counters come with recent rates and latency percentiles
+ * over the last 1, 5 and 15 minutes.
+ * The cluster endpoints merge the metrics every agent sends with its
+ * registration heartbeats, including step durations measured in the agents.
  * Returns empty metrics if WorkflowMetrics is not available.
  */
 @RestController
@@ -29,10 +35,17 @@ import java.util.stream.Collectors;
 public class MetricsController {
 
     private final WorkflowMetrics workflowMetrics;
+    private final ClusterMetrics clusterMetrics;
+
+    public MetricsController(WorkflowMetrics workflowMetrics) {
+        this(workflowMetrics, null);
+    }
 
     @Autowired
-    public MetricsController(@Autowired(required = false) WorkflowMetrics workflowMetrics) {
+    public MetricsController(@Autowired(required = false) WorkflowMetrics workflowMetrics,
+                             @Autowired(required = false) ClusterMetrics clusterMetrics) {
         this.workflowMetrics = workflowMetrics;
+        this.clusterMetrics = clusterMetrics;
     }
 
     @Operation(summary = "Get metrics dashboard", description = "Get global metrics and per-workflow breakdown")
@@ -43,28 +56,55 @@ public class MetricsController {
             return ResponseEntity.ok(MetricsDashboard.builder()
                     .workflowMetrics(List.of()).build());
         }
-        MetricsSummary global = workflowMetrics.getGlobalSummary();
-
-        List<WorkflowMetricsDto> byTopicService = workflowMetrics.getActiveWorkflowKeys().stream()
-                .map(key -> {
-                    MetricsSummary summary = workflowMetrics.getSummary(key.topic(), key.serviceName());
-                    return WorkflowMetricsDto.builder()
-                            .topic(key.topic())
-                            .serviceName(key.serviceName())
-                            .started(summary.getWorkflowsStarted())
-                            .completed(summary.getWorkflowsCompleted())
-                            .failed(summary.getWorkflowsFailed())
-                            .cancelled(summary.getWorkflowsCancelled())
-                            .active(summary.getWorkflowsActive())
-                            .retries(summary.getRetryCount())
-                            .dlq(summary.getDlqCount())
-                            .avgDurationMs(summary.getAvgWorkflowDurationMs())
-                            .successRate(summary.getSuccessRate())
-                            .build();
-                })
+        List<MetricsSummary> summaries = workflowMetrics.getActiveWorkflowKeys().stream()
+                .map(key -> workflowMetrics.getSummary(key.topic(), key.serviceName()))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(toDashboard(workflowMetrics.getGlobalSummary(), summaries));
+    }
+
+    @Operation(summary = "Get cluster metrics dashboard",
+            description = "Get global metrics and per-workflow breakdown merged from the heartbeats of all agents")
+    @ApiResponse(responseCode = "200", description = "Cluster metrics dashboard retrieved successfully")
+    @GetMapping("/cluster")
+    public ResponseEntity<MetricsDashboard> getClusterMetricsDashboard() {
+        if (clusterMetrics == null) {
+            return ResponseEntity.ok(MetricsDashboard.builder()
+                    .workflowMetrics(List.of()).build());
+        }
+        return ResponseEntity.ok(toDashboard(clusterMetrics.getGlobalSummary(), clusterMetrics.getSummaries()));
+    }
+
+    @Operation(summary = "Get cluster windowed metrics",
+            description = "Get throughput and p50/p95/p99/max latency over the last 1, 5 and 15 minutes "
+                    + "for all workflows and their steps, merged from the heartbeats of all agents")
+    @ApiResponse(responseCode = "200", description = "Cluster windowed metrics retrieved successfully")
+    @GetMapping("/cluster/windows")
+    public ResponseEntity<List<WindowedMetrics>> getClusterWindowedMetrics() {
+        if (clusterMetrics == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(clusterMetrics.getWindowedMetrics());
+    }
+
+    private MetricsDashboard toDashboard(MetricsSummary global, List<MetricsSummary> summaries) {
+        List<WorkflowMetricsDto> byTopicService = summaries.stream()
+                .map(summary -> WorkflowMetricsDto.builder()
+                        .topic(summary.getTopic())
+                        .serviceName(summary.getServiceName())
+                        .started(summary.getWorkflowsStarted())
+                        .completed(summary.getWorkflowsCompleted())
+                        .failed(summary.getWorkflowsFailed())
+                        .cancelled(summary.getWorkflowsCancelled())
+                        .active(summary.getWorkflowsActive())
+                        .retries(summary.getRetryCount())
+                        .dlq(summary.getDlqCount())
+                        .avgDurationMs(summary.getAvgWorkflowDurationMs())
+                        .successRate(summary.getSuccessRate())
+                        .build())
                 .collect(Collectors.toList());
 
-        MetricsDashboard dashboard = MetricsDashboard.builder()
+        return MetricsDashboard.builder()
                 .totalStarted(global.getWorkflowsStarted())
                 .totalCompleted(global.getWorkflowsCompleted())
                 .totalFailed(global.getWorkflowsFailed())
@@ -76,8 +116,6 @@ public class MetricsController {
                 .globalFailureRate(global.getFailureRate())
                 .workflowMetrics(byTopicService)
                 .build();
-
-        return ResponseEntity.ok(dashboard);
     }
 
     @Operation(summary = "Get metrics by topic", description = "Get metrics for a specific workflow topic")
@@ -116,4 +154,29 @@ public class MetricsController {
         }
         return ResponseEntity.ok(workflowMetrics.getGlobalSummary());
     }
+
+    @Operation(summary = "Get windowed metrics",
+            description = "Get throughput and p50/p95/p99/max latency over the last 1, 5 and 15 minutes "
+                    + "for all workflows and their steps")
+    @ApiResponse(responseCode = "200", description = "Windowed metrics retrieved successfully")
+    @GetMapping("/windows")
+    public ResponseEntity<List<WindowedMetrics>> getWindowedMetrics() {
+        if (workflowMetrics == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(workflowMetrics.getWindowedMetrics());
+    }
+
+    @Operation(summary = "Get windowed metrics by topic",
+            description = "Get throughput and p50/p95/p99/max latency over the last 1, 5 and 15 minutes "
+                    + "for a workflow and its steps, per service")
+    @ApiResponse(responseCode = "200", description = "Windowed metrics retrieved successfully")
+    @GetMapping("/{topic}/windows")
+    public ResponseEntity<List<WindowedMetrics>> getWindowedMetrics(
+            @Parameter(description = "Workflow topic name") @PathVariable String topic) {
+        if (workflowMetrics == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(workflowMetrics.getWindowedMetrics(topic));
+    }
 }
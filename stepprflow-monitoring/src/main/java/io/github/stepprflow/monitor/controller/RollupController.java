@@ -0,0 +1,65 @@
+package io.github.stepprflow.monitor.controller;
+
+import io.github.stepprflow.monitor.dto.RollupPointDto;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
+import io.github.stepprflow.monitor.rollup.RollupResolution;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * REST API for historical execution charts.
+ * Reads the time-bucketed rollups, which outlive the executions they count.
+ */
+@RestController
+@RequestMapping("/api/rollups")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Rollups", description = "Historical execution counts, failure rates and durations")
+public class RollupController {
+
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+
+    private final ExecutionRollupService rollupService;
+
+    @Operation(summary = "Get execution rollups",
+            description = "Get the executions of a workflow, or the runs of one of its steps, that ended in each "
+                    + "time bucket of a range: counts, failure rate and duration percentiles. "
+                    + "Buckets without executions are omitted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rollups retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid range", content = @Content)
+    })
+    @GetMapping
+    public ResponseEntity<List<RollupPointDto>> getRollups(
+            @Parameter(description = "Workflow topic")
+            @RequestParam @NotBlank(message = "Topic is required") String topic,
+            @Parameter(description = "Step ID, omitted for whole executions")
+            @RequestParam(required = false) Integer step,
+            @Parameter(description = "Bucket size")
+            @RequestParam(defaultValue = "HOUR") RollupResolution resolution,
+            @Parameter(description = "Start of the range (ISO-8601), one day before its end by default")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the range (ISO-8601), now by default")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+        return ResponseEntity.ok(rollupService.query(topic, step, resolution, start, end));
+    }
+}
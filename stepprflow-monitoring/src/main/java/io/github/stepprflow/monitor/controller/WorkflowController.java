@@ -1,6 +1,9 @@
 package io.github.stepprflow.monitor.controller;
 
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
+import io.github.stepprflow.monitor.dto.LatencyBreakdownDto;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.service.PayloadManagementService;
 import io.github.stepprflow.monitor.service.WorkflowCommandService;
@@ -74,10 +77,11 @@ public class WorkflowController {
     }
 
     @Operation(summary = "List executions",
-            description = "Get a paginated list of workflow executions with optional filtering")
+            description = "Get a paginated list of workflow execution summaries with optional filtering. "
+                    + "Payload, step history and attempts are returned by GET /{executionId} only")
     @ApiResponse(responseCode = "200", description = "List of executions")
     @GetMapping
-    public ResponseEntity<Page<WorkflowExecution>> listExecutions(
+    public ResponseEntity<Page<ExecutionSummaryDto>> listExecutions(
             @Parameter(description = "Filter by workflow topic")
             @RequestParam(required = false) String topic,
             @Parameter(description = "Filter by statuses (comma-separated)")
@@ -103,22 +107,58 @@ public class WorkflowController {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction);
         PageRequest pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
 
-        List<WorkflowStatus> statusList = null;
-        if (statuses != null && !statuses.isBlank()) {
-            statusList = Arrays.stream(statuses.split(","))
-                    .map(String::trim)
-                    .map(WorkflowStatus::valueOf)
-                    .toList();
-        }
+        return ResponseEntity.ok(queryService.findExecutions(topic, parseStatuses(statuses), pageable));
+    }
 
-        return ResponseEntity.ok(queryService.findExecutions(topic, statusList, pageable));
+    @Operation(summary = "Scroll executions",
+            description = "Get a window of workflow execution summaries ordered by creation date, starting "
+                    + "after the cursor returned with the previous window. Unlike page numbers, cursors keep "
+                    + "deep windows as fast as the first one")
+    @ApiResponse(responseCode = "200", description = "Window of executions")
+    @GetMapping("/scroll")
+    public ResponseEntity<ExecutionWindowDto> scrollExecutions(
+            @Parameter(description = "Filter by workflow topic")
+            @RequestParam(required = false) String topic,
+            @Parameter(description = "Filter by statuses (comma-separated)")
+            @RequestParam(name = "status", required = false) String statuses,
+            @Parameter(description = "Cursor returned with the previous window, omitted for the first one")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Window size (1-100)")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Window size must be >= 1")
+            @Max(value = 100, message = "Window size must be <= 100") int size,
+            @Parameter(description = "Creation date order (asc or desc)")
+            @RequestParam(defaultValue = "desc") String direction,
+            @Parameter(description = "Include the approximate number of matching executions")
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(queryService.scrollExecutions(topic, parseStatuses(statuses), cursor, size,
+                Sort.Direction.fromString(direction), withTotal));
+    }
+
+    @Operation(summary = "Search executions",
+            description = "Find the workflow executions with a search key equal to, or starting with, a value. "
+                    + "Search keys are the payload fields declared by each workflow with @Topic(searchKeys)")
+    @ApiResponse(responseCode = "200", description = "Matching executions")
+    @GetMapping("/search")
+    public ResponseEntity<List<ExecutionSummaryDto>> searchExecutions(
+            @Parameter(description = "Search key path (e.g. orderId), omitted for any search key")
+            @RequestParam(required = false) String key,
+            @Parameter(description = "Value, or start of the value with prefix=true")
+            @RequestParam @NotBlank(message = "Value is required") String value,
+            @Parameter(description = "Match the values starting with the value")
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @Parameter(description = "Maximum number of executions (1-100)")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be >= 1")
+            @Max(value = 100, message = "Size must be <= 100") int size) {
+        return ResponseEntity.ok(queryService.searchExecutions(key, value, prefix, size));
     }
 
     @Operation(summary = "Get recent executions",
             description = "Retrieve the most recent workflow executions (last 10)")
     @ApiResponse(responseCode = "200", description = "List of recent executions")
     @GetMapping("/recent")
-    public ResponseEntity<List<WorkflowExecution>> getRecentExecutions() {
+    public ResponseEntity<List<ExecutionSummaryDto>> getRecentExecutions() {
         return ResponseEntity.ok(queryService.getRecentExecutions());
     }
 
@@ -129,6 +169,17 @@ public class WorkflowController {
         return ResponseEntity.ok(queryService.getStatistics());
     }
 
+    @Operation(summary = "Get latency breakdown",
+            description = "Get the average time finished executions of a workflow spent queued, executing, "
+                    + "waiting for retries and in the monitoring pipeline, overall and per step")
+    @ApiResponse(responseCode = "200", description = "Latency breakdown of the workflow")
+    @GetMapping("/latency")
+    public ResponseEntity<LatencyBreakdownDto> getLatencyBreakdown(
+            @Parameter(description = "Workflow topic")
+            @RequestParam @NotBlank(message = "Topic is required") String topic) {
+        return ResponseEntity.ok(queryService.getLatencyBreakdown(topic));
+    }
+
     @Operation(summary = "Resume execution",
             description = "Resume a failed or paused workflow execution")
     @ApiResponses(value = {
@@ -202,6 +253,16 @@ public class WorkflowController {
         return ResponseEntity.ok(restored);
     }
 
+    private static List<WorkflowStatus> parseStatuses(String statuses) {
+        if (statuses == null || statuses.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(statuses.split(","))
+                .map(String::trim)
+                .map(WorkflowStatus::valueOf)
+                .toList();
+    }
+
     @Data
     @Schema(description = "Request to update a payload field")
     public static class PayloadFieldUpdateRequest {
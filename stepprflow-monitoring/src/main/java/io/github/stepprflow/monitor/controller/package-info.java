@@ -5,6 +5,7 @@
  * <ul>
  *   <li>Workflow execution management endpoints</li>
  *   <li>Metrics dashboard endpoints</li>
+ *   <li>Historical execution rollup endpoints</li>
  *   <li>Circuit breaker monitoring endpoints</li>
  *   <li>Workflow registry endpoints</li>
  *   <li>Global exception handling</li>
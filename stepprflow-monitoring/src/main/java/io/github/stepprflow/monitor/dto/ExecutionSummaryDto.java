@@ -0,0 +1,56 @@
+package io.github.stepprflow.monitor.dto;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO for workflow execution listings.
+ * Carries the fields shown in lists only: the payload, step history, payload history
+ * and execution attempts are fetched with the execution itself.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionSummaryDto {
+
+    private String executionId;
+    private String correlationId;
+    private String topic;
+    private WorkflowStatus status;
+    private int currentStep;
+    private int totalSteps;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+    private Long durationMs;
+    private String initiatedBy;
+
+    /**
+     * Create the summary of an execution.
+     *
+     * @param execution the execution, possibly read with the summary fields only
+     * @return the summary
+     */
+    public static ExecutionSummaryDto from(WorkflowExecution execution) {
+        return ExecutionSummaryDto.builder()
+                .executionId(execution.getExecutionId())
+                .correlationId(execution.getCorrelationId())
+                .topic(execution.getTopic())
+                .status(execution.getStatus())
+                .currentStep(execution.getCurrentStep())
+                .totalSteps(execution.getTotalSteps())
+                .createdAt(execution.getCreatedAt())
+                .updatedAt(execution.getUpdatedAt())
+                .completedAt(execution.getCompletedAt())
+                .durationMs(execution.getDurationMs())
+                .initiatedBy(execution.getInitiatedBy())
+                .build();
+    }
+}
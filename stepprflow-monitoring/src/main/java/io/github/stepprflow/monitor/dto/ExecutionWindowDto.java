@@ -0,0 +1,33 @@
+package io.github.stepprflow.monitor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Window of execution summaries read with a cursor.
+ * The next window is read by passing {@code nextCursor} back, which resumes the listing
+ * after the last execution of this window instead of skipping the previous ones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionWindowDto {
+
+    private List<ExecutionSummaryDto> content;
+
+    /**
+     * Cursor of the next window, null on the last one.
+     */
+    private String nextCursor;
+
+    /**
+     * Approximate number of matching executions, read from the execution counters.
+     * Null unless requested.
+     */
+    private Long total;
+}
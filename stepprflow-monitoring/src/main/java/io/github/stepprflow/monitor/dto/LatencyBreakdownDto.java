@@ -0,0 +1,55 @@
+package io.github.stepprflow.monitor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Average latency breakdown of the finished executions of a workflow.
+ * Tells how much of the duration was spent queued in the broker, running
+ * the steps, waiting for retries and reaching monitoring.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyBreakdownDto {
+
+    private String topic;
+
+    /**
+     * Number of executions the averages are computed over.
+     */
+    private long executions;
+
+    private double avgDurationMs;
+    private double avgQueuedMs;
+    private double avgExecutingMs;
+    private double avgRetryWaitMs;
+    private double avgPipelineMs;
+
+    /**
+     * Averages per step, ordered by step ID.
+     */
+    private List<StepLatency> steps;
+
+    /**
+     * Average latency breakdown of a step.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepLatency {
+        private int stepId;
+        private String stepLabel;
+        private long executions;
+        private double avgQueuedMs;
+        private double avgExecutingMs;
+        private double avgRetryWaitMs;
+        private double avgPipelineMs;
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.stepprflow.monitor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Point of a rollup chart: the executions, or the runs of a step, that ended in a time bucket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupPointDto {
+
+    /**
+     * Start of the bucket.
+     */
+    private Instant timestamp;
+
+    private long completed;
+    private long failed;
+
+    /**
+     * Share of failures, in percent.
+     */
+    private double failureRate;
+
+    private double avgDurationMs;
+    private double p50DurationMs;
+    private double p95DurationMs;
+    private double p99DurationMs;
+    private double maxDurationMs;
+}
@@ -0,0 +1,53 @@
+package io.github.stepprflow.monitor.model;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * MongoDB document counting the executions of a topic in a status.
+ * Counters are incremented on each status transition, so that statistics are read
+ * without scanning the executions.
+ */
+@Document(collection = "workflow_execution_counters")
+@Getter
+@Setter
+@EqualsAndHashCode
+@ToString
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionCounter {
+
+    /**
+     * Counter key: topic and status.
+     */
+    @Id
+    private String id;
+
+    @Indexed
+    private String topic;
+
+    private WorkflowStatus status;
+
+    private long count;
+
+    /**
+     * Get the key of the counter of a topic and status.
+     *
+     * @param topic the workflow topic
+     * @param status the execution status
+     * @return the counter ID
+     */
+    public static String idOf(String topic, WorkflowStatus status) {
+        return topic + "|" + status.name();
+    }
+}
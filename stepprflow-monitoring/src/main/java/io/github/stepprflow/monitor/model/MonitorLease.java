@@ -0,0 +1,36 @@
+package io.github.stepprflow.monitor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Lease electing the monitor instance that runs a cluster-wide task, so that
+ * replicas sharing the database do not run it concurrently.
+ */
+@Document(collection = "workflow_monitor_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonitorLease {
+
+    /**
+     * Name of the task.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Instance holding the lease.
+     */
+    private String owner;
+
+    /**
+     * When the lease can be claimed by another instance, should its owner stop without releasing it.
+     */
+    private Instant expiresAt;
+}
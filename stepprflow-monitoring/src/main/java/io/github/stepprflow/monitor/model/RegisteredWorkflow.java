@@ -77,6 +77,13 @@ public class RegisteredWorkflow {
      */
     private Long timeoutMs;
 
+    /**
+     * Payload paths indexed as search keys.
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    @Setter(lombok.AccessLevel.NONE)
+    private List<String> searchKeys;
+
     /**
      * Services that provide this workflow.
      */
@@ -119,6 +126,24 @@ public class RegisteredWorkflow {
         this.steps = steps == null ? null : new ArrayList<>(steps);
     }
 
+    /**
+     * Returns a defensive copy of the search key paths.
+     *
+     * @return a new list containing the paths, or empty list if null
+     */
+    public List<String> getSearchKeys() {
+        return searchKeys == null ? List.of() : new ArrayList<>(searchKeys);
+    }
+
+    /**
+     * Sets the search key paths with a defensive copy.
+     *
+     * @param searchKeys the paths to set
+     */
+    public void setSearchKeys(List<String> searchKeys) {
+        this.searchKeys = searchKeys == null ? null : new ArrayList<>(searchKeys);
+    }
+
     /**
      * Returns a defensive copy of the registeredBy set.
      *
@@ -195,6 +220,7 @@ public class RegisteredWorkflow {
         private boolean skippable;
         private boolean continueOnFailure;
         private Long timeoutMs;
+        private String group;
     }
 
     /**
@@ -0,0 +1,47 @@
+package io.github.stepprflow.monitor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * MongoDB document collecting the branches of a parallel step group until the group is joined.
+ */
+@Document(collection = "workflow_step_joins")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepJoin {
+
+    /**
+     * Join key: execution ID and group.
+     */
+    @Id
+    private String id;
+
+    /**
+     * When the first branch reported, from which the join expires.
+     */
+    private Instant startedAt;
+
+    /**
+     * Payload fields changed by each completed branch, keyed by step ID.
+     */
+    private Map<String, Map<String, Object>> branches;
+
+    /**
+     * Get the key of the join of a group.
+     *
+     * @param executionId the workflow execution ID
+     * @param group the parallel group name
+     * @return the join ID
+     */
+    public static String idOf(String executionId, String group) {
+        return executionId + "|" + group;
+    }
+}
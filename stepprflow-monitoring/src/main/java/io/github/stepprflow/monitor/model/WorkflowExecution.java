@@ -30,9 +30,12 @@ import java.util.Map;
  */
 @Document(collection = "workflow_executions")
 @CompoundIndex(name = "topic_status", def = "{'topic': 1, 'status': 1}")
-@CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': -1}")
+@CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "topic_createdAt_id", def = "{'topic': 1, 'createdAt': -1, '_id': -1}")
 @CompoundIndex(name = "status_completedAt", def = "{'status': 1, 'completedAt': 1}")
 @CompoundIndex(name = "status_nextRetry", def = "{'status': 1, 'retryInfo.nextRetryAt': 1}")
+@CompoundIndex(name = "searchKeys", def = "{'searchKeys.value': 1, 'searchKeys.key': 1}")
 @Getter
 @Setter
 @EqualsAndHashCode
@@ -60,6 +63,12 @@ public class WorkflowExecution {
     @Indexed
     private WorkflowStatus status;
 
+    /**
+     * Status before the last write of workflow events, captured by the update applying them,
+     * so that the transition is known without reading the execution first.
+     */
+    private WorkflowStatus previousStatus;
+
     private int currentStep;
 
     private int totalSteps;
@@ -68,6 +77,13 @@ public class WorkflowExecution {
 
     private String payloadType;
 
+    /**
+     * Business identifiers extracted from the payload, at the search key paths of the workflow.
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    @Setter(lombok.AccessLevel.NONE)
+    private List<SearchKey> searchKeys;
+
     private String securityContext;
 
     @Getter(lombok.AccessLevel.NONE)
@@ -76,6 +92,22 @@ public class WorkflowExecution {
 
     private RetryInfo retryInfo;
 
+    /**
+     * Step whose failure put the execution in retry, which may differ from the current step
+     * when it is a branch of a parallel group.
+     */
+    private Integer retryStep;
+
+    /**
+     * Parallel group of the step to retry, null for a sequential step.
+     */
+    private String retryStepGroup;
+
+    /**
+     * Claim of the pending retry by a retry dispatcher, removed by the next workflow event.
+     */
+    private RetryLease retryLease;
+
     private ErrorInfo errorInfo;
 
     /**
@@ -116,6 +148,11 @@ public class WorkflowExecution {
      */
     private Long durationMs;
 
+    /**
+     * Where the time of the execution went, summed over its steps.
+     */
+    private LatencyBreakdown latency;
+
     // Defensive copy getters and setters for mutable objects
 
     /**
@@ -133,6 +170,20 @@ public class WorkflowExecution {
     }
 
 
+    /**
+     * Returns a defensive copy of the search keys.
+     */
+    public List<SearchKey> getSearchKeys() {
+        return searchKeys == null ? List.of() : new ArrayList<>(searchKeys);
+    }
+
+    /**
+     * Sets the search keys with a defensive copy.
+     */
+    public void setSearchKeys(List<SearchKey> searchKeys) {
+        this.searchKeys = searchKeys == null ? null : new ArrayList<>(searchKeys);
+    }
+
     /**
      * Returns a defensive copy of step history.
      */
@@ -182,10 +233,25 @@ public class WorkflowExecution {
      * @param completedAt the completion timestamp
      */
     public void markPreviousStepsAsPassed(int currentStepId, Instant completedAt) {
+        markPreviousStepsAsPassed(currentStepId, null, completedAt);
+    }
+
+    /**
+     * Marks all previous steps (before currentStepId) as PASSED if they are still IN_PROGRESS or PENDING,
+     * except the other branches of the current step's parallel group, which may still be running.
+     *
+     * @param currentStepId the current step ID
+     * @param currentGroup the parallel group of the current step, or null
+     * @param completedAt the completion timestamp
+     */
+    public void markPreviousStepsAsPassed(int currentStepId, String currentGroup, Instant completedAt) {
         if (this.stepHistory == null) {
             return;
         }
         for (StepExecution prevStep : this.stepHistory) {
+            if (currentGroup != null && currentGroup.equals(prevStep.getGroup())) {
+                continue;
+            }
             if (prevStep.getStepId() < currentStepId
                     && (prevStep.getStatus() == WorkflowStatus.IN_PROGRESS
                         || prevStep.getStatus() == WorkflowStatus.PENDING)) {
@@ -286,12 +352,20 @@ public class WorkflowExecution {
     public static class StepExecution {
         private int stepId;
         private String stepLabel;
+        /** Parallel group of the step, null if it ran on its own. */
+        private String group;
         private WorkflowStatus status;
         private Instant startedAt;
         private Instant completedAt;
         private Long durationMs;
         private String errorMessage;
         private int attempt;
+        /** Where the time of the step went, over all its attempts. */
+        private LatencyBreakdown latency;
+        /** Time the step failed and was scheduled for retry, until the retry is sent. */
+        private Instant retryPendingSince;
+        /** Start time of the last agent-reported run, to apply each report once. */
+        private Instant lastTimedAt;
 
         /**
          * Marks this step as PASSED with the given completion time.
@@ -307,6 +381,71 @@ public class WorkflowExecution {
         }
     }
 
+    /**
+     * Breakdown of the time of a step or execution.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LatencyBreakdown {
+        /** Time messages waited in the broker before an agent picked them up. */
+        private long queuedMs;
+        /** Time agents spent running the step, as they reported it. */
+        private long executingMs;
+        /** Time between a failure and the dispatch of its retry. */
+        private long retryWaitMs;
+        /** Time between an agent sending a message and monitoring persisting it. */
+        private long pipelineMs;
+
+        /**
+         * Adds another breakdown to this one.
+         *
+         * @param other the breakdown to add, ignored if null
+         */
+        public void add(LatencyBreakdown other) {
+            if (other == null) {
+                return;
+            }
+            this.queuedMs += other.queuedMs;
+            this.executingMs += other.executingMs;
+            this.retryWaitMs += other.retryWaitMs;
+            this.pipelineMs += other.pipelineMs;
+        }
+    }
+
+    /**
+     * Claim of a pending retry by the monitoring instance dispatching it.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RetryLease {
+        /** Monitoring instance that claimed the retry. */
+        private String owner;
+        /** Pass of the owner that claimed the retry, along with the other retries of its page. */
+        private String claim;
+        /** Time after which the retry may be claimed again, set from the re-dispatch timeout once sent. */
+        private Instant expiresAt;
+        /** Time the retry message was sent. */
+        private Instant dispatchedAt;
+    }
+
+    /**
+     * Value of the payload at a search key path.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchKey {
+        /** Search key path in the payload. */
+        private String key;
+        /** Value at the path, as a string. */
+        private String value;
+    }
+
     /**
      * Record of a payload field change.
      */
@@ -5,6 +5,7 @@
  * <ul>
  *   <li>Workflow execution document model</li>
  *   <li>Registered workflow document model</li>
+ *   <li>Execution counter and step join document models</li>
  *   <li>MongoDB document mappings</li>
  * </ul>
  */
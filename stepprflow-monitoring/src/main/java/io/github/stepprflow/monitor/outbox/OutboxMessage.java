@@ -103,6 +103,16 @@ public class OutboxMessage {
      */
     private String lastError;
 
+    /**
+     * Relay batch that claimed the message, null when not claimed.
+     */
+    private String leaseOwner;
+
+    /**
+     * Time after which another relay may claim the message.
+     */
+    private Instant leaseExpiresAt;
+
     /**
      * Outbox message status.
      */
@@ -6,14 +6,30 @@ import io.github.stepprflow.core.broker.MessageBroker;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.outbox.OutboxMessage.OutboxStatus;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service that relays outbox messages to the message broker.
@@ -24,6 +40,10 @@ import java.util.List;
  * <p>Features:
  * <ul>
  *   <li>Configurable polling interval and batch size</li>
+ *   <li>Batches claimed with a lease, so that several relays never send the same message</li>
+ *   <li>Pipelined sends: all the messages of a batch are sent before awaiting the broker</li>
+ *   <li>One bulk write of the results of a batch</li>
+ *   <li>Immediate relay on change stream wake-ups, the poller being kept as a safety net</li>
  *   <li>Exponential backoff for failed sends</li>
  *   <li>Automatic cleanup of old sent messages</li>
  *   <li>Metrics and logging for observability</li>
@@ -39,91 +59,220 @@ import java.util.List;
 public class OutboxRelayService {
 
     private final OutboxMessageRepository outboxRepository;
+    private final MongoTemplate mongoTemplate;
     private final MessageBroker messageBroker;
     private final ObjectMapper objectMapper;
     private final MonitorProperties.Outbox config;
 
+    /** Runs the relay passes requested by {@link #wakeUp()}, one at a time. */
+    private final ExecutorService wakeUps = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("stepprflow-outbox-wake-up").factory());
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
     @SuppressFBWarnings(
             value = "EI_EXPOSE_REP2",
             justification = "Spring-managed beans are safely shared via dependency injection")
     public OutboxRelayService(
             OutboxMessageRepository outboxRepository,
+            MongoTemplate mongoTemplate,
             MessageBroker messageBroker,
             ObjectMapper objectMapper,
             MonitorProperties properties) {
         this.outboxRepository = outboxRepository;
+        this.mongoTemplate = mongoTemplate;
         this.messageBroker = messageBroker;
         this.objectMapper = objectMapper;
         this.config = properties.getOutbox();
     }
 
     /**
-     * Poll and process pending outbox messages.
+     * Poll and process pending outbox messages, one batch after the other until the outbox is drained.
      * Runs on a fixed delay configured by stepprflow.monitor.outbox.poll-interval.
      */
     @Scheduled(fixedDelayString = "${stepprflow.monitor.outbox.poll-interval:1000}")
     public void processOutbox() {
-        List<OutboxMessage> messages = outboxRepository
-                .findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                        OutboxStatus.PENDING,
-                        Instant.now(),
-                        PageRequest.of(0, config.getBatchSize()));
+        while (relayBatch() == config.getBatchSize()) {
+            log.debug("Outbox batch full, relaying the next one");
+        }
+    }
+
+    /**
+     * Relay the pending messages now rather than at the next poll.
+     * Wake-ups requested while a pass is pending are coalesced into it.
+     */
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            wakeUps.execute(() -> {
+                wakeUpPending.set(false);
+                try {
+                    processOutbox();
+                } catch (RuntimeException e) {
+                    log.error("Outbox relay failed: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop relaying on wake-ups.
+     */
+    @PreDestroy
+    public void shutdown() {
+        wakeUps.shutdownNow();
+    }
 
+    /**
+     * Claim, send and mark one batch of pending messages.
+     *
+     * @return the number of messages in the batch
+     */
+    int relayBatch() {
+        List<OutboxMessage> messages = claimBatch(Instant.now());
         if (messages.isEmpty()) {
-            return;
+            return 0;
         }
 
         log.debug("Processing {} outbox messages", messages.size());
 
+        // Send the whole batch before awaiting the broker acknowledgements
+        List<CompletableFuture<Void>> sends = messages.stream().map(this::sendMessage).toList();
+        awaitSends(sends);
+
+        BulkOperations results = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class);
         int sent = 0;
         int failed = 0;
-
-        for (OutboxMessage message : messages) {
-            try {
-                sendMessage(message);
+        for (int i = 0; i < messages.size(); i++) {
+            OutboxMessage message = messages.get(i);
+            String error = errorOf(sends.get(i));
+            if (error == null) {
                 message.markAsSent();
-                outboxRepository.save(message);
                 sent++;
                 log.debug("Outbox message {} sent successfully to {}",
                         message.getId(), message.getDestination());
-            } catch (Exception e) {
-                handleSendFailure(message, e);
+            } else {
+                handleSendFailure(message, error);
                 failed++;
             }
+            // Matched on the lease, so that a message claimed again meanwhile is left to its new relay
+            results.updateOne(Query.query(Criteria.where("id").is(message.getId())
+                    .and("leaseOwner").is(message.getLeaseOwner())), release(message));
+        }
+        try {
+            results.execute();
+        } catch (RuntimeException e) {
+            log.error("Failed to mark {} outbox messages, they will be sent again when their lease expires: {}",
+                    messages.size(), e.getMessage());
         }
 
-        if (sent > 0 || failed > 0) {
-            log.info("Outbox relay completed: {} sent, {} failed", sent, failed);
+        log.info("Outbox relay completed: {} sent, {} failed", sent, failed);
+        return messages.size();
+    }
+
+    /**
+     * Claim a batch of messages ready to be sent and not leased by another relay.
+     * The candidates are leased with one {@code updateMany} matching their readiness again,
+     * then read back by lease: only the messages this relay won are returned.
+     */
+    private List<OutboxMessage> claimBatch(Instant now) {
+        Criteria ready = new Criteria().andOperator(
+                Criteria.where("status").is(OutboxStatus.PENDING),
+                new Criteria().orOperator(
+                        Criteria.where("nextRetryAt").is(null),
+                        Criteria.where("nextRetryAt").lte(now)),
+                new Criteria().orOperator(
+                        Criteria.where("leaseExpiresAt").is(null),
+                        Criteria.where("leaseExpiresAt").lt(now)));
+        Query candidates = Query.query(ready)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(config.getBatchSize());
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, OutboxMessage.class).stream()
+                .map(OutboxMessage::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
         }
+
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("id").in(ids), ready)),
+                new Update().set("leaseOwner", owner).set("leaseExpiresAt", now.plus(config.getLeaseDuration())),
+                OutboxMessage.class);
+        return mongoTemplate.find(Query.query(Criteria.where("leaseOwner").is(owner))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt")), OutboxMessage.class);
     }
 
     /**
-     * Send a message to the broker.
+     * Send a message to the broker without waiting for its acknowledgement.
      */
-    private void sendMessage(OutboxMessage outboxMessage) throws Exception {
-        WorkflowMessage workflowMessage = objectMapper.readValue(
-                outboxMessage.getPayload(), WorkflowMessage.class);
+    private CompletableFuture<Void> sendMessage(OutboxMessage outboxMessage) {
+        try {
+            WorkflowMessage workflowMessage = objectMapper.readValue(
+                    outboxMessage.getPayload(), WorkflowMessage.class);
+            return messageBroker.sendAsync(outboxMessage.getDestination(), workflowMessage);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void awaitSends(List<CompletableFuture<Void>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]))
+                    .get(config.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Failed and pending sends are handled one by one
+            log.debug("Some outbox sends did not succeed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        messageBroker.sendSync(outboxMessage.getDestination(), workflowMessage);
+    /**
+     * Error of a send, or null if the broker acknowledged it.
+     */
+    private String errorOf(CompletableFuture<Void> send) {
+        if (!send.isDone()) {
+            return "Not acknowledged within " + config.getSendTimeout();
+        }
+        try {
+            send.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return String.valueOf(cause.getMessage());
+        }
     }
 
     /**
      * Handle send failure with exponential backoff.
      */
-    private void handleSendFailure(OutboxMessage message, Exception e) {
-        message.setLastError(e.getMessage());
+    private void handleSendFailure(OutboxMessage message, String error) {
+        message.setLastError(error);
         message.incrementAttemptWithBackoff(config.getBaseDelayMs(), config.getMaxDelayMs());
-        outboxRepository.save(message);
 
         if (message.getStatus() == OutboxStatus.FAILED) {
             log.error("Outbox message {} failed permanently after {} attempts: {}",
-                    message.getId(), message.getAttempts(), e.getMessage());
+                    message.getId(), message.getAttempts(), error);
         } else {
             log.warn("Outbox message {} failed (attempt {}), will retry at {}: {}",
-                    message.getId(), message.getAttempts(), message.getNextRetryAt(), e.getMessage());
+                    message.getId(), message.getAttempts(), message.getNextRetryAt(), error);
         }
     }
 
+    /**
+     * Write the outcome of a send and release the lease of the message.
+     */
+    private static Update release(OutboxMessage message) {
+        return new Update()
+                .set("status", message.getStatus())
+                .set("attempts", message.getAttempts())
+                .set("processedAt", message.getProcessedAt())
+                .set("nextRetryAt", message.getNextRetryAt())
+                .set("lastError", message.getLastError())
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt");
+    }
+
     /**
      * Clean up old sent messages.
      * Runs on a fixed delay configured by stepprflow.monitor.outbox.cleanup-interval.
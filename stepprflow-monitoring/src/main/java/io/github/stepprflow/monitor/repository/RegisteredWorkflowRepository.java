@@ -19,6 +19,11 @@ public interface RegisteredWorkflowRepository extends MongoRepository<Registered
      */
     Optional<RegisteredWorkflow> findByTopic(String topic);
 
+    /**
+     * Find the registrations of a topic by all services.
+     */
+    List<RegisteredWorkflow> findAllByTopic(String topic);
+
     /**
      * Find by topic and service name (composite key).
      */
@@ -0,0 +1,59 @@
+package io.github.stepprflow.monitor.rollup;
+
+import io.github.stepprflow.core.metrics.HistogramSketch;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Rollup of the executions, or of the runs of a step, that ended in a time bucket.
+ * Stored in the time-series collection of its resolution, with the topic and step
+ * as meta field.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionRollup {
+
+    /**
+     * Start of the bucket.
+     */
+    private Instant timestamp;
+
+    private Meta meta;
+
+    /**
+     * Executions, or step runs, that ended successfully.
+     */
+    private long completed;
+
+    /**
+     * Executions, or step runs, that failed.
+     */
+    private long failed;
+
+    /**
+     * Histogram of the durations of the executions, or of the run times of the step.
+     */
+    private HistogramSketch durations;
+
+    /**
+     * Series of a rollup.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Meta {
+
+        private String topic;
+
+        /**
+         * Step ID, null for the rollups of whole executions.
+         */
+        private Integer stepId;
+    }
+}
@@ -0,0 +1,368 @@
+package io.github.stepprflow.monitor.rollup;
+
+import io.github.stepprflow.core.metrics.HistogramSketch;
+import io.github.stepprflow.core.model.StepTiming;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.dto.RollupPointDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service maintaining time-bucketed rollups of the executions and step runs.
+ *
+ * Workflow messages are added to in-memory minute rollups as they are persisted.
+ * The rollups of each minute that ended are written once, with one insert, to the
+ * minute time-series collection. Closed hours are then compacted into hour rollups,
+ * and closed days into day rollups, so that long ranges read few documents. Each
+ * collection expires its rollups after the retention of its resolution.
+ *
+ * Durations are kept as log-linear histograms, which merge across buckets and give
+ * percentiles within 1/16 of their value; durations above about 9.5 hours are counted
+ * as 9.5 hours.
+ */
+@Service
+@Slf4j
+public class ExecutionRollupService {
+
+    /** Buckets compacted per resolution and run, so that a backlog is caught up over several runs. */
+    private static final int MAX_COMPACTED_BUCKETS = 48;
+
+    /** Largest number of buckets a query may span. */
+    static final int MAX_POINTS = 10_000;
+
+    /** Step runs and outcomes remembered to ignore their repeated reports. */
+    private static final int SEEN_REPORTS = 10_000;
+
+    private static final Set<WorkflowStatus> FAILED_STEP_STATUSES = Set.of(
+            WorkflowStatus.FAILED, WorkflowStatus.RETRY_PENDING);
+
+    private final MongoTemplate mongoTemplate;
+    private final MonitorProperties.Rollups properties;
+    private final Clock clock;
+
+    /** Minute rollups not written yet, guarded by itself. */
+    private final Map<Key, ExecutionRollup> minutes = new HashMap<>();
+
+    /** Recently recorded reports, guarded by {@link #minutes}. */
+    private final Set<String> seen = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > SEEN_REPORTS;
+        }
+    });
+
+    private record Key(String topic, Integer stepId, Instant minute) { }
+
+    @Autowired
+    public ExecutionRollupService(MongoTemplate mongoTemplate, MonitorProperties properties) {
+        this(mongoTemplate, properties, Clock.systemUTC());
+    }
+
+    ExecutionRollupService(MongoTemplate mongoTemplate, MonitorProperties properties, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties.getRollups();
+        this.clock = clock;
+    }
+
+    /**
+     * Create the time-series collections of the rollups that do not exist yet.
+     */
+    @PostConstruct
+    public void createCollections() {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            try {
+                if (mongoTemplate.collectionExists(resolution.getCollection())) {
+                    continue;
+                }
+                CollectionOptions options = CollectionOptions.empty().timeSeries(
+                        CollectionOptions.TimeSeriesOptions.timeSeries("timestamp")
+                                .metaField("meta")
+                                .granularity(resolution.getGranularity()));
+                Duration retention = retention(resolution);
+                if (!retention.isZero()) {
+                    options = options.expireAfter(retention);
+                }
+                mongoTemplate.createCollection(resolution.getCollection(), options);
+            } catch (RuntimeException e) {
+                // Another instance may have created it first
+                log.warn("Failed to create rollup collection {}: {}", resolution.getCollection(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Add a workflow message to the rollups of the current minute.
+     * A step run is rolled up when a message reports its timing, a whole execution
+     * when it completes or fails.
+     *
+     * @param message the workflow message
+     */
+    public void record(WorkflowMessage message) {
+        if (message == null || message.getTopic() == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        WorkflowStatus status = message.getStatus();
+        StepTiming timing = message.getStepTiming();
+        synchronized (minutes) {
+            // Parallel branches and redeliveries repeat the report of a run
+            if (timing != null && timing.getStartedAt() != null
+                    && seen.add(message.getExecutionId() + "|" + timing.getStepId() + "|" + timing.getStartedAt())) {
+                boolean failed = FAILED_STEP_STATUSES.contains(status)
+                        && message.getCurrentStep() == timing.getStepId();
+                add(message.getTopic(), timing.getStepId(), now, failed, timing.getExecutionMs());
+            }
+            if ((status == WorkflowStatus.COMPLETED || status == WorkflowStatus.FAILED)
+                    && seen.add(message.getExecutionId() + "|" + status + "|" + message.getUpdatedAt())) {
+                long durationMs = message.getCreatedAt() != null
+                        ? Math.max(0, now.toEpochMilli() - message.getCreatedAt().toEpochMilli()) : 0;
+                add(message.getTopic(), null, now, status == WorkflowStatus.FAILED, durationMs);
+            }
+        }
+    }
+
+    private void add(String topic, Integer stepId, Instant now, boolean failed, long durationMs) {
+        Instant minute = RollupResolution.MINUTE.truncate(now);
+        ExecutionRollup rollup = minutes.computeIfAbsent(new Key(topic, stepId, minute), key ->
+                ExecutionRollup.builder().timestamp(minute).meta(new ExecutionRollup.Meta(topic, stepId)).build());
+        if (failed) {
+            rollup.setFailed(rollup.getFailed() + 1);
+        } else {
+            rollup.setCompleted(rollup.getCompleted() + 1);
+        }
+        rollup.setDurations(HistogramSketch.merge(rollup.getDurations(),
+                HistogramSketch.of(TimeUnit.MILLISECONDS.toNanos(durationMs))));
+    }
+
+    /**
+     * Write the rollups of the minutes that ended, with one insert.
+     */
+    @Scheduled(fixedDelayString = "${stepprflow.monitor.rollups.flush-interval:PT30S}")
+    public void flush() {
+        write(RollupResolution.MINUTE.truncate(clock.instant()));
+    }
+
+    /**
+     * Write all the rollups before shutdown, the current minute included.
+     */
+    @PreDestroy
+    public void shutdown() {
+        write(Instant.MAX);
+    }
+
+    private void write(Instant before) {
+        List<ExecutionRollup> rollups = new ArrayList<>();
+        synchronized (minutes) {
+            Iterator<Map.Entry<Key, ExecutionRollup>> entries = minutes.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Key, ExecutionRollup> entry = entries.next();
+                if (entry.getKey().minute().isBefore(before)) {
+                    rollups.add(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+        if (rollups.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.insert(rollups, RollupResolution.MINUTE.getCollection());
+            log.debug("Wrote {} minute rollups", rollups.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} minute rollups: {}", rollups.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Compact the minute rollups of the hours that ended into hour rollups, then
+     * the hour rollups of the days that ended into day rollups.
+     */
+    @Scheduled(fixedDelayString = "${stepprflow.monitor.rollups.compact-interval:PT5M}")
+    public void compact() {
+        // The rollups of a minute are written up to one flush interval after it ended
+        Instant settled = clock.instant().minus(properties.getFlushInterval()).minus(Duration.ofMinutes(1));
+        Instant hours = compact(RollupResolution.HOUR, settled);
+        compact(RollupResolution.DAY, hours);
+    }
+
+    /**
+     * Compact the buckets of a resolution that end before a time, from its watermark on.
+     * Each bucket is claimed by moving the watermark first, so that concurrent instances
+     * never compact it twice; the claim is released if the bucket cannot be written.
+     *
+     * @return the watermark of the resolution after compaction
+     */
+    private Instant compact(RollupResolution resolution, Instant settled) {
+        RollupResolution source = resolution.getFiner();
+        Instant end = resolution.truncate(settled);
+        Instant from = watermark(resolution);
+        if (from == null) {
+            from = initWatermark(resolution, end);
+        }
+
+        for (int i = 0; i < MAX_COMPACTED_BUCKETS && from.isBefore(end); i++) {
+            Instant next = from.plus(resolution.getDuration());
+            if (!moveWatermark(resolution, from, next)) {
+                break;
+            }
+            try {
+                List<ExecutionRollup> rollups = mergeBySeries(find(source, new Criteria(), from, next), from);
+                if (!rollups.isEmpty()) {
+                    mongoTemplate.insert(rollups, resolution.getCollection());
+                }
+            } catch (RuntimeException e) {
+                moveWatermark(resolution, next, from);
+                log.warn("Failed to compact {} rollups of {}: {}", resolution, from, e.getMessage());
+                break;
+            }
+            log.debug("Compacted {} rollups of {}", resolution, from);
+            from = next;
+        }
+        return from;
+    }
+
+    /**
+     * Start the watermark of a resolution at the first bucket of the finer rollups.
+     */
+    private Instant initWatermark(RollupResolution resolution, Instant end) {
+        Query first = new Query().with(Sort.by("timestamp")).limit(1);
+        ExecutionRollup oldest = mongoTemplate.findOne(first, ExecutionRollup.class,
+                resolution.getFiner().getCollection());
+        Instant start = oldest != null ? resolution.truncate(oldest.getTimestamp()) : end;
+        RollupWatermark watermark = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(resolution.name())),
+                new Update().setOnInsert("compactedUntil", start),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                RollupWatermark.class);
+        return watermark != null ? watermark.getCompactedUntil() : start;
+    }
+
+    private Instant watermark(RollupResolution resolution) {
+        RollupWatermark watermark = mongoTemplate.findById(resolution.name(), RollupWatermark.class);
+        return watermark != null ? watermark.getCompactedUntil() : null;
+    }
+
+    private boolean moveWatermark(RollupResolution resolution, Instant from, Instant to) {
+        return mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(resolution.name()).and("compactedUntil").is(from)),
+                Update.update("compactedUntil", to),
+                RollupWatermark.class).getModifiedCount() == 1;
+    }
+
+    /**
+     * Get the rollups of a topic, or of one of its steps, over a time range.
+     * Each resolution is read up to its watermark and finer resolutions cover the rest
+     * of the range, so recent buckets are complete before they are compacted.
+     * Rollups of the current minute are written at its end.
+     *
+     * @param topic the workflow topic
+     * @param stepId the step ID, or null for whole executions
+     * @param resolution the bucket size
+     * @param from the start of the range
+     * @param to the end of the range, exclusive
+     * @return the buckets overlapping the range, in time order; buckets without executions are omitted
+     */
+    public List<RollupPointDto> query(
+            String topic, Integer stepId, RollupResolution resolution, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before its end");
+        }
+        Instant start = resolution.truncate(from);
+        if (Duration.between(start, to).dividedBy(resolution.getDuration()) >= MAX_POINTS) {
+            throw new IllegalArgumentException("Range spans more than " + MAX_POINTS + " " + resolution + " buckets");
+        }
+
+        Criteria series = Criteria.where("meta.topic").is(topic).and("meta.stepId").is(stepId);
+        Map<Instant, ExecutionRollup> buckets = new TreeMap<>();
+        Instant covered = start;
+        for (RollupResolution level = resolution; level != null; level = level.getFiner()) {
+            Instant until = to;
+            if (level.getFiner() != null) {
+                Instant watermark = watermark(level);
+                until = watermark != null && watermark.isBefore(to) ? watermark : to;
+            }
+            if (!covered.isBefore(until)) {
+                continue;
+            }
+            for (ExecutionRollup rollup : find(level, series, covered, until)) {
+                Instant bucket = resolution.truncate(rollup.getTimestamp());
+                merge(buckets.computeIfAbsent(bucket, t -> ExecutionRollup.builder().timestamp(t).build()), rollup);
+            }
+            covered = until;
+        }
+        return buckets.values().stream().map(ExecutionRollupService::toPoint).toList();
+    }
+
+    private List<ExecutionRollup> find(RollupResolution resolution, Criteria series, Instant from, Instant to) {
+        Query query = Query.query(new Criteria().andOperator(series,
+                Criteria.where("timestamp").gte(from).lt(to)));
+        return mongoTemplate.find(query, ExecutionRollup.class, resolution.getCollection());
+    }
+
+    private static List<ExecutionRollup> mergeBySeries(List<ExecutionRollup> rollups, Instant timestamp) {
+        Map<ExecutionRollup.Meta, ExecutionRollup> merged = new LinkedHashMap<>();
+        for (ExecutionRollup rollup : rollups) {
+            merge(merged.computeIfAbsent(rollup.getMeta(), meta ->
+                    ExecutionRollup.builder().timestamp(timestamp).meta(meta).build()), rollup);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static void merge(ExecutionRollup into, ExecutionRollup rollup) {
+        into.setCompleted(into.getCompleted() + rollup.getCompleted());
+        into.setFailed(into.getFailed() + rollup.getFailed());
+        into.setDurations(HistogramSketch.merge(into.getDurations(), rollup.getDurations()));
+    }
+
+    private static RollupPointDto toPoint(ExecutionRollup rollup) {
+        long total = rollup.getCompleted() + rollup.getFailed();
+        HistogramSketch durations = rollup.getDurations() != null ? rollup.getDurations() : new HistogramSketch();
+        long recorded = durations.totalCount();
+        return RollupPointDto.builder()
+                .timestamp(rollup.getTimestamp())
+                .completed(rollup.getCompleted())
+                .failed(rollup.getFailed())
+                .failureRate(total > 0 ? rollup.getFailed() * 100.0 / total : 0.0)
+                .avgDurationMs(recorded > 0 ? durations.getSumMicros() / 1000.0 / recorded : 0.0)
+                .p50DurationMs(durations.percentileMs(0.50))
+                .p95DurationMs(durations.percentileMs(0.95))
+                .p99DurationMs(durations.percentileMs(0.99))
+                .maxDurationMs(durations.getMaxMicros() / 1000.0)
+                .build();
+    }
+
+    private Duration retention(RollupResolution resolution) {
+        return switch (resolution) {
+            case MINUTE -> properties.getMinuteRetention();
+            case HOUR -> properties.getHourRetention();
+            default -> properties.getDayRetention();
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.stepprflow.monitor.rollup;
+
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Bucket size of execution rollups. Each resolution is stored in its own
+ * time-series collection; hours and days are compacted from the finer resolution.
+ */
+public enum RollupResolution {
+
+    MINUTE(ChronoUnit.MINUTES, "workflow_rollups_minute", Granularity.MINUTES, null),
+    HOUR(ChronoUnit.HOURS, "workflow_rollups_hour", Granularity.HOURS, MINUTE),
+    DAY(ChronoUnit.DAYS, "workflow_rollups_day", Granularity.HOURS, HOUR);
+
+    private final ChronoUnit unit;
+    private final String collection;
+    private final Granularity granularity;
+    private final RollupResolution finer;
+
+    RollupResolution(ChronoUnit unit, String collection, Granularity granularity, RollupResolution finer) {
+        this.unit = unit;
+        this.collection = collection;
+        this.granularity = granularity;
+        this.finer = finer;
+    }
+
+    /**
+     * Get the collection storing the rollups of this resolution.
+     *
+     * @return the collection name
+     */
+    public String getCollection() {
+        return collection;
+    }
+
+    /**
+     * Get the time-series granularity of the collection.
+     *
+     * @return the granularity
+     */
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Get the length of a bucket.
+     *
+     * @return the bucket duration
+     */
+    public Duration getDuration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Get the start of the bucket containing a time.
+     *
+     * @param time the time
+     * @return the bucket start, in UTC
+     */
+    public Instant truncate(Instant time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Get the resolution the rollups of this one are compacted from.
+     *
+     * @return the finer resolution, or null for minutes
+     */
+    public RollupResolution getFiner() {
+        return finer;
+    }
+}
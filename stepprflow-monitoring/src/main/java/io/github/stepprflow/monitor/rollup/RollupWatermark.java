@@ -0,0 +1,31 @@
+package io.github.stepprflow.monitor.rollup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Compaction progress of a rollup resolution: the buckets before the watermark
+ * are read from the collection of the resolution, the later ones from finer resolutions.
+ */
+@Document(collection = "workflow_rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupWatermark {
+
+    /**
+     * Name of the resolution.
+     */
+    @Id
+    private String id;
+
+    /**
+     * End of the last compacted bucket.
+     */
+    private Instant compactedUntil;
+}
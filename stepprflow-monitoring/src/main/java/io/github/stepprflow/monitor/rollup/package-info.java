@@ -0,0 +1,15 @@
+/**
+ * Time-bucketed execution rollups for historical dashboards.
+ *
+ * <p>This package keeps per-topic and per-step counts and duration histograms in
+ * MongoDB time-series collections, at three resolutions:
+ * <ul>
+ *   <li>{@link io.github.stepprflow.monitor.rollup.ExecutionRollup} - Rollup of a bucket</li>
+ *   <li>{@link io.github.stepprflow.monitor.rollup.RollupResolution} - Bucket sizes and their collections</li>
+ *   <li>{@link io.github.stepprflow.monitor.rollup.ExecutionRollupService} - Recording, compaction and queries</li>
+ * </ul>
+ *
+ * <p>Rollups do not reference executions, so charts over days or months read a few
+ * documents per bucket and keep working after retention deleted the executions.
+ */
+package io.github.stepprflow.monitor.rollup;
@@ -0,0 +1,187 @@
+package io.github.stepprflow.monitor.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.github.stepprflow.monitor.outbox.OutboxMessage;
+import io.github.stepprflow.monitor.outbox.OutboxRelayService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service waking the outbox relay and the retry scheduler up on MongoDB change streams.
+ *
+ * Each watched collection has its own thread blocked on a change stream, filtered on the server
+ * and projected to the operation type, so that only the relevant changes reach the monitor:
+ * <ul>
+ *   <li>inserts into {@code outbox_messages} wake the outbox relay</li>
+ *   <li>executions inserted or updated to {@code RETRY_PENDING} wake the retry scheduler</li>
+ * </ul>
+ * A failed change stream is resumed after its last change, or opened again if it cannot be
+ * resumed; the component is woken up on each (re)start to catch up with the changes it missed.
+ * The pollers of the relay and the scheduler keep running as a safety net.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "stepprflow.monitor.change-streams", name = "enabled", havingValue = "true")
+public class ChangeStreamWakeUpService {
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxRelayService outboxRelay;
+    private final RetrySchedulerService retryScheduler;
+    private final MonitorProperties.ChangeStreams settings;
+
+    private final List<Thread> watchers = new ArrayList<>();
+    private final Map<String, MongoChangeStreamCursor<?>> cursors = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    @Autowired
+    public ChangeStreamWakeUpService(
+            MongoTemplate mongoTemplate,
+            @Autowired(required = false) OutboxRelayService outboxRelay,
+            @Autowired(required = false) RetrySchedulerService retryScheduler,
+            MonitorProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.outboxRelay = outboxRelay;
+        this.retryScheduler = retryScheduler;
+        this.settings = properties.getChangeStreams();
+    }
+
+    /**
+     * Start watching the collections of the components that are enabled.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        if (outboxRelay != null) {
+            watch(mongoTemplate.getCollectionName(OutboxMessage.class), outboxPipeline(), outboxRelay::wakeUp);
+        }
+        if (retryScheduler != null) {
+            watch(mongoTemplate.getCollectionName(WorkflowExecution.class), retryPipeline(),
+                    retryScheduler::wakeUp);
+        }
+    }
+
+    /**
+     * Stop watching the collections.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // Closing a cursor unblocks the thread waiting on it
+        cursors.values().forEach(cursor -> {
+            try {
+                cursor.close();
+            } catch (RuntimeException e) {
+                log.debug("Error closing change stream: {}", e.getMessage());
+            }
+        });
+        watchers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * New outbox messages.
+     */
+    static List<Bson> outboxPipeline() {
+        return List.of(
+                Aggregates.match(Filters.eq("operationType", "insert")),
+                Aggregates.project(Projections.include("operationType")));
+    }
+
+    /**
+     * Executions that became RETRY_PENDING. The status of an execution changes on each attempt,
+     * so that the update scheduling a retry always reports it.
+     */
+    static List<Bson> retryPipeline() {
+        String retryPending = WorkflowStatus.RETRY_PENDING.name();
+        return List.of(
+                Aggregates.match(Filters.or(
+                        Filters.and(Filters.eq("operationType", "insert"),
+                                Filters.eq("fullDocument.status", retryPending)),
+                        Filters.and(Filters.eq("operationType", "update"),
+                                Filters.eq("updateDescription.updatedFields.status", retryPending)))),
+                Aggregates.project(Projections.include("operationType")));
+    }
+
+    private void watch(String collection, List<Bson> pipeline, Runnable wakeUp) {
+        watchers.add(Thread.ofPlatform()
+                .daemon()
+                .name("stepprflow-change-stream-" + collection)
+                .start(() -> watchLoop(collection, pipeline, wakeUp)));
+    }
+
+    private void watchLoop(String collection, List<Bson> pipeline, Runnable wakeUp) {
+        BsonDocument resumeToken = null;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(collection, pipeline,
+                    resumeToken)) {
+                cursors.put(collection, cursor);
+                log.info("Watching {} for changes", collection);
+                wakeUp.run();
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.next();
+                    resumeToken = change.getResumeToken();
+                    wakeUp.run();
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                if (resumeToken != null && isNotResumable(e)) {
+                    resumeToken = null;
+                }
+                log.warn("Change stream on {} failed, watching again in {}: {}",
+                        collection, settings.getReconnectDelay(), e.getMessage());
+                if (!pause()) {
+                    break;
+                }
+            } finally {
+                cursors.remove(collection);
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(
+            String collection, List<Bson> pipeline, BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection).watch(pipeline);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private static boolean isNotResumable(RuntimeException e) {
+        // The resume point fell out of the oplog: the stream has to start over
+        return e instanceof MongoCommandException command && command.getErrorCode() == 286;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(settings.getReconnectDelay().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
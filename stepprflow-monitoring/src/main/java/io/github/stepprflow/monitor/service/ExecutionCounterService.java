@@ -0,0 +1,243 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.ExecutionCounter;
+import io.github.stepprflow.monitor.model.MonitorLease;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service maintaining the execution counters by topic and status.
+ *
+ * Writers changing the status of executions report the transitions, which are applied
+ * with {@code $inc} on one counter document per topic and status, so that statistics
+ * are read from a handful of documents. The counters are reconciled with the executions
+ * at startup and periodically, which corrects any drift left by failed writes. One
+ * instance reconciles at a time, under a lease, so that replicas do not apply the same
+ * correction twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionCounterService {
+
+    /** Name of the lease of the reconciliation. */
+    static final String RECONCILE_LEASE = "execution-counters-reconcile";
+
+    private final MongoTemplate mongoTemplate;
+    private final MonitorProperties properties;
+
+    /** Identifies this instance as the holder of the reconciliation lease. */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * Status change of an execution.
+     *
+     * @param topic the workflow topic
+     * @param from the previous status, null for a new execution
+     * @param to the new status, null for a deleted execution
+     */
+    public record Transition(String topic, WorkflowStatus from, WorkflowStatus to) { }
+
+    private record Key(String topic, WorkflowStatus status) { }
+
+    /**
+     * Apply status transitions to the counters, with one bulk write.
+     * A failure is logged: the counters are corrected by the next reconciliation.
+     *
+     * @param transitions the transitions
+     */
+    public void record(Collection<Transition> transitions) {
+        Map<Key, Long> deltas = new LinkedHashMap<>();
+        for (Transition transition : transitions) {
+            if (transition.topic() == null || transition.from() == transition.to()) {
+                continue;
+            }
+            if (transition.from() != null) {
+                deltas.merge(new Key(transition.topic(), transition.from()), -1L, Long::sum);
+            }
+            if (transition.to() != null) {
+                deltas.merge(new Key(transition.topic(), transition.to()), 1L, Long::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExecutionCounter.class);
+            deltas.forEach((key, delta) -> bulk.upsert(
+                    Query.query(Criteria.where("id").is(ExecutionCounter.idOf(key.topic(), key.status()))),
+                    new Update().inc("count", delta)
+                            .setOnInsert("topic", key.topic())
+                            .setOnInsert("status", key.status())));
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.warn("Failed to update {} execution counters: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of executions by status, all topics included.
+     *
+     * @return the counts by status, statuses without executions excluded
+     */
+    public Map<WorkflowStatus, Long> getCounts() {
+        Map<WorkflowStatus, Long> counts = new EnumMap<>(WorkflowStatus.class);
+        for (ExecutionCounter counter : mongoTemplate.findAll(ExecutionCounter.class)) {
+            if (counter.getStatus() != null) {
+                counts.merge(counter.getStatus(), counter.getCount(), Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get the number of executions of a topic in some statuses, read from the counters.
+     *
+     * @param topic the workflow topic, null for all topics
+     * @param statuses the statuses, null or empty for all statuses
+     * @return the number of executions
+     */
+    public long count(String topic, Collection<WorkflowStatus> statuses) {
+        Query query = new Query();
+        if (topic != null) {
+            query.addCriteria(Criteria.where("topic").is(topic));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            query.addCriteria(Criteria.where("status").in(statuses));
+        }
+        return mongoTemplate.find(query, ExecutionCounter.class).stream()
+                .mapToLong(ExecutionCounter::getCount)
+                .sum();
+    }
+
+    /**
+     * Correct the counters from the executions, with one {@code $group} aggregation.
+     *
+     * Each counter is moved with {@code $inc} by the difference between the executions
+     * observed and its value read just before the aggregation, so that the transitions
+     * recorded meanwhile are kept. Counters that moved during the aggregation are left
+     * to the next reconciliation, since the aggregation may or may not have seen the
+     * executions behind their moves.
+     *
+     * Skipped while another instance holds the lease: two corrections computed from the
+     * same snapshot would both be applied.
+     */
+    @Scheduled(fixedDelayString = "${stepprflow.monitor.persistence.counters-reconcile-interval:PT1H}")
+    public void reconcile() {
+        if (!claimLease()) {
+            log.debug("Execution counters are being reconciled by another instance");
+            return;
+        }
+        try {
+            correct();
+        } finally {
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(RECONCILE_LEASE).and("owner").is(owner)),
+                    MonitorLease.class);
+        }
+    }
+
+    /**
+     * Claim the reconciliation lease, free or expired, for one reconciliation interval at most.
+     */
+    private boolean claimLease() {
+        Instant now = Instant.now();
+        Query free = Query.query(Criteria.where("id").is(RECONCILE_LEASE).and("expiresAt").lt(now));
+        try {
+            // Inserts the lease when there is none; a lease held by another instance fails the insert
+            mongoTemplate.upsert(free, Update.update("owner", owner)
+                    .set("expiresAt", now.plus(properties.getPersistence().getCountersReconcileInterval())),
+                    MonitorLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void correct() {
+        Map<String, ExecutionCounter> stored = findCounters();
+        TypedAggregation<WorkflowExecution> aggregation = Aggregation.newAggregation(WorkflowExecution.class,
+                Aggregation.group("topic", "status").count().as("count"));
+        List<Document> groups = mongoTemplate.aggregate(aggregation, Document.class).getMappedResults();
+        Map<String, ExecutionCounter> current = findCounters();
+
+        Map<String, ExecutionCounter> observed = new LinkedHashMap<>();
+        for (Document group : groups) {
+            Document key = group.get("_id", Document.class);
+            String topic = key != null ? key.getString("topic") : null;
+            String status = key != null ? key.getString("status") : null;
+            if (topic == null || status == null) {
+                continue;
+            }
+            ExecutionCounter counter = ExecutionCounter.builder()
+                    .id(ExecutionCounter.idOf(topic, WorkflowStatus.valueOf(status)))
+                    .topic(topic)
+                    .status(WorkflowStatus.valueOf(status))
+                    .count(((Number) group.get("count")).longValue())
+                    .build();
+            observed.put(counter.getId(), counter);
+        }
+
+        Set<String> ids = new LinkedHashSet<>(observed.keySet());
+        ids.addAll(stored.keySet());
+        // Ordered, so that the counters brought to zero are removed after their correction
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ExecutionCounter.class);
+        int corrected = 0;
+        int moved = 0;
+        for (String id : ids) {
+            long before = countOf(stored.get(id));
+            if (before != countOf(current.get(id))) {
+                moved++;
+                continue;
+            }
+            ExecutionCounter expected = observed.getOrDefault(id, stored.get(id));
+            long delta = countOf(observed.get(id)) - before;
+            if (delta != 0) {
+                bulk.upsert(Query.query(Criteria.where("id").is(id)), new Update()
+                        .inc("count", delta)
+                        .setOnInsert("topic", expected.getTopic())
+                        .setOnInsert("status", expected.getStatus()));
+                corrected++;
+            }
+        }
+        bulk.remove(Query.query(Criteria.where("count").is(0L)));
+        bulk.execute();
+        log.debug("Reconciled execution counters: {} corrected, {} moved meanwhile", corrected, moved);
+    }
+
+    private Map<String, ExecutionCounter> findCounters() {
+        return mongoTemplate.findAll(ExecutionCounter.class).stream()
+                .collect(Collectors.toMap(ExecutionCounter::getId, Function.identity()));
+    }
+
+    private static long countOf(ExecutionCounter counter) {
+        return counter != null ? counter.getCount() : 0;
+    }
+}
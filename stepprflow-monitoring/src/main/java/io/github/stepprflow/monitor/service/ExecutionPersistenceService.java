@@ -2,57 +2,210 @@ package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.StepDefinition;
+import io.github.stepprflow.core.model.StepTiming;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
-import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
 import io.github.stepprflow.monitor.websocket.WorkflowBroadcaster;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service that persists workflow execution state to MongoDB.
  *
  * This service listens for WorkflowMessageEvent from the broker module
  * and persists workflow state changes.
+ *
+ * Each message is applied with a single upsert: an update pipeline computes
+ * the new state of the execution and of its step entries on the server,
+ * so that the document is neither read first nor rewritten as a whole. The
+ * status it replaces is returned by the same round trip.
+ *
+ * With write-behind enabled, messages are buffered for a short window: the
+ * pipelines of the messages of an execution are chained into one update, and
+ * each window is written with one unordered bulk write. Terminal statuses and
+ * a full buffer flush immediately. The written executions are then read once,
+ * with the status each write replaced, for the counters and the broadcast.
+ * The updates that failed to write are buffered again and retried with
+ * backoff; past the buffer capacity, newer messages are dropped and counted.
+ *
+ * Status transitions are reported to the execution counters after each write,
+ * and each message is added to the execution rollups as it arrives. The search
+ * keys of the workflow are extracted from the payload of the message that creates
+ * the execution: the message of the first step, or any message that finds no document.
  */
 @Service
 @Slf4j
 public class ExecutionPersistenceService {
 
-    private final WorkflowExecutionRepository repository;
+    private static final Set<WorkflowStatus> STEP_STATUSES = Set.of(
+            WorkflowStatus.PENDING, WorkflowStatus.IN_PROGRESS, WorkflowStatus.COMPLETED,
+            WorkflowStatus.FAILED, WorkflowStatus.RETRY_PENDING);
+
+    private static final Set<WorkflowStatus> TERMINAL_STATUSES = Set.of(
+            WorkflowStatus.COMPLETED, WorkflowStatus.FAILED, WorkflowStatus.CANCELLED);
+
+    /** The step of the messages that start an execution. */
+    private static final int FIRST_STEP = 1;
+
+    /**
+     * Version increment closing the update of each message: 0 on insert, then incremented,
+     * so that optimistic locking of the other writers keeps working.
+     */
+    private static final Document NEXT_VERSION = new Document("$add", List.of(
+            new Document("$ifNull", List.of("$version", -1)), 1));
+
+    /**
+     * First stage of each write, ahead of the messages it applies: the status the write replaces,
+     * left out on insert as the status is missing.
+     */
+    private static final Document SET_PREVIOUS_STATUS = new Document("$set",
+            new Document("previousStatus", "$status"));
+
+    private final MongoTemplate mongoTemplate;
     private final WorkflowBroadcaster broadcaster;
     private final WorkflowRegistry workflowRegistry;
+    private final ExecutionCounterService executionCounters;
+    private final ExecutionRollupService executionRollups;
+    private final SearchKeyService searchKeys;
+    private final MonitorProperties.WriteBehind writeBehind;
+
+    /** Buffered updates by execution ID, in arrival order. */
+    private final Map<String, PendingUpdate> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private int bufferedMessages;
+
+    /** Consecutive failed writes and the time of the next attempt, guarded by the flush lock. */
+    private int failedWrites;
+    private Instant retryAt = Instant.MIN;
+    private final Clock clock;
+
+    /** Messages dropped since the buffer last had room, guarded by the pending lock. */
+    private long droppedMessages;
+
+    /** Single-threaded lanes applying the events of an execution in order. */
+    private final StripedExecutor lanes;
+
+    private final Timer flushLatency;
+    private final Counter writes;
+    private final Counter drops;
 
     @Autowired
     public ExecutionPersistenceService(
-            WorkflowExecutionRepository repository,
+            MongoTemplate mongoTemplate,
             @Autowired(required = false) WorkflowBroadcaster broadcaster,
-            WorkflowRegistry workflowRegistry) {
-        this.repository = repository;
+            WorkflowRegistry workflowRegistry,
+            ExecutionCounterService executionCounters,
+            ExecutionRollupService executionRollups,
+            SearchKeyService searchKeys,
+            MonitorProperties properties,
+            @Autowired(required = false) MeterRegistry meterRegistry) {
+        this(mongoTemplate, broadcaster, workflowRegistry, executionCounters, executionRollups, searchKeys,
+                properties, meterRegistry, Clock.systemUTC());
+    }
+
+    ExecutionPersistenceService(
+            MongoTemplate mongoTemplate,
+            WorkflowBroadcaster broadcaster,
+            WorkflowRegistry workflowRegistry,
+            ExecutionCounterService executionCounters,
+            ExecutionRollupService executionRollups,
+            SearchKeyService searchKeys,
+            MonitorProperties properties,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.clock = clock;
+        this.mongoTemplate = mongoTemplate;
         this.broadcaster = broadcaster;
         this.workflowRegistry = workflowRegistry;
+        this.executionCounters = executionCounters;
+        this.executionRollups = executionRollups;
+        this.searchKeys = searchKeys;
+        this.writeBehind = properties.getPersistence().getWriteBehind();
+        this.lanes = new StripedExecutor("stepprflow-persistence", properties.getPersistence().getLanes());
+        if (meterRegistry != null) {
+            for (int lane = 0; lane < lanes.getLaneCount(); lane++) {
+                int index = lane;
+                Gauge.builder("stepprflow.monitor.persistence.lane.depth", lanes, l -> l.getQueueDepth(index))
+                        .description("Workflow events waiting in a persistence lane")
+                        .tag("lane", String.valueOf(lane))
+                        .register(meterRegistry);
+            }
+            Gauge.builder("stepprflow.monitor.persistence.buffer.depth", this,
+                            ExecutionPersistenceService::getBufferedMessages)
+                    .description("Workflow messages waiting to be written")
+                    .register(meterRegistry);
+            this.flushLatency = Timer.builder("stepprflow.monitor.persistence.flush.latency")
+                    .description("Time from the oldest buffered message to the write of its window")
+                    .register(meterRegistry);
+            this.writes = Counter.builder("stepprflow.monitor.persistence.writes")
+                    .description("Execution updates written to MongoDB")
+                    .register(meterRegistry);
+            this.drops = Counter.builder("stepprflow.monitor.persistence.dropped")
+                    .description("Workflow messages dropped because the write-behind buffer was full")
+                    .register(meterRegistry);
+        } else {
+            this.flushLatency = null;
+            this.writes = null;
+            this.drops = null;
+        }
     }
 
     /**
      * Event listener that persists workflow messages to MongoDB.
-     * Runs asynchronously to avoid blocking the Kafka consumer thread.
+     * Runs asynchronously to avoid blocking the Kafka consumer thread: the events of
+     * an execution are queued on the same lane, so they are applied one at a time and
+     * in order, while other executions are persisted in parallel on the other lanes.
      */
-    @Async
     @EventListener
     public void handleWorkflowMessageEvent(WorkflowMessageEvent event) {
+        WorkflowMessage message = event.getMessage();
         log.info("Received WorkflowMessageEvent: executionId={}, status={}",
-                event.getMessage().getExecutionId(), event.getMessage().getStatus());
-        onWorkflowMessage(event.getMessage());
+                message.getExecutionId(), message.getStatus());
+        lanes.execute(message.getExecutionId(), () -> {
+            try {
+                onWorkflowMessage(message);
+            } catch (RuntimeException e) {
+                log.error("Failed to persist workflow message: executionId={}, status={}",
+                        message.getExecutionId(), message.getStatus(), e);
+            }
+        });
     }
 
     /**
@@ -68,149 +221,551 @@ public class ExecutionPersistenceService {
         log.debug("Persisting workflow state: executionId={}, step={}, status={}",
                 message.getExecutionId(), message.getCurrentStep(), message.getStatus());
 
-        WorkflowExecution execution = repository.findById(message.getExecutionId())
-                .orElse(createNewExecution(message));
+        executionRollups.record(message);
+        List<Document> stages = buildStages(message, Instant.now());
+        if (!writeBehind.isEnabled()) {
+            write(message, toWrite(stages));
+            log.info("Persisted workflow execution: executionId={}, status={}",
+                    message.getExecutionId(), message.getStatus());
+            return;
+        }
 
-        updateExecution(execution, message);
-        repository.save(execution);
-        log.info("Persisted workflow execution: executionId={}, status={}",
-                message.getExecutionId(), message.getStatus());
+        boolean full;
+        synchronized (pending) {
+            if (bufferedMessages >= writeBehind.getCapacity()) {
+                // Writes are failing: bound the heap rather than buffer the whole outage
+                drop(message);
+                return;
+            }
+            if (droppedMessages > 0) {
+                log.warn("Dropped {} workflow messages while the write-behind buffer was full", droppedMessages);
+                droppedMessages = 0;
+            }
+            pending.computeIfAbsent(message.getExecutionId(), id -> new PendingUpdate()).add(message, stages);
+            bufferedMessages++;
+            full = bufferedMessages >= writeBehind.getMaxBufferedMessages();
+        }
+        if (full || TERMINAL_STATUSES.contains(message.getStatus())) {
+            flush();
+        }
+    }
 
-        // Notify via WebSocket (if available)
-        if (broadcaster != null) {
-            broadcaster.broadcastUpdate(execution);
+    private void drop(WorkflowMessage message) {
+        if (droppedMessages++ == 0) {
+            log.error("Write-behind buffer full ({} messages), dropping workflow messages until it drains, "
+                    + "first: executionId={}, status={}", bufferedMessages, message.getExecutionId(),
+                    message.getStatus());
+        }
+        if (drops != null) {
+            drops.increment();
         }
     }
 
-    private WorkflowExecution createNewExecution(WorkflowMessage message) {
-        Instant now = Instant.now();
+    /**
+     * Write the buffered updates, one bulk write for the whole window.
+     * The updates that failed to write are buffered again, ahead of the newer
+     * updates of their executions, and retried with backoff.
+     */
+    @Scheduled(fixedDelayString = "${stepprflow.monitor.persistence.write-behind.flush-interval:PT0.1S}")
+    public void flush() {
+        flush(false);
+    }
 
-        // Create the first execution attempt
-        WorkflowExecution.ExecutionAttempt firstAttempt = WorkflowExecution.ExecutionAttempt.builder()
-                .attemptNumber(1)
-                .startedAt(now)
-                .startStep(1)
-                .build();
+    private void flush(boolean ignoreBackoff) {
+        // Windows are written one at a time, so that the updates of an execution stay in order
+        synchronized (flushLock) {
+            if (!ignoreBackoff && failedWrites > 0 && clock.instant().isBefore(retryAt)) {
+                return;
+            }
+            Map<String, PendingUpdate> window;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                window = new LinkedHashMap<>(pending);
+                pending.clear();
+                bufferedMessages = 0;
+            }
 
-        List<WorkflowExecution.ExecutionAttempt> attempts = new ArrayList<>();
-        attempts.add(firstAttempt);
+            long oldest = window.values().stream().mapToLong(PendingUpdate::getBufferedAt).min().orElseThrow();
+            Set<String> failed;
+            try {
+                failed = writeWindow(window);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} buffered workflow executions", window.size(), e);
+                requeue(window);
+                return;
+            }
+            if (!failed.isEmpty()) {
+                log.error("Failed to write {} of {} buffered workflow executions", failed.size(), window.size());
+                Map<String, PendingUpdate> retry = new LinkedHashMap<>();
+                failed.forEach(executionId -> retry.put(executionId, window.remove(executionId)));
+                requeue(retry);
+            } else {
+                failedWrites = 0;
+            }
+            if (window.isEmpty()) {
+                return;
+            }
+            if (flushLatency != null) {
+                flushLatency.record(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+                writes.increment(window.size());
+            }
+            log.debug("Persisted {} workflow executions", window.size());
+
+            // One read serves the transitions and the broadcast
+            Map<String, WorkflowExecution> written;
+            try {
+                written = findWritten(window.keySet());
+            } catch (RuntimeException e) {
+                // Written already: the counters are corrected by the next reconciliation
+                log.error("Failed to read back {} written workflow executions", window.size(), e);
+                return;
+            }
+            List<ExecutionCounterService.Transition> transitions = new ArrayList<>();
+            List<WorkflowMessage> created = new ArrayList<>();
+            window.forEach((executionId, update) -> {
+                WorkflowExecution previous = previousOf(written.get(executionId));
+                transitions.add(transition(previous, update.getTopic(), update.getStatus()));
+                if (previous == null) {
+                    created.add(update.getFirst());
+                }
+            });
+            executionCounters.record(transitions);
+            setSearchKeys(created);
 
-        return WorkflowExecution.builder()
-                .executionId(message.getExecutionId())
-                .correlationId(message.getCorrelationId())
-                .topic(message.getTopic())
-                .totalSteps(message.getTotalSteps())
-                .payload(message.getPayload())
-                .payloadType(message.getPayloadType())
-                .securityContext(message.getSecurityContext())
-                .metadata(message.getMetadata())
-                .createdAt(message.getCreatedAt() != null ? message.getCreatedAt() : now)
-                .stepHistory(new ArrayList<>())
-                .executionAttempts(attempts)
-                .build();
+            if (broadcaster != null) {
+                written.values().forEach(broadcaster::broadcastUpdate);
+            }
+        }
     }
 
-    private void updateExecution(WorkflowExecution execution, WorkflowMessage message) {
-        execution.setStatus(message.getStatus());
-        execution.setCurrentStep(message.getCurrentStep());
-        execution.setRetryInfo(message.getRetryInfo());
-        execution.setErrorInfo(message.getErrorInfo());
-        execution.setUpdatedAt(Instant.now());
+    /**
+     * Read the executions just written, with the status each write replaced:
+     * whole for the broadcast, their topic and statuses only otherwise.
+     */
+    private Map<String, WorkflowExecution> findWritten(Collection<String> executionIds) {
+        Query query = Query.query(Criteria.where("executionId").in(executionIds));
+        if (broadcaster == null) {
+            query.fields().include("topic", "status", "previousStatus");
+        }
+        Map<String, WorkflowExecution> written = new LinkedHashMap<>();
+        mongoTemplate.find(query, WorkflowExecution.class)
+                .forEach(execution -> written.put(execution.getExecutionId(), execution));
+        return written;
+    }
 
-        // Add step to history for all statuses that indicate step activity
-        if (message.getStatus() == WorkflowStatus.PENDING ||
-            message.getStatus() == WorkflowStatus.IN_PROGRESS ||
-            message.getStatus() == WorkflowStatus.COMPLETED ||
-            message.getStatus() == WorkflowStatus.FAILED ||
-            message.getStatus() == WorkflowStatus.RETRY_PENDING) {
+    /**
+     * Write a window with one unordered bulk write.
+     *
+     * @return the IDs of the executions whose update failed
+     */
+    private Set<String> writeWindow(Map<String, PendingUpdate> window) {
+        List<String> executionIds = new ArrayList<>(window.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkflowExecution.class);
+        executionIds.forEach(executionId ->
+                bulk.upsert(byId(executionId), toWrite(window.get(executionId).getStages())));
+        try {
+            bulk.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // The other updates of the unordered bulk write were applied
+            Set<String> failed = new LinkedHashSet<>();
+            e.getErrors().forEach(error -> failed.add(executionIds.get(error.getIndex())));
+            return failed;
+        }
+    }
 
-            addStepToHistory(execution, message);
+    /**
+     * Buffer the updates of a failed write again, each one ahead of the updates buffered since
+     * for its execution, and hold the next write back.
+     */
+    private void requeue(Map<String, PendingUpdate> failed) {
+        synchronized (pending) {
+            Map<String, PendingUpdate> merged = new LinkedHashMap<>();
+            failed.forEach((executionId, update) -> {
+                bufferedMessages += update.getMessages();
+                PendingUpdate newer = pending.remove(executionId);
+                if (newer != null) {
+                    update.addAll(newer);
+                }
+                merged.put(executionId, update);
+            });
+            merged.putAll(pending);
+            pending.clear();
+            pending.putAll(merged);
         }
+        failedWrites++;
+        Duration delay = writeBehind.getFlushInterval().multipliedBy(1L << Math.min(failedWrites - 1, 20));
+        if (delay.compareTo(writeBehind.getMaxRetryDelay()) > 0) {
+            delay = writeBehind.getMaxRetryDelay();
+        }
+        retryAt = clock.instant().plus(delay);
+    }
 
-        // Set completion time and duration
-        if (message.getStatus() == WorkflowStatus.COMPLETED ||
-            message.getStatus() == WorkflowStatus.FAILED ||
-            message.getStatus() == WorkflowStatus.CANCELLED) {
+    /**
+     * Apply the queued events and write the buffered updates before shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!lanes.shutdown(Duration.ofSeconds(30))) {
+            log.warn("Persistence lanes did not drain in time, some workflow events may be lost");
+        }
+        flush(true);
+        int unwritten = getBufferedMessages();
+        if (unwritten > 0) {
+            log.warn("Failed to write {} buffered workflow messages before shutdown", unwritten);
+        }
+    }
 
-            Instant completedAt = Instant.now();
-            execution.setCompletedAt(completedAt);
+    /**
+     * Get the number of buffered messages.
+     *
+     * @return the messages waiting to be written
+     */
+    public int getBufferedMessages() {
+        synchronized (pending) {
+            return bufferedMessages;
+        }
+    }
 
-            if (execution.getCreatedAt() != null) {
-                execution.setDurationMs(
-                        completedAt.toEpochMilli() - execution.getCreatedAt().toEpochMilli());
+    private void write(WorkflowMessage message, AggregationUpdate update) {
+        String executionId = message.getExecutionId();
+        // The previous status comes back from the upsert itself, null for a new execution
+        WorkflowExecution previous;
+        if (broadcaster == null) {
+            Query query = byId(executionId);
+            query.fields().include("topic", "status");
+            previous = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(false), WorkflowExecution.class);
+        } else {
+            // The broadcast needs the resulting state, which carries the status it replaced
+            WorkflowExecution execution = mongoTemplate.findAndModify(byId(executionId), update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), WorkflowExecution.class);
+            previous = previousOf(execution);
+            if (execution != null) {
+                broadcaster.broadcastUpdate(execution);
             }
+        }
+        if (writes != null) {
+            writes.increment();
+        }
+        executionCounters.record(List.of(transition(previous, message.getTopic(), message.getStatus())));
+        if (previous == null) {
+            setSearchKeys(List.of(message));
+        }
+    }
 
-            // Finalize the current execution attempt
-            finalizeCurrentAttempt(execution, message);
+    /**
+     * Set the search keys of the executions just created by a message of a later step,
+     * whose update left them out.
+     *
+     * @param creating the messages that created their execution
+     */
+    private void setSearchKeys(List<WorkflowMessage> creating) {
+        for (WorkflowMessage message : creating) {
+            if (message.getCurrentStep() == FIRST_STEP) {
+                continue;
+            }
+            List<WorkflowExecution.SearchKey> keys = searchKeys.extract(message.getTopic(), message.getPayload());
+            if (!keys.isEmpty()) {
+                Query query = Query.query(Criteria.where("executionId").is(message.getExecutionId())
+                        .and("searchKeys").exists(false));
+                mongoTemplate.updateFirst(query, new Update().set("searchKeys", keys), WorkflowExecution.class);
+            }
         }
     }
 
     /**
-     * Finalize the current execution attempt with result information.
+     * Get the topic and status an execution had before a write, null if the write created it.
      */
-    private void finalizeCurrentAttempt(WorkflowExecution execution, WorkflowMessage message) {
-        execution.getCurrentAttempt().ifPresent(currentAttempt -> {
-            // Only update if not already finalized
-            if (currentAttempt.getResult() == null) {
-                currentAttempt.setEndedAt(Instant.now());
-                currentAttempt.setResult(message.getStatus());
-                currentAttempt.setEndStep(message.getCurrentStep());
+    private static WorkflowExecution previousOf(WorkflowExecution written) {
+        if (written == null || written.getPreviousStatus() == null) {
+            return null;
+        }
+        return WorkflowExecution.builder()
+                .topic(written.getTopic())
+                .status(written.getPreviousStatus())
+                .build();
+    }
 
-                if (message.getErrorInfo() != null) {
-                    currentAttempt.setErrorMessage(message.getErrorInfo().getMessage());
-                }
-            }
-        });
+    private static ExecutionCounterService.Transition transition(
+            WorkflowExecution previous, String topic, WorkflowStatus status) {
+        if (previous == null) {
+            return new ExecutionCounterService.Transition(topic, null, status);
+        }
+        // The topic of an execution is set by its first message
+        String executionTopic = previous.getTopic() != null ? previous.getTopic() : topic;
+        return new ExecutionCounterService.Transition(executionTopic, previous.getStatus(), status);
+    }
+
+    private static Query byId(String executionId) {
+        return Query.query(Criteria.where("executionId").is(executionId));
+    }
+
+    /**
+     * Build the update pipeline applying a message to its execution document.
+     */
+    AggregationUpdate buildUpdate(WorkflowMessage message, Instant now) {
+        return toUpdate(buildStages(message, now));
+    }
+
+    /**
+     * Build the update of a write, which records the status it replaces before applying its messages.
+     */
+    private static AggregationUpdate toWrite(List<Document> stages) {
+        List<Document> write = new ArrayList<>(stages.size() + 1);
+        write.add(SET_PREVIOUS_STATUS);
+        write.addAll(stages);
+        return toUpdate(write);
+    }
+
+    private static AggregationUpdate toUpdate(List<Document> stages) {
+        List<AggregationOperation> pipeline = stages.stream()
+                .map(stage -> (AggregationOperation) context -> stage)
+                .toList();
+        // Set through the update API so that the template does not increment the version again
+        return AggregationUpdate.from(pipeline).set("version").toValue(NEXT_VERSION);
+    }
+
+    /**
+     * Build the stages applying a message to its execution document, version increment excepted.
+     * Every value coming from the message is passed as a literal, so that strings
+     * starting with '$' are never read as field paths.
+     */
+    List<Document> buildStages(WorkflowMessage message, Instant now) {
+        Date nowDate = Date.from(now);
+        List<Document> stages = new ArrayList<>();
+
+        stages.add(setExecutionFields(message, now, nowDate));
+        if (STEP_STATUSES.contains(message.getStatus())) {
+            // Mark previous steps as PASSED if they are still IN_PROGRESS or PENDING
+            // (parallel branches of the same group are left alone)
+            stages.add(markPreviousStepsAsPassed(message, nowDate));
+            stages.add(addCurrentStep(message, nowDate));
+            stages.add(updateCurrentStep(message, nowDate));
+        }
+        if (TERMINAL_STATUSES.contains(message.getStatus())) {
+            stages.add(complete(message, nowDate));
+        }
+        addLatencyStages(stages, message, now);
+        return stages;
     }
 
-    private void addStepToHistory(WorkflowExecution execution, WorkflowMessage message) {
-        int currentStepId = message.getCurrentStep();
-        Instant now = Instant.now();
-
-        // Mark previous steps as PASSED if they are still IN_PROGRESS or PENDING
-        execution.markPreviousStepsAsPassed(currentStepId, now);
-
-        // Find or create step entry for current step
-        WorkflowExecution.StepExecution stepExecution = execution.findStepByStepId(currentStepId)
-                .orElseGet(() -> {
-                    // Use step label from message (set by StepExecutor), fall back to registry
-                    String stepLabel = message.getCurrentStepLabel() != null
-                            ? message.getCurrentStepLabel()
-                            : getStepLabel(message.getTopic(), currentStepId);
-                    WorkflowExecution.StepExecution newStep = WorkflowExecution.StepExecution.builder()
-                            .stepId(currentStepId)
-                            .stepLabel(stepLabel)
-                            .startedAt(now)
-                            .attempt(1)
-                            .build();
-                    execution.addStepExecution(newStep);
-                    return newStep;
-                });
-
-        // Update current step status based on workflow status
-        updateStepStatus(stepExecution, message, now);
-    }
-
-    private void updateStepStatus(WorkflowExecution.StepExecution stepExecution,
-                                  WorkflowMessage message, Instant now) {
-        if (message.getStatus() == WorkflowStatus.COMPLETED
-                || message.getStatus() == WorkflowStatus.FAILED) {
-            stepExecution.setStatus(message.getStatus());
-            stepExecution.setCompletedAt(now);
-            if (stepExecution.getStartedAt() != null) {
-                stepExecution.setDurationMs(now.toEpochMilli() - stepExecution.getStartedAt().toEpochMilli());
+    private Document setExecutionFields(WorkflowMessage message, Instant now, Date nowDate) {
+        // Only a freshly upserted document has no version yet
+        Document isNew = new Document("$eq", List.of(new Document("$type", "$version"), "missing"));
+
+        WorkflowExecution.ExecutionAttempt firstAttempt = WorkflowExecution.ExecutionAttempt.builder()
+                .attemptNumber(1)
+                .startedAt(now)
+                .startStep(1)
+                .build();
+
+        Document fields = new Document()
+                .append("correlationId", onInsert(isNew, "correlationId", message.getCorrelationId()))
+                .append("topic", onInsert(isNew, "topic", message.getTopic()))
+                .append("totalSteps", onInsert(isNew, "totalSteps", message.getTotalSteps()))
+                .append("payload", onInsert(isNew, "payload", message.getPayload()))
+                .append("payloadType", onInsert(isNew, "payloadType", message.getPayloadType()))
+                .append("securityContext", onInsert(isNew, "securityContext", message.getSecurityContext()))
+                .append("metadata", onInsert(isNew, "metadata", message.getMetadata()))
+                .append("createdAt", onInsert(isNew, "createdAt",
+                        message.getCreatedAt() != null ? message.getCreatedAt() : now))
+                .append("executionAttempts", onInsert(isNew, "executionAttempts", List.of(firstAttempt)))
+                .append("stepHistory", new Document("$ifNull", List.of("$stepHistory", List.of())))
+                .append("status", literal(message.getStatus()))
+                .append("currentStep", message.getCurrentStep())
+                .append("retryInfo", literal(message.getRetryInfo()))
+                .append("errorInfo", literal(message.getErrorInfo()))
+                // Any event ends the claim of a pending retry
+                .append("retryLease", "$$REMOVE")
+                .append("updatedAt", nowDate);
+        if (message.getStatus() == WorkflowStatus.RETRY_PENDING) {
+            // The failed branch, which sibling branches may have moved the current step away from
+            fields.append("retryStep", message.getCurrentStep())
+                    .append("retryStepGroup", message.getCurrentStepGroup() != null
+                            ? literal(message.getCurrentStepGroup()) : "$$REMOVE");
+        }
+        // Extracted from the payload stored on insert, which only a message of the first step
+        // is expected to do: an execution created by a later step gets its keys once written
+        if (message.getCurrentStep() == FIRST_STEP) {
+            List<WorkflowExecution.SearchKey> keys = searchKeys.extract(message.getTopic(), message.getPayload());
+            if (!keys.isEmpty()) {
+                fields.append("searchKeys", onInsert(isNew, "searchKeys", keys));
             }
-        } else {
-            stepExecution.setStatus(message.getStatus());
         }
+        return set(fields);
+    }
 
-        if (message.getErrorInfo() != null) {
-            stepExecution.setErrorMessage(message.getErrorInfo().getMessage());
+    private Document markPreviousStepsAsPassed(WorkflowMessage message, Date nowDate) {
+        List<Object> conditions = new ArrayList<>();
+        conditions.add(new Document("$lt", List.of("$$s.stepId", message.getCurrentStep())));
+        conditions.add(new Document("$in", List.of("$$s.status",
+                List.of(WorkflowStatus.IN_PROGRESS.name(), WorkflowStatus.PENDING.name()))));
+        if (message.getCurrentStepGroup() != null) {
+            conditions.add(new Document("$ne", List.of("$$s.group", literal(message.getCurrentStepGroup()))));
         }
+        Document passed = new Document("status", WorkflowStatus.PASSED.name())
+                .append("completedAt", nowDate)
+                .append("durationMs", durationSince("$$s.startedAt", nowDate, "$$s.durationMs"));
+        return set(new Document("stepHistory", mapSteps(new Document("$and", conditions), passed)));
+    }
+
+    private Document addCurrentStep(WorkflowMessage message, Date nowDate) {
+        int stepId = message.getCurrentStep();
+        // Use step label from message (set by StepExecutor), fall back to registry
+        String stepLabel = message.getCurrentStepLabel() != null
+                ? message.getCurrentStepLabel()
+                : getStepLabel(message.getTopic(), stepId);
+        WorkflowExecution.StepExecution newStep = WorkflowExecution.StepExecution.builder()
+                .stepId(stepId)
+                .stepLabel(stepLabel)
+                .group(message.getCurrentStepGroup())
+                .startedAt(nowDate.toInstant())
+                .attempt(1)
+                .build();
+        return set(new Document("stepHistory", new Document("$cond", List.of(
+                new Document("$in", List.of(stepId, "$stepHistory.stepId")),
+                "$stepHistory",
+                new Document("$concatArrays", List.of("$stepHistory", List.of(literal(newStep))))))));
+    }
 
+    private Document updateCurrentStep(WorkflowMessage message, Date nowDate) {
+        Document changes = new Document("status", message.getStatus().name());
+        if (message.getStatus() == WorkflowStatus.COMPLETED || message.getStatus() == WorkflowStatus.FAILED) {
+            changes.append("completedAt", nowDate)
+                    .append("durationMs", durationSince("$$s.startedAt", nowDate, "$$s.durationMs"));
+        }
+        if (message.getErrorInfo() != null) {
+            changes.append("errorMessage", literal(message.getErrorInfo().getMessage()));
+        }
         if (message.getRetryInfo() != null) {
-            stepExecution.setAttempt(message.getRetryInfo().getAttempt());
+            changes.append("attempt", message.getRetryInfo().getAttempt());
+        }
+        return set(new Document("stepHistory", mapSteps(isStep(message.getCurrentStep()), changes)));
+    }
+
+    private Document complete(WorkflowMessage message, Date nowDate) {
+        // Finalize the current execution attempt, unless it already is
+        Document attempts = new Document("$ifNull", List.of("$executionAttempts", List.of()));
+        Document lastIndex = new Document("$subtract", List.of(new Document("$size", attempts), 1));
+        Document result = new Document("endedAt", nowDate)
+                .append("result", message.getStatus().name())
+                .append("endStep", message.getCurrentStep());
+        if (message.getErrorInfo() != null) {
+            result.append("errorMessage", literal(message.getErrorInfo().getMessage()));
+        }
+        Document finalized = new Document("$map", new Document("input",
+                new Document("$range", List.of(0, new Document("$size", attempts))))
+                .append("as", "i")
+                .append("in", new Document("$let", new Document("vars",
+                        new Document("a", new Document("$arrayElemAt", List.of(attempts, "$$i"))))
+                        .append("in", new Document("$cond", List.of(
+                                new Document("$and", List.of(
+                                        new Document("$eq", List.of("$$i", lastIndex)),
+                                        new Document("$in", List.of(
+                                                new Document("$type", "$$a.result"), List.of("missing", "null"))))),
+                                new Document("$mergeObjects", List.of("$$a", result)),
+                                "$$a"))))));
+
+        return set(new Document("completedAt", nowDate)
+                .append("durationMs", durationSince("$createdAt", nowDate, "$durationMs"))
+                .append("executionAttempts", finalized));
+    }
+
+    /**
+     * Add the stages updating the latency breakdown of the execution and of the step the message reports on.
+     * Agents report the queue and run time of each step run with the messages the step sends;
+     * retry wait and pipeline time are measured from the send times of the messages.
+     */
+    private void addLatencyStages(List<Document> stages, WorkflowMessage message, Instant now) {
+        long pipelineMs = message.getUpdatedAt() != null
+                ? Math.max(0, now.toEpochMilli() - message.getUpdatedAt().toEpochMilli()) : 0;
+
+        StepTiming timing = message.getStepTiming();
+        if (timing != null && timing.getStartedAt() != null) {
+            stages.add(applyTiming(timing, pipelineMs));
+        }
+
+        if (message.getStatus() == WorkflowStatus.RETRY_PENDING) {
+            Instant failedAt = message.getUpdatedAt() != null ? message.getUpdatedAt() : now;
+            stages.add(set(new Document("stepHistory", mapSteps(isStep(message.getCurrentStep()),
+                    new Document("retryPendingSince", Date.from(failedAt))))));
+        }
+
+        // Lag of the last message: the share of the execution duration due to monitoring itself
+        stages.add(set(new Document("latency", new Document()
+                .append("queuedMs", new Document("$sum", "$stepHistory.latency.queuedMs"))
+                .append("executingMs", new Document("$sum", "$stepHistory.latency.executingMs"))
+                .append("retryWaitMs", new Document("$sum", "$stepHistory.latency.retryWaitMs"))
+                .append("pipelineMs", pipelineMs))));
+    }
+
+    private Document applyTiming(StepTiming timing, long pipelineMs) {
+        Date startedAt = Date.from(timing.getStartedAt());
+        Document waitingRetry = new Document("$eq", List.of(new Document("$type", "$$s.retryPendingSince"), "date"));
+        Object retryWaitMs = 0;
+        Object retryPendingSince = "$$s.retryPendingSince";
+        if (timing.getSentAt() != null) {
+            Date sentAt = Date.from(timing.getSentAt());
+            Document waitedMs = new Document("$subtract", List.of(sentAt, "$$s.retryPendingSince"));
+            retryWaitMs = new Document("$cond", List.of(waitingRetry,
+                    new Document("$max", List.of(0, waitedMs)), 0));
+            retryPendingSince = new Document("$cond", Arrays.asList(waitingRetry, null, "$$s.retryPendingSince"));
         }
+
+        Document latency = new Document()
+                .append("queuedMs", addTo("$$s.latency.queuedMs", timing.getQueuedMs()))
+                .append("executingMs", addTo("$$s.latency.executingMs", timing.getExecutionMs()))
+                .append("retryWaitMs", addTo("$$s.latency.retryWaitMs", retryWaitMs))
+                .append("pipelineMs", pipelineMs);
+        // Parallel branches and redeliveries repeat the report of a run
+        Document reported = new Document("$and", List.of(
+                isStep(timing.getStepId()),
+                new Document("$ne", List.of("$$s.lastTimedAt", startedAt))));
+        return set(new Document("stepHistory", mapSteps(reported, new Document("latency", latency)
+                .append("retryPendingSince", retryPendingSince)
+                .append("lastTimedAt", startedAt))));
+    }
+
+    /**
+     * Merge changes into the step entries matching a condition on {@code $$s}.
+     */
+    private static Document mapSteps(Object condition, Document changes) {
+        return new Document("$map", new Document("input", "$stepHistory")
+                .append("as", "s")
+                .append("in", new Document("$cond", List.of(
+                        condition,
+                        new Document("$mergeObjects", List.of("$$s", changes)),
+                        "$$s"))));
+    }
+
+    private static Document isStep(int stepId) {
+        return new Document("$eq", List.of("$$s.stepId", stepId));
+    }
+
+    private static Document durationSince(String startField, Date end, String otherwise) {
+        return new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", startField), "date")),
+                new Document("$subtract", List.of(end, startField)),
+                otherwise));
+    }
+
+    private static Document addTo(String field, Object value) {
+        return new Document("$add", List.of(new Document("$ifNull", List.of(field, 0)), value));
+    }
+
+    private static Document set(Document fields) {
+        return new Document("$set", fields);
+    }
+
+    private Document onInsert(Document isNew, String field, Object value) {
+        return new Document("$cond", List.of(isNew, literal(value), "$" + field));
+    }
+
+    private Document literal(Object value) {
+        return new Document("$literal", mongoTemplate.getConverter().convertToMongoType(value));
     }
 
     /**
@@ -232,4 +787,77 @@ public class ExecutionPersistenceService {
                 .map(StepDefinition::getLabel)
                 .orElse(null);
     }
+
+    /**
+     * Buffered messages of an execution, chained into one update pipeline.
+     */
+    private static final class PendingUpdate {
+
+        private final List<Document> stages = new ArrayList<>();
+        private final long bufferedAt = System.nanoTime();
+        private WorkflowMessage first;
+        private String topic;
+        private WorkflowStatus status;
+        private int messages;
+
+        void add(WorkflowMessage message, List<Document> messageStages) {
+            closePrevious();
+            stages.addAll(messageStages);
+            if (first == null) {
+                first = message;
+            }
+            if (topic == null) {
+                topic = message.getTopic();
+            }
+            status = message.getStatus();
+            messages++;
+        }
+
+        /**
+         * Chain the updates buffered after this one.
+         */
+        void addAll(PendingUpdate newer) {
+            closePrevious();
+            stages.addAll(newer.stages);
+            if (first == null) {
+                first = newer.first;
+            }
+            if (topic == null) {
+                topic = newer.topic;
+            }
+            status = newer.status;
+            messages += newer.messages;
+        }
+
+        private void closePrevious() {
+            if (!stages.isEmpty()) {
+                // Close the previous message, so that the next one sees the execution as existing
+                stages.add(new Document("$set", new Document("version", NEXT_VERSION)));
+            }
+        }
+
+        List<Document> getStages() {
+            return stages;
+        }
+
+        WorkflowMessage getFirst() {
+            return first;
+        }
+
+        long getBufferedAt() {
+            return bufferedAt;
+        }
+
+        String getTopic() {
+            return topic;
+        }
+
+        WorkflowStatus getStatus() {
+            return status;
+        }
+
+        int getMessages() {
+            return messages;
+        }
+    }
 }
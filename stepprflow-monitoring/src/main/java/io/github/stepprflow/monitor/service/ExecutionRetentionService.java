@@ -0,0 +1,172 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service deleting the executions older than their retention.
+ *
+ * Expired executions are deleted on the server, one bounded batch at a time: the IDs
+ * and topics of a batch are read with a projection, then removed with one
+ * {@code deleteMany}, with a pause between batches so that cleanup does not starve
+ * the workflow writes. The execution counters are decremented for each batch.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "stepprflow.monitor.retention",
+        name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ExecutionRetentionService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ExecutionCounterService executionCounters;
+    private final MonitorProperties.Retention retention;
+
+    /** Expired executions left to delete by the running cleanup. */
+    private final AtomicLong remaining = new AtomicLong();
+
+    private final Map<WorkflowStatus, Counter> deleted = new EnumMap<>(WorkflowStatus.class);
+    private final Timer batchLatency;
+
+    @Autowired
+    public ExecutionRetentionService(
+            MongoTemplate mongoTemplate,
+            ExecutionCounterService executionCounters,
+            MonitorProperties properties,
+            @Autowired(required = false) MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.executionCounters = executionCounters;
+        this.retention = properties.getRetention();
+        if (meterRegistry != null) {
+            Gauge.builder("stepprflow.monitor.retention.remaining", remaining, AtomicLong::get)
+                    .description("Expired executions left to delete by the running cleanup")
+                    .register(meterRegistry);
+            for (WorkflowStatus status : List.of(WorkflowStatus.COMPLETED, WorkflowStatus.FAILED)) {
+                deleted.put(status, Counter.builder("stepprflow.monitor.retention.deleted")
+                        .description("Expired executions deleted")
+                        .tag("status", status.name())
+                        .register(meterRegistry));
+            }
+            this.batchLatency = Timer.builder("stepprflow.monitor.retention.batch.latency")
+                    .description("Time to delete a batch of expired executions")
+                    .register(meterRegistry);
+        } else {
+            this.batchLatency = null;
+        }
+    }
+
+    /**
+     * Delete the completed and failed executions older than their retention.
+     */
+    @Scheduled(cron = "${stepprflow.monitor.retention.cleanup-cron:0 0 2 * * ?}")
+    public void cleanupOldExecutions() {
+        log.info("Starting cleanup of old executions");
+        Instant now = Instant.now();
+        purge(WorkflowStatus.COMPLETED, now.minus(retention.getCompletedTtl()));
+        purge(WorkflowStatus.FAILED, now.minus(retention.getFailedTtl()));
+    }
+
+    /**
+     * Delete the executions of a status that ended before a cutoff, one batch at a time.
+     *
+     * @return the number of deleted executions
+     */
+    long purge(WorkflowStatus status, Instant cutoff) {
+        Criteria expired = Criteria.where("status").is(status).and("completedAt").lt(cutoff);
+        long expiredCount = mongoTemplate.count(Query.query(expired), WorkflowExecution.class);
+        if (expiredCount == 0) {
+            return 0;
+        }
+        remaining.set(expiredCount);
+        log.info("Deleting {} {} executions ended before {}", expiredCount, status, cutoff);
+
+        long started = System.nanoTime();
+        long total = 0;
+        boolean countersDrifted = false;
+        int batchSize = retention.getBatchSize();
+        while (true) {
+            Query batch = Query.query(expired).limit(batchSize);
+            batch.fields().include("topic");
+            List<WorkflowExecution> executions = mongoTemplate.find(batch, WorkflowExecution.class);
+            if (executions.isEmpty()) {
+                break;
+            }
+
+            long batchStarted = System.nanoTime();
+            // Matched on status and date again, so that an execution resumed meanwhile is kept
+            List<String> ids = executions.stream().map(WorkflowExecution::getExecutionId).toList();
+            long count = mongoTemplate.remove(Query.query(new Criteria().andOperator(
+                    Criteria.where("executionId").in(ids), expired)), WorkflowExecution.class).getDeletedCount();
+            if (count == executions.size()) {
+                executionCounters.record(executions.stream()
+                        .map(execution -> new ExecutionCounterService.Transition(execution.getTopic(), status, null))
+                        .toList());
+            } else {
+                countersDrifted = true;
+            }
+
+            total += count;
+            remaining.updateAndGet(left -> Math.max(0, left - count));
+            if (batchLatency != null) {
+                batchLatency.record(System.nanoTime() - batchStarted, TimeUnit.NANOSECONDS);
+                deleted.get(status).increment(count);
+            }
+            if (executions.size() < batchSize || !pause()) {
+                break;
+            }
+        }
+        remaining.set(0);
+
+        if (countersDrifted) {
+            // Some executions of a batch were not deleted: their topics are unknown
+            executionCounters.reconcile();
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Deleted {} old {} executions in {} ms ({} per second)",
+                total, status, elapsedMs, total * 1000 / elapsedMs);
+        return total;
+    }
+
+    private boolean pause() {
+        long pauseMs = retention.getBatchPause().toMillis();
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cleanup of old executions interrupted");
+            return false;
+        }
+    }
+
+    /**
+     * Get the number of expired executions left to delete by the running cleanup.
+     *
+     * @return the executions left, 0 when no cleanup is running
+     */
+    public long getRemaining() {
+        return remaining.get();
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.service.InMemoryStepJoinStore;
+import io.github.stepprflow.core.service.StepJoinStore;
+import io.github.stepprflow.monitor.model.StepJoin;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@link StepJoinStore} shared through MongoDB, so that the branches of a parallel group
+ * can be consumed by several service instances.
+ *
+ * Each join is one document per execution and group. A branch adds its contribution with
+ * one upsert, which returns the contributions so far. The branch that sees every branch
+ * removes the document, and only the one whose removal returns it completes the group.
+ * Pending joins expire after a time-to-live, as in the in-memory store.
+ */
+@Slf4j
+public class MongoStepJoinStore implements StepJoinStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+
+    /**
+     * Create a store with the default time-to-live of pending joins.
+     *
+     * @param mongoTemplate the MongoDB template
+     */
+    public MongoStepJoinStore(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, InMemoryStepJoinStore.DEFAULT_TTL);
+    }
+
+    /**
+     * Create a store with the given time-to-live of pending joins.
+     *
+     * @param mongoTemplate the MongoDB template
+     * @param ttl how long a pending join is kept
+     */
+    public MongoStepJoinStore(MongoTemplate mongoTemplate, Duration ttl) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Create the index expiring the pending joins.
+     */
+    @PostConstruct
+    public void createIndexes() {
+        try {
+            mongoTemplate.indexOps(StepJoin.class).ensureIndex(
+                    new Index().on("startedAt", Sort.Direction.ASC).expire(ttl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to create the step join expiry index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<Map<Integer, Map<String, Object>>> complete(
+            String executionId,
+            String group,
+            int stepId,
+            Map<String, Object> changes,
+            int expectedBranches) {
+        Query byId = Query.query(Criteria.where("id").is(StepJoin.idOf(executionId, group)));
+        // A redelivered branch replaces its contribution
+        StepJoin join = mongoTemplate.findAndModify(byId,
+                new Update().set("branches." + stepId, changes != null ? changes : Map.of())
+                        .setOnInsert("startedAt", Instant.now()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                StepJoin.class);
+        if (join == null || join.getBranches() == null || join.getBranches().size() < expectedBranches) {
+            return Optional.empty();
+        }
+
+        // Several branches may see the group complete, only one removes it
+        StepJoin joined = mongoTemplate.findAndRemove(byId, StepJoin.class);
+        if (joined == null) {
+            return Optional.empty();
+        }
+        Map<Integer, Map<String, Object>> branches = new TreeMap<>();
+        joined.getBranches().forEach((branch, contribution) ->
+                branches.put(Integer.valueOf(branch), contribution != null ? contribution : Map.of()));
+        return Optional.of(branches);
+    }
+}
@@ -27,6 +27,7 @@ public class PayloadManagementService {
 
     private final WorkflowExecutionRepository repository;
     private final NestedPathResolver pathResolver;
+    private final SearchKeyService searchKeys;
 
     /**
      * Update a specific field in the payload with history tracking.
@@ -66,6 +67,7 @@ public class PayloadManagementService {
         execution.addPayloadChange(change);
 
         execution.setPayload(payloadMap);
+        execution.setSearchKeys(searchKeys.extract(execution.getTopic(), payloadMap));
         execution.setUpdatedAt(Instant.now());
 
         try {
@@ -104,6 +106,7 @@ public class PayloadManagementService {
         // Clear pending changes
         execution.setPayloadHistory(new ArrayList<>());
         execution.setPayload(payloadMap);
+        execution.setSearchKeys(searchKeys.extract(execution.getTopic(), payloadMap));
         execution.setUpdatedAt(Instant.now());
 
         try {
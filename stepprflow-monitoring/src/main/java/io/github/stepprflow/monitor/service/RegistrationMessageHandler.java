@@ -1,9 +1,12 @@
 package io.github.stepprflow.monitor.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.stepprflow.core.metrics.ClusterMetrics;
+import io.github.stepprflow.core.metrics.MetricsDelta;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
@@ -14,7 +17,8 @@ import java.util.Map;
  *
  * <p>Extracts the registration action from the message metadata and
  * delegates to {@link WorkflowRegistryService} for REGISTER, HEARTBEAT,
- * and DEREGISTER actions.
+ * and DEREGISTER actions. Metrics deltas carried by heartbeats are merged
+ * into {@link ClusterMetrics} when available.
  */
 @Component
 @Slf4j
@@ -22,6 +26,7 @@ public class RegistrationMessageHandler {
 
     private final WorkflowRegistryService registryService;
     private final ObjectMapper objectMapper;
+    private final ClusterMetrics clusterMetrics;
 
     /**
      * Creates a new RegistrationMessageHandler.
@@ -31,9 +36,25 @@ public class RegistrationMessageHandler {
      */
     public RegistrationMessageHandler(
             final WorkflowRegistryService registryService,
-            @Qualifier("stepprflowObjectMapper") final ObjectMapper objectMapper) {
+            final ObjectMapper objectMapper) {
+        this(registryService, objectMapper, null);
+    }
+
+    /**
+     * Creates a new RegistrationMessageHandler merging heartbeat metrics.
+     *
+     * @param registryService the workflow registry service
+     * @param objectMapper    the object mapper for payload conversion
+     * @param clusterMetrics  the cluster metrics (optional)
+     */
+    @Autowired
+    public RegistrationMessageHandler(
+            final WorkflowRegistryService registryService,
+            @Qualifier("stepprflowObjectMapper") final ObjectMapper objectMapper,
+            @Autowired(required = false) final ClusterMetrics clusterMetrics) {
         this.registryService = registryService;
         this.objectMapper = objectMapper;
+        this.clusterMetrics = clusterMetrics;
     }
 
     /**
@@ -62,15 +83,34 @@ public class RegistrationMessageHandler {
                 break;
             case WorkflowRegistrationRequest.ACTION_HEARTBEAT:
                 registryService.heartbeat(serviceName, instanceId);
+                mergeMetrics(message, serviceName, instanceId);
                 break;
             case WorkflowRegistrationRequest.ACTION_DEREGISTER:
                 registryService.unregisterService(serviceName, instanceId);
+                if (clusterMetrics != null) {
+                    clusterMetrics.removeInstance(serviceName, instanceId);
+                }
                 break;
             default:
                 log.warn("Unknown registration action: {}", action);
         }
     }
 
+    private void mergeMetrics(final WorkflowMessage message,
+                              final String serviceName,
+                              final String instanceId) {
+        if (clusterMetrics == null || message.getPayload() == null) {
+            return;
+        }
+        try {
+            MetricsDelta delta = objectMapper.convertValue(message.getPayload(), MetricsDelta.class);
+            clusterMetrics.merge(serviceName, instanceId, delta);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid metrics in heartbeat from {} (instance: {}): {}",
+                    serviceName, instanceId, e.getMessage());
+        }
+    }
+
     private void handleRegister(final WorkflowMessage message) {
         Object payload = message.getPayload();
         if (payload == null) {
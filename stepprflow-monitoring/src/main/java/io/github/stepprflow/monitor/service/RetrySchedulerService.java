@@ -1,95 +1,337 @@
 package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
-import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
 import io.github.stepprflow.monitor.util.WorkflowMessageFactory;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Service that processes pending retries.
+ * Service that dispatches pending retries when they are due.
+ *
+ * A dispatcher thread sleeps until the next retry is due, or at most the check interval.
+ * Due retries are claimed a page at a time by an aggregation merging a lease (owner,
+ * claim and expiry) into the executions that are still free, so that each retry is sent
+ * by one monitoring instance only, then sent on virtual threads with a bounded
+ * parallelism. Each sender waits for the broker to acknowledge its message, at most the
+ * lease duration, before marking the retry as dispatched: a retry that could not be sent
+ * is claimed again when its lease expires.
+ * A sent retry keeps its lease until the next event of its execution, or until the
+ * re-dispatch timeout, after which it is claimed and sent again.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(prefix = "stepprflow.monitor.retry-scheduler",
         name = "enabled", havingValue = "true", matchIfMissing = true)
 public class RetrySchedulerService {
 
-    private final WorkflowExecutionRepository repository;
+    private final MongoTemplate mongoTemplate;
     private final MessageBroker messageBroker;
-    private final MonitorProperties properties;
     private final WorkflowMessageFactory messageFactory;
+    private final MonitorProperties.RetryScheduler settings;
+    private final Clock clock;
+
+    /** Identifies the leases of this instance. */
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Semaphore sending;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ReentrantLock wakeLock = new ReentrantLock();
+    private final Condition wakeUp = wakeLock.newCondition();
+    private Instant wakeAt = Instant.MAX;
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    @Autowired
+    public RetrySchedulerService(
+            MongoTemplate mongoTemplate,
+            MessageBroker messageBroker,
+            WorkflowMessageFactory messageFactory,
+            MonitorProperties properties) {
+        this(mongoTemplate, messageBroker, messageFactory, properties, Clock.systemUTC());
+    }
+
+    RetrySchedulerService(MongoTemplate mongoTemplate, MessageBroker messageBroker,
+                          WorkflowMessageFactory messageFactory, MonitorProperties properties, Clock clock) {
+        this.mongoTemplate = mongoTemplate;
+        this.messageBroker = messageBroker;
+        this.messageFactory = messageFactory;
+        this.settings = properties.getRetryScheduler();
+        this.clock = clock;
+        this.sending = new Semaphore(Math.max(1, settings.getMaxParallelism()));
+    }
 
     /**
-     * Process pending retries in parallel for better throughput.
+     * Start the dispatcher thread.
      */
-    @Scheduled(fixedDelayString = "${stepprflow.monitor.retry-scheduler.check-interval:30000}")
-    public void processPendingRetries() {
-        List<WorkflowExecution> pendingRetries = repository.findPendingRetries(Instant.now());
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = Thread.ofVirtual().name("stepprflow-retry-dispatcher").start(this::dispatch);
+    }
 
-        if (pendingRetries.isEmpty()) {
-            return;
+    /**
+     * Stop the dispatcher thread and wait for the retries being sent.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wake(Instant.MIN);
+        if (dispatcher != null) {
+            try {
+                dispatcher.join(settings.getCheckInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        senders.close();
+    }
+
+    /**
+     * Wake the dispatcher up when a retry is scheduled before its next check.
+     *
+     * @param event the workflow message event
+     */
+    @EventListener
+    public void onWorkflowMessageEvent(WorkflowMessageEvent event) {
+        WorkflowMessage message = event.getMessage();
+        if (message.getStatus() == WorkflowStatus.RETRY_PENDING && message.getRetryInfo() != null
+                && message.getRetryInfo().getNextRetryAt() != null) {
+            wake(message.getRetryInfo().getNextRetryAt());
         }
+    }
+
+    /**
+     * Check for due retries now rather than at the next planned check.
+     */
+    public void wakeUp() {
+        wake(clock.instant());
+    }
 
-        log.info("Processing {} pending retries in parallel", pendingRetries.size());
-
-        // Process retries in parallel using virtual threads
-        List<CompletableFuture<Void>> futures = pendingRetries.stream()
-                .map(execution -> CompletableFuture.runAsync(() -> {
-                    try {
-                        processRetry(execution);
-                    } catch (Exception e) {
-                        log.error("Error processing retry for {}: {}",
-                                execution.getExecutionId(), e.getMessage(), e);
-                    }
-                }))
-                .toList();
-
-        // Wait for all retries to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    private void dispatch() {
+        while (running) {
+            Instant next;
+            try {
+                next = processPendingRetries();
+            } catch (RuntimeException e) {
+                log.error("Error dispatching pending retries: {}", e.getMessage(), e);
+                next = clock.instant().plus(settings.getCheckInterval());
+            }
+            sleepUntil(next);
+        }
+    }
+
+    /**
+     * Claim and send the retries that are due, one page at most.
+     * The messages are sent asynchronously, at most {@code max-parallelism} waiting for
+     * their acknowledgement at a time.
+     *
+     * @return the time of the next check
+     */
+    public Instant processPendingRetries() {
+        Instant now = clock.instant();
+        List<WorkflowExecution> claimed = claim(now);
+        for (WorkflowExecution execution : claimed) {
+            acquireSending();
+            senders.execute(() -> {
+                try {
+                    processRetry(execution);
+                } finally {
+                    sending.release();
+                }
+            });
+        }
+        if (!claimed.isEmpty()) {
+            log.info("Dispatched {} pending retries", claimed.size());
+        }
+        // Full page: check again right away
+        return claimed.size() == settings.getPageSize() ? now : nextCheck(now);
+    }
+
+    private void acquireSending() {
+        try {
+            sending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to send retries", e);
+        }
+    }
+
+    /**
+     * Claim the due retries that waited the longest and are not leased, one page at most.
+     * The lease is merged into each execution only if it is still free, since other
+     * instances may claim the same page concurrently; the page is then read back by claim.
+     */
+    private List<WorkflowExecution> claim(Instant now) {
+        String claim = UUID.randomUUID().toString();
+        Date nowDate = Date.from(now);
+        Document lease = new Document("owner", owner)
+                .append("claim", claim)
+                .append("expiresAt", Date.from(now.plus(settings.getLeaseDuration()).truncatedTo(ChronoUnit.MILLIS)));
+        Document stillFree = new Document("$and", List.of(
+                new Document("$eq", List.of("$status", WorkflowStatus.RETRY_PENDING.name())),
+                new Document("$lte", List.of("$retryInfo.nextRetryAt", nowDate)),
+                new Document("$or", List.of(
+                        new Document("$in", List.of(new Document("$type", "$retryLease"), List.of("missing", "null"))),
+                        new Document("$lt", List.of("$retryLease.expiresAt", nowDate))))));
+        Aggregation claimPage = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").is(WorkflowStatus.RETRY_PENDING)
+                        .and("retryInfo.nextRetryAt").lte(now)
+                        .orOperator(
+                                Criteria.where("retryLease").is(null),
+                                Criteria.where("retryLease.expiresAt").lt(now))),
+                Aggregation.sort(Sort.Direction.ASC, "retryInfo.nextRetryAt"),
+                Aggregation.limit(settings.getPageSize()),
+                context -> new Document("$project", new Document("retryLease", new Document("$literal", lease))),
+                Aggregation.merge()
+                        .intoCollection(mongoTemplate.getCollectionName(WorkflowExecution.class))
+                        .whenMatched(MergeOperation.WhenDocumentsMatch.updateWith(Aggregation.newAggregation(
+                                context -> new Document("$set", new Document("retryLease", new Document("$cond",
+                                        List.of(stillFree, "$$new.retryLease", "$retryLease")))))))
+                        .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.discardDocument())
+                        .build());
+        mongoTemplate.aggregate(claimPage, WorkflowExecution.class, Document.class);
+
+        Query claimed = Query.query(Criteria.where("status").is(WorkflowStatus.RETRY_PENDING)
+                        .and("retryInfo.nextRetryAt").lte(now)
+                        .and("retryLease.claim").is(claim))
+                .with(Sort.by(Sort.Direction.ASC, "retryInfo.nextRetryAt"));
+        return mongoTemplate.find(claimed, WorkflowExecution.class);
     }
 
     private void processRetry(WorkflowExecution execution) {
         log.info("Processing retry for workflow {} (attempt {})",
                 execution.getExecutionId(),
                 execution.getRetryInfo() != null ? execution.getRetryInfo().getAttempt() : 1);
-
-        WorkflowMessage message = messageFactory.createRetryMessage(execution);
-        messageBroker.send(execution.getTopic(), message);
+        CompletableFuture<Void> sent = null;
+        try {
+            WorkflowMessage message = messageFactory.createRetryMessage(execution);
+            // Past its lease the retry may be claimed by another instance, no need to wait longer
+            sent = messageBroker.sendAsync(execution.getTopic(), message);
+            sent.get(settings.getLeaseDuration().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while sending the retry of {}, retrying when its lease expires",
+                    execution.getExecutionId());
+            return;
+        } catch (TimeoutException e) {
+            sent.cancel(true);
+            log.error("Retry for {} was not acknowledged within {}, retrying when its lease expires",
+                    execution.getExecutionId(), settings.getLeaseDuration());
+            return;
+        } catch (ExecutionException e) {
+            log.error("Error sending retry for {}, retrying when its lease expires: {}",
+                    execution.getExecutionId(), e.getCause().getMessage(), e.getCause());
+            return;
+        } catch (Exception e) {
+            log.error("Error processing retry for {}, retrying when its lease expires: {}",
+                    execution.getExecutionId(), e.getMessage(), e);
+            return;
+        }
+        try {
+            // Matched on the lease, in case the next event of the execution already removed it
+            Instant dispatchedAt = clock.instant();
+            mongoTemplate.updateFirst(Query.query(Criteria.where("executionId").is(execution.getExecutionId())
+                            .and("retryLease.owner").is(owner)
+                            .and("retryLease.claim").is(execution.getRetryLease().getClaim())),
+                    new Update().set("retryLease.dispatchedAt", dispatchedAt)
+                            .set("retryLease.expiresAt", dispatchedAt.plus(settings.getRedispatchTimeout())
+                                    .truncatedTo(ChronoUnit.MILLIS)),
+                    WorkflowExecution.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not mark the retry of {} as dispatched, it may be sent again when its lease expires: {}",
+                    execution.getExecutionId(), e.getMessage());
+        }
     }
 
     /**
-     * Clean up old executions.
+     * Time of the next retry that is not due yet, or the check interval if it comes first.
+     * Due retries whose lease expired, whether their instance failed to send them or their
+     * re-dispatch timeout elapsed, are claimed again by the periodic check.
      */
-    @Scheduled(cron = "0 0 2 * * ?") // 2 AM daily
-    public void cleanupOldExecutions() {
-        log.info("Starting cleanup of old executions");
-
-        // Clean completed executions
-        Instant completedCutoff = Instant.now().minus(properties.getRetention().getCompletedTtl());
-        List<WorkflowExecution> oldCompleted = repository.findCompletedBefore(completedCutoff);
-        if (!oldCompleted.isEmpty()) {
-            repository.deleteAll(oldCompleted);
-            log.info("Deleted {} old completed executions", oldCompleted.size());
+    private Instant nextCheck(Instant now) {
+        Instant latest = now.plus(settings.getCheckInterval());
+        Query next = Query.query(Criteria.where("status").is(WorkflowStatus.RETRY_PENDING)
+                        .and("retryInfo.nextRetryAt").gt(now))
+                .with(Sort.by(Sort.Direction.ASC, "retryInfo.nextRetryAt"))
+                .limit(1);
+        next.fields().include("retryInfo.nextRetryAt");
+        WorkflowExecution execution = mongoTemplate.findOne(next, WorkflowExecution.class);
+        if (execution == null || execution.getRetryInfo() == null
+                || execution.getRetryInfo().getNextRetryAt() == null) {
+            return latest;
         }
+        Instant nextRetryAt = execution.getRetryInfo().getNextRetryAt();
+        return nextRetryAt.isBefore(latest) ? nextRetryAt : latest;
+    }
+
+    private void wake(Instant at) {
+        wakeLock.lock();
+        try {
+            if (at.isBefore(wakeAt)) {
+                wakeAt = at;
+                wakeUp.signalAll();
+            }
+        } finally {
+            wakeLock.unlock();
+        }
+    }
 
-        // Clean failed executions
-        Instant failedCutoff = Instant.now().minus(properties.getRetention().getFailedTtl());
-        List<WorkflowExecution> oldFailed = repository.findFailedBefore(failedCutoff);
-        if (!oldFailed.isEmpty()) {
-            repository.deleteAll(oldFailed);
-            log.info("Deleted {} old failed executions", oldFailed.size());
+    private void sleepUntil(Instant next) {
+        wakeLock.lock();
+        try {
+            // A wake-up requested while the retries were dispatched is kept
+            if (next.isBefore(wakeAt)) {
+                wakeAt = next;
+            }
+            while (running) {
+                long waitMs = Duration.between(clock.instant(), wakeAt).toMillis();
+                if (waitMs <= 0) {
+                    break;
+                }
+                wakeUp.await(waitMs, TimeUnit.MILLISECONDS);
+            }
+            wakeAt = Instant.MAX;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            wakeLock.unlock();
         }
     }
 }
@@ -0,0 +1,149 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.model.WorkflowDefinition;
+import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.util.NestedPathResolver;
+import io.github.stepprflow.monitor.model.RegisteredWorkflow;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service extracting the search keys of executions from their payloads.
+ *
+ * Workflows declare their search key paths with {@code @Topic(searchKeys = ...)}: the paths
+ * are read from the local workflow registry, or else from the registrations of the services
+ * providing the workflow. The paths of each topic are cached, so that registrations received
+ * by another monitoring instance are picked up within {@link #PATHS_TTL}.
+ */
+@Service
+@Slf4j
+public class SearchKeyService {
+
+    /** Time the search key paths of a topic are cached. */
+    static final Duration PATHS_TTL = Duration.ofSeconds(30);
+
+    private final NestedPathResolver pathResolver;
+    private final WorkflowRegistry workflowRegistry;
+    private final WorkflowRegistryService registryService;
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+
+    private final Map<String, CachedPaths> paths = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchKeyService(
+            NestedPathResolver pathResolver,
+            @Autowired(required = false) WorkflowRegistry workflowRegistry,
+            WorkflowRegistryService registryService,
+            MongoTemplate mongoTemplate) {
+        this(pathResolver, workflowRegistry, registryService, mongoTemplate, Clock.systemUTC());
+    }
+
+    SearchKeyService(NestedPathResolver pathResolver, WorkflowRegistry workflowRegistry,
+                     WorkflowRegistryService registryService, MongoTemplate mongoTemplate, Clock clock) {
+        this.pathResolver = pathResolver;
+        this.workflowRegistry = workflowRegistry;
+        this.registryService = registryService;
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Extract the search keys of a payload, at the search key paths of its workflow.
+     * Paths that are missing or do not hold a scalar value are skipped; a list of scalars
+     * gives one search key per element.
+     *
+     * @param topic the workflow topic
+     * @param payload the payload, a map or an object mapped as a document
+     * @return the search keys, empty if the workflow declares none
+     */
+    @SuppressWarnings("unchecked")
+    public List<WorkflowExecution.SearchKey> extract(String topic, Object payload) {
+        if (topic == null || payload == null) {
+            return List.of();
+        }
+        List<String> keyPaths = getPaths(topic);
+        if (keyPaths.isEmpty()) {
+            return List.of();
+        }
+        Object document = payload instanceof Map ? payload : mongoTemplate.getConverter().convertToMongoType(payload);
+        if (!(document instanceof Map)) {
+            return List.of();
+        }
+
+        Set<WorkflowExecution.SearchKey> keys = new LinkedHashSet<>();
+        for (String path : keyPaths) {
+            Object value;
+            try {
+                value = pathResolver.getValue((Map<String, Object>) document, path);
+            } catch (RuntimeException e) {
+                // An index out of the bounds of a list, or an invalid path
+                log.debug("Cannot resolve search key {} of topic {}: {}", path, topic, e.getMessage());
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            Collection<?> values = value instanceof Collection<?> collection ? collection : List.of(value);
+            for (Object element : values) {
+                if (isScalar(element)) {
+                    keys.add(new WorkflowExecution.SearchKey(path, element.toString()));
+                }
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Get the search key paths of a workflow.
+     *
+     * @param topic the workflow topic
+     * @return the paths, empty if the workflow declares none
+     */
+    public List<String> getPaths(String topic) {
+        Instant now = clock.instant();
+        CachedPaths cached = paths.get(topic);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.paths();
+        }
+        List<String> loaded = loadPaths(topic);
+        paths.put(topic, new CachedPaths(loaded, now.plus(PATHS_TTL)));
+        return loaded;
+    }
+
+    private List<String> loadPaths(String topic) {
+        if (workflowRegistry != null) {
+            WorkflowDefinition definition = workflowRegistry.getDefinition(topic);
+            if (definition != null && definition.getSearchKeys() != null && !definition.getSearchKeys().isEmpty()) {
+                return List.copyOf(definition.getSearchKeys());
+            }
+        }
+        // Services providing the same workflow may declare different paths
+        Set<String> registered = new LinkedHashSet<>();
+        for (RegisteredWorkflow workflow : registryService.getRegistrations(topic)) {
+            registered.addAll(workflow.getSearchKeys());
+        }
+        return List.copyOf(registered);
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof CharSequence || value instanceof Number
+                || value instanceof Boolean || value instanceof Enum<?>;
+    }
+
+    private record CachedPaths(List<String> paths, Instant expiresAt) { }
+}
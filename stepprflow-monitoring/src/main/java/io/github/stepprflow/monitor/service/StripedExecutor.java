@@ -0,0 +1,108 @@
+package io.github.stepprflow.monitor.service;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor running tasks on a fixed number of single-threaded lanes.
+ *
+ * Tasks are assigned to a lane by the hash of their key: tasks with the same key
+ * run one at a time, in submission order, while tasks with different keys run
+ * in parallel across lanes.
+ */
+public final class StripedExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * Create the lanes.
+     *
+     * @param name the prefix of the lane thread names
+     * @param laneCount the number of lanes
+     */
+    public StripedExecutor(String name, int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1, got " + laneCount);
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * Run a task on the lane of its key.
+     *
+     * @param key the key ordering the task, null for lane 0
+     * @param task the task
+     */
+    public void execute(Object key, Runnable task) {
+        lanes[laneOf(key)].execute(task);
+    }
+
+    /**
+     * Get the lane of a key.
+     *
+     * @param key the key, or null
+     * @return the lane index
+     */
+    public int laneOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        // Spread the high bits, as HashMap does, so that close hashes use different lanes
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * Get the number of lanes.
+     *
+     * @return the lane count
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Get the number of tasks waiting in a lane.
+     *
+     * @param lane the lane index
+     * @return the queued tasks, the running one excluded
+     */
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    /**
+     * Stop accepting tasks and wait for the queued ones to run.
+     *
+     * @param timeout the maximum time to wait for all lanes
+     * @return true if all lanes drained in time
+     */
+    public boolean shutdown(Duration timeout) {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+}
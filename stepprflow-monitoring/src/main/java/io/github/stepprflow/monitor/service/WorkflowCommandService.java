@@ -1,6 +1,7 @@
 package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
 import io.github.stepprflow.core.exception.MessageSendException;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
@@ -34,18 +35,24 @@ public class WorkflowCommandService {
     private final WorkflowExecutionRepository repository;
     private final MessageBroker messageBroker;
     private final WorkflowMessageFactory messageFactory;
+    private final ExecutionCounterService executionCounters;
     private final OutboxService outboxService;
+    private final CancellationBroadcaster cancellationBroadcaster;
 
     @Autowired
     public WorkflowCommandService(
             WorkflowExecutionRepository repository,
             MessageBroker messageBroker,
             WorkflowMessageFactory messageFactory,
-            @Autowired(required = false) OutboxService outboxService) {
+            ExecutionCounterService executionCounters,
+            @Autowired(required = false) OutboxService outboxService,
+            @Autowired(required = false) CancellationBroadcaster cancellationBroadcaster) {
         this.repository = repository;
         this.messageBroker = messageBroker;
         this.messageFactory = messageFactory;
+        this.executionCounters = executionCounters;
         this.outboxService = outboxService;
+        this.cancellationBroadcaster = cancellationBroadcaster;
     }
 
     /**
@@ -129,6 +136,9 @@ public class WorkflowCommandService {
     /**
      * Cancel a running workflow.
      *
+     * <p>Once the cancellation is persisted it is broadcast on the control channel
+     * (when available) so that agents stop executing the remaining steps.
+     *
      * @param executionId the workflow execution ID
      * @throws IllegalArgumentException if execution not found
      * @throws IllegalStateException if execution is already completed or cancelled
@@ -143,6 +153,7 @@ public class WorkflowCommandService {
             throw new IllegalStateException("Cannot cancel execution with status: " + execution.getStatus());
         }
 
+        WorkflowStatus previousStatus = execution.getStatus();
         execution.setStatus(WorkflowStatus.CANCELLED);
         execution.setUpdatedAt(Instant.now());
         execution.setCompletedAt(Instant.now());
@@ -153,10 +164,39 @@ public class WorkflowCommandService {
             log.warn("Concurrent modification detected while cancelling workflow {}", executionId);
             throw new ConcurrentModificationException(executionId, e);
         }
+        executionCounters.record(List.of(new ExecutionCounterService.Transition(
+                execution.getTopic(), previousStatus, WorkflowStatus.CANCELLED)));
 
+        broadcastCancellation(execution);
         log.info("Cancelled workflow {}", executionId);
     }
 
+    /**
+     * Notify agents of a cancellation. The persisted status is the source of truth,
+     * so a failed broadcast is logged rather than propagated.
+     */
+    private void broadcastCancellation(WorkflowExecution execution) {
+        if (cancellationBroadcaster == null) {
+            return;
+        }
+        WorkflowMessage cancellation = WorkflowMessage.builder()
+                .executionId(execution.getExecutionId())
+                .correlationId(execution.getCorrelationId())
+                .topic(execution.getTopic())
+                .currentStep(execution.getCurrentStep())
+                .totalSteps(execution.getTotalSteps())
+                .status(WorkflowStatus.CANCELLED)
+                .createdAt(execution.getCreatedAt())
+                .updatedAt(execution.getUpdatedAt())
+                .build();
+        try {
+            cancellationBroadcaster.broadcast(cancellation);
+        } catch (MessageSendException e) {
+            log.warn("Failed to broadcast cancellation of workflow {}: {}",
+                    execution.getExecutionId(), e.getMessage());
+        }
+    }
+
     /**
      * Create a new execution attempt, moving pending payload changes to this attempt.
      *
@@ -1,23 +1,35 @@
 package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
+import io.github.stepprflow.monitor.dto.LatencyBreakdownDto;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * Service for workflow query operations.
@@ -28,8 +40,28 @@ import java.util.Optional;
 @Slf4j
 public class WorkflowQueryService {
 
+    /**
+     * Fields read for execution listings: the heavy ones (payload, histories, attempts) are left out.
+     */
+    private static final String[] SUMMARY_FIELDS = {
+        "executionId", "correlationId", "topic", "status", "currentStep", "totalSteps",
+        "createdAt", "updatedAt", "completedAt", "durationMs", "initiatedBy"
+    };
+
+    private static final int RECENT_LIMIT = 10;
+
+    private static final String CURSOR_SEPARATOR = "|";
+
+    /**
+     * Statuses counted in the total of a topic summary.
+     */
+    private static final List<WorkflowStatus> TOPIC_TOTAL_STATUSES = List.of(
+            WorkflowStatus.COMPLETED, WorkflowStatus.FAILED, WorkflowStatus.IN_PROGRESS,
+            WorkflowStatus.PENDING, WorkflowStatus.RETRY_PENDING, WorkflowStatus.CANCELLED);
+
     private final WorkflowExecutionRepository repository;
     private final MongoTemplate mongoTemplate;
+    private final ExecutionCounterService executionCounters;
 
     /**
      * Get execution by ID.
@@ -39,41 +71,151 @@ public class WorkflowQueryService {
     }
 
     /**
-     * Find executions with filtering.
+     * Find execution summaries with filtering.
      */
-    public Page<WorkflowExecution> findExecutions(String topic, List<WorkflowStatus> statuses, Pageable pageable) {
-        if (topic != null && statuses != null && !statuses.isEmpty()) {
-            return repository.findByTopicAndStatusIn(topic, statuses, pageable);
-        } else if (topic != null) {
-            return repository.findByTopic(topic, pageable);
-        } else if (statuses != null && !statuses.isEmpty()) {
-            return repository.findByStatusIn(statuses, pageable);
+    public Page<ExecutionSummaryDto> findExecutions(String topic, List<WorkflowStatus> statuses, Pageable pageable) {
+        Query query = new Query();
+        if (topic != null) {
+            query.addCriteria(Criteria.where("topic").is(topic));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            query.addCriteria(Criteria.where("status").in(statuses));
         }
-        return repository.findAll(pageable);
+        List<ExecutionSummaryDto> content = findSummaries(Query.of(query).with(pageable));
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(query, WorkflowExecution.class));
     }
 
     /**
-     * Get dashboard statistics.
+     * Find a window of execution summaries with filtering, by creation date and ID.
+     * The window starts after the execution of the cursor: its query seeks in the
+     * {@code createdAt} indexes rather than skipping the previous windows, so that
+     * every window costs the same as the first one.
+     *
+     * @param topic the workflow topic, null for all topics
+     * @param statuses the statuses, null or empty for all statuses
+     * @param cursor the cursor returned with the previous window, null for the first one
+     * @param size the maximum number of executions in the window
+     * @param direction the order of the creation dates
+     * @param withTotal whether to read the approximate number of matching executions
+     * @return the window
+     */
+    public ExecutionWindowDto scrollExecutions(String topic, List<WorkflowStatus> statuses, String cursor,
+                                               int size, Direction direction, boolean withTotal) {
+        Query query = new Query();
+        if (topic != null) {
+            query.addCriteria(Criteria.where("topic").is(topic));
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            query.addCriteria(Criteria.where("status").in(statuses));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(after(decodeCursor(cursor), direction));
+        }
+        // One more execution tells whether there is a next window
+        query.with(Sort.by(direction, "createdAt", "executionId")).limit(size + 1);
+        List<ExecutionSummaryDto> content = findSummaries(query);
+
+        String nextCursor = null;
+        if (content.size() > size) {
+            content = List.copyOf(content.subList(0, size));
+            nextCursor = encodeCursor(content.get(size - 1));
+        }
+        return ExecutionWindowDto.builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .total(withTotal ? executionCounters.count(topic, statuses) : null)
+                .build();
+    }
+
+    /**
+     * Executions after a cursor: the bound on {@code createdAt} alone limits the index scan,
+     * the ID only breaks the ties.
+     */
+    private static Criteria after(ExecutionCursor cursor, Direction direction) {
+        boolean ascending = direction.isAscending();
+        Criteria createdAt = Criteria.where("createdAt");
+        Criteria strictlyAfter = Criteria.where("createdAt");
+        Criteria executionId = Criteria.where("executionId");
+        return new Criteria().andOperator(
+                ascending ? createdAt.gte(cursor.createdAt()) : createdAt.lte(cursor.createdAt()),
+                new Criteria().orOperator(
+                        ascending ? strictlyAfter.gt(cursor.createdAt()) : strictlyAfter.lt(cursor.createdAt()),
+                        ascending ? executionId.gt(cursor.executionId()) : executionId.lt(cursor.executionId())));
+    }
+
+    /**
+     * Position of an execution in the listings.
+     */
+    record ExecutionCursor(Instant createdAt, String executionId) { }
+
+    static String encodeCursor(ExecutionSummaryDto execution) {
+        String position = execution.getCreatedAt().toEpochMilli() + CURSOR_SEPARATOR + execution.getExecutionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ExecutionCursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(CURSOR_SEPARATOR);
+            return new ExecutionCursor(Instant.ofEpochMilli(Long.parseLong(position.substring(0, separator))),
+                    position.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Find the execution summaries with a search key matching a value.
+     * Both matches seek in the {@code searchKeys} index: a prefix is matched with an anchored,
+     * case-sensitive regular expression, whose index bounds end with the prefix.
+     *
+     * @param key the search key path, null for any search key
+     * @param value the value, or the start of the value
+     * @param prefix whether to match the values starting with {@code value} rather than equal to it
+     * @param limit the maximum number of executions
+     * @return the matching executions, in the order of their search key values
+     */
+    public List<ExecutionSummaryDto> searchExecutions(String key, String value, boolean prefix, int limit) {
+        Criteria match = prefix
+                ? Criteria.where("value").regex("^" + Pattern.quote(value))
+                : Criteria.where("value").is(value);
+        if (key != null && !key.isBlank()) {
+            match.and("key").is(key);
+        }
+        return findSummaries(Query.query(Criteria.where("searchKeys").elemMatch(match)).limit(limit));
+    }
+
+    /**
+     * Get dashboard statistics, read from the execution counters.
      */
     public Map<String, Object> getStatistics() {
+        Map<WorkflowStatus, Long> counts = executionCounters.getCounts();
         Map<String, Object> stats = new HashMap<>();
 
-        stats.put("pending", repository.countByStatus(WorkflowStatus.PENDING));
-        stats.put("inProgress", repository.countByStatus(WorkflowStatus.IN_PROGRESS));
-        stats.put("completed", repository.countByStatus(WorkflowStatus.COMPLETED));
-        stats.put("failed", repository.countByStatus(WorkflowStatus.FAILED));
-        stats.put("retryPending", repository.countByStatus(WorkflowStatus.RETRY_PENDING));
-        stats.put("cancelled", repository.countByStatus(WorkflowStatus.CANCELLED));
-        stats.put("total", repository.count());
+        stats.put("pending", counts.getOrDefault(WorkflowStatus.PENDING, 0L));
+        stats.put("inProgress", counts.getOrDefault(WorkflowStatus.IN_PROGRESS, 0L));
+        stats.put("completed", counts.getOrDefault(WorkflowStatus.COMPLETED, 0L));
+        stats.put("failed", counts.getOrDefault(WorkflowStatus.FAILED, 0L));
+        stats.put("retryPending", counts.getOrDefault(WorkflowStatus.RETRY_PENDING, 0L));
+        stats.put("cancelled", counts.getOrDefault(WorkflowStatus.CANCELLED, 0L));
+        stats.put("total", counts.values().stream().mapToLong(Long::longValue).sum());
 
         return stats;
     }
 
     /**
-     * Get recent executions.
+     * Get the summaries of the most recent executions.
      */
-    public List<WorkflowExecution> getRecentExecutions() {
-        return repository.findTop10ByOrderByCreatedAtDesc();
+    public List<ExecutionSummaryDto> getRecentExecutions() {
+        return findSummaries(new Query().with(Sort.by(Direction.DESC, "createdAt")).limit(RECENT_LIMIT));
+    }
+
+    private List<ExecutionSummaryDto> findSummaries(Query query) {
+        query.fields().include(SUMMARY_FIELDS);
+        return mongoTemplate.find(query, WorkflowExecution.class).stream()
+                .map(ExecutionSummaryDto::from)
+                .toList();
     }
 
     /**
@@ -86,32 +228,22 @@ public class WorkflowQueryService {
 
     /**
      * Get summary info for a given topic derived from executions.
+     * Counts are read from the execution counters, and the steps from one execution found
+     * through the topic indexes.
      */
     public Map<String, Object> getTopicSummary(String topic) {
         Map<String, Object> summary = new HashMap<>();
         summary.put("topic", topic);
-        long total = repository.countByTopicAndStatus(topic, WorkflowStatus.COMPLETED)
-                + repository.countByTopicAndStatus(topic, WorkflowStatus.FAILED)
-                + repository.countByTopicAndStatus(topic, WorkflowStatus.IN_PROGRESS)
-                + repository.countByTopicAndStatus(topic, WorkflowStatus.PENDING)
-                + repository.countByTopicAndStatus(topic, WorkflowStatus.RETRY_PENDING)
-                + repository.countByTopicAndStatus(topic, WorkflowStatus.CANCELLED);
-        summary.put("total", total);
-        summary.put("completed", repository.countByTopicAndStatus(topic, WorkflowStatus.COMPLETED));
-        summary.put("failed", repository.countByTopicAndStatus(topic, WorkflowStatus.FAILED));
-        summary.put("inProgress", repository.countByTopicAndStatus(topic, WorkflowStatus.IN_PROGRESS));
-
-        // Get step info from the most recent completed execution, or fallback to most recent
-        Page<WorkflowExecution> completed = repository.findByTopicAndStatus(topic,
-                WorkflowStatus.COMPLETED,
-                PageRequest.of(0, 1,
-                        org.springframework.data.domain.Sort.by(Direction.DESC, "createdAt")));
-        WorkflowExecution ref = completed.hasContent() ? completed.getContent().get(0) : null;
+        summary.put("total", executionCounters.count(topic, TOPIC_TOTAL_STATUSES));
+        summary.put("completed", executionCounters.count(topic, List.of(WorkflowStatus.COMPLETED)));
+        summary.put("failed", executionCounters.count(topic, List.of(WorkflowStatus.FAILED)));
+        summary.put("inProgress", executionCounters.count(topic, List.of(WorkflowStatus.IN_PROGRESS)));
+
+        // Step info comes from the most recent completed execution, or falls back to the most recent
+        WorkflowExecution ref = findReference(Criteria.where("topic").is(topic)
+                .and("status").is(WorkflowStatus.COMPLETED));
         if (ref == null) {
-            Page<WorkflowExecution> recent = repository.findByTopic(topic,
-                    PageRequest.of(0, 1,
-                            org.springframework.data.domain.Sort.by(Direction.DESC, "createdAt")));
-            ref = recent.hasContent() ? recent.getContent().get(0) : null;
+            ref = findReference(Criteria.where("topic").is(topic));
         }
         if (ref != null) {
             summary.put("totalSteps", ref.getTotalSteps());
@@ -129,4 +261,74 @@ public class WorkflowQueryService {
         }
         return summary;
     }
+
+    private WorkflowExecution findReference(Criteria criteria) {
+        Query query = Query.query(criteria)
+                .with(Sort.by(Direction.DESC, "createdAt"))
+                .limit(1);
+        query.fields().include("totalSteps", "stepHistory");
+        return mongoTemplate.findOne(query, WorkflowExecution.class);
+    }
+
+    /**
+     * Get the average latency breakdown of the finished executions of a topic, overall and per step.
+     */
+    public LatencyBreakdownDto getLatencyBreakdown(String topic) {
+        Criteria finished = Criteria.where("topic").is(topic)
+                .and("status").in(WorkflowStatus.COMPLETED, WorkflowStatus.FAILED)
+                .and("latency").exists(true);
+
+        TypedAggregation<WorkflowExecution> totals = Aggregation.newAggregation(WorkflowExecution.class,
+                Aggregation.match(finished),
+                Aggregation.group()
+                        .count().as("executions")
+                        .avg("durationMs").as("avgDurationMs")
+                        .avg("latency.queuedMs").as("avgQueuedMs")
+                        .avg("latency.executingMs").as("avgExecutingMs")
+                        .avg("latency.retryWaitMs").as("avgRetryWaitMs")
+                        .avg("latency.pipelineMs").as("avgPipelineMs"));
+        Document total = mongoTemplate.aggregate(totals, Document.class).getUniqueMappedResult();
+
+        TypedAggregation<WorkflowExecution> perStep = Aggregation.newAggregation(WorkflowExecution.class,
+                Aggregation.match(finished),
+                Aggregation.unwind("stepHistory"),
+                Aggregation.match(Criteria.where("stepHistory.latency").exists(true)),
+                Aggregation.group("stepHistory.stepId")
+                        .first("stepHistory.stepLabel").as("stepLabel")
+                        .count().as("executions")
+                        .avg("stepHistory.latency.queuedMs").as("avgQueuedMs")
+                        .avg("stepHistory.latency.executingMs").as("avgExecutingMs")
+                        .avg("stepHistory.latency.retryWaitMs").as("avgRetryWaitMs")
+                        .avg("stepHistory.latency.pipelineMs").as("avgPipelineMs"),
+                Aggregation.sort(Direction.ASC, "_id"));
+        List<LatencyBreakdownDto.StepLatency> steps = mongoTemplate.aggregate(perStep, Document.class)
+                .getMappedResults().stream()
+                .map(step -> LatencyBreakdownDto.StepLatency.builder()
+                        .stepId(number(step, "_id").intValue())
+                        .stepLabel(step.getString("stepLabel"))
+                        .executions(number(step, "executions").longValue())
+                        .avgQueuedMs(number(step, "avgQueuedMs").doubleValue())
+                        .avgExecutingMs(number(step, "avgExecutingMs").doubleValue())
+                        .avgRetryWaitMs(number(step, "avgRetryWaitMs").doubleValue())
+                        .avgPipelineMs(number(step, "avgPipelineMs").doubleValue())
+                        .build())
+                .toList();
+
+        Document result = total != null ? total : new Document();
+        return LatencyBreakdownDto.builder()
+                .topic(topic)
+                .executions(number(result, "executions").longValue())
+                .avgDurationMs(number(result, "avgDurationMs").doubleValue())
+                .avgQueuedMs(number(result, "avgQueuedMs").doubleValue())
+                .avgExecutingMs(number(result, "avgExecutingMs").doubleValue())
+                .avgRetryWaitMs(number(result, "avgRetryWaitMs").doubleValue())
+                .avgPipelineMs(number(result, "avgPipelineMs").doubleValue())
+                .steps(steps)
+                .build();
+    }
+
+    private static Number number(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number n ? n : 0;
+    }
 }
@@ -80,6 +80,7 @@ public class WorkflowRegistryService {
                         .skippable(s.isSkippable())
                         .continueOnFailure(s.isContinueOnFailure())
                         .timeoutMs(s.getTimeoutMs())
+                        .group(s.getGroup())
                         .build())
                 .collect(Collectors.toList());
 
@@ -94,6 +95,7 @@ public class WorkflowRegistryService {
                 .partitions(workflowInfo.getPartitions())
                 .replication(workflowInfo.getReplication())
                 .timeoutMs(workflowInfo.getTimeoutMs())
+                .searchKeys(workflowInfo.getSearchKeys())
                 .registeredBy(instances)
                 .createdAt(Instant.now())
                 .updatedAt(Instant.now())
@@ -118,6 +120,7 @@ public class WorkflowRegistryService {
                         .skippable(s.isSkippable())
                         .continueOnFailure(s.isContinueOnFailure())
                         .timeoutMs(s.getTimeoutMs())
+                        .group(s.getGroup())
                         .build())
                 .collect(Collectors.toList());
 
@@ -126,6 +129,7 @@ public class WorkflowRegistryService {
         existing.setPartitions(workflowInfo.getPartitions());
         existing.setReplication(workflowInfo.getReplication());
         existing.setTimeoutMs(workflowInfo.getTimeoutMs());
+        existing.setSearchKeys(workflowInfo.getSearchKeys());
         existing.setUpdatedAt(Instant.now());
 
         // Remove old entry for this instance and add new one
@@ -158,6 +162,16 @@ public class WorkflowRegistryService {
         return repository.findByTopic(topic).orElse(null);
     }
 
+    /**
+     * Get the registrations of a topic by all the services providing it.
+     *
+     * @param topic the workflow topic
+     * @return the registrations, empty if the topic is not registered
+     */
+    public List<RegisteredWorkflow> getRegistrations(String topic) {
+        return repository.findAllByTopic(topic);
+    }
+
     /**
      * Unregister a service instance (called on shutdown).
      */
@@ -9,6 +9,7 @@
  *   <li>Payload management with change tracking</li>
  *   <li>Retry scheduling for failed workflows</li>
  *   <li>Workflow registry service</li>
+ *   <li>Join store of parallel step groups shared by the agents</li>
  * </ul>
  */
 package io.github.stepprflow.monitor.service;
@@ -37,6 +37,7 @@ public class WorkflowMessageFactory {
                 .payloadType(execution.getPayloadType())
                 .securityContext(execution.getSecurityContext())
                 .metadata(execution.getMetadata())
+                .executionAttempt(currentAttemptNumber(execution))
                 .createdAt(execution.getCreatedAt())
                 .updatedAt(Instant.now())
                 .build();
@@ -44,7 +45,8 @@ public class WorkflowMessageFactory {
 
     /**
      * Create a message for retrying a workflow execution.
-     * Uses the current step from the execution.
+     * Retries the step that failed, with its parallel group, falling back to the current step
+     * of executions persisted before the failed step was recorded.
      *
      * @param execution the workflow execution to retry
      * @return a new WorkflowMessage with IN_PROGRESS status and retry info
@@ -58,16 +60,25 @@ public class WorkflowMessageFactory {
                 .executionId(execution.getExecutionId())
                 .correlationId(execution.getCorrelationId())
                 .topic(execution.getTopic())
-                .currentStep(execution.getCurrentStep())
+                .currentStep(execution.getRetryStep() != null
+                        ? execution.getRetryStep() : execution.getCurrentStep())
+                .currentStepGroup(execution.getRetryStep() != null ? execution.getRetryStepGroup() : null)
                 .totalSteps(execution.getTotalSteps())
                 .status(WorkflowStatus.IN_PROGRESS)
                 .payload(execution.getPayload())
                 .payloadType(execution.getPayloadType())
                 .securityContext(execution.getSecurityContext())
                 .metadata(execution.getMetadata())
+                .executionAttempt(currentAttemptNumber(execution))
                 .retryInfo(execution.getRetryInfo())
                 .createdAt(execution.getCreatedAt())
                 .updatedAt(Instant.now())
                 .build();
     }
+
+    private static Integer currentAttemptNumber(WorkflowExecution execution) {
+        return execution.getCurrentAttempt()
+                .map(WorkflowExecution.ExecutionAttempt::getAttemptNumber)
+                .orElse(null);
+    }
 }
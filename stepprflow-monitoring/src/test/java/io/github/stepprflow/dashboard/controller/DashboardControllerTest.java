@@ -5,7 +5,8 @@ import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.core.service.WorkflowRegistry;
 import io.github.stepprflow.monitor.model.RegisteredWorkflow;
-import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
 import io.github.stepprflow.monitor.service.WorkflowQueryService;
 import io.github.stepprflow.monitor.service.WorkflowRegistryService;
 import io.github.stepprflow.dashboard.config.UiProperties;
@@ -35,7 +36,11 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -198,8 +203,8 @@ class DashboardControllerTest {
         void shouldIncludeRecentExecutions() {
             when(workflowRegistry.getAllDefinitions()).thenReturn(List.of());
 
-            List<WorkflowExecution> recentExecutions = List.of(
-                    WorkflowExecution.builder()
+            List<ExecutionSummaryDto> recentExecutions = List.of(
+                    ExecutionSummaryDto.builder()
                             .executionId("exec-123")
                             .topic("test-topic")
                             .status(WorkflowStatus.COMPLETED)
@@ -212,7 +217,7 @@ class DashboardControllerTest {
 
             assertThat(response.getBody()).containsKey("recentExecutions");
             @SuppressWarnings("unchecked")
-            List<WorkflowExecution> executions = (List<WorkflowExecution>) response.getBody().get("recentExecutions");
+            List<ExecutionSummaryDto> executions = (List<ExecutionSummaryDto>) response.getBody().get("recentExecutions");
             assertThat(executions).hasSize(1);
             assertThat(executions.get(0).getExecutionId()).isEqualTo("exec-123");
         }
@@ -677,8 +682,8 @@ class DashboardControllerTest {
         @Test
         @DisplayName("Should return paginated executions with defaults")
         void shouldReturnPaginatedExecutions() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(
-                    WorkflowExecution.builder()
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(
+                    ExecutionSummaryDto.builder()
                             .executionId("exec-1")
                             .topic("test-topic")
                             .status(WorkflowStatus.COMPLETED)
@@ -687,7 +692,7 @@ class DashboardControllerTest {
             when(queryService.findExecutions(eq(null), eq(null), any(PageRequest.class)))
                     .thenReturn(page);
 
-            ResponseEntity<Page<WorkflowExecution>> response = controller.listExecutions(
+            ResponseEntity<Page<ExecutionSummaryDto>> response = controller.listExecutions(
                     null, null, 0, 20, "createdAt", "desc");
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -698,7 +703,7 @@ class DashboardControllerTest {
         @Test
         @DisplayName("Should filter by statuses")
         void shouldFilterByStatuses() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of());
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of());
             when(queryService.findExecutions(eq(null), eq(List.of(WorkflowStatus.FAILED)), any(PageRequest.class)))
                     .thenReturn(page);
 
@@ -719,7 +724,7 @@ class DashboardControllerTest {
         @Test
         @DisplayName("Should clamp page and size values")
         void shouldClampPageAndSizeValues() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of());
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of());
             when(queryService.findExecutions(eq(null), eq(null), any(PageRequest.class)))
                     .thenReturn(page);
 
@@ -729,4 +734,54 @@ class DashboardControllerTest {
             // No exception means clamping worked
         }
     }
+
+    @Nested
+    @DisplayName("GET /executions/scroll")
+    class ScrollExecutionsTests {
+
+        @Test
+        @DisplayName("Should return the window after the cursor")
+        void shouldReturnWindowAfterCursor() {
+            ExecutionWindowDto window = ExecutionWindowDto.builder().content(List.of()).build();
+            when(queryService.scrollExecutions("test-topic", List.of(WorkflowStatus.FAILED), "cursor", 20,
+                    Sort.Direction.DESC, false)).thenReturn(window);
+
+            ResponseEntity<ExecutionWindowDto> response = controller.scrollExecutions(
+                    "test-topic", "FAILED", "cursor", 20, "desc", false);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(window);
+        }
+
+        @Test
+        @DisplayName("Should clamp the window size")
+        void shouldClampWindowSize() {
+            ExecutionWindowDto window = ExecutionWindowDto.builder().content(List.of()).build();
+            when(queryService.scrollExecutions(null, null, null, 100, Sort.Direction.ASC, false))
+                    .thenReturn(window);
+
+            assertThat(controller.scrollExecutions(null, null, null, 500, "asc", false).getBody())
+                    .isEqualTo(window);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /executions/search")
+    class SearchExecutionsTests {
+
+        @Test
+        @DisplayName("Should clamp the number of executions")
+        void shouldClampSize() {
+            when(queryService.searchExecutions(null, "ORD", true, 100)).thenReturn(List.of());
+
+            assertThat(controller.searchExecutions(null, "ORD", true, 500).getBody()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should not search a blank value")
+        void shouldNotSearchBlankValue() {
+            assertThat(controller.searchExecutions("orderId", " ", true, 20).getBody()).isEmpty();
+            verify(queryService, never()).searchExecutions(any(), any(), anyBoolean(), anyInt());
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package io.github.stepprflow.monitor.controller;
 
+import io.github.stepprflow.core.metrics.ClusterMetrics;
+import io.github.stepprflow.core.metrics.LatencySnapshot;
 import io.github.stepprflow.core.metrics.MetricsSummary;
+import io.github.stepprflow.core.metrics.WindowedMetrics;
 import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.monitor.dto.MetricsDashboard;
 import io.github.stepprflow.monitor.dto.WorkflowMetricsDto;
@@ -14,6 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -269,4 +274,122 @@ class MetricsControllerTest {
             assertThat(response.getBody().getSuccessRate()).isEqualTo(90.0);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("GET /api/metrics/{topic}/windows")
+    class GetWindowedMetrics {
+
+        @Test
+        @DisplayName("should return windowed metrics of a topic")
+        void shouldReturnWindowedMetricsOfTopic() {
+            // Given
+            LatencySnapshot snapshot = LatencySnapshot.builder()
+                    .window("5m").count(300).ratePerSecond(1.0).p99Ms(42.0).build();
+            WindowedMetrics windowed = WindowedMetrics.builder()
+                    .topic("order-workflow")
+                    .serviceName("order-service")
+                    .workflow(List.of(snapshot))
+                    .steps(Map.of("validate", List.of(snapshot)))
+                    .build();
+            when(workflowMetrics.getWindowedMetrics("order-workflow")).thenReturn(List.of(windowed));
+
+            // When
+            ResponseEntity<List<WindowedMetrics>> response = controller.getWindowedMetrics("order-workflow");
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).containsExactly(windowed);
+        }
+
+        @Test
+        @DisplayName("should return empty list when metrics are not available")
+        void shouldReturnEmptyListWhenMetricsNotAvailable() {
+            // Given
+            controller = new MetricsController(null);
+
+            // When
+            ResponseEntity<List<WindowedMetrics>> response = controller.getWindowedMetrics();
+
+            // Then
+            assertThat(response.getBody()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/metrics/cluster")
+    class GetClusterMetrics {
+
+        @Mock
+        private ClusterMetrics clusterMetrics;
+
+        @BeforeEach
+        void setUp() {
+            controller = new MetricsController(workflowMetrics, clusterMetrics);
+        }
+
+        @Test
+        @DisplayName("should return cluster dashboard merged from all agents")
+        void shouldReturnClusterDashboard() {
+            // Given
+            MetricsSummary global = MetricsSummary.builder()
+                    .topic("_global")
+                    .workflowsStarted(300)
+                    .workflowsCompleted(290)
+                    .workflowsActive(10)
+                    .build();
+            MetricsSummary summary = MetricsSummary.builder()
+                    .topic("order-workflow")
+                    .serviceName("order-service")
+                    .workflowsStarted(300)
+                    .workflowsCompleted(290)
+                    .workflowsActive(10)
+                    .avgWorkflowDurationMs(12.5)
+                    .build();
+            when(clusterMetrics.getGlobalSummary()).thenReturn(global);
+            when(clusterMetrics.getSummaries()).thenReturn(List.of(summary));
+
+            // When
+            ResponseEntity<MetricsDashboard> response = controller.getClusterMetricsDashboard();
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody().getTotalStarted()).isEqualTo(300);
+            assertThat(response.getBody().getTotalActive()).isEqualTo(10);
+            assertThat(response.getBody().getWorkflowMetrics()).hasSize(1);
+            WorkflowMetricsDto dto = response.getBody().getWorkflowMetrics().get(0);
+            assertThat(dto.getTopic()).isEqualTo("order-workflow");
+            assertThat(dto.getServiceName()).isEqualTo("order-service");
+            assertThat(dto.getCompleted()).isEqualTo(290);
+            assertThat(dto.getAvgDurationMs()).isEqualTo(12.5);
+        }
+
+        @Test
+        @DisplayName("should return cluster windowed metrics")
+        void shouldReturnClusterWindowedMetrics() {
+            // Given
+            WindowedMetrics windowed = WindowedMetrics.builder()
+                    .topic("order-workflow")
+                    .serviceName("order-service")
+                    .workflow(List.of(LatencySnapshot.builder().window("1m").count(60).build()))
+                    .build();
+            when(clusterMetrics.getWindowedMetrics()).thenReturn(List.of(windowed));
+
+            // When
+            ResponseEntity<List<WindowedMetrics>> response = controller.getClusterWindowedMetrics();
+
+            // Then
+            assertThat(response.getBody()).containsExactly(windowed);
+        }
+
+        @Test
+        @DisplayName("should return empty cluster metrics when not available")
+        void shouldReturnEmptyClusterMetricsWhenNotAvailable() {
+            // Given
+            controller = new MetricsController(workflowMetrics, null);
+
+            // When / Then
+            assertThat(controller.getClusterMetricsDashboard().getBody().getWorkflowMetrics()).isEmpty();
+            assertThat(controller.getClusterWindowedMetrics().getBody()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.stepprflow.monitor.controller;
+
+import io.github.stepprflow.monitor.dto.RollupPointDto;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
+import io.github.stepprflow.monitor.rollup.RollupResolution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RollupController Tests")
+class RollupControllerTest {
+
+    @Mock
+    private ExecutionRollupService rollupService;
+
+    private RollupController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new RollupController(rollupService);
+    }
+
+    @Test
+    @DisplayName("Should return the rollups of the range")
+    void shouldReturnRollupsOfRange() {
+        Instant from = Instant.parse("2025-01-01T00:00:00Z");
+        Instant to = Instant.parse("2025-01-08T00:00:00Z");
+        List<RollupPointDto> points = List.of(RollupPointDto.builder().timestamp(from).completed(3).build());
+        when(rollupService.query("order", 2, RollupResolution.DAY, from, to)).thenReturn(points);
+
+        ResponseEntity<List<RollupPointDto>> response = controller.getRollups("order", 2, RollupResolution.DAY,
+                from, to);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(points);
+    }
+
+    @Test
+    @DisplayName("Should default to the last day")
+    void shouldDefaultToLastDay() {
+        ArgumentCaptor<Instant> fromCaptor = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> toCaptor = ArgumentCaptor.forClass(Instant.class);
+        when(rollupService.query(eq("order"), isNull(), eq(RollupResolution.HOUR), any(Instant.class),
+                any(Instant.class))).thenReturn(List.of());
+
+        controller.getRollups("order", null, RollupResolution.HOUR, null, null);
+
+        verify(rollupService).query(eq("order"), isNull(), eq(RollupResolution.HOUR), fromCaptor.capture(),
+                toCaptor.capture());
+        assertThat(Duration.between(fromCaptor.getValue(), toCaptor.getValue())).isEqualTo(Duration.ofDays(1));
+    }
+}
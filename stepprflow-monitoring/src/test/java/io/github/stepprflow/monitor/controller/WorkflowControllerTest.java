@@ -1,6 +1,9 @@
 package io.github.stepprflow.monitor.controller;
 
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
+import io.github.stepprflow.monitor.dto.LatencyBreakdownDto;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.service.PayloadManagementService;
 import io.github.stepprflow.monitor.service.WorkflowCommandService;
@@ -97,11 +100,11 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should return paginated executions with default params")
         void shouldReturnPaginatedExecutionsWithDefaultParams() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(testExecution));
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(ExecutionSummaryDto.from(testExecution)));
             when(queryService.findExecutions(eq(null), eq(null), any(PageRequest.class)))
                     .thenReturn(page);
 
-            ResponseEntity<Page<WorkflowExecution>> response = controller.listExecutions(
+            ResponseEntity<Page<ExecutionSummaryDto>> response = controller.listExecutions(
                     null, null, 0, 20, "createdAt", "desc");
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -112,11 +115,11 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should filter by topic")
         void shouldFilterByTopic() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(testExecution));
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(ExecutionSummaryDto.from(testExecution)));
             when(queryService.findExecutions(eq("test-topic"), eq(null), any(PageRequest.class)))
                     .thenReturn(page);
 
-            ResponseEntity<Page<WorkflowExecution>> response = controller.listExecutions(
+            ResponseEntity<Page<ExecutionSummaryDto>> response = controller.listExecutions(
                     "test-topic", null, 0, 20, "createdAt", "desc");
 
             verify(queryService).findExecutions(eq("test-topic"), eq(null), any(PageRequest.class));
@@ -125,11 +128,11 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should filter by status")
         void shouldFilterByStatus() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(testExecution));
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(ExecutionSummaryDto.from(testExecution)));
             when(queryService.findExecutions(eq(null), eq(List.of(WorkflowStatus.FAILED)), any(PageRequest.class)))
                     .thenReturn(page);
 
-            ResponseEntity<Page<WorkflowExecution>> response = controller.listExecutions(
+            ResponseEntity<Page<ExecutionSummaryDto>> response = controller.listExecutions(
                     null, "FAILED", 0, 20, "createdAt", "DESC");
 
             verify(queryService).findExecutions(eq(null), eq(List.of(WorkflowStatus.FAILED)), any(PageRequest.class));
@@ -138,11 +141,11 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should filter by topic and status")
         void shouldFilterByTopicAndStatus() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(testExecution));
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(ExecutionSummaryDto.from(testExecution)));
             when(queryService.findExecutions(eq("test-topic"), eq(List.of(WorkflowStatus.COMPLETED)), any(PageRequest.class)))
                     .thenReturn(page);
 
-            ResponseEntity<Page<WorkflowExecution>> response = controller.listExecutions(
+            ResponseEntity<Page<ExecutionSummaryDto>> response = controller.listExecutions(
                     "test-topic", "COMPLETED", 0, 20, "createdAt", "desc");
 
             verify(queryService).findExecutions(eq("test-topic"), eq(List.of(WorkflowStatus.COMPLETED)), any(PageRequest.class));
@@ -151,7 +154,7 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should apply pagination params")
         void shouldApplyPaginationParams() {
-            Page<WorkflowExecution> page = new PageImpl<>(List.of(testExecution));
+            Page<ExecutionSummaryDto> page = new PageImpl<>(List.of(ExecutionSummaryDto.from(testExecution)));
             when(queryService.findExecutions(any(), any(), any(PageRequest.class)))
                     .thenReturn(page);
 
@@ -162,6 +165,58 @@ class WorkflowControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /scroll")
+    class ScrollExecutionsTests {
+
+        @Test
+        @DisplayName("Should return the window after the cursor")
+        void shouldReturnWindowAfterCursor() {
+            ExecutionWindowDto window = ExecutionWindowDto.builder()
+                    .content(List.of(ExecutionSummaryDto.from(testExecution)))
+                    .nextCursor("next")
+                    .build();
+            when(queryService.scrollExecutions("test-topic", List.of(WorkflowStatus.FAILED), "cursor", 50,
+                    Sort.Direction.DESC, false)).thenReturn(window);
+
+            ResponseEntity<ExecutionWindowDto> response = controller.scrollExecutions(
+                    "test-topic", "FAILED", "cursor", 50, "desc", false);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(window);
+        }
+
+        @Test
+        @DisplayName("Should read the first window without cursor")
+        void shouldReadFirstWindowWithoutCursor() {
+            when(queryService.scrollExecutions(null, null, null, 20, Sort.Direction.ASC, true))
+                    .thenReturn(ExecutionWindowDto.builder().content(List.of()).total(0L).build());
+
+            ResponseEntity<ExecutionWindowDto> response = controller.scrollExecutions(
+                    null, null, null, 20, "asc", true);
+
+            assertThat(response.getBody().getTotal()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /search")
+    class SearchExecutionsTests {
+
+        @Test
+        @DisplayName("Should return the executions matching the search key")
+        void shouldReturnMatchingExecutions() {
+            List<ExecutionSummaryDto> executions = List.of(ExecutionSummaryDto.from(testExecution));
+            when(queryService.searchExecutions("orderId", "ORD-1", true, 20)).thenReturn(executions);
+
+            ResponseEntity<List<ExecutionSummaryDto>> response = controller.searchExecutions(
+                    "orderId", "ORD-1", true, 20);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(executions);
+        }
+    }
+
     @Nested
     @DisplayName("GET /recent")
     class GetRecentExecutionsTests {
@@ -169,13 +224,13 @@ class WorkflowControllerTest {
         @Test
         @DisplayName("Should return recent executions")
         void shouldReturnRecentExecutions() {
-            List<WorkflowExecution> recentExecutions = List.of(
-                    testExecution,
-                    WorkflowExecution.builder().executionId("exec-456").build()
+            List<ExecutionSummaryDto> recentExecutions = List.of(
+                    ExecutionSummaryDto.from(testExecution),
+                    ExecutionSummaryDto.builder().executionId("exec-456").build()
             );
             when(queryService.getRecentExecutions()).thenReturn(recentExecutions);
 
-            ResponseEntity<List<WorkflowExecution>> response = controller.getRecentExecutions();
+            ResponseEntity<List<ExecutionSummaryDto>> response = controller.getRecentExecutions();
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).hasSize(2);
@@ -186,13 +241,35 @@ class WorkflowControllerTest {
         void shouldReturnEmptyListWhenNoRecentExecutions() {
             when(queryService.getRecentExecutions()).thenReturn(List.of());
 
-            ResponseEntity<List<WorkflowExecution>> response = controller.getRecentExecutions();
+            ResponseEntity<List<ExecutionSummaryDto>> response = controller.getRecentExecutions();
 
             assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
             assertThat(response.getBody()).isEmpty();
         }
     }
 
+    @Nested
+    @DisplayName("GET /latency")
+    class GetLatencyBreakdownTests {
+
+        @Test
+        @DisplayName("Should return the latency breakdown of the topic")
+        void shouldReturnLatencyBreakdown() {
+            LatencyBreakdownDto breakdown = LatencyBreakdownDto.builder()
+                    .topic("test-topic")
+                    .executions(3)
+                    .avgQueuedMs(120.0)
+                    .steps(List.of())
+                    .build();
+            when(queryService.getLatencyBreakdown("test-topic")).thenReturn(breakdown);
+
+            ResponseEntity<LatencyBreakdownDto> response = controller.getLatencyBreakdown("test-topic");
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isSameAs(breakdown);
+        }
+    }
+
     @Nested
     @DisplayName("GET /stats")
     class GetStatisticsTests {
@@ -0,0 +1,125 @@
+package io.github.stepprflow.monitor.integration;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.github.stepprflow.monitor.outbox.OutboxMessage;
+import io.github.stepprflow.monitor.outbox.OutboxMessage.OutboxStatus;
+import io.github.stepprflow.monitor.outbox.OutboxRelayService;
+import io.github.stepprflow.monitor.service.ChangeStreamWakeUpService;
+import io.github.stepprflow.monitor.service.RetrySchedulerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs against the single-node replica set of the MongoDB Testcontainer, change streams
+ * being unavailable on a standalone server.
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+@Testcontainers
+@EnableConfigurationProperties(MonitorProperties.class)
+@Import(ChangeStreamWakeUpService.class)
+@TestPropertySource(properties = "stepprflow.monitor.change-streams.enabled=true")
+@DisplayName("Change Stream Wake-up MongoDB Integration Tests")
+class ChangeStreamWakeUpIT extends MongoDBTestContainerConfig {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static boolean watching;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @MockBean
+    private OutboxRelayService outboxRelay;
+
+    @MockBean
+    private RetrySchedulerService retryScheduler;
+
+    @BeforeEach
+    void setUp() {
+        if (!watching) {
+            // Each watcher wakes its component up once its change stream is open
+            verify(outboxRelay, timeout(TIMEOUT_MS)).wakeUp();
+            verify(retryScheduler, timeout(TIMEOUT_MS)).wakeUp();
+            watching = true;
+        }
+        clearInvocations(outboxRelay, retryScheduler);
+    }
+
+    private WorkflowExecution execution(WorkflowStatus status) {
+        return WorkflowExecution.builder()
+                .executionId(UUID.randomUUID().toString())
+                .topic("test-topic")
+                .status(status)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should wake the outbox relay up on a new outbox message")
+    void shouldWakeRelayOnNewMessage() {
+        mongoTemplate.insert(OutboxMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .destination("test-topic")
+                .status(OutboxStatus.PENDING)
+                .maxAttempts(3)
+                .createdAt(Instant.now())
+                .build());
+
+        verify(outboxRelay, timeout(TIMEOUT_MS)).wakeUp();
+    }
+
+    @Test
+    @DisplayName("Should wake the retry scheduler up when an execution is scheduled for retry")
+    void shouldWakeSchedulerOnRetryPending() {
+        WorkflowExecution execution = mongoTemplate.insert(execution(WorkflowStatus.IN_PROGRESS));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("executionId").is(execution.getExecutionId())),
+                new Update().set("status", WorkflowStatus.RETRY_PENDING), WorkflowExecution.class);
+
+        verify(retryScheduler, timeout(TIMEOUT_MS)).wakeUp();
+    }
+
+    @Test
+    @DisplayName("Should wake the retry scheduler up on an execution inserted for retry")
+    void shouldWakeSchedulerOnRetryPendingInsert() {
+        mongoTemplate.insert(execution(WorkflowStatus.RETRY_PENDING));
+
+        verify(retryScheduler, timeout(TIMEOUT_MS)).wakeUp();
+    }
+
+    @Test
+    @DisplayName("Should not wake the retry scheduler up on other execution changes")
+    void shouldIgnoreOtherExecutionChanges() {
+        WorkflowExecution execution = mongoTemplate.insert(execution(WorkflowStatus.IN_PROGRESS));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("executionId").is(execution.getExecutionId())),
+                new Update().set("status", WorkflowStatus.COMPLETED), WorkflowExecution.class);
+
+        verify(retryScheduler, after(1000).never()).wakeUp();
+        verify(outboxRelay, never()).wakeUp();
+    }
+}
@@ -0,0 +1,618 @@
+package io.github.stepprflow.monitor.integration;
+
+import io.github.stepprflow.core.model.ErrorInfo;
+import io.github.stepprflow.core.model.RetryInfo;
+import io.github.stepprflow.core.model.StepTiming;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.model.WorkflowDefinition;
+import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.util.NestedPathResolver;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.RollupPointDto;
+import io.github.stepprflow.monitor.model.ExecutionCounter;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
+import io.github.stepprflow.monitor.rollup.RollupResolution;
+import io.github.stepprflow.monitor.service.ExecutionCounterService;
+import io.github.stepprflow.monitor.service.ExecutionPersistenceService;
+import io.github.stepprflow.monitor.service.SearchKeyService;
+import io.github.stepprflow.monitor.service.WorkflowQueryService;
+import io.github.stepprflow.monitor.service.WorkflowRegistryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Testcontainers
+@EnableMongoRepositories(basePackageClasses = WorkflowExecutionRepository.class)
+@EnableConfigurationProperties(MonitorProperties.class)
+@Import({ExecutionPersistenceService.class, ExecutionCounterService.class, ExecutionRollupService.class,
+        SearchKeyService.class, WorkflowRegistryService.class, WorkflowQueryService.class, NestedPathResolver.class})
+@DisplayName("Execution Persistence MongoDB Integration Tests")
+class ExecutionPersistenceIT extends MongoDBTestContainerConfig {
+
+    @Autowired
+    private ExecutionPersistenceService persistenceService;
+
+    @Autowired
+    private WorkflowExecutionRepository repository;
+
+    @Autowired
+    private ExecutionCounterService executionCounters;
+
+    @Autowired
+    private ExecutionRollupService executionRollups;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkflowQueryService queryService;
+
+    @MockBean
+    private WorkflowRegistry workflowRegistry;
+
+    private WorkflowMessage testMessage;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        mongoTemplate.remove(new Query(), ExecutionCounter.class);
+        // Drop the rollups of the previous tests
+        executionRollups.shutdown();
+        mongoTemplate.remove(new Query(), RollupResolution.MINUTE.getCollection());
+        testMessage = WorkflowMessage.builder()
+                .executionId("exec-123")
+                .correlationId("corr-456")
+                .topic("test-topic")
+                .currentStep(1)
+                .totalSteps(3)
+                .status(WorkflowStatus.IN_PROGRESS)
+                .payload(Map.of("key", "value"))
+                .payloadType("java.util.Map")
+                .securityContext("token-abc")
+                .metadata(Map.of("user", "test-user"))
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private WorkflowExecution persist(WorkflowMessage message) {
+        persistenceService.onWorkflowMessage(message);
+        persistenceService.flush();
+        return repository.findById(message.getExecutionId()).orElseThrow();
+    }
+
+    private WorkflowExecution existing(List<WorkflowExecution.StepExecution> steps) {
+        return repository.save(WorkflowExecution.builder()
+                .executionId("exec-123")
+                .topic("test-topic")
+                .status(WorkflowStatus.IN_PROGRESS)
+                .currentStep(1)
+                .stepHistory(new ArrayList<>(steps))
+                .build());
+    }
+
+    private WorkflowExecution.StepExecution step(int stepId, WorkflowStatus status, Instant startedAt) {
+        return WorkflowExecution.StepExecution.builder()
+                .stepId(stepId)
+                .startedAt(startedAt)
+                .status(status)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Execution fields")
+    class ExecutionFieldsTests {
+
+        @Test
+        @DisplayName("Should create new execution for new message")
+        void shouldCreateNewExecutionForNewMessage() {
+            WorkflowExecution saved = persist(testMessage);
+
+            assertThat(saved.getExecutionId()).isEqualTo("exec-123");
+            assertThat(saved.getCorrelationId()).isEqualTo("corr-456");
+            assertThat(saved.getTopic()).isEqualTo("test-topic");
+            assertThat(saved.getTotalSteps()).isEqualTo(3);
+            assertThat(saved.getPayload()).isEqualTo(testMessage.getPayload());
+            assertThat(saved.getPayloadType()).isEqualTo("java.util.Map");
+            assertThat(saved.getSecurityContext()).isEqualTo("token-abc");
+            assertThat(saved.getMetadata()).isEqualTo(testMessage.getMetadata());
+            assertThat(saved.getUpdatedAt()).isNotNull();
+            assertThat(saved.getVersion()).isZero();
+            assertThat(saved.getExecutionAttempts()).hasSize(1);
+            assertThat(saved.getExecutionAttempts().get(0).getAttemptNumber()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should update existing execution without overwriting its creation fields")
+        void shouldUpdateExistingExecution() {
+            WorkflowExecution existing = existing(List.of());
+
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .currentStep(2)
+                    .correlationId("other")
+                    .build());
+
+            assertThat(saved.getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+            assertThat(saved.getCurrentStep()).isEqualTo(2);
+            assertThat(saved.getCorrelationId()).isNull();
+            assertThat(saved.getVersion()).isEqualTo(existing.getVersion() + 1);
+        }
+
+        @Test
+        @DisplayName("Should store values starting with '$' as they are")
+        void shouldStoreDollarValues() {
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .correlationId("$topic")
+                    .currentStepLabel("$$NOW")
+                    .build());
+
+            assertThat(saved.getCorrelationId()).isEqualTo("$topic");
+            assertThat(saved.getStepHistory().get(0).getStepLabel()).isEqualTo("$$NOW");
+        }
+
+        @Test
+        @DisplayName("Should update retry info and error info")
+        void shouldUpdateRetryAndErrorInfo() {
+            RetryInfo retryInfo = RetryInfo.builder()
+                    .attempt(2)
+                    .maxAttempts(3)
+                    .nextRetryAt(Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.MILLIS))
+                    .lastError("Previous error")
+                    .build();
+            ErrorInfo errorInfo = ErrorInfo.builder()
+                    .code("ERR_001")
+                    .message("Something went wrong")
+                    .exceptionType("java.lang.RuntimeException")
+                    .build();
+
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .retryInfo(retryInfo)
+                    .errorInfo(errorInfo)
+                    .build());
+
+            assertThat(saved.getRetryInfo()).isEqualTo(retryInfo);
+            assertThat(saved.getErrorInfo()).isEqualTo(errorInfo);
+        }
+
+        @Test
+        @DisplayName("Should use message createdAt if present, else the current time")
+        void shouldSetCreatedAt() {
+            Instant messageCreatedAt = Instant.parse("2024-01-15T10:00:00Z");
+            assertThat(persist(testMessage.toBuilder().createdAt(messageCreatedAt).build()).getCreatedAt())
+                    .isEqualTo(messageCreatedAt);
+
+            Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .executionId("exec-456")
+                    .createdAt(null)
+                    .build());
+            assertThat(saved.getCreatedAt()).isBetween(before, Instant.now().plusMillis(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Write-behind")
+    class WriteBehindTests {
+
+        @Test
+        @DisplayName("Should apply the chained messages of an execution in order")
+        void shouldApplyChainedMessagesInOrder() {
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.PENDING).build());
+            persistenceService.onWorkflowMessage(testMessage);
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().currentStep(2).build());
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().executionId("exec-456").build());
+
+            assertThat(repository.count()).isZero();
+            persistenceService.flush();
+
+            WorkflowExecution saved = repository.findById("exec-123").orElseThrow();
+            assertThat(saved.getVersion()).isEqualTo(2);
+            assertThat(saved.getCorrelationId()).isEqualTo("corr-456");
+            assertThat(saved.getExecutionAttempts()).hasSize(1);
+            assertThat(saved.getStepHistory()).extracting(WorkflowExecution.StepExecution::getStatus)
+                    .containsExactly(WorkflowStatus.PASSED, WorkflowStatus.IN_PROGRESS);
+            assertThat(repository.findById("exec-456")).isPresent();
+        }
+
+        @Test
+        @DisplayName("Should write on a terminal status without waiting for the window")
+        void shouldWriteOnTerminalStatus() {
+            persistenceService.onWorkflowMessage(testMessage);
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.COMPLETED).build());
+
+            WorkflowExecution saved = repository.findById("exec-123").orElseThrow();
+            assertThat(saved.getStatus()).isEqualTo(WorkflowStatus.COMPLETED);
+            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.COMPLETED);
+        }
+    }
+
+    @Nested
+    @DisplayName("Completion handling")
+    class CompletionHandlingTests {
+
+        @Test
+        @DisplayName("Should set completedAt and duration on completion")
+        void shouldCalculateDurationOnCompletion() {
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.COMPLETED)
+                    .createdAt(Instant.now().minusSeconds(10))
+                    .build());
+
+            assertThat(saved.getCompletedAt()).isNotNull();
+            assertThat(saved.getDurationMs()).isBetween(9000L, 15000L);
+        }
+
+        @Test
+        @DisplayName("Should set completedAt for CANCELLED status without touching step history")
+        void shouldSetCompletedAtForCancelledStatus() {
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.CANCELLED)
+                    .build());
+
+            assertThat(saved.getCompletedAt()).isNotNull();
+            assertThat(saved.getStepHistory()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should finalize the current execution attempt once")
+        void shouldFinalizeExecutionAttemptOnCompletion() {
+            persist(testMessage);
+            ErrorInfo errorInfo = ErrorInfo.builder().message("Workflow failed at step 2").build();
+
+            WorkflowExecution failed = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.FAILED)
+                    .currentStep(2)
+                    .errorInfo(errorInfo)
+                    .build());
+            WorkflowExecution.ExecutionAttempt attempt = failed.getExecutionAttempts().get(0);
+            assertThat(attempt.getEndedAt()).isNotNull();
+            assertThat(attempt.getResult()).isEqualTo(WorkflowStatus.FAILED);
+            assertThat(attempt.getEndStep()).isEqualTo(2);
+            assertThat(attempt.getErrorMessage()).isEqualTo("Workflow failed at step 2");
+
+            WorkflowExecution cancelled = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.CANCELLED)
+                    .currentStep(3)
+                    .build());
+            assertThat(cancelled.getExecutionAttempts().get(0).getResult()).isEqualTo(WorkflowStatus.FAILED);
+            assertThat(cancelled.getExecutionAttempts().get(0).getEndStep()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Step history tracking")
+    class StepHistoryTrackingTests {
+
+        @Test
+        @DisplayName("Should add the current step once")
+        void shouldAddCurrentStepOnce() {
+            persist(testMessage.toBuilder().status(WorkflowStatus.PENDING).build());
+            WorkflowExecution saved = persist(testMessage);
+
+            assertThat(saved.getStepHistory()).hasSize(1);
+            assertThat(saved.getStepHistory().get(0).getStepId()).isEqualTo(1);
+            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+            assertThat(saved.getStepHistory().get(0).getAttempt()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should add step to history for RETRY_PENDING status")
+        void shouldAddStepToHistoryForRetryPendingStatus() {
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.RETRY_PENDING)
+                    .build());
+
+            assertThat(saved.getStepHistory()).hasSize(1);
+            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.RETRY_PENDING);
+        }
+
+        @Test
+        @DisplayName("Should mark previous steps as PASSED when advancing to next step")
+        void shouldMarkPreviousStepsAsPassedWhenAdvancing() {
+            existing(List.of(step(1, WorkflowStatus.IN_PROGRESS, Instant.now().minusSeconds(10))));
+
+            WorkflowExecution saved = persist(testMessage.toBuilder().currentStep(2).build());
+
+            WorkflowExecution.StepExecution step1 = saved.findStepByStepId(1).orElseThrow();
+            assertThat(step1.getStatus()).isEqualTo(WorkflowStatus.PASSED);
+            assertThat(step1.getCompletedAt()).isNotNull();
+            assertThat(step1.getDurationMs()).isGreaterThanOrEqualTo(10000L);
+            assertThat(saved.findStepByStepId(2).orElseThrow().getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+        }
+
+        @Test
+        @DisplayName("Should leave the other branches of a parallel group running")
+        void shouldLeaveParallelBranchesRunning() {
+            WorkflowExecution.StepExecution branch = step(1, WorkflowStatus.IN_PROGRESS, Instant.now());
+            branch.setGroup("fan-out");
+            existing(List.of(branch));
+
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .currentStep(2)
+                    .currentStepGroup("fan-out")
+                    .build());
+
+            assertThat(saved.findStepByStepId(1).orElseThrow().getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+            assertThat(saved.findStepByStepId(2).orElseThrow().getGroup()).isEqualTo("fan-out");
+        }
+
+        @Test
+        @DisplayName("Should complete an existing step with its duration")
+        void shouldUpdateExistingStepInHistory() {
+            existing(List.of(step(1, WorkflowStatus.IN_PROGRESS, Instant.now().minusSeconds(5))));
+
+            WorkflowExecution saved = persist(testMessage.toBuilder().status(WorkflowStatus.COMPLETED).build());
+
+            assertThat(saved.getStepHistory()).hasSize(1);
+            WorkflowExecution.StepExecution step1 = saved.getStepHistory().get(0);
+            assertThat(step1.getStatus()).isEqualTo(WorkflowStatus.COMPLETED);
+            assertThat(step1.getCompletedAt()).isNotNull();
+            assertThat(step1.getDurationMs()).isGreaterThanOrEqualTo(5000L).isLessThan(10000L);
+        }
+
+        @Test
+        @DisplayName("Should not calculate step duration when startedAt is null")
+        void shouldNotCalculateStepDurationWhenStartedAtIsNull() {
+            existing(List.of(step(1, WorkflowStatus.IN_PROGRESS, null)));
+
+            WorkflowExecution saved = persist(testMessage.toBuilder().status(WorkflowStatus.FAILED).build());
+
+            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.FAILED);
+            assertThat(saved.getStepHistory().get(0).getDurationMs()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should record error message and retry attempt in step history")
+        void shouldRecordErrorAndAttemptInStepHistory() {
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.FAILED)
+                    .errorInfo(ErrorInfo.builder().message("Step failed with error").build())
+                    .retryInfo(RetryInfo.builder().attempt(3).maxAttempts(5).build())
+                    .build());
+
+            assertThat(saved.getStepHistory().get(0).getErrorMessage()).isEqualTo("Step failed with error");
+            assertThat(saved.getStepHistory().get(0).getAttempt()).isEqualTo(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Latency breakdown")
+    class LatencyBreakdownTests {
+
+        private final Instant startedAt = Instant.now().minusSeconds(5).truncatedTo(ChronoUnit.MILLIS);
+
+        @Test
+        @DisplayName("Should record the agent-reported timing on the step it reports on")
+        void shouldRecordTimingOnReportedStep() {
+            existing(List.of(step(1, WorkflowStatus.IN_PROGRESS, startedAt.minusSeconds(1))));
+
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .currentStep(2)
+                    .stepTiming(timing(startedAt.minusMillis(200), startedAt, 500))
+                    .updatedAt(Instant.now().minusMillis(50))
+                    .build());
+
+            WorkflowExecution.LatencyBreakdown step1 = saved.findStepByStepId(1).orElseThrow().getLatency();
+            assertThat(step1.getQueuedMs()).isEqualTo(200);
+            assertThat(step1.getExecutingMs()).isEqualTo(500);
+            assertThat(step1.getPipelineMs()).isGreaterThanOrEqualTo(50);
+            assertThat(saved.findStepByStepId(2).orElseThrow().getLatency()).isNull();
+            assertThat(saved.getLatency().getQueuedMs()).isEqualTo(200);
+            assertThat(saved.getLatency().getExecutingMs()).isEqualTo(500);
+        }
+
+        @Test
+        @DisplayName("Should add the wait between a failure and the dispatch of its retry")
+        void shouldAddRetryWait() {
+            Instant failedAt = startedAt.minusSeconds(30);
+            persist(testMessage.toBuilder()
+                    .status(WorkflowStatus.RETRY_PENDING)
+                    .updatedAt(failedAt)
+                    .build());
+
+            WorkflowExecution saved = persist(testMessage.toBuilder()
+                    .currentStep(2)
+                    .stepTiming(timing(failedAt.plusSeconds(20), startedAt, 100))
+                    .build());
+
+            WorkflowExecution.StepExecution step1 = saved.findStepByStepId(1).orElseThrow();
+            assertThat(step1.getLatency().getRetryWaitMs()).isEqualTo(20_000);
+            assertThat(step1.getRetryPendingSince()).isNull();
+            assertThat(saved.getLatency().getRetryWaitMs()).isEqualTo(20_000);
+        }
+
+        @Test
+        @DisplayName("Should apply a report repeated by parallel branches once")
+        void shouldApplyRepeatedReportOnce() {
+            existing(List.of(step(1, WorkflowStatus.IN_PROGRESS, startedAt.minusSeconds(1))));
+            testMessage = testMessage.toBuilder()
+                    .currentStep(2)
+                    .stepTiming(timing(startedAt.minusMillis(200), startedAt, 500))
+                    .build();
+
+            persist(testMessage);
+            WorkflowExecution saved = persist(testMessage.toBuilder().currentStep(3).build());
+
+            assertThat(saved.findStepByStepId(1).orElseThrow().getLatency().getExecutingMs()).isEqualTo(500);
+            assertThat(saved.getLatency().getExecutingMs()).isEqualTo(500);
+        }
+
+        private StepTiming timing(Instant sentAt, Instant runStartedAt, long executionMs) {
+            StepTiming timing = StepTiming.start(1, sentAt, runStartedAt);
+            timing.setExecutionMs(executionMs);
+            return timing;
+        }
+    }
+
+    @Nested
+    @DisplayName("Execution counters")
+    class ExecutionCountersTests {
+
+        @Test
+        @DisplayName("Should count a new execution in its status")
+        void shouldCountNewExecution() {
+            persist(testMessage);
+
+            assertThat(executionCounters.getCounts()).containsExactlyEntriesOf(Map.of(WorkflowStatus.IN_PROGRESS, 1L));
+        }
+
+        @Test
+        @DisplayName("Should move an execution to the counter of its new status")
+        void shouldMoveExecutionOnTransition() {
+            persist(testMessage);
+            persist(testMessage.toBuilder().status(WorkflowStatus.COMPLETED).build());
+            persist(testMessage.toBuilder().executionId("exec-456").build());
+
+            assertThat(executionCounters.getCounts())
+                    .containsEntry(WorkflowStatus.IN_PROGRESS, 1L)
+                    .containsEntry(WorkflowStatus.COMPLETED, 1L);
+        }
+
+        @Test
+        @DisplayName("Should count the last status of messages coalesced in one write")
+        void shouldCountCoalescedMessagesOnce() {
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.PENDING).build());
+            persistenceService.onWorkflowMessage(testMessage);
+            persistenceService.flush();
+
+            assertThat(executionCounters.getCounts()).containsExactlyEntriesOf(Map.of(WorkflowStatus.IN_PROGRESS, 1L));
+        }
+
+        @Test
+        @DisplayName("Should rebuild the counters from the executions")
+        void shouldRebuildCounters() {
+            existing(List.of());
+            mongoTemplate.save(ExecutionCounter.builder()
+                    .id(ExecutionCounter.idOf("test-topic", WorkflowStatus.FAILED))
+                    .topic("test-topic")
+                    .status(WorkflowStatus.FAILED)
+                    .count(5)
+                    .build());
+
+            executionCounters.reconcile();
+
+            assertThat(executionCounters.getCounts()).containsExactlyEntriesOf(Map.of(WorkflowStatus.IN_PROGRESS, 1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("Execution rollups")
+    class ExecutionRollupsTests {
+
+        private final Instant now = Instant.now();
+
+        private List<RollupPointDto> minutes(Integer stepId) {
+            // Writes the rollups of the current minute as well
+            executionRollups.shutdown();
+            return executionRollups.query("test-topic", stepId, RollupResolution.MINUTE,
+                    now.minus(1, ChronoUnit.HOURS), now.plus(1, ChronoUnit.HOURS));
+        }
+
+        @Test
+        @DisplayName("Should roll up completed and failed executions")
+        void shouldRollUpExecutions() {
+            persist(testMessage.toBuilder().status(WorkflowStatus.COMPLETED)
+                    .createdAt(now.minusSeconds(2)).updatedAt(now).build());
+            persist(testMessage.toBuilder().executionId("exec-456").status(WorkflowStatus.FAILED)
+                    .createdAt(now.minusSeconds(4)).updatedAt(now).build());
+
+            List<RollupPointDto> points = minutes(null);
+
+            assertThat(points.stream().mapToLong(RollupPointDto::getCompleted).sum()).isEqualTo(1);
+            assertThat(points.stream().mapToLong(RollupPointDto::getFailed).sum()).isEqualTo(1);
+            assertThat(points.stream().mapToDouble(RollupPointDto::getMaxDurationMs).max().orElseThrow())
+                    .isGreaterThanOrEqualTo(4000);
+        }
+
+        @Test
+        @DisplayName("Should roll up the step runs reported by the messages")
+        void shouldRollUpStepRuns() {
+            StepTiming timing = StepTiming.start(1, now.minusSeconds(2), now.minusSeconds(1));
+            timing.setExecutionMs(300);
+            persist(testMessage.toBuilder().currentStep(2).stepTiming(timing).build());
+
+            List<RollupPointDto> points = minutes(1);
+
+            assertThat(points).hasSize(1);
+            assertThat(points.get(0).getCompleted()).isEqualTo(1);
+            assertThat(points.get(0).getFailed()).isZero();
+            assertThat(points.get(0).getMaxDurationMs()).isEqualTo(300.0);
+            assertThat(minutes(null)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Search keys")
+    class SearchKeysTests {
+
+        @BeforeEach
+        void setUp() {
+            // A topic of its own, the search key paths of each topic being cached
+            when(workflowRegistry.getDefinition("order-topic")).thenReturn(WorkflowDefinition.builder()
+                    .topic("order-topic")
+                    .searchKeys(List.of("orderId", "customer.id"))
+                    .build());
+        }
+
+        private WorkflowMessage order(String executionId, String orderId) {
+            return testMessage.toBuilder()
+                    .executionId(executionId)
+                    .topic("order-topic")
+                    .payload(Map.of("orderId", orderId, "customer", Map.of("id", "C-1")))
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Should extract the search keys of the payload")
+        void shouldExtractSearchKeys() {
+            WorkflowExecution saved = persist(order("exec-1", "ORD-100"));
+
+            assertThat(saved.getSearchKeys()).containsExactly(
+                    new WorkflowExecution.SearchKey("orderId", "ORD-100"),
+                    new WorkflowExecution.SearchKey("customer.id", "C-1"));
+        }
+
+        @Test
+        @DisplayName("Should find executions by exact value and by prefix")
+        void shouldSearchExecutions() {
+            persist(order("exec-1", "ORD-100"));
+            persist(order("exec-2", "ORD-101"));
+            persist(order("exec-3", "ORD.200"));
+
+            assertThat(queryService.searchExecutions("orderId", "ORD-100", false, 20))
+                    .extracting(ExecutionSummaryDto::getExecutionId).containsExactly("exec-1");
+            assertThat(queryService.searchExecutions("orderId", "ORD-10", true, 20))
+                    .extracting(ExecutionSummaryDto::getExecutionId).containsExactlyInAnyOrder("exec-1", "exec-2");
+            // The prefix is matched literally
+            assertThat(queryService.searchExecutions(null, "ORD.", true, 20))
+                    .extracting(ExecutionSummaryDto::getExecutionId).containsExactly("exec-3");
+            assertThat(queryService.searchExecutions("orderId", "C-1", false, 20)).isEmpty();
+            assertThat(queryService.searchExecutions(null, "C-1", false, 20)).hasSize(3);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.stepprflow.monitor.integration;
+
+import io.github.stepprflow.monitor.model.StepJoin;
+import io.github.stepprflow.monitor.service.MongoStepJoinStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each store stands for the join store of one listener instance, both sharing the database.
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+@Testcontainers
+@DisplayName("MongoDB Step Join Store Integration Tests")
+class MongoStepJoinStoreIT extends MongoDBTestContainerConfig {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private MongoStepJoinStore first;
+
+    private MongoStepJoinStore second;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.remove(new Query(), StepJoin.class);
+        first = new MongoStepJoinStore(mongoTemplate);
+        second = new MongoStepJoinStore(mongoTemplate);
+        first.createIndexes();
+    }
+
+    @Test
+    @DisplayName("Should join the branches of a group completed on two listener instances")
+    void shouldJoinBranchesCompletedOnTwoInstances() {
+        assertThat(first.complete("exec-1", "prepare", 2, Map.of("reserved", true), 3)).isEmpty();
+        assertThat(second.complete("exec-1", "prepare", 3, Map.of("score", 12), 3)).isEmpty();
+
+        Optional<Map<Integer, Map<String, Object>>> joined =
+                first.complete("exec-1", "prepare", 4, Map.of(), 3);
+
+        assertThat(joined).isPresent();
+        assertThat(joined.get()).containsOnlyKeys(2, 3, 4);
+        assertThat(joined.get().get(2)).containsEntry("reserved", true);
+        assertThat(joined.get().get(3)).containsEntry("score", 12);
+        assertThat(mongoTemplate.count(new Query(), StepJoin.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should replace the contribution of a redelivered branch")
+    void shouldReplaceRedeliveredBranch() {
+        first.complete("exec-1", "prepare", 2, Map.of("reserved", false), 2);
+        second.complete("exec-1", "prepare", 2, Map.of("reserved", true), 2);
+
+        Optional<Map<Integer, Map<String, Object>>> joined =
+                second.complete("exec-1", "prepare", 3, Map.of(), 2);
+
+        assertThat(joined).isPresent();
+        assertThat(joined.get().get(2)).containsEntry("reserved", true);
+    }
+
+    @Test
+    @DisplayName("Should complete each group exactly once when both instances consume its branches concurrently")
+    void shouldCompleteEachGroupOnceAcrossInstances() throws Exception {
+        int executions = 50;
+        int branches = 3;
+        ConcurrentLinkedQueue<Map<Integer, Map<String, Object>>> joins = new ConcurrentLinkedQueue<>();
+        ExecutorService listeners = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int e = 0; e < executions; e++) {
+                String executionId = "exec-" + e;
+                for (int b = 0; b < branches; b++) {
+                    int stepId = b + 2;
+                    // Branches of one group land on both instances
+                    MongoStepJoinStore store = (e + b) % 2 == 0 ? first : second;
+                    futures.add(listeners.submit(() -> store.complete(
+                            executionId, "prepare", stepId, Map.of("step" + stepId, stepId), branches)
+                            .ifPresent(joins::add)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            listeners.shutdown();
+        }
+
+        assertThat(joins).hasSize(executions);
+        assertThat(joins).allSatisfy(join -> assertThat(join).containsOnlyKeys(2, 3, 4));
+        assertThat(mongoTemplate.count(new Query(), StepJoin.class)).isZero();
+    }
+}
@@ -5,6 +5,7 @@ import io.github.stepprflow.core.model.RetryInfo;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
+import io.github.stepprflow.monitor.service.ExecutionCounterService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -44,6 +45,9 @@ class WorkflowControllerIT extends MongoDBTestContainerConfig {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ExecutionCounterService executionCounters;
+
     @BeforeEach
     void setUp() {
         repository.deleteAll();
@@ -219,6 +223,24 @@ class WorkflowControllerIT extends MongoDBTestContainerConfig {
                     .andExpect(jsonPath("$.content[1].executionId").value("middle"))
                     .andExpect(jsonPath("$.content[2].executionId").value("oldest"));
         }
+
+        @Test
+        @DisplayName("Should return summaries without payload")
+        void shouldReturnSummariesWithoutPayload() throws Exception {
+            // Given
+            var execution = createExecution("e1", "order-workflow", WorkflowStatus.FAILED);
+            execution.setPayload(Map.of("key", "value"));
+            repository.save(execution);
+
+            // When & Then
+            mockMvc.perform(get("/api/workflows"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].executionId").value("e1"))
+                    .andExpect(jsonPath("$.content[0].correlationId").isNotEmpty())
+                    .andExpect(jsonPath("$.content[0].currentStep").value(1))
+                    .andExpect(jsonPath("$.content[0].totalSteps").value(3))
+                    .andExpect(jsonPath("$.content[0].payload").doesNotExist());
+        }
     }
 
     @Nested
@@ -251,6 +273,7 @@ class WorkflowControllerIT extends MongoDBTestContainerConfig {
         @DisplayName("Should return empty list when no executions")
         void shouldReturnEmptyListWhenNoExecutions() throws Exception {
             // Given - empty repository
+            executionCounters.reconcile();
 
             // When & Then
             mockMvc.perform(get("/api/workflows/recent"))
@@ -276,6 +299,8 @@ class WorkflowControllerIT extends MongoDBTestContainerConfig {
                     createExecution("e6", "t6", WorkflowStatus.COMPLETED),
                     createExecution("e7", "t7", WorkflowStatus.FAILED)
             ));
+            // Executions saved directly are counted by the reconciliation
+            executionCounters.reconcile();
 
             // When & Then
             mockMvc.perform(get("/api/workflows/stats"))
@@ -298,6 +298,31 @@ class WorkflowExecutionTest {
             WorkflowExecution.StepExecution updatedStep = execution.getStepHistory().get(0);
             assertThat(updatedStep.getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
         }
+
+        @Test
+        @DisplayName("Should not mark sibling branches of the same parallel group")
+        void shouldNotMarkSiblingBranchesOfSameGroup() {
+            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
+            history.add(WorkflowExecution.StepExecution.builder()
+                    .stepId(1)
+                    .status(WorkflowStatus.IN_PROGRESS)
+                    .build());
+            history.add(WorkflowExecution.StepExecution.builder()
+                    .stepId(2)
+                    .group("prepare")
+                    .status(WorkflowStatus.IN_PROGRESS)
+                    .build());
+
+            WorkflowExecution execution = WorkflowExecution.builder()
+                    .executionId("exec-1")
+                    .stepHistory(history)
+                    .build();
+
+            execution.markPreviousStepsAsPassed(3, "prepare", Instant.now());
+
+            assertThat(execution.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.PASSED);
+            assertThat(execution.getStepHistory().get(1).getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+        }
     }
 
     @Nested
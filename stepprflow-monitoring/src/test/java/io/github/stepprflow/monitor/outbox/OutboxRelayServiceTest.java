@@ -9,6 +9,7 @@ import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.outbox.OutboxMessage.MessageType;
 import io.github.stepprflow.monitor.outbox.OutboxMessage.OutboxStatus;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -18,18 +19,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -44,11 +53,20 @@ class OutboxRelayServiceTest {
     @Mock
     private OutboxMessageRepository outboxRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
     @Mock
     private MessageBroker messageBroker;
 
     @Captor
-    private ArgumentCaptor<OutboxMessage> outboxCaptor;
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
 
     private ObjectMapper objectMapper;
     private MonitorProperties properties;
@@ -66,7 +84,7 @@ class OutboxRelayServiceTest {
         properties.getOutbox().setMaxDelayMs(60000);
 
         relayService = new OutboxRelayService(
-                outboxRepository, messageBroker, objectMapper, properties);
+                outboxRepository, mongoTemplate, messageBroker, objectMapper, properties);
     }
 
     private OutboxMessage createTestOutboxMessage() throws Exception {
@@ -94,6 +112,20 @@ class OutboxRelayServiceTest {
                 .build();
     }
 
+    private void givenClaimed(OutboxMessage... messages) {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxMessage.class)))
+                .thenReturn(Arrays.stream(messages).map(m -> OutboxMessage.builder().id(m.getId()).build()).toList())
+                .thenReturn(List.of(messages));
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class))
+                .thenReturn(bulkOperations);
+        lenient().when(messageBroker.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private Document markedFields() {
+        verify(bulkOperations).updateOne(any(Query.class), updateCaptor.capture());
+        return updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+    }
+
     @Nested
     @DisplayName("processOutbox()")
     class ProcessOutbox {
@@ -101,58 +133,51 @@ class OutboxRelayServiceTest {
         @Test
         @DisplayName("Should do nothing when no pending messages")
         void shouldDoNothingWhenNoPendingMessages() {
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of());
+            when(mongoTemplate.find(any(Query.class), eq(OutboxMessage.class))).thenReturn(List.of());
 
             relayService.processOutbox();
 
-            verify(messageBroker, never()).sendSync(any(), any());
+            verify(messageBroker, never()).sendAsync(any(), any());
+            verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(OutboxMessage.class));
         }
 
         @Test
         @DisplayName("Should send message to broker")
         void shouldSendMessageToBroker() throws Exception {
-            OutboxMessage outboxMessage = createTestOutboxMessage();
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of(outboxMessage));
+            givenClaimed(createTestOutboxMessage());
 
             relayService.processOutbox();
 
-            verify(messageBroker).sendSync(eq("test-topic"), any(WorkflowMessage.class));
+            verify(messageBroker).sendAsync(eq("test-topic"), any(WorkflowMessage.class));
         }
 
         @Test
         @DisplayName("Should mark message as SENT on success")
         void shouldMarkMessageAsSentOnSuccess() throws Exception {
-            OutboxMessage outboxMessage = createTestOutboxMessage();
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of(outboxMessage));
+            givenClaimed(createTestOutboxMessage());
 
             relayService.processOutbox();
 
-            verify(outboxRepository).save(outboxCaptor.capture());
-            assertThat(outboxCaptor.getValue().getStatus()).isEqualTo(OutboxStatus.SENT);
+            Document fields = markedFields();
+            assertThat(fields).containsEntry("status", OutboxStatus.SENT);
+            assertThat(updateCaptor.getValue().getUpdateObject().get("$unset", Document.class))
+                    .containsKeys("leaseOwner", "leaseExpiresAt");
+            verify(bulkOperations).execute();
         }
 
         @Test
         @DisplayName("Should increment attempts on failure")
         void shouldIncrementAttemptsOnFailure() throws Exception {
-            OutboxMessage outboxMessage = createTestOutboxMessage();
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of(outboxMessage));
-            doThrow(new MessageSendException("kafka", "test-topic", "exec-1", "Connection failed", null))
-                    .when(messageBroker).sendSync(any(), any());
+            givenClaimed(createTestOutboxMessage());
+            when(messageBroker.sendAsync(any(), any())).thenReturn(CompletableFuture.failedFuture(
+                    new MessageSendException("kafka", "test-topic", "exec-1", "Connection failed", null)));
 
             relayService.processOutbox();
 
-            verify(outboxRepository).save(outboxCaptor.capture());
-            OutboxMessage saved = outboxCaptor.getValue();
-            assertThat(saved.getAttempts()).isEqualTo(1);
-            assertThat(saved.getLastError()).contains("Connection failed");
+            Document fields = markedFields();
+            assertThat(fields).containsEntry("attempts", 1).containsEntry("status", OutboxStatus.PENDING);
+            assertThat(fields.getString("lastError")).contains("Connection failed");
+            assertThat(fields.get("nextRetryAt")).isNotNull();
         }
 
         @Test
@@ -160,31 +185,103 @@ class OutboxRelayServiceTest {
         void shouldMarkAsFailedAfterMaxAttempts() throws Exception {
             OutboxMessage outboxMessage = createTestOutboxMessage();
             outboxMessage.setAttempts(2);  // Already at max - 1
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of(outboxMessage));
-            doThrow(new MessageSendException("kafka", "test-topic", "exec-1", "Connection failed", null))
-                    .when(messageBroker).sendSync(any(), any());
+            givenClaimed(outboxMessage);
+            when(messageBroker.sendAsync(any(), any())).thenReturn(CompletableFuture.failedFuture(
+                    new MessageSendException("kafka", "test-topic", "exec-1", "Connection failed", null)));
+
+            relayService.processOutbox();
+
+            assertThat(markedFields()).containsEntry("status", OutboxStatus.FAILED);
+        }
+
+        @Test
+        @DisplayName("Should retry a send not acknowledged in time")
+        void shouldRetrySendNotAcknowledgedInTime() throws Exception {
+            properties.getOutbox().setSendTimeout(Duration.ofMillis(10));
+            givenClaimed(createTestOutboxMessage());
+            when(messageBroker.sendAsync(any(), any())).thenReturn(new CompletableFuture<>());
 
             relayService.processOutbox();
 
-            verify(outboxRepository).save(outboxCaptor.capture());
-            assertThat(outboxCaptor.getValue().getStatus()).isEqualTo(OutboxStatus.FAILED);
+            Document fields = markedFields();
+            assertThat(fields).containsEntry("attempts", 1);
+            assertThat(fields.getString("lastError")).startsWith("Not acknowledged");
         }
 
         @Test
-        @DisplayName("Should process multiple messages")
+        @DisplayName("Should send the whole batch before awaiting it and mark it in one bulk write")
         void shouldProcessMultipleMessages() throws Exception {
             OutboxMessage msg1 = createTestOutboxMessage();
             OutboxMessage msg2 = createTestOutboxMessage();
-            when(outboxRepository.findByStatusAndNextRetryAtLessThanEqualOrNextRetryAtIsNull(
-                    eq(OutboxStatus.PENDING), any(Instant.class), any(PageRequest.class)))
-                    .thenReturn(List.of(msg1, msg2));
+            givenClaimed(msg1, msg2);
+            // The second message is sent while the first one is not acknowledged yet
+            CompletableFuture<Void> first = new CompletableFuture<>();
+            CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS).execute(() -> first.complete(null));
+            when(messageBroker.sendAsync(any(), any()))
+                    .thenReturn(first, CompletableFuture.completedFuture(null));
 
             relayService.processOutbox();
 
-            verify(messageBroker, times(2)).sendSync(any(), any());
-            verify(outboxRepository, times(2)).save(any());
+            verify(messageBroker, times(2)).sendAsync(any(), any());
+            verify(bulkOperations, times(2)).updateOne(any(Query.class), updateCaptor.capture());
+            assertThat(updateCaptor.getAllValues())
+                    .allSatisfy(update -> assertThat(update.getUpdateObject().get("$set", Document.class))
+                            .containsEntry("status", OutboxStatus.SENT));
+            verify(bulkOperations).execute();
+        }
+
+        @Test
+        @DisplayName("Should lease the candidates still ready and send only the ones won")
+        void shouldLeaseCandidates() throws Exception {
+            OutboxMessage message = createTestOutboxMessage();
+            givenClaimed(message);
+
+            relayService.processOutbox();
+
+            verify(mongoTemplate).updateMulti(queryCaptor.capture(), updateCaptor.capture(), eq(OutboxMessage.class));
+            assertThat(queryCaptor.getValue().getQueryObject().getList("$and", Document.class)).hasSize(2);
+            Document lease = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+            assertThat(lease).containsKeys("leaseOwner", "leaseExpiresAt");
+            verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(OutboxMessage.class));
+            assertThat(queryCaptor.getAllValues().get(1).getLimit()).isEqualTo(100);
+            assertThat(queryCaptor.getAllValues().get(2).getQueryObject())
+                    .containsEntry("leaseOwner", lease.get("leaseOwner"));
+        }
+
+        @Test
+        @DisplayName("Should relay the next batch right away after a full one")
+        void shouldRelayNextBatchAfterFullOne() throws Exception {
+            properties.getOutbox().setBatchSize(1);
+            OutboxMessage msg1 = createTestOutboxMessage();
+            OutboxMessage msg2 = createTestOutboxMessage();
+            when(mongoTemplate.find(any(Query.class), eq(OutboxMessage.class))).thenReturn(
+                    List.of(OutboxMessage.builder().id(msg1.getId()).build()), List.of(msg1),
+                    List.of(OutboxMessage.builder().id(msg2.getId()).build()), List.of(msg2),
+                    List.of());
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxMessage.class))
+                    .thenReturn(bulkOperations);
+            when(messageBroker.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+            relayService.processOutbox();
+
+            verify(messageBroker, times(2)).sendAsync(any(), any());
+            verify(bulkOperations, times(2)).execute();
+        }
+    }
+
+    @Nested
+    @DisplayName("wakeUp()")
+    class WakeUp {
+
+        @Test
+        @DisplayName("Should relay the pending messages without waiting for the next poll")
+        void shouldRelayPendingMessages() {
+            when(mongoTemplate.find(any(Query.class), eq(OutboxMessage.class))).thenReturn(List.of());
+
+            relayService.wakeUp();
+
+            verify(mongoTemplate, timeout(5000)).find(any(Query.class), eq(OutboxMessage.class));
+            relayService.shutdown();
         }
     }
 
@@ -0,0 +1,308 @@
+package io.github.stepprflow.monitor.rollup;
+
+import com.mongodb.client.result.UpdateResult;
+import io.github.stepprflow.core.metrics.HistogramSketch;
+import io.github.stepprflow.core.model.StepTiming;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.dto.RollupPointDto;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionRollupService Tests")
+class ExecutionRollupServiceTest {
+
+    private static final Instant TEN = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Captor
+    private ArgumentCaptor<Collection<ExecutionRollup>> rollupsCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    private MutableClock clock;
+    private ExecutionRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(TEN.plusSeconds(10));
+        rollupService = new ExecutionRollupService(mongoTemplate, new MonitorProperties(), clock);
+    }
+
+    private WorkflowMessage message(String executionId, WorkflowStatus status, int currentStep, StepTiming timing) {
+        return WorkflowMessage.builder()
+                .executionId(executionId)
+                .topic("order")
+                .status(status)
+                .currentStep(currentStep)
+                .stepTiming(timing)
+                .createdAt(TEN.minusSeconds(2))
+                .updatedAt(TEN)
+                .build();
+    }
+
+    private StepTiming timing(int stepId, long executionMs) {
+        StepTiming timing = StepTiming.start(stepId, TEN.minusSeconds(1), TEN.minusMillis(500));
+        timing.setExecutionMs(executionMs);
+        return timing;
+    }
+
+    private ExecutionRollup rollup(Instant timestamp, Integer stepId, long completed, long failed, long durationMs) {
+        HistogramSketch durations = null;
+        for (long i = 0; i < completed + failed; i++) {
+            durations = HistogramSketch.merge(durations, HistogramSketch.of(Duration.ofMillis(durationMs).toNanos()));
+        }
+        return ExecutionRollup.builder()
+                .timestamp(timestamp)
+                .meta(new ExecutionRollup.Meta("order", stepId))
+                .completed(completed)
+                .failed(failed)
+                .durations(durations)
+                .build();
+    }
+
+    private List<ExecutionRollup> written(String collection) {
+        verify(mongoTemplate).insert(rollupsCaptor.capture(), eq(collection));
+        return List.copyOf(rollupsCaptor.getValue());
+    }
+
+    @Nested
+    @DisplayName("record() and flush() methods")
+    class RecordTests {
+
+        @Test
+        @DisplayName("Should write the rollups of a minute once it ended")
+        void shouldWriteMinuteOnceEnded() {
+            rollupService.record(message("exec-1", WorkflowStatus.COMPLETED, 3, null));
+
+            rollupService.flush();
+            verify(mongoTemplate, never()).insert(anyCollection(), any(String.class));
+
+            clock.advance(Duration.ofMinutes(1));
+            rollupService.flush();
+
+            List<ExecutionRollup> rollups = written(RollupResolution.MINUTE.getCollection());
+            assertThat(rollups).hasSize(1);
+            assertThat(rollups.get(0).getTimestamp()).isEqualTo(TEN);
+            assertThat(rollups.get(0).getMeta()).isEqualTo(new ExecutionRollup.Meta("order", null));
+            assertThat(rollups.get(0).getCompleted()).isEqualTo(1);
+            // Duration from the creation of the execution to the arrival of its last message
+            assertThat(rollups.get(0).getDurations().getMaxMicros()).isEqualTo(12_000_000);
+        }
+
+        @Test
+        @DisplayName("Should roll up a step run as failed when the step asks for a retry")
+        void shouldRollUpRetriedStepAsFailed() {
+            rollupService.record(message("exec-1", WorkflowStatus.RETRY_PENDING, 2, timing(2, 300)));
+            rollupService.record(message("exec-2", WorkflowStatus.IN_PROGRESS, 3, timing(2, 100)));
+
+            rollupService.shutdown();
+
+            List<ExecutionRollup> rollups = written(RollupResolution.MINUTE.getCollection());
+            assertThat(rollups).hasSize(1);
+            assertThat(rollups.get(0).getMeta()).isEqualTo(new ExecutionRollup.Meta("order", 2));
+            assertThat(rollups.get(0).getCompleted()).isEqualTo(1);
+            assertThat(rollups.get(0).getFailed()).isEqualTo(1);
+            assertThat(rollups.get(0).getDurations().getSumMicros()).isEqualTo(400_000);
+        }
+
+        @Test
+        @DisplayName("Should roll up a step run reported twice once")
+        void shouldRollUpRepeatedReportOnce() {
+            rollupService.record(message("exec-1", WorkflowStatus.IN_PROGRESS, 2, timing(1, 300)));
+            rollupService.record(message("exec-1", WorkflowStatus.IN_PROGRESS, 3, timing(1, 300)));
+
+            rollupService.shutdown();
+
+            assertThat(written(RollupResolution.MINUTE.getCollection()).get(0).getCompleted()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not write without rollups")
+        void shouldNotWriteWithoutRollups() {
+            rollupService.record(message("exec-1", WorkflowStatus.IN_PROGRESS, 1, null));
+
+            rollupService.shutdown();
+
+            verify(mongoTemplate, never()).insert(anyCollection(), any(String.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("compact() method")
+    class CompactTests {
+
+        @BeforeEach
+        void setUp() {
+            clock.advance(Duration.ofMinutes(70));
+            when(mongoTemplate.findById(RollupResolution.DAY.name(), RollupWatermark.class))
+                    .thenReturn(new RollupWatermark(RollupResolution.DAY.name(), TEN.minus(Duration.ofHours(10))));
+        }
+
+        @Test
+        @DisplayName("Should merge the minute rollups of an hour that ended into hour rollups")
+        void shouldCompactEndedHour() {
+            when(mongoTemplate.findById(RollupResolution.HOUR.name(), RollupWatermark.class))
+                    .thenReturn(new RollupWatermark(RollupResolution.HOUR.name(), TEN));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RollupWatermark.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionRollup.class),
+                    eq(RollupResolution.MINUTE.getCollection()))).thenReturn(List.of(
+                    rollup(TEN, null, 2, 0, 100),
+                    rollup(TEN.plusSeconds(120), null, 1, 1, 300)));
+
+            rollupService.compact();
+
+            verify(mongoTemplate).updateFirst(any(Query.class), updateCaptor.capture(), eq(RollupWatermark.class));
+            assertThat(updateCaptor.getValue().getUpdateObject().get("$set", Document.class))
+                    .containsEntry("compactedUntil", TEN.plus(Duration.ofHours(1)));
+            List<ExecutionRollup> rollups = written(RollupResolution.HOUR.getCollection());
+            assertThat(rollups).hasSize(1);
+            assertThat(rollups.get(0).getTimestamp()).isEqualTo(TEN);
+            assertThat(rollups.get(0).getCompleted()).isEqualTo(3);
+            assertThat(rollups.get(0).getFailed()).isEqualTo(1);
+            assertThat(rollups.get(0).getDurations().totalCount()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should release the hour when its rollups cannot be written")
+        void shouldReleaseHourOnFailure() {
+            when(mongoTemplate.findById(RollupResolution.HOUR.name(), RollupWatermark.class))
+                    .thenReturn(new RollupWatermark(RollupResolution.HOUR.name(), TEN));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RollupWatermark.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionRollup.class),
+                    eq(RollupResolution.MINUTE.getCollection()))).thenReturn(List.of(rollup(TEN, null, 1, 0, 100)));
+            when(mongoTemplate.insert(anyCollection(), eq(RollupResolution.HOUR.getCollection())))
+                    .thenThrow(new IllegalStateException("write failed"));
+
+            rollupService.compact();
+
+            verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updateCaptor.capture(),
+                    eq(RollupWatermark.class));
+            assertThat(updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", Document.class))
+                    .containsEntry("compactedUntil", TEN);
+        }
+
+        @Test
+        @DisplayName("Should not compact an hour claimed by another instance")
+        void shouldSkipClaimedHour() {
+            when(mongoTemplate.findById(RollupResolution.HOUR.name(), RollupWatermark.class))
+                    .thenReturn(new RollupWatermark(RollupResolution.HOUR.name(), TEN));
+            when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RollupWatermark.class)))
+                    .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+            rollupService.compact();
+
+            verify(mongoTemplate, never()).insert(anyCollection(), any(String.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("query() method")
+    class QueryTests {
+
+        @Test
+        @DisplayName("Should read compacted hours and fill the rest of the range from minutes")
+        void shouldCombineResolutions() {
+            Instant twelve = TEN.plus(Duration.ofHours(2));
+            when(mongoTemplate.findById(RollupResolution.HOUR.name(), RollupWatermark.class))
+                    .thenReturn(new RollupWatermark(RollupResolution.HOUR.name(), twelve));
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionRollup.class),
+                    eq(RollupResolution.HOUR.getCollection()))).thenReturn(List.of(
+                    rollup(TEN, 1, 9, 1, 100),
+                    rollup(TEN.plus(Duration.ofHours(1)), 1, 4, 0, 100)));
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionRollup.class),
+                    eq(RollupResolution.MINUTE.getCollection()))).thenReturn(List.of(
+                    rollup(twelve.plusSeconds(300), 1, 1, 0, 200),
+                    rollup(twelve.plusSeconds(600), 1, 0, 1, 400)));
+
+            List<RollupPointDto> points = rollupService.query("order", 1, RollupResolution.HOUR,
+                    TEN.plusSeconds(60), twelve.plusSeconds(1800));
+
+            assertThat(points).extracting(RollupPointDto::getTimestamp)
+                    .containsExactly(TEN, TEN.plus(Duration.ofHours(1)), twelve);
+            assertThat(points.get(0).getFailureRate()).isEqualTo(10.0);
+            assertThat(points.get(2).getCompleted()).isEqualTo(1);
+            assertThat(points.get(2).getFailed()).isEqualTo(1);
+            assertThat(points.get(2).getMaxDurationMs()).isEqualTo(400.0);
+            assertThat(points.get(2).getAvgDurationMs()).isEqualTo(300.0);
+        }
+
+        @Test
+        @DisplayName("Should reject a range ending before it starts")
+        void shouldRejectInvertedRange() {
+            assertThatThrownBy(() -> rollupService.query("order", null, RollupResolution.HOUR, TEN, TEN))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Should reject a range of too many buckets")
+        void shouldRejectTooManyBuckets() {
+            assertThatThrownBy(() -> rollupService.query("order", null, RollupResolution.MINUTE,
+                    TEN, TEN.plus(Duration.ofDays(30))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.ExecutionCounter;
+import io.github.stepprflow.monitor.model.MonitorLease;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionCounterService Tests")
+class ExecutionCounterServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ExecutionCounterService counterService;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    @Captor
+    private ArgumentCaptor<Update> updateCaptor;
+
+    @BeforeEach
+    void setUp() {
+        counterService = new ExecutionCounterService(mongoTemplate, new MonitorProperties());
+    }
+
+    private void givenBulk() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExecutionCounter.class))
+                .thenReturn(bulkOperations);
+    }
+
+    private ExecutionCounter counter(String topic, WorkflowStatus status, long count) {
+        return ExecutionCounter.builder()
+                .id(ExecutionCounter.idOf(topic, status))
+                .topic(topic)
+                .status(status)
+                .count(count)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("record() method")
+    class RecordTests {
+
+        @Test
+        @DisplayName("Should move an execution from the counter of its previous status to its new one")
+        void shouldMoveExecutionBetweenCounters() {
+            givenBulk();
+
+            counterService.record(List.of(new ExecutionCounterService.Transition(
+                    "order", WorkflowStatus.IN_PROGRESS, WorkflowStatus.COMPLETED)));
+
+            verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+            verify(bulkOperations).execute();
+            assertThat(queryCaptor.getAllValues().get(0).getQueryObject().get("id")).isEqualTo("order|IN_PROGRESS");
+            assertThat(updateCaptor.getAllValues().get(0).getUpdateObject().get("$inc", Document.class))
+                    .containsEntry("count", -1L);
+            assertThat(queryCaptor.getAllValues().get(1).getQueryObject().get("id")).isEqualTo("order|COMPLETED");
+            Document increment = updateCaptor.getAllValues().get(1).getUpdateObject();
+            assertThat(increment.get("$inc", Document.class)).containsEntry("count", 1L);
+            assertThat(increment.get("$setOnInsert", Document.class))
+                    .containsEntry("topic", "order")
+                    .containsEntry("status", WorkflowStatus.COMPLETED);
+        }
+
+        @Test
+        @DisplayName("Should add up the transitions of a counter into one increment")
+        void shouldAddUpTransitions() {
+            givenBulk();
+
+            counterService.record(List.of(
+                    new ExecutionCounterService.Transition("order", null, WorkflowStatus.PENDING),
+                    new ExecutionCounterService.Transition("order", null, WorkflowStatus.PENDING),
+                    new ExecutionCounterService.Transition("order", WorkflowStatus.COMPLETED, null)));
+
+            verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+            assertThat(updateCaptor.getAllValues().get(0).getUpdateObject().get("$inc", Document.class))
+                    .containsEntry("count", 2L);
+            assertThat(updateCaptor.getAllValues().get(1).getUpdateObject().get("$inc", Document.class))
+                    .containsEntry("count", -1L);
+        }
+
+        @Test
+        @DisplayName("Should not write when no counter changes")
+        void shouldNotWriteWithoutChange() {
+            counterService.record(List.of(
+                    new ExecutionCounterService.Transition("order", WorkflowStatus.PENDING, WorkflowStatus.PENDING),
+                    new ExecutionCounterService.Transition(null, null, WorkflowStatus.PENDING),
+                    new ExecutionCounterService.Transition("order", null, WorkflowStatus.FAILED),
+                    new ExecutionCounterService.Transition("order", WorkflowStatus.FAILED, null)));
+
+            verifyNoInteractions(mongoTemplate);
+        }
+
+        @Test
+        @DisplayName("Should not propagate a failed write")
+        void shouldNotPropagateFailedWrite() {
+            givenBulk();
+            when(bulkOperations.execute()).thenThrow(new IllegalStateException("write failed"));
+
+            counterService.record(List.of(new ExecutionCounterService.Transition(
+                    "order", null, WorkflowStatus.PENDING)));
+
+            verify(bulkOperations).execute();
+        }
+    }
+
+    @Nested
+    @DisplayName("getCounts() method")
+    class GetCountsTests {
+
+        @Test
+        @DisplayName("Should add up the counters of all topics by status")
+        void shouldAddUpTopics() {
+            when(mongoTemplate.findAll(ExecutionCounter.class)).thenReturn(List.of(
+                    counter("order", WorkflowStatus.COMPLETED, 10),
+                    counter("payment", WorkflowStatus.COMPLETED, 5),
+                    counter("payment", WorkflowStatus.FAILED, 1)));
+
+            Map<WorkflowStatus, Long> counts = counterService.getCounts();
+
+            assertThat(counts).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    WorkflowStatus.COMPLETED, 15L,
+                    WorkflowStatus.FAILED, 1L));
+        }
+    }
+
+    @Nested
+    @DisplayName("count() method")
+    class CountTests {
+
+        @Test
+        @DisplayName("Should add up the counters of a topic in the statuses")
+        void shouldAddUpCountersOfTopicAndStatuses() {
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionCounter.class))).thenReturn(List.of(
+                    counter("order", WorkflowStatus.COMPLETED, 10),
+                    counter("order", WorkflowStatus.FAILED, 2)));
+
+            long count = counterService.count("order", List.of(WorkflowStatus.COMPLETED, WorkflowStatus.FAILED));
+
+            assertThat(count).isEqualTo(12);
+            verify(mongoTemplate).find(queryCaptor.capture(), eq(ExecutionCounter.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("topic", "order")
+                    .containsKey("status");
+        }
+
+        @Test
+        @DisplayName("Should read all counters without filter")
+        void shouldReadAllCountersWithoutFilter() {
+            when(mongoTemplate.find(any(Query.class), eq(ExecutionCounter.class))).thenReturn(List.of());
+
+            assertThat(counterService.count(null, null)).isZero();
+            verify(mongoTemplate).find(queryCaptor.capture(), eq(ExecutionCounter.class));
+            assertThat(queryCaptor.getValue().getQueryObject()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("reconcile() method")
+    class ReconcileTests {
+
+        private void givenOrderedBulk() {
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ExecutionCounter.class))
+                    .thenReturn(bulkOperations);
+        }
+
+        private void givenGroups(Document... groups) {
+            when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                    .thenReturn(new AggregationResults<>(List.of(groups), new Document()));
+        }
+
+        @Test
+        @DisplayName("Should correct each counter by its difference with a group of the executions")
+        void shouldCorrectCountersByDelta() {
+            givenOrderedBulk();
+            List<ExecutionCounter> counters = List.of(
+                    counter("order", WorkflowStatus.COMPLETED, 10),
+                    counter("order", WorkflowStatus.FAILED, 3));
+            when(mongoTemplate.findAll(ExecutionCounter.class)).thenReturn(counters, counters);
+            givenGroups(
+                    new Document("_id", new Document("topic", "order").append("status", "COMPLETED"))
+                            .append("count", 12),
+                    new Document("_id", new Document("status", "PENDING")).append("count", 1));
+
+            counterService.reconcile();
+
+            verify(bulkOperations, times(2)).upsert(queryCaptor.capture(), updateCaptor.capture());
+            assertThat(queryCaptor.getAllValues()).extracting(query -> query.getQueryObject().get("id"))
+                    .containsExactly("order|COMPLETED", "order|FAILED");
+            assertThat(updateCaptor.getAllValues())
+                    .extracting(update -> update.getUpdateObject().get("$inc", Document.class).get("count"))
+                    .containsExactly(2L, -3L);
+            verify(bulkOperations).remove(queryCaptor.capture());
+            assertThat(queryCaptor.getValue().getQueryObject()).containsEntry("count", 0L);
+            verify(bulkOperations).execute();
+        }
+
+        @Test
+        @DisplayName("Should reconcile under a lease and release it afterwards")
+        void shouldReconcileUnderLease() {
+            givenOrderedBulk();
+            givenGroups();
+
+            counterService.reconcile();
+
+            verify(mongoTemplate).upsert(queryCaptor.capture(), updateCaptor.capture(), eq(MonitorLease.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("id", ExecutionCounterService.RECONCILE_LEASE)
+                    .containsKey("expiresAt");
+            Object owner = updateCaptor.getValue().getUpdateObject().get("$set", Document.class).get("owner");
+            verify(mongoTemplate).remove(queryCaptor.capture(), eq(MonitorLease.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("id", ExecutionCounterService.RECONCILE_LEASE)
+                    .containsEntry("owner", owner);
+        }
+
+        @Test
+        @DisplayName("Should leave the reconciliation to the instance holding the lease")
+        void shouldSkipWhenLeaseIsHeld() {
+            when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(MonitorLease.class)))
+                    .thenThrow(new DuplicateKeyException("lease held"));
+
+            counterService.reconcile();
+
+            verify(mongoTemplate, never()).aggregate(any(TypedAggregation.class), eq(Document.class));
+            verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(ExecutionCounter.class));
+            verify(mongoTemplate, never()).remove(any(Query.class), eq(MonitorLease.class));
+        }
+
+        @Test
+        @DisplayName("Should leave counters that moved during the aggregation to the next reconciliation")
+        void shouldSkipCountersMovedMeanwhile() {
+            givenOrderedBulk();
+            when(mongoTemplate.findAll(ExecutionCounter.class)).thenReturn(
+                    List.of(counter("order", WorkflowStatus.COMPLETED, 10)),
+                    List.of(counter("order", WorkflowStatus.COMPLETED, 11)));
+            givenGroups(new Document("_id", new Document("topic", "order").append("status", "COMPLETED"))
+                    .append("count", 12));
+
+            counterService.reconcile();
+
+            verify(bulkOperations, never()).upsert(any(Query.class), any(Update.class));
+            verify(bulkOperations).execute();
+        }
+
+        @Test
+        @DisplayName("Should create the counters of executions that were never counted")
+        void shouldCreateMissingCounters() {
+            givenOrderedBulk();
+            givenGroups(new Document("_id", new Document("topic", "order").append("status", "PENDING"))
+                    .append("count", 4));
+
+            counterService.reconcile();
+
+            verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+            assertThat(queryCaptor.getValue().getQueryObject().get("id")).isEqualTo("order|PENDING");
+            assertThat(updateCaptor.getValue().getUpdateObject().get("$inc", Document.class))
+                    .containsEntry("count", 4L);
+            assertThat(updateCaptor.getValue().getUpdateObject().get("$setOnInsert", Document.class))
+                    .containsEntry("topic", "order")
+                    .containsEntry("status", WorkflowStatus.PENDING);
+        }
+    }
+}
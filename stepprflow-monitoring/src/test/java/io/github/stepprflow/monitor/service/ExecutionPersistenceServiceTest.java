@@ -1,16 +1,19 @@
 package io.github.stepprflow.monitor.service;
 
+import com.mongodb.bulk.BulkWriteError;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
-import io.github.stepprflow.core.model.ErrorInfo;
-import io.github.stepprflow.core.model.RetryInfo;
 import io.github.stepprflow.core.model.StepDefinition;
 import io.github.stepprflow.core.model.WorkflowDefinition;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
-import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
+import io.github.stepprflow.monitor.rollup.ExecutionRollupService;
 import io.github.stepprflow.monitor.websocket.WorkflowWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -18,40 +21,75 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+/**
+ * Unit tests of the update issued by {@link ExecutionPersistenceService}.
+ * The effect of the update on stored executions is covered by ExecutionPersistenceIT.
+ */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("ExecutionPersistenceService Tests")
 class ExecutionPersistenceServiceTest {
 
     @Mock
-    private WorkflowExecutionRepository repository;
+    private MongoTemplate mongoTemplate;
 
     @Mock
     private WorkflowWebSocketHandler webSocketHandler;
 
-    @InjectMocks
-    private ExecutionPersistenceService persistenceService;
+    @Mock
+    private WorkflowRegistry workflowRegistry;
+
+    @Mock
+    private ExecutionCounterService executionCounters;
+
+    @Mock
+    private ExecutionRollupService executionRollups;
+
+    @Mock
+    private SearchKeyService searchKeys;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
 
     @Captor
-    private ArgumentCaptor<WorkflowExecution> executionCaptor;
+    private ArgumentCaptor<AggregationUpdate> updateCaptor;
+
+    private ExecutionPersistenceService persistenceService;
 
     private WorkflowMessage testMessage;
 
     @BeforeEach
     void setUp() {
+        persistenceService = new ExecutionPersistenceService(
+                mongoTemplate, webSocketHandler, workflowRegistry, executionCounters, executionRollups, searchKeys,
+                properties(false), null);
         testMessage = WorkflowMessage.builder()
                 .executionId("exec-123")
                 .correlationId("corr-456")
@@ -67,6 +105,25 @@ class ExecutionPersistenceServiceTest {
                 .build();
     }
 
+    private void givenConverter() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+    }
+
+    private MonitorProperties properties(boolean writeBehind) {
+        MonitorProperties properties = new MonitorProperties();
+        properties.getPersistence().getWriteBehind().setEnabled(writeBehind);
+        properties.getPersistence().getWriteBehind().setMaxBufferedMessages(3);
+        properties.getPersistence().setLanes(2);
+        return properties;
+    }
+
+    private List<Document> pipeline(AggregationUpdate update) {
+        return update.toPipeline(Aggregation.DEFAULT_CONTEXT);
+    }
+
     @Nested
     @DisplayName("onWorkflowMessage() method")
     class OnWorkflowMessageTests {
@@ -76,726 +133,650 @@ class ExecutionPersistenceServiceTest {
         void shouldIgnoreNullMessage() {
             persistenceService.onWorkflowMessage(null);
 
-            verify(repository, never()).save(any());
+            verifyNoInteractions(mongoTemplate);
             verify(webSocketHandler, never()).broadcastUpdate(any());
         }
 
         @Test
-        @DisplayName("Should create new execution for new message")
-        void shouldCreateNewExecutionForNewMessage() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @DisplayName("Should get the previous status back from the upsert when no broadcaster is available")
+        void shouldUpsertWithoutReadWhenNoBroadcaster() {
+            givenConverter();
+            ExecutionPersistenceService service = new ExecutionPersistenceService(
+                    mongoTemplate, null, workflowRegistry, executionCounters, executionRollups, searchKeys,
+                    properties(false), null);
+            ArgumentCaptor<FindAndModifyOptions> optionsCaptor = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+            when(mongoTemplate.findAndModify(queryCaptor.capture(), any(AggregationUpdate.class),
+                    optionsCaptor.capture(), eq(WorkflowExecution.class))).thenReturn(
+                    WorkflowExecution.builder().executionId("exec-123").topic("test-topic")
+                            .status(WorkflowStatus.PENDING).build());
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            service.onWorkflowMessage(testMessage);
 
-            assertThat(saved.getExecutionId()).isEqualTo("exec-123");
-            assertThat(saved.getCorrelationId()).isEqualTo("corr-456");
-            assertThat(saved.getTopic()).isEqualTo("test-topic");
-            assertThat(saved.getTotalSteps()).isEqualTo(3);
-            assertThat(saved.getPayload()).isEqualTo(testMessage.getPayload());
-            assertThat(saved.getPayloadType()).isEqualTo("java.util.Map");
-            assertThat(saved.getSecurityContext()).isEqualTo("token-abc");
-            assertThat(saved.getMetadata()).isEqualTo(testMessage.getMetadata());
+            assertThat(queryCaptor.getValue().getQueryObject().get("executionId")).isEqualTo("exec-123");
+            assertThat(queryCaptor.getValue().getFieldsObject()).containsKeys("topic", "status");
+            assertThat(optionsCaptor.getValue().isUpsert()).isTrue();
+            assertThat(optionsCaptor.getValue().isReturnNew()).isFalse();
+            verify(executionCounters).record(List.of(new ExecutionCounterService.Transition(
+                    "test-topic", WorkflowStatus.PENDING, WorkflowStatus.IN_PROGRESS)));
+            verify(mongoTemplate, never()).findById(any(), any());
+            verify(mongoTemplate, never()).save(any());
         }
 
         @Test
-        @DisplayName("Should update existing execution")
-        void shouldUpdateExistingExecution() {
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .status(WorkflowStatus.PENDING)
-                    .currentStep(1)
-                    .stepHistory(new ArrayList<>())
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
-
-            testMessage = testMessage.toBuilder()
-                    .currentStep(2)
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
+        @DisplayName("Should record the status the write replaces before applying the message")
+        void shouldSetPreviousStatusFirst() {
+            givenConverter();
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
-            assertThat(saved.getCurrentStep()).isEqualTo(2);
+            verify(mongoTemplate).findAndModify(any(Query.class), updateCaptor.capture(),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class));
+            List<Document> stages = pipeline(updateCaptor.getValue());
+            assertThat(stages.get(0)).isEqualTo(new Document("$set", new Document("previousStatus", "$status")));
+            assertThat(stages.get(1).get("$set", Document.class).get("status"))
+                    .isEqualTo(new Document("$literal", "IN_PROGRESS"));
         }
 
         @Test
-        @DisplayName("Should broadcast update via WebSocket")
-        void shouldBroadcastUpdateViaWebSocket() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should get the updated execution back from the upsert and broadcast it")
+        void shouldBroadcastUpdatedExecution() {
+            givenConverter();
+            WorkflowExecution updated = WorkflowExecution.builder().executionId("exec-123").build();
+            ArgumentCaptor<FindAndModifyOptions> optionsCaptor = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+            when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    optionsCaptor.capture(), eq(WorkflowExecution.class))).thenReturn(updated);
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(webSocketHandler).broadcastUpdate(any(WorkflowExecution.class));
+            assertThat(optionsCaptor.getValue().isUpsert()).isTrue();
+            assertThat(optionsCaptor.getValue().isReturnNew()).isTrue();
+            verify(webSocketHandler).broadcastUpdate(updated);
+            verify(mongoTemplate, never()).save(any());
         }
 
         @Test
-        @DisplayName("Should set updatedAt timestamp")
-        void shouldSetUpdatedAtTimestamp() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should not broadcast when the upsert returns nothing")
+        void shouldNotBroadcastWithoutResult() {
+            givenConverter();
+            when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class))).thenReturn(null);
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getUpdatedAt()).isNotNull();
+            verify(webSocketHandler, never()).broadcastUpdate(any());
         }
-    }
-
-    @Nested
-    @DisplayName("Status handling")
-    class StatusHandlingTests {
 
         @Test
-        @DisplayName("Should update retry info")
-        void shouldUpdateRetryInfo() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            RetryInfo retryInfo = RetryInfo.builder()
-                    .attempt(2)
-                    .maxAttempts(3)
-                    .nextRetryAt(Instant.now().plusSeconds(60))
-                    .lastError("Previous error")
-                    .build();
-            testMessage = testMessage.toBuilder()
-                    .retryInfo(retryInfo)
-                    .build();
+        @DisplayName("Should report the status transition captured by the upsert to the execution counters")
+        void shouldReportTransition() {
+            givenConverter();
+            when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class))).thenReturn(
+                    WorkflowExecution.builder().executionId("exec-123").topic("test-topic")
+                            .status(WorkflowStatus.IN_PROGRESS).previousStatus(WorkflowStatus.PENDING).build());
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getRetryInfo()).isEqualTo(retryInfo);
+            verify(executionCounters).record(List.of(new ExecutionCounterService.Transition(
+                    "test-topic", WorkflowStatus.PENDING, WorkflowStatus.IN_PROGRESS)));
         }
 
         @Test
-        @DisplayName("Should update error info")
-        void shouldUpdateErrorInfo() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            ErrorInfo errorInfo = ErrorInfo.builder()
-                    .code("ERR_001")
-                    .message("Something went wrong")
-                    .exceptionType("java.lang.RuntimeException")
-                    .build();
-            testMessage = testMessage.toBuilder()
-                    .errorInfo(errorInfo)
-                    .build();
+        @DisplayName("Should count a new execution in its first status")
+        void shouldCountNewExecution() {
+            givenConverter();
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getErrorInfo()).isEqualTo(errorInfo);
+            verify(executionCounters).record(List.of(new ExecutionCounterService.Transition(
+                    "test-topic", null, WorkflowStatus.IN_PROGRESS)));
         }
-    }
-
-    @Nested
-    @DisplayName("Completion handling")
-    class CompletionHandlingTests {
 
         @Test
-        @DisplayName("Should set completedAt for COMPLETED status")
-        void shouldSetCompletedAtForCompletedStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should set the search keys of an execution created by a message of a later step")
+        void shouldSetSearchKeysOfExecutionCreatedByLaterStep() {
+            givenConverter();
+            WorkflowMessage message = testMessage.toBuilder().currentStep(2).build();
+            when(searchKeys.extract("test-topic", message.getPayload()))
+                    .thenReturn(List.of(new WorkflowExecution.SearchKey("key", "value")));
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .build();
+            persistenceService.onWorkflowMessage(message);
 
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getCompletedAt()).isNotNull();
+            verify(searchKeys).extract(any(), any());
+            verify(mongoTemplate).updateFirst(queryCaptor.capture(), any(Update.class), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("executionId", "exec-123")
+                    .containsEntry("searchKeys", new Document("$exists", false));
         }
 
         @Test
-        @DisplayName("Should set completedAt for FAILED status")
-        void shouldSetCompletedAtForFailedStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.FAILED)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @DisplayName("Should not extract search keys for a later step of an existing execution")
+        void shouldNotExtractSearchKeysForExistingExecution() {
+            givenConverter();
+            when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class))).thenReturn(
+                    WorkflowExecution.builder().executionId("exec-123").topic("test-topic")
+                            .status(WorkflowStatus.IN_PROGRESS).previousStatus(WorkflowStatus.IN_PROGRESS).build());
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            persistenceService.onWorkflowMessage(testMessage.toBuilder().currentStep(2).build());
 
-            assertThat(saved.getCompletedAt()).isNotNull();
+            verifyNoInteractions(searchKeys);
+            verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), any(Class.class));
         }
 
         @Test
-        @DisplayName("Should calculate duration on completion")
-        void shouldCalculateDurationOnCompletion() {
-            Instant createdAt = Instant.now().minusSeconds(10);
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .createdAt(createdAt)
-                    .build();
+        @DisplayName("Should add the message to the execution rollups")
+        void shouldAddMessageToRollups() {
+            givenConverter();
 
             persistenceService.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getDurationMs()).isNotNull();
-            assertThat(saved.getDurationMs()).isGreaterThan(0);
-            // Duration should be approximately 10 seconds (10000ms), not negative
-            assertThat(saved.getDurationMs()).isBetween(9000L, 15000L);
+            verify(executionRollups).record(testMessage);
         }
+    }
 
-        @Test
-        @DisplayName("Should set completedAt for CANCELLED status")
-        void shouldSetCompletedAtForCancelledStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.CANCELLED)
-                    .build();
+    @Nested
+    @DisplayName("Update pipeline")
+    class UpdatePipelineTests {
 
-            persistenceService.onWorkflowMessage(testMessage);
+        @Test
+        @DisplayName("Should pass message values as literals")
+        void shouldPassMessageValuesAsLiterals() {
+            givenConverter();
+            testMessage = testMessage.toBuilder().correlationId("$topic").build();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            assertThat(saved.getCompletedAt()).isNotNull();
+            Document fields = stages.get(0).get("$set", Document.class);
+            Document correlationId = fields.get("correlationId", Document.class);
+            List<?> cond = correlationId.getList("$cond", Object.class);
+            assertThat(cond.get(1)).isEqualTo(new Document("$literal", "$topic"));
+            assertThat(fields.get("status")).isEqualTo(new Document("$literal", "IN_PROGRESS"));
         }
 
         @Test
-        @DisplayName("Should finalize execution attempt on completion")
-        void shouldFinalizeExecutionAttemptOnCompletion() {
-            // Create execution with an active attempt
-            WorkflowExecution.ExecutionAttempt activeAttempt = WorkflowExecution.ExecutionAttempt.builder()
-                    .attemptNumber(1)
-                    .startedAt(Instant.now().minusSeconds(10))
-                    .startStep(1)
-                    .build();
+        @DisplayName("Should end the claim of a pending retry")
+        void shouldRemoveRetryLease() {
+            givenConverter();
 
-            ArrayList<WorkflowExecution.ExecutionAttempt> attempts = new ArrayList<>();
-            attempts.add(activeAttempt);
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .currentStep(3)
-                    .stepHistory(new ArrayList<>())
-                    .executionAttempts(attempts)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+            assertThat(stages.get(0).get("$set", Document.class)).containsEntry("retryLease", "$$REMOVE");
+        }
 
+        @Test
+        @DisplayName("Should record the step and group of a branch put in retry")
+        void shouldRecordRetryStep() {
+            givenConverter();
             testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
+                    .status(WorkflowStatus.RETRY_PENDING)
                     .currentStep(3)
+                    .currentStepGroup("prepare")
                     .build();
 
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            // Attempt should be finalized
-            WorkflowExecution.ExecutionAttempt finalizedAttempt = saved.getExecutionAttempts().get(0);
-            assertThat(finalizedAttempt.getEndedAt()).isNotNull();
-            assertThat(finalizedAttempt.getResult()).isEqualTo(WorkflowStatus.COMPLETED);
-            assertThat(finalizedAttempt.getEndStep()).isEqualTo(3);
+            assertThat(stages.get(0).get("$set", Document.class))
+                    .containsEntry("retryStep", 3)
+                    .containsEntry("retryStepGroup", new Document("$literal", "prepare"));
         }
 
         @Test
-        @DisplayName("Should set error message in attempt on failure")
-        void shouldSetErrorMessageInAttemptOnFailure() {
-            // Create execution with an active attempt
-            WorkflowExecution.ExecutionAttempt activeAttempt = WorkflowExecution.ExecutionAttempt.builder()
-                    .attemptNumber(1)
-                    .startedAt(Instant.now().minusSeconds(10))
-                    .startStep(1)
-                    .build();
+        @DisplayName("Should remove the group of a sequential step put in retry")
+        void shouldRemoveRetryStepGroupOfSequentialStep() {
+            givenConverter();
+            testMessage = testMessage.toBuilder().status(WorkflowStatus.RETRY_PENDING).build();
 
-            ArrayList<WorkflowExecution.ExecutionAttempt> attempts = new ArrayList<>();
-            attempts.add(activeAttempt);
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .currentStep(2)
-                    .stepHistory(new ArrayList<>())
-                    .executionAttempts(attempts)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
-
-            ErrorInfo errorInfo = ErrorInfo.builder()
-                    .message("Workflow failed at step 2")
-                    .build();
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.FAILED)
-                    .currentStep(2)
-                    .errorInfo(errorInfo)
-                    .build();
+            assertThat(stages.get(0).get("$set", Document.class))
+                    .containsEntry("retryStep", 1)
+                    .containsEntry("retryStepGroup", "$$REMOVE");
+        }
 
-            persistenceService.onWorkflowMessage(testMessage);
+        @Test
+        @DisplayName("Should set the search keys of the payload on insert")
+        void shouldSetSearchKeysOnInsert() {
+            givenConverter();
+            when(searchKeys.extract("test-topic", testMessage.getPayload()))
+                    .thenReturn(List.of(new WorkflowExecution.SearchKey("key", "value")));
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            WorkflowExecution.ExecutionAttempt finalizedAttempt = saved.getExecutionAttempts().get(0);
-            assertThat(finalizedAttempt.getErrorMessage()).isEqualTo("Workflow failed at step 2");
+            Document searchKeysField = stages.get(0).get("$set", Document.class).get("searchKeys", Document.class);
+            List<?> onInsert = searchKeysField.getList("$cond", Object.class);
+            assertThat(onInsert.get(2)).isEqualTo("$searchKeys");
+            List<?> inserted = ((Document) onInsert.get(1)).getList("$literal", Document.class);
+            assertThat((Document) inserted.get(0)).containsEntry("key", "key").containsEntry("value", "value");
         }
-    }
-
-    @Nested
-    @DisplayName("Step history tracking")
-    class StepHistoryTrackingTests {
 
         @Test
-        @DisplayName("Should add step to history for PENDING status")
-        void shouldAddStepToHistoryForPendingStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.PENDING)
-                    .currentStep(1)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @DisplayName("Should leave search keys out when the workflow declares none")
+        void shouldLeaveSearchKeysOutWhenNone() {
+            givenConverter();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            assertThat(saved.getStepHistory()).isNotNull();
-            assertThat(saved.getStepHistory()).hasSize(1);
+            assertThat(stages.get(0).get("$set", Document.class)).doesNotContainKey("searchKeys");
         }
 
         @Test
-        @DisplayName("Should add step to history for RETRY_PENDING status")
-        void shouldAddStepToHistoryForRetryPendingStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should not extract search keys from a message of a later step")
+        void shouldNotExtractSearchKeysForLaterStep() {
+            givenConverter();
+            testMessage = testMessage.toBuilder().currentStep(2).build();
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.RETRY_PENDING)
-                    .currentStep(1)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            assertThat(saved.getStepHistory()).isNotNull();
-            assertThat(saved.getStepHistory()).hasSize(1);
+            assertThat(stages.get(0).get("$set", Document.class)).doesNotContainKey("searchKeys");
+            verifyNoInteractions(searchKeys);
         }
 
         @Test
-        @DisplayName("Should add step to history for IN_PROGRESS status")
-        void shouldAddStepToHistoryForInProgressStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .currentStep(1)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @DisplayName("Should not touch step history for CANCELLED status")
+        void shouldNotTouchStepHistoryForCancelledStatus() {
+            givenConverter();
+            testMessage = testMessage.toBuilder().status(WorkflowStatus.CANCELLED).build();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            assertThat(saved.getStepHistory()).isNotNull();
-            assertThat(saved.getStepHistory()).hasSize(1);
-            assertThat(saved.getStepHistory().get(0).getStepId()).isEqualTo(1);
+            // execution fields, completion, latency totals and version
+            assertThat(stages).hasSize(4);
+            assertThat(stages.get(1).get("$set", Document.class)).containsKeys("completedAt", "executionAttempts");
         }
 
         @Test
-        @DisplayName("Should mark previous steps as PASSED when advancing to next step")
-        void shouldMarkPreviousStepsAsPassedWhenAdvancing() {
-            // Create existing execution with step 1 IN_PROGRESS
-            WorkflowExecution.StepExecution step1 = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .startedAt(Instant.now().minusSeconds(10))
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
+        @DisplayName("Should increment the version in the update itself")
+        void shouldIncrementVersion() {
+            givenConverter();
 
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(step1);
+            AggregationUpdate update = persistenceService.buildUpdate(testMessage, Instant.now());
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .currentStep(1)
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+            assertThat(update.modifies("version")).isTrue();
+        }
+    }
 
-            // Now advance to step 2
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .currentStep(2)
-                    .build();
+    @Nested
+    @DisplayName("Write-behind")
+    class WriteBehindTests {
 
-            persistenceService.onWorkflowMessage(testMessage);
+        @Mock
+        private BulkOperations bulkOperations;
+
+        private SimpleMeterRegistry meterRegistry;
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+        private MutableClock clock;
 
-            // Step 1 should be marked as PASSED
-            WorkflowExecution.StepExecution savedStep1 = saved.getStepHistory().stream()
-                    .filter(s -> s.getStepId() == 1)
-                    .findFirst()
-                    .orElseThrow();
-            assertThat(savedStep1.getStatus()).isEqualTo(WorkflowStatus.PASSED);
-            assertThat(savedStep1.getCompletedAt()).isNotNull();
+        private ExecutionPersistenceService bufferedService;
+
+        @BeforeEach
+        void setUp() {
+            meterRegistry = new SimpleMeterRegistry();
+            clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+            bufferedService = new ExecutionPersistenceService(
+                    mongoTemplate, webSocketHandler, workflowRegistry, executionCounters, executionRollups, searchKeys,
+                    properties(true), meterRegistry, clock);
         }
 
         @Test
-        @DisplayName("Should add step to history for COMPLETED status")
-        void shouldAddStepToHistoryForCompletedStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should export the depth of each persistence lane")
+        void shouldExportLaneDepth() {
+            assertThat(meterRegistry.find("stepprflow.monitor.persistence.lane.depth").gauges()).hasSize(2);
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.lane.depth").tag("lane", "0").gauge().value())
+                    .isZero();
+        }
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .currentStep(3)
-                    .build();
+        private void givenBulk() {
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkflowExecution.class))
+                    .thenReturn(bulkOperations);
+        }
 
-            persistenceService.onWorkflowMessage(testMessage);
+        @Test
+        @DisplayName("Should buffer messages until the window is flushed")
+        void shouldBufferUntilFlush() {
+            givenConverter();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            bufferedService.onWorkflowMessage(testMessage);
 
-            assertThat(saved.getStepHistory()).isNotNull();
-            assertThat(saved.getStepHistory()).isNotEmpty();
+            verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+            verify(mongoTemplate, never()).findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class));
+            assertThat(bufferedService.getBufferedMessages()).isEqualTo(1);
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.buffer.depth").gauge().value())
+                    .isEqualTo(1.0);
         }
 
         @Test
-        @DisplayName("Should add step to history for FAILED status")
-        void shouldAddStepToHistoryForFailedStatus() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.FAILED)
-                    .build();
+        @DisplayName("Should chain the messages of an execution into one upsert of one bulk write")
+        void shouldCoalescePerExecution() {
+            givenConverter();
+            givenBulk();
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.PENDING).build());
+            bufferedService.onWorkflowMessage(testMessage);
 
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            bufferedService.flush();
 
-            assertThat(saved.getStepHistory()).isNotNull();
+            verify(bulkOperations).upsert(queryCaptor.capture(), updateCaptor.capture());
+            verify(bulkOperations).execute();
+            assertThat(queryCaptor.getValue().getQueryObject().get("executionId")).isEqualTo("exec-123");
+            List<Document> stages = pipeline(updateCaptor.getValue());
+            List<Document> single = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
+            // the status the window replaces, then both messages, each closed by its version increment
+            assertThat(stages).hasSize(1 + 2 * single.size());
+            assertThat(stages.get(0)).isEqualTo(new Document("$set", new Document("previousStatus", "$status")));
+            assertThat(stages.stream().filter(stage -> stage.get("$set", Document.class)
+                    .containsKey("previousStatus"))).hasSize(1);
+            assertThat(bufferedService.getBufferedMessages()).isZero();
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.writes").counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.flush.latency").timer().count())
+                    .isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should update existing step in history")
-        void shouldUpdateExistingStepInHistory() {
-            WorkflowExecution.StepExecution existingStep = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .startedAt(Instant.now().minusSeconds(5))
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
-
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(existingStep);
+        @DisplayName("Should write one upsert per execution")
+        void shouldWriteOneUpsertPerExecution() {
+            givenConverter();
+            givenBulk();
+            bufferedService.onWorkflowMessage(testMessage);
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().executionId("exec-456").build());
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+            bufferedService.flush();
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .currentStep(1)
-                    .build();
+            verify(bulkOperations, times(2)).upsert(any(Query.class), any(AggregationUpdate.class));
+            verify(bulkOperations).execute();
+        }
 
-            persistenceService.onWorkflowMessage(testMessage);
+        @Test
+        @DisplayName("Should flush immediately on a terminal status")
+        void shouldFlushOnTerminalStatus() {
+            givenConverter();
+            givenBulk();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.COMPLETED).build());
 
-            assertThat(saved.getStepHistory()).hasSize(1);
-            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.COMPLETED);
-            assertThat(saved.getStepHistory().get(0).getCompletedAt()).isNotNull();
+            verify(bulkOperations).execute();
+            assertThat(bufferedService.getBufferedMessages()).isZero();
         }
 
         @Test
-        @DisplayName("Should record error message in step history")
-        void shouldRecordErrorMessageInStepHistory() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should flush immediately when the buffer is full")
+        void shouldFlushWhenFull() {
+            givenConverter();
+            givenBulk();
 
-            ErrorInfo errorInfo = ErrorInfo.builder()
-                    .message("Step failed with error")
-                    .build();
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.FAILED)
-                    .errorInfo(errorInfo)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+            for (int i = 0; i < 3; i++) {
+                bufferedService.onWorkflowMessage(testMessage.toBuilder().executionId("exec-" + i).build());
+            }
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getStepHistory().get(0).getErrorMessage()).isEqualTo("Step failed with error");
+            verify(bulkOperations, times(3)).upsert(any(Query.class), any(AggregationUpdate.class));
+            verify(bulkOperations).execute();
         }
 
         @Test
-        @DisplayName("Should record retry attempt in step history")
-        void shouldRecordRetryAttemptInStepHistory() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should broadcast the written executions")
+        void shouldBroadcastWrittenExecutions() {
+            givenConverter();
+            givenBulk();
+            WorkflowExecution written = WorkflowExecution.builder().executionId("exec-123").build();
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(written));
+            bufferedService.onWorkflowMessage(testMessage);
 
-            RetryInfo retryInfo = RetryInfo.builder()
-                    .attempt(3)
-                    .maxAttempts(5)
-                    .build();
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .retryInfo(retryInfo)
-                    .build();
+            bufferedService.flush();
 
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getStepHistory().get(0).getAttempt()).isEqualTo(3);
+            verify(webSocketHandler).broadcastUpdate(written);
         }
-    }
-
-    @Nested
-    @DisplayName("Step duration calculation")
-    class StepDurationCalculationTests {
-
-        @Test
-        @DisplayName("Should calculate step duration correctly when startedAt is set")
-        void shouldCalculateStepDurationCorrectlyWhenStartedAtIsSet() {
-            // Create existing execution with a step that has startedAt
-            Instant stepStartTime = Instant.now().minusSeconds(5);
-            WorkflowExecution.StepExecution existingStep = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .startedAt(stepStartTime)
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
 
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(existingStep);
+        @Test
+        @DisplayName("Should not propagate a failed bulk write and buffer the window again")
+        void shouldNotPropagateFailedBulkWrite() {
+            givenConverter();
+            givenBulk();
+            when(bulkOperations.execute()).thenThrow(new IllegalStateException("write failed"));
+            bufferedService.onWorkflowMessage(testMessage);
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+            bufferedService.flush();
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .currentStep(1)
-                    .build();
+            verify(webSocketHandler, never()).broadcastUpdate(any());
+            verify(executionCounters, never()).record(any());
+            assertThat(bufferedService.getBufferedMessages()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should retry a failed window with backoff")
+        void shouldRetryFailedWindowWithBackoff() {
+            givenConverter();
+            givenBulk();
+            when(bulkOperations.execute()).thenThrow(new IllegalStateException("write failed"))
+                    .thenThrow(new IllegalStateException("write failed"))
+                    .thenReturn(null);
+            bufferedService.onWorkflowMessage(testMessage);
 
-            persistenceService.onWorkflowMessage(testMessage);
+            bufferedService.flush();
+            clock.advance(Duration.ofMillis(100));
+            bufferedService.flush();
+            // The delay doubled after the second failure
+            clock.advance(Duration.ofMillis(100));
+            bufferedService.flush();
+            verify(bulkOperations, times(2)).execute();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            clock.advance(Duration.ofMillis(100));
+            bufferedService.flush();
 
-            // Step duration should be positive (approximately 5 seconds)
-            Long durationMs = saved.getStepHistory().get(0).getDurationMs();
-            assertThat(durationMs).isNotNull();
-            assertThat(durationMs).isGreaterThanOrEqualTo(5000L);
-            assertThat(durationMs).isLessThan(10000L);
+            verify(bulkOperations, times(3)).execute();
+            verify(executionCounters).record(List.of(
+                    new ExecutionCounterService.Transition("test-topic", null, WorkflowStatus.IN_PROGRESS)));
+            assertThat(bufferedService.getBufferedMessages()).isZero();
         }
 
         @Test
-        @DisplayName("Should not calculate step duration when startedAt is null")
-        void shouldNotCalculateStepDurationWhenStartedAtIsNull() {
-            // Create existing execution with a step that has no startedAt
-            WorkflowExecution.StepExecution existingStep = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
+        @DisplayName("Should chain the updates buffered since a failed write after the failed ones")
+        void shouldChainNewerUpdatesAfterFailedOnes() {
+            givenConverter();
+            givenBulk();
+            when(bulkOperations.execute()).thenAnswer(invocation -> {
+                // A newer update of the execution arrives while its window is being written
+                bufferedService.onWorkflowMessage(testMessage);
+                throw new IllegalStateException("write failed");
+            }).thenReturn(null);
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.PENDING).build());
+            bufferedService.flush();
 
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(existingStep);
+            assertThat(bufferedService.getBufferedMessages()).isEqualTo(2);
+            clock.advance(Duration.ofMillis(100));
+            bufferedService.flush();
+
+            verify(bulkOperations, times(2)).upsert(any(Query.class), updateCaptor.capture());
+            List<Document> stages = pipeline(updateCaptor.getValue());
+            List<Document> single = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
+            assertThat(stages).hasSize(1 + 2 * single.size());
+            assertThat(stages.get(1).get("$set", Document.class).get("status", Document.class).get("$literal"))
+                    .isEqualTo("PENDING");
+            assertThat(bufferedService.getBufferedMessages()).isZero();
+        }
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.COMPLETED)
-                    .currentStep(1)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @Test
+        @DisplayName("Should keep a written window when reading it back fails")
+        void shouldNotRequeueWhenReadBackFails() {
+            givenConverter();
+            givenBulk();
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenThrow(new IllegalStateException("read failed"));
+            bufferedService.onWorkflowMessage(testMessage);
+
+            bufferedService.flush();
+
+            verify(bulkOperations).execute();
+            verify(executionCounters, never()).record(any());
+            assertThat(bufferedService.getBufferedMessages()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should read back the topic and statuses only when there is no broadcast")
+        void shouldReadBackStatusesOnlyWithoutBroadcaster() {
+            givenConverter();
+            givenBulk();
+            ExecutionPersistenceService service = new ExecutionPersistenceService(
+                    mongoTemplate, null, workflowRegistry, executionCounters, executionRollups, searchKeys,
+                    properties(true), meterRegistry, clock);
+            service.onWorkflowMessage(testMessage);
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            service.flush();
 
-            assertThat(saved.getStepHistory().get(0).getDurationMs()).isNull();
+            verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getFieldsObject()).containsOnlyKeys("topic", "status", "previousStatus");
         }
-    }
-
-    @Nested
-    @DisplayName("Step status handling")
-    class StepStatusHandlingTests {
 
         @Test
-        @DisplayName("Should set step status to IN_PROGRESS for IN_PROGRESS message")
-        void shouldSetStepStatusToInProgressForInProgressMessage() {
-            WorkflowExecution.StepExecution existingStep = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .startedAt(Instant.now().minusSeconds(5))
-                    .status(WorkflowStatus.PENDING)
-                    .build();
+        @DisplayName("Should drop and count the messages beyond the buffer capacity")
+        void shouldDropMessagesBeyondCapacity() {
+            givenConverter();
+            givenBulk();
+            MonitorProperties properties = properties(true);
+            properties.getPersistence().getWriteBehind().setCapacity(2);
+            ExecutionPersistenceService service = new ExecutionPersistenceService(
+                    mongoTemplate, webSocketHandler, workflowRegistry, executionCounters, executionRollups,
+                    searchKeys, properties, meterRegistry, clock);
+            when(bulkOperations.execute()).thenThrow(new IllegalStateException("write failed")).thenReturn(null);
+            service.onWorkflowMessage(testMessage);
+            service.onWorkflowMessage(testMessage.toBuilder().executionId("exec-456").build());
+            service.flush();
 
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(existingStep);
+            service.onWorkflowMessage(testMessage.toBuilder().executionId("exec-789").build());
+
+            assertThat(service.getBufferedMessages()).isEqualTo(2);
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.dropped").counter().count()).isEqualTo(1.0);
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+            clock.advance(Duration.ofMillis(100));
+            service.flush();
+            service.onWorkflowMessage(testMessage.toBuilder().executionId("exec-789").build());
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .currentStep(1)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.IN_PROGRESS);
+            assertThat(service.getBufferedMessages()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should set step status to PENDING for PENDING message")
-        void shouldSetStepStatusToPendingForPendingMessage() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.PENDING)
-                    .currentStep(1)
-                    .build();
+        @DisplayName("Should buffer again only the updates a bulk write rejected")
+        void shouldRequeueOnlyRejectedUpdates() {
+            givenConverter();
+            givenBulk();
+            BulkOperationException rejected = mock(BulkOperationException.class);
+            when(rejected.getErrors()).thenReturn(List.of(
+                    new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+            when(bulkOperations.execute()).thenThrow(rejected);
+            bufferedService.onWorkflowMessage(testMessage);
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().executionId("exec-456").build());
 
-            persistenceService.onWorkflowMessage(testMessage);
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            bufferedService.flush();
 
-            // Step should be created with the same status
-            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.PENDING);
+            verify(executionCounters).record(List.of(
+                    new ExecutionCounterService.Transition("test-topic", null, WorkflowStatus.IN_PROGRESS)));
+            verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkflowExecution.class));
+            assertThat((Collection<?>) queryCaptor.getValue().getQueryObject()
+                    .get("executionId", Document.class).get("$in")).containsExactly("exec-123");
+            assertThat(meterRegistry.get("stepprflow.monitor.persistence.writes").counter().count()).isEqualTo(1.0);
+            assertThat(bufferedService.getBufferedMessages()).isEqualTo(1);
         }
 
         @Test
-        @DisplayName("Should set step status to FAILED for FAILED message")
-        void shouldSetStepStatusToFailedForFailedMessage() {
-            WorkflowExecution.StepExecution existingStep = WorkflowExecution.StepExecution.builder()
-                    .stepId(1)
-                    .startedAt(Instant.now().minusSeconds(5))
-                    .status(WorkflowStatus.IN_PROGRESS)
-                    .build();
+        @DisplayName("Should report one transition per execution, to the status of its last message")
+        void shouldReportTransitionPerExecution() {
+            givenConverter();
+            givenBulk();
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(
+                    WorkflowExecution.builder().executionId("exec-123").topic("test-topic")
+                            .status(WorkflowStatus.RETRY_PENDING).previousStatus(WorkflowStatus.PENDING).build()));
+            bufferedService.onWorkflowMessage(testMessage);
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().status(WorkflowStatus.RETRY_PENDING).build());
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().executionId("exec-456").build());
 
-            ArrayList<WorkflowExecution.StepExecution> history = new ArrayList<>();
-            history.add(existingStep);
+            verify(executionCounters).record(List.of(
+                    new ExecutionCounterService.Transition("test-topic", WorkflowStatus.PENDING,
+                            WorkflowStatus.RETRY_PENDING),
+                    new ExecutionCounterService.Transition("test-topic", null, WorkflowStatus.IN_PROGRESS)));
+        }
 
-            WorkflowExecution existing = WorkflowExecution.builder()
-                    .executionId("exec-123")
-                    .topic("test-topic")
-                    .stepHistory(history)
-                    .build();
-            when(repository.findById("exec-123")).thenReturn(Optional.of(existing));
+        @Test
+        @DisplayName("Should set the search keys of the executions of a window created by a later step")
+        void shouldSetSearchKeysOfWindowExecutionsCreatedByLaterStep() {
+            givenConverter();
+            givenBulk();
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(
+                    WorkflowExecution.builder().executionId("exec-123").topic("test-topic")
+                            .status(WorkflowStatus.IN_PROGRESS).previousStatus(WorkflowStatus.IN_PROGRESS).build(),
+                    WorkflowExecution.builder().executionId("exec-456").topic("test-topic")
+                            .status(WorkflowStatus.IN_PROGRESS).build()));
+            WorkflowMessage created = testMessage.toBuilder().executionId("exec-456").currentStep(2).build();
+            when(searchKeys.extract("test-topic", created.getPayload()))
+                    .thenReturn(List.of(new WorkflowExecution.SearchKey("key", "value")));
+            bufferedService.onWorkflowMessage(testMessage.toBuilder().currentStep(2).build());
+            bufferedService.onWorkflowMessage(created);
 
-            testMessage = testMessage.toBuilder()
-                    .status(WorkflowStatus.FAILED)
-                    .currentStep(1)
-                    .build();
+            bufferedService.flush();
 
-            persistenceService.onWorkflowMessage(testMessage);
+            verify(searchKeys).extract(any(), any());
+            verify(mongoTemplate).updateFirst(queryCaptor.capture(), any(Update.class), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getQueryObject()).containsEntry("executionId", "exec-456");
+        }
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+        @Test
+        @DisplayName("Should do nothing when the buffer is empty")
+        void shouldDoNothingWhenEmpty() {
+            bufferedService.flush();
 
-            assertThat(saved.getStepHistory().get(0).getStatus()).isEqualTo(WorkflowStatus.FAILED);
-            assertThat(saved.getStepHistory().get(0).getCompletedAt()).isNotNull();
+            verifyNoInteractions(mongoTemplate);
         }
     }
 
     @Nested
-    @DisplayName("CreatedAt handling")
-    class CreatedAtHandlingTests {
+    @DisplayName("handleWorkflowMessageEvent() method")
+    class HandleWorkflowMessageEventTests {
 
         @Test
-        @DisplayName("Should use message createdAt if present")
-        void shouldUseMessageCreatedAtIfPresent() {
-            Instant messageCreatedAt = Instant.parse("2024-01-15T10:00:00Z");
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
-
-            testMessage = testMessage.toBuilder()
-                    .createdAt(messageCreatedAt)
-                    .build();
-
-            persistenceService.onWorkflowMessage(testMessage);
+        @DisplayName("Should delegate to onWorkflowMessage on a persistence lane")
+        void shouldDelegateToOnWorkflowMessage() {
+            givenConverter();
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
+            WorkflowMessageEvent event = new WorkflowMessageEvent(persistenceService, testMessage);
+            persistenceService.handleWorkflowMessageEvent(event);
 
-            assertThat(saved.getCreatedAt()).isEqualTo(messageCreatedAt);
+            verify(mongoTemplate, timeout(5000)).findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class));
         }
 
         @Test
-        @DisplayName("Should use current time if message createdAt is null")
-        void shouldUseCurrentTimeIfMessageCreatedAtIsNull() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should apply the events of an execution in order")
+        void shouldApplyEventsOfExecutionInOrder() {
+            givenConverter();
+            List<WorkflowStatus> statuses = List.of(WorkflowStatus.PENDING, WorkflowStatus.IN_PROGRESS,
+                    WorkflowStatus.RETRY_PENDING, WorkflowStatus.IN_PROGRESS, WorkflowStatus.COMPLETED);
 
-            testMessage = testMessage.toBuilder()
-                    .createdAt(null)
-                    .build();
+            statuses.forEach(status -> persistenceService.handleWorkflowMessageEvent(new WorkflowMessageEvent(
+                    persistenceService, testMessage.toBuilder().status(status).build())));
+            persistenceService.shutdown();
 
-            Instant before = Instant.now();
-            persistenceService.onWorkflowMessage(testMessage);
-            Instant after = Instant.now();
-
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-
-            assertThat(saved.getCreatedAt()).isBetween(before, after.plusMillis(1));
+            verify(mongoTemplate, times(statuses.size())).findAndModify(any(Query.class), updateCaptor.capture(),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class));
+            assertThat(updateCaptor.getAllValues())
+                    .extracting(update -> pipeline(update).get(1).get("$set", Document.class).get("status"))
+                    .containsExactlyElementsOf(statuses.stream()
+                            .map(status -> new Document("$literal", status.name()))
+                            .toList());
         }
-    }
-
-    @Nested
-    @DisplayName("handleWorkflowMessageEvent() method")
-    class HandleWorkflowMessageEventTests {
 
         @Test
-        @DisplayName("Should delegate to onWorkflowMessage")
-        void shouldDelegateToOnWorkflowMessage() {
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should keep persisting after a failed event")
+        void shouldKeepPersistingAfterFailure() {
+            givenConverter();
+            when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class)))
+                    .thenThrow(new IllegalStateException("write failed"))
+                    .thenReturn(null);
 
-            WorkflowMessageEvent event = new WorkflowMessageEvent(persistenceService, testMessage);
-            persistenceService.handleWorkflowMessageEvent(event);
+            persistenceService.handleWorkflowMessageEvent(new WorkflowMessageEvent(persistenceService, testMessage));
+            persistenceService.handleWorkflowMessageEvent(new WorkflowMessageEvent(persistenceService, testMessage));
+            persistenceService.shutdown();
 
-            verify(repository).save(any());
+            verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(AggregationUpdate.class),
+                    any(FindAndModifyOptions.class), eq(WorkflowExecution.class));
         }
     }
 
@@ -803,19 +784,10 @@ class ExecutionPersistenceServiceTest {
     @DisplayName("Step label resolution")
     class StepLabelResolutionTests {
 
-        @Mock
-        private WorkflowRegistry workflowRegistry;
-
-        private ExecutionPersistenceService serviceWithRegistry;
-
-        @BeforeEach
-        void setUp() {
-            serviceWithRegistry = new ExecutionPersistenceService(repository, webSocketHandler, workflowRegistry);
-        }
-
         @Test
         @DisplayName("Should resolve step label from workflow registry")
         void shouldResolveStepLabel() {
+            givenConverter();
             WorkflowDefinition definition = WorkflowDefinition.builder()
                     .topic("test-topic")
                     .steps(List.of(
@@ -823,45 +795,70 @@ class ExecutionPersistenceServiceTest {
                     ))
                     .build();
             when(workflowRegistry.getDefinition("test-topic")).thenReturn(definition);
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
 
-            serviceWithRegistry.onWorkflowMessage(testMessage);
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-            assertThat(saved.getStepHistory().get(0).getStepLabel()).isEqualTo("Validate Order");
+            assertThat(newStep(stages).getString("stepLabel")).isEqualTo("Validate Order");
         }
 
         @Test
         @DisplayName("Should return null label when definition not found")
         void shouldReturnNullLabelWhenDefinitionNotFound() {
+            givenConverter();
             when(workflowRegistry.getDefinition("test-topic")).thenReturn(null);
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
 
-            serviceWithRegistry.onWorkflowMessage(testMessage);
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-            assertThat(saved.getStepHistory().get(0).getStepLabel()).isNull();
+            assertThat(newStep(stages).getString("stepLabel")).isNull();
         }
 
         @Test
-        @DisplayName("Should return null label when step not found in definition")
-        void shouldReturnNullLabelWhenStepNotFound() {
-            WorkflowDefinition definition = WorkflowDefinition.builder()
-                    .topic("test-topic")
-                    .steps(List.of(
-                            StepDefinition.builder().id(99).label("Other Step").build()
-                    ))
-                    .build();
-            when(workflowRegistry.getDefinition("test-topic")).thenReturn(definition);
-            when(repository.findById("exec-123")).thenReturn(Optional.empty());
+        @DisplayName("Should prefer the step label carried by the message")
+        void shouldPreferMessageStepLabel() {
+            givenConverter();
+            testMessage = testMessage.toBuilder().currentStepLabel("From Agent").build();
+
+            List<Document> stages = pipeline(persistenceService.buildUpdate(testMessage, Instant.now()));
+
+            assertThat(newStep(stages).getString("stepLabel")).isEqualTo("From Agent");
+            verifyNoInteractions(workflowRegistry);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Document newStep(List<Document> stages) {
+            // Stage 3 appends the entry of the current step when missing
+            Document history = stages.get(2).get("$set", Document.class).get("stepHistory", Document.class);
+            List<Object> cond = history.getList("$cond", Object.class);
+            List<Object> concat = ((Document) cond.get(2)).getList("$concatArrays", Object.class);
+            List<Document> added = (List<Document>) concat.get(1);
+            return added.get(0).get("$literal", Document.class);
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now;
 
-            serviceWithRegistry.onWorkflowMessage(testMessage);
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
 
-            verify(repository).save(executionCaptor.capture());
-            WorkflowExecution saved = executionCaptor.getValue();
-            assertThat(saved.getStepHistory().get(0).getStepLabel()).isNull();
+        @Override
+        public Instant instant() {
+            return now;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package io.github.stepprflow.monitor.service;
+
+import com.mongodb.client.result.DeleteResult;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.MonitorProperties;
+import io.github.stepprflow.monitor.model.WorkflowExecution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExecutionRetentionService Tests")
+class ExecutionRetentionServiceTest {
+
+    private static final Instant CUTOFF = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ExecutionCounterService executionCounters;
+
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        MonitorProperties properties = new MonitorProperties();
+        properties.getRetention().setBatchSize(2);
+        properties.getRetention().setBatchPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        retentionService = new ExecutionRetentionService(mongoTemplate, executionCounters, properties, meterRegistry);
+    }
+
+    private WorkflowExecution execution(String executionId, String topic) {
+        return WorkflowExecution.builder().executionId(executionId).topic(topic).build();
+    }
+
+    private void givenExpired(long count) {
+        when(mongoTemplate.count(any(Query.class), eq(WorkflowExecution.class))).thenReturn(count);
+    }
+
+    @Nested
+    @DisplayName("purge() method")
+    class PurgeTests {
+
+        @Test
+        @DisplayName("Should delete expired executions in bounded batches")
+        void shouldDeleteInBatches() {
+            givenExpired(3);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(
+                    List.of(execution("exec-1", "order"), execution("exec-2", "order")),
+                    List.of(execution("exec-3", "payment")));
+            when(mongoTemplate.remove(any(Query.class), eq(WorkflowExecution.class))).thenReturn(
+                    DeleteResult.acknowledged(2), DeleteResult.acknowledged(1));
+
+            long deleted = retentionService.purge(WorkflowStatus.COMPLETED, CUTOFF);
+
+            assertThat(deleted).isEqualTo(3);
+            verify(mongoTemplate, times(2)).find(queryCaptor.capture(), eq(WorkflowExecution.class));
+            Query batch = queryCaptor.getValue();
+            assertThat(batch.getLimit()).isEqualTo(2);
+            assertThat(batch.getFieldsObject()).containsOnlyKeys("topic");
+            assertThat(batch.getQueryObject()).containsEntry("status", WorkflowStatus.COMPLETED);
+            assertThat(batch.getQueryObject().get("completedAt", Document.class)).containsEntry("$lt", CUTOFF);
+            verify(executionCounters).record(List.of(new ExecutionCounterService.Transition(
+                    "payment", WorkflowStatus.COMPLETED, null)));
+            assertThat(retentionService.getRemaining()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should delete only the executions still expired")
+        void shouldMatchExpiryAgainOnDelete() {
+            givenExpired(1);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(List.of(execution("exec-1", "order")));
+            when(mongoTemplate.remove(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(DeleteResult.acknowledged(1));
+
+            retentionService.purge(WorkflowStatus.FAILED, CUTOFF);
+
+            verify(mongoTemplate).remove(queryCaptor.capture(), eq(WorkflowExecution.class));
+            List<?> conditions = queryCaptor.getValue().getQueryObject().getList("$and", Document.class);
+            assertThat(conditions).hasSize(2);
+            assertThat((Document) conditions.get(1)).containsEntry("status", WorkflowStatus.FAILED);
+        }
+
+        @Test
+        @DisplayName("Should rebuild the counters when some executions were not deleted")
+        void shouldReconcileOnPartialDelete() {
+            givenExpired(2);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(
+                    List.of(execution("exec-1", "order")),
+                    List.of());
+            when(mongoTemplate.remove(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(DeleteResult.acknowledged(0));
+
+            retentionService.purge(WorkflowStatus.COMPLETED, CUTOFF);
+
+            verify(executionCounters, never()).record(any());
+            verify(executionCounters).reconcile();
+        }
+
+        @Test
+        @DisplayName("Should not read executions when none expired")
+        void shouldNotReadWhenNoneExpired() {
+            givenExpired(0);
+
+            assertThat(retentionService.purge(WorkflowStatus.COMPLETED, CUTOFF)).isZero();
+
+            verify(mongoTemplate, never()).find(any(Query.class), eq(WorkflowExecution.class));
+        }
+
+        @Test
+        @DisplayName("Should count deleted executions and time batches")
+        void shouldExportMetrics() {
+            givenExpired(1);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(List.of(execution("exec-1", "order")));
+            when(mongoTemplate.remove(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(DeleteResult.acknowledged(1));
+
+            retentionService.purge(WorkflowStatus.FAILED, CUTOFF);
+
+            assertThat(meterRegistry.get("stepprflow.monitor.retention.deleted").tag("status", "FAILED")
+                    .counter().count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("stepprflow.monitor.retention.batch.latency").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("stepprflow.monitor.retention.remaining").gauge().value()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("cleanupOldExecutions() method")
+    class CleanupOldExecutionsTests {
+
+        @Test
+        @DisplayName("Should use the retention of each status as cutoff")
+        void shouldUseRetentionOfEachStatus() {
+            givenExpired(0);
+
+            retentionService.cleanupOldExecutions();
+
+            verify(mongoTemplate, times(2)).count(queryCaptor.capture(), eq(WorkflowExecution.class));
+            Instant completedCutoff = queryCaptor.getAllValues().get(0).getQueryObject()
+                    .get("completedAt", Document.class).get("$lt", Instant.class);
+            Instant failedCutoff = queryCaptor.getAllValues().get(1).getQueryObject()
+                    .get("completedAt", Document.class).get("$lt", Instant.class);
+            Instant now = Instant.now();
+            assertThat(completedCutoff).isBetween(now.minus(Duration.ofDays(7)).minusSeconds(1),
+                    now.minus(Duration.ofDays(7)));
+            assertThat(failedCutoff).isBetween(now.minus(Duration.ofDays(30)).minusSeconds(1),
+                    now.minus(Duration.ofDays(30)));
+            assertThat(queryCaptor.getAllValues().get(1).getQueryObject())
+                    .containsEntry("status", WorkflowStatus.FAILED);
+        }
+    }
+}
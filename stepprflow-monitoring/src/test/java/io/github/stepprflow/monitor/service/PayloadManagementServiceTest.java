@@ -44,6 +44,9 @@ class PayloadManagementServiceTest {
     @Mock
     private NestedPathResolver pathResolver;
 
+    @Mock
+    private SearchKeyService searchKeys;
+
     @InjectMocks
     private PayloadManagementService payloadService;
 
@@ -124,6 +127,19 @@ class PayloadManagementServiceTest {
             assertThat(payload.get("orderId")).isEqualTo("NEW-001");
         }
 
+        @Test
+        @DisplayName("Should extract the search keys of the updated payload")
+        void shouldRefreshSearchKeys() {
+            when(repository.findById("exec-123")).thenReturn(Optional.of(testExecution));
+            when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+            when(searchKeys.extract(eq("test-topic"), any()))
+                    .thenReturn(List.of(new WorkflowExecution.SearchKey("orderId", "NEW-001")));
+
+            WorkflowExecution result = payloadService.updatePayloadField("exec-123", "orderId", "NEW-001", "user", "Fix");
+
+            assertThat(result.getSearchKeys()).containsExactly(new WorkflowExecution.SearchKey("orderId", "NEW-001"));
+        }
+
         @Test
         @DisplayName("Should update nested field in payload")
         void shouldUpdateNestedField() {
@@ -2,6 +2,8 @@ package io.github.stepprflow.monitor.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.stepprflow.core.metrics.ClusterMetrics;
+import io.github.stepprflow.core.metrics.MetricsDelta;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
 import io.github.stepprflow.core.model.WorkflowStatus;
@@ -30,13 +32,16 @@ class RegistrationMessageHandlerTest {
     @Mock
     private WorkflowRegistryService registryService;
 
+    @Mock
+    private ClusterMetrics clusterMetrics;
+
     private RegistrationMessageHandler handler;
 
     @BeforeEach
     void setUp() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        handler = new RegistrationMessageHandler(registryService, objectMapper);
+        handler = new RegistrationMessageHandler(registryService, objectMapper, clusterMetrics);
     }
 
     @Test
@@ -114,6 +119,49 @@ class RegistrationMessageHandlerTest {
         verify(registryService).heartbeat("order-service", "inst-1");
         verify(registryService, never()).registerWorkflows(any());
         verify(registryService, never()).unregisterService(any(), any());
+        verify(clusterMetrics, never()).merge(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should merge metrics sent with HEARTBEAT")
+    void shouldMergeMetricsSentWithHeartbeat() {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(WorkflowRegistrationRequest.METADATA_ACTION,
+                WorkflowRegistrationRequest.ACTION_HEARTBEAT);
+        metadata.put(WorkflowRegistrationRequest.METADATA_INSTANCE_ID, "inst-1");
+
+        // Payload as deserialized from the broker
+        Map<String, Object> payload = Map.of(
+                "intervalMillis", 30000,
+                "workflows", List.of(Map.of(
+                        "topic", "order-workflow",
+                        "serviceName", "order-service",
+                        "completed", 3,
+                        "duration", Map.of(
+                                "buckets", List.of(120),
+                                "counts", List.of(3),
+                                "sumMicros", 150000,
+                                "maxMicros", 51000))));
+
+        WorkflowMessage message = WorkflowMessage.builder()
+                .executionId("exec-2")
+                .topic(WorkflowRegistrationRequest.REGISTRATION_TOPIC)
+                .serviceName("order-service")
+                .status(WorkflowStatus.COMPLETED)
+                .payload(payload)
+                .metadata(metadata)
+                .build();
+
+        handler.handle(message);
+
+        ArgumentCaptor<MetricsDelta> captor = ArgumentCaptor.forClass(MetricsDelta.class);
+        verify(registryService).heartbeat("order-service", "inst-1");
+        verify(clusterMetrics).merge(eq("order-service"), eq("inst-1"), captor.capture());
+
+        MetricsDelta.WorkflowDelta workflow = captor.getValue().getWorkflows().get(0);
+        assertThat(workflow.getTopic()).isEqualTo("order-workflow");
+        assertThat(workflow.getCompleted()).isEqualTo(3);
+        assertThat(workflow.getDuration().totalCount()).isEqualTo(3);
     }
 
     @Test
@@ -135,6 +183,7 @@ class RegistrationMessageHandlerTest {
         handler.handle(message);
 
         verify(registryService).unregisterService("order-service", "inst-1");
+        verify(clusterMetrics).removeInstance("order-service", "inst-1");
         verify(registryService, never()).registerWorkflows(any());
         verify(registryService, never()).heartbeat(any(), any());
     }
@@ -6,8 +6,9 @@ import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
 import io.github.stepprflow.monitor.MonitorProperties;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
-import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
 import io.github.stepprflow.monitor.util.WorkflowMessageFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,14 +16,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,23 +41,25 @@ import static org.mockito.Mockito.*;
 @DisplayName("RetrySchedulerService Tests")
 class RetrySchedulerServiceTest {
 
-    @Mock
-    private WorkflowExecutionRepository repository;
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
 
     @Mock
-    private MessageBroker messageBroker;
+    private MongoTemplate mongoTemplate;
 
     @Mock
-    private MonitorProperties properties;
+    private MessageBroker messageBroker;
 
     @Mock
     private WorkflowMessageFactory messageFactory;
 
-    @InjectMocks
-    private RetrySchedulerService retrySchedulerService;
+    @Captor
+    private ArgumentCaptor<Query> queryCaptor;
 
     @Captor
-    private ArgumentCaptor<WorkflowMessage> messageCaptor;
+    private ArgumentCaptor<Update> updateCaptor;
+
+    private MonitorProperties properties;
+    private RetrySchedulerService retrySchedulerService;
 
     private WorkflowExecution testExecution;
     private WorkflowMessage testMessage;
@@ -57,12 +67,14 @@ class RetrySchedulerServiceTest {
 
     @BeforeEach
     void setUp() {
-        testCreatedAt = Instant.now().minusSeconds(3600);
+        properties = new MonitorProperties();
+        retrySchedulerService = newService();
+        testCreatedAt = NOW.minusSeconds(3600);
 
         RetryInfo retryInfo = RetryInfo.builder()
                 .attempt(2)
                 .maxAttempts(3)
-                .nextRetryAt(Instant.now().minusSeconds(60))
+                .nextRetryAt(NOW.minusSeconds(60))
                 .lastError("Previous failure")
                 .build();
 
@@ -78,6 +90,7 @@ class RetrySchedulerServiceTest {
                 .securityContext("token-abc")
                 .metadata(Map.of("user", "test-user"))
                 .retryInfo(retryInfo)
+                .retryLease(lease())
                 .createdAt(testCreatedAt)
                 .build();
 
@@ -97,6 +110,51 @@ class RetrySchedulerServiceTest {
                 .updatedAt(Instant.now())
                 .build();
     }
+    }
+
+    @AfterEach
+    void tearDown() {
+        retrySchedulerService.stop();
+    }
+
+    private RetrySchedulerService newService() {
+        return new RetrySchedulerService(mongoTemplate, messageBroker, messageFactory, properties,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static WorkflowExecution.RetryLease lease() {
+        return WorkflowExecution.RetryLease.builder()
+                .owner("me")
+                .claim("claim-1")
+                .expiresAt(NOW.plusSeconds(30))
+                .build();
+    }
+
+    private WorkflowExecution claimed(String executionId, String topic) {
+        return WorkflowExecution.builder()
+                .executionId(executionId)
+                .topic(topic)
+                .currentStep(1)
+                .totalSteps(3)
+                .retryInfo(RetryInfo.builder().attempt(1).maxAttempts(3).build())
+                .retryLease(lease())
+                .build();
+    }
+
+    private void givenClaims(WorkflowExecution... executions) {
+        when(mongoTemplate.getCollectionName(WorkflowExecution.class)).thenReturn("workflow_executions");
+        when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(executions));
+        if (executions.length > 0) {
+            when(messageBroker.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        }
+    }
+
+    /** Run a pass and wait for its messages to be sent. */
+    private Instant process() {
+        Instant next = retrySchedulerService.processPendingRetries();
+        retrySchedulerService.stop();
+        return next;
+    }
 
     @Nested
     @DisplayName("processPendingRetries() method")
@@ -105,204 +163,226 @@ class RetrySchedulerServiceTest {
         @Test
         @DisplayName("Should do nothing when no pending retries")
         void shouldDoNothingWhenNoPendingRetries() {
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of());
+            givenClaims();
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
-            verify(messageBroker, never()).send(any(), any());
+            verify(messageBroker, never()).sendAsync(any(), any());
         }
 
         @Test
         @DisplayName("Should process single pending retry")
         void shouldProcessSinglePendingRetry() {
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
+            givenClaims(testExecution);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
-            verify(messageBroker).send(eq("test-topic"), eq(testMessage));
+            verify(messageBroker).sendAsync(eq("test-topic"), eq(testMessage));
             verify(messageFactory).createRetryMessage(testExecution);
         }
 
         @Test
         @DisplayName("Should process multiple pending retries")
         void shouldProcessMultiplePendingRetries() {
-            WorkflowExecution execution2 = WorkflowExecution.builder()
-                    .executionId("exec-456")
-                    .topic("another-topic")
-                    .currentStep(1)
-                    .totalSteps(3)
-                    .retryInfo(RetryInfo.builder().attempt(1).maxAttempts(3).build())
-                    .build();
-
+            WorkflowExecution execution2 = claimed("exec-456", "another-topic");
             WorkflowMessage message2 = WorkflowMessage.builder()
                     .executionId("exec-456")
                     .topic("another-topic")
                     .status(WorkflowStatus.IN_PROGRESS)
                     .build();
-
-            when(repository.findPendingRetries(any(Instant.class)))
-                    .thenReturn(List.of(testExecution, execution2));
+            givenClaims(testExecution, execution2);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
             when(messageFactory.createRetryMessage(execution2)).thenReturn(message2);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
-            verify(messageBroker, times(2)).send(any(), any());
+            verify(messageBroker, times(2)).sendAsync(any(), any());
         }
 
         @Test
         @DisplayName("Should continue processing even if one retry fails")
         void shouldContinueProcessingEvenIfOneRetryFails() {
-            WorkflowExecution execution2 = WorkflowExecution.builder()
-                    .executionId("exec-456")
-                    .topic("another-topic")
-                    .currentStep(1)
-                    .totalSteps(3)
-                    .build();
-
+            WorkflowExecution execution2 = claimed("exec-456", "another-topic");
             WorkflowMessage message2 = WorkflowMessage.builder()
                     .executionId("exec-456")
                     .topic("another-topic")
                     .status(WorkflowStatus.IN_PROGRESS)
                     .build();
-
-            when(repository.findPendingRetries(any(Instant.class)))
-                    .thenReturn(List.of(testExecution, execution2));
+            givenClaims(testExecution, execution2);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
             when(messageFactory.createRetryMessage(execution2)).thenReturn(message2);
+            when(messageBroker.sendAsync(eq("test-topic"), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Kafka error")));
 
-            // First call throws exception, second succeeds
-            doThrow(new RuntimeException("Kafka error"))
-                    .doNothing()
-                    .when(messageBroker).send(any(), any());
+            process();
 
-            retrySchedulerService.processPendingRetries();
+            // Both are attempted, only the sent one is marked as dispatched
+            verify(messageBroker, times(2)).sendAsync(any(), any());
+            verify(mongoTemplate).updateFirst(queryCaptor.capture(), any(Update.class), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getQueryObject()).containsEntry("executionId", "exec-456");
+        }
 
-            // Both should be attempted
-            verify(messageBroker, times(2)).send(any(), any());
+        @Test
+        @DisplayName("Should stop after a full page and check again right away")
+        void shouldStopAfterFullPage() {
+            properties.getRetryScheduler().setPageSize(2);
+            retrySchedulerService = newService();
+            givenClaims(testExecution, claimed("exec-456", "another-topic"));
+            when(messageFactory.createRetryMessage(any())).thenReturn(testMessage);
+
+            Instant next = process();
+
+            assertThat(next).isEqualTo(NOW);
+            // The page is claimed with one aggregation and read back with one query
+            verify(mongoTemplate).aggregate(any(Aggregation.class), eq(WorkflowExecution.class), eq(Document.class));
+            verify(mongoTemplate).find(any(Query.class), eq(WorkflowExecution.class));
+            verify(mongoTemplate, never()).findOne(any(Query.class), eq(WorkflowExecution.class));
         }
     }
 
     @Nested
-    @DisplayName("Retry message construction")
-    class RetryMessageConstructionTests {
+    @DisplayName("Retry lease")
+    class RetryLeaseTests {
 
         @Test
-        @DisplayName("Should delegate message creation to factory")
-        void shouldDelegateMessageCreationToFactory() {
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
-            when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
+        @DisplayName("Should claim a page of the due retries whose lease is missing or expired")
+        void shouldClaimDueRetriesNotLeased() {
+            givenClaims();
+            ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
+
+            process();
+
+            verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq(WorkflowExecution.class),
+                    eq(Document.class));
+            List<Document> stages = aggregationCaptor.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+            Document match = stages.get(0).get("$match", Document.class);
+            assertThat(match).containsEntry("status", WorkflowStatus.RETRY_PENDING);
+            assertThat(match.get("retryInfo.nextRetryAt", Document.class)).containsEntry("$lte", NOW);
+            // A dispatched retry is claimed again once its re-dispatch timeout set the lease expiry
+            assertThat(match.getList("$or", Document.class)).containsExactly(
+                    new Document("retryLease", null),
+                    new Document("retryLease.expiresAt", new Document("$lt", NOW)));
+            assertThat(stages.get(1).get("$sort", Document.class)).containsEntry("retryInfo.nextRetryAt", 1);
+            assertThat(stages.get(2)).containsEntry("$limit", 100L);
+            Document lease = stages.get(3).get("$project", Document.class).get("retryLease", Document.class)
+                    .get("$literal", Document.class);
+            assertThat(lease.getString("owner")).isNotBlank();
+            assertThat(lease.get("expiresAt")).isEqualTo(Date.from(NOW.plusSeconds(30)));
+            Document merge = stages.get(4).get("$merge", Document.class);
+            assertThat(merge).containsEntry("into", "workflow_executions")
+                    .containsEntry("whenNotMatched", "discard");
+            assertThat(merge.getList("whenMatched", Document.class)).hasSize(1);
+
+            verify(mongoTemplate).find(queryCaptor.capture(), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("retryLease.claim", lease.getString("claim"));
+            assertThat(queryCaptor.getValue().getSortObject()).containsEntry("retryInfo.nextRetryAt", 1);
+        }
 
-            retrySchedulerService.processPendingRetries();
+        @Test
+        @DisplayName("Should mark a sent retry as dispatched under its lease, until its re-dispatch timeout")
+        void shouldMarkSentRetryAsDispatched() {
+            givenClaims(testExecution);
+            when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
 
-            verify(messageFactory).createRetryMessage(testExecution);
-            verify(messageBroker).send(eq("test-topic"), eq(testMessage));
+            process();
+
+            verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(),
+                    eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getQueryObject())
+                    .containsEntry("executionId", "exec-123")
+                    .containsEntry("retryLease.claim", "claim-1")
+                    .containsKey("retryLease.owner");
+            assertThat(updateCaptor.getValue().getUpdateObject().get("$set", Document.class))
+                    .containsEntry("retryLease.dispatchedAt", NOW)
+                    .containsEntry("retryLease.expiresAt", NOW.plus(Duration.ofMinutes(5)));
         }
 
         @Test
-        @DisplayName("Should send message returned by factory")
-        void shouldSendMessageReturnedByFactory() {
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
+        @DisplayName("Should not mark a retry as dispatched before the broker acknowledged it")
+        void shouldNotMarkUnacknowledgedRetryAsDispatched() {
+            properties.getRetryScheduler().setLeaseDuration(Duration.ofMillis(50));
+            retrySchedulerService = newService();
+            givenClaims(testExecution);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
+            CompletableFuture<Void> unacknowledged = new CompletableFuture<>();
+            when(messageBroker.sendAsync("test-topic", testMessage)).thenReturn(unacknowledged);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
-            verify(messageBroker).send(eq("test-topic"), eq(testMessage));
+            assertThat(unacknowledged).isCancelled();
+            verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class),
+                    eq(WorkflowExecution.class));
         }
     }
 
     @Nested
-    @DisplayName("cleanupOldExecutions() method")
-    class CleanupOldExecutionsTests {
-
-        @BeforeEach
-        void setUpRetention() {
-            MonitorProperties.Retention retention = new MonitorProperties.Retention();
-            retention.setCompletedTtl(Duration.ofDays(7));
-            retention.setFailedTtl(Duration.ofDays(30));
-            when(properties.getRetention()).thenReturn(retention);
-        }
+    @DisplayName("Next check")
+    class NextCheckTests {
 
         @Test
-        @DisplayName("Should delete old completed executions")
-        void shouldDeleteOldCompletedExecutions() {
-            WorkflowExecution oldCompleted = WorkflowExecution.builder()
-                    .executionId("old-completed")
-                    .status(WorkflowStatus.COMPLETED)
+        @DisplayName("Should wake up when the next retry is due")
+        void shouldWakeUpWhenNextRetryIsDue() {
+            givenClaims();
+            WorkflowExecution next = WorkflowExecution.builder()
+                    .retryInfo(RetryInfo.builder().nextRetryAt(NOW.plusSeconds(5)).build())
                     .build();
-            when(repository.findCompletedBefore(any(Instant.class)))
-                    .thenReturn(List.of(oldCompleted));
-            when(repository.findFailedBefore(any(Instant.class)))
-                    .thenReturn(List.of());
+            when(mongoTemplate.findOne(any(Query.class), eq(WorkflowExecution.class))).thenReturn(next);
 
-            retrySchedulerService.cleanupOldExecutions();
-
-            verify(repository).deleteAll(List.of(oldCompleted));
+            assertThat(process()).isEqualTo(NOW.plusSeconds(5));
+            verify(mongoTemplate).findOne(queryCaptor.capture(), eq(WorkflowExecution.class));
+            assertThat(queryCaptor.getValue().getFieldsObject()).containsOnlyKeys("retryInfo.nextRetryAt");
         }
 
         @Test
-        @DisplayName("Should delete old failed executions")
-        void shouldDeleteOldFailedExecutions() {
-            WorkflowExecution oldFailed = WorkflowExecution.builder()
-                    .executionId("old-failed")
-                    .status(WorkflowStatus.FAILED)
+        @DisplayName("Should check again after the check interval at the latest")
+        void shouldCheckAgainAfterCheckInterval() {
+            properties.getRetryScheduler().setCheckInterval(Duration.ofSeconds(10));
+            retrySchedulerService = newService();
+            givenClaims();
+            WorkflowExecution next = WorkflowExecution.builder()
+                    .retryInfo(RetryInfo.builder().nextRetryAt(NOW.plusSeconds(60)).build())
                     .build();
-            when(repository.findCompletedBefore(any(Instant.class)))
-                    .thenReturn(List.of());
-            when(repository.findFailedBefore(any(Instant.class)))
-                    .thenReturn(List.of(oldFailed));
-
-            retrySchedulerService.cleanupOldExecutions();
+            when(mongoTemplate.findOne(any(Query.class), eq(WorkflowExecution.class))).thenReturn(next);
 
-            verify(repository).deleteAll(List.of(oldFailed));
+            assertThat(process()).isEqualTo(NOW.plusSeconds(10));
         }
 
         @Test
-        @DisplayName("Should not delete anything when no old executions")
-        void shouldNotDeleteAnythingWhenNoOldExecutions() {
-            when(repository.findCompletedBefore(any(Instant.class))).thenReturn(List.of());
-            when(repository.findFailedBefore(any(Instant.class))).thenReturn(List.of());
+        @DisplayName("Should check again after the check interval when no retry is pending")
+        void shouldCheckAgainWhenNoRetryPending() {
+            givenClaims();
 
-            retrySchedulerService.cleanupOldExecutions();
-
-            verify(repository, never()).deleteAll(any());
+            assertThat(process()).isEqualTo(NOW.plusSeconds(30));
         }
+    }
 
-        @Test
-        @DisplayName("Should use correct TTL for completed executions")
-        void shouldUseCorrectTtlForCompletedExecutions() {
-            when(repository.findCompletedBefore(any(Instant.class))).thenReturn(List.of());
-            when(repository.findFailedBefore(any(Instant.class))).thenReturn(List.of());
-
-            ArgumentCaptor<Instant> cutoffCaptor = ArgumentCaptor.forClass(Instant.class);
+    @Nested
+    @DisplayName("Retry message construction")
+    class RetryMessageConstructionTests {
 
-            retrySchedulerService.cleanupOldExecutions();
+        @Test
+        @DisplayName("Should delegate message creation to factory")
+        void shouldDelegateMessageCreationToFactory() {
+            givenClaims(testExecution);
+            when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
 
-            verify(repository).findCompletedBefore(cutoffCaptor.capture());
-            Instant cutoff = cutoffCaptor.getValue();
+            process();
 
-            // Cutoff should be approximately 7 days ago
-            Instant expectedCutoff = Instant.now().minus(Duration.ofDays(7));
-            assertThat(cutoff).isBetween(expectedCutoff.minusSeconds(1), expectedCutoff.plusSeconds(1));
+            verify(messageFactory).createRetryMessage(testExecution);
+            verify(messageBroker).sendAsync(eq("test-topic"), eq(testMessage));
         }
 
         @Test
-        @DisplayName("Should use correct TTL for failed executions")
-        void shouldUseCorrectTtlForFailedExecutions() {
-            when(repository.findCompletedBefore(any(Instant.class))).thenReturn(List.of());
-            when(repository.findFailedBefore(any(Instant.class))).thenReturn(List.of());
-
-            ArgumentCaptor<Instant> cutoffCaptor = ArgumentCaptor.forClass(Instant.class);
-
-            retrySchedulerService.cleanupOldExecutions();
+        @DisplayName("Should send message returned by factory")
+        void shouldSendMessageReturnedByFactory() {
+            givenClaims(testExecution);
+            when(messageFactory.createRetryMessage(testExecution)).thenReturn(testMessage);
 
-            verify(repository).findFailedBefore(cutoffCaptor.capture());
-            Instant cutoff = cutoffCaptor.getValue();
+            process();
 
-            // Cutoff should be approximately 30 days ago
-            Instant expectedCutoff = Instant.now().minus(Duration.ofDays(30));
-            assertThat(cutoff).isBetween(expectedCutoff.minusSeconds(1), expectedCutoff.plusSeconds(1));
+            verify(messageBroker).sendAsync(eq("test-topic"), eq(testMessage));
         }
     }
 
@@ -315,13 +395,13 @@ class RetrySchedulerServiceTest {
         void shouldHandleExecutionWithNullRetryInfo() {
             testExecution.setRetryInfo(null);
             WorkflowMessage messageWithNullRetry = testMessage.toBuilder().retryInfo(null).build();
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
+            givenClaims(testExecution);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(messageWithNullRetry);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
             verify(messageFactory).createRetryMessage(testExecution);
-            verify(messageBroker).send(eq("test-topic"), eq(messageWithNullRetry));
+            verify(messageBroker).sendAsync(eq("test-topic"), eq(messageWithNullRetry));
         }
 
         @Test
@@ -329,13 +409,13 @@ class RetrySchedulerServiceTest {
         void shouldHandleExecutionWithNullMetadata() {
             testExecution.setMetadata(null);
             WorkflowMessage messageWithNullMeta = testMessage.toBuilder().metadata(null).build();
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
+            givenClaims(testExecution);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(messageWithNullMeta);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
             verify(messageFactory).createRetryMessage(testExecution);
-            verify(messageBroker).send(any(), eq(messageWithNullMeta));
+            verify(messageBroker).sendAsync(any(), eq(messageWithNullMeta));
         }
 
         @Test
@@ -343,13 +423,13 @@ class RetrySchedulerServiceTest {
         void shouldHandleExecutionWithNullSecurityContext() {
             testExecution.setSecurityContext(null);
             WorkflowMessage messageWithNullSec = testMessage.toBuilder().securityContext(null).build();
-            when(repository.findPendingRetries(any(Instant.class))).thenReturn(List.of(testExecution));
+            givenClaims(testExecution);
             when(messageFactory.createRetryMessage(testExecution)).thenReturn(messageWithNullSec);
 
-            retrySchedulerService.processPendingRetries();
+            process();
 
             verify(messageFactory).createRetryMessage(testExecution);
-            verify(messageBroker).send(any(), eq(messageWithNullSec));
+            verify(messageBroker).sendAsync(any(), eq(messageWithNullSec));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package io.github.stepprflow.monitor.service;
+
+import io.github.stepprflow.core.model.WorkflowDefinition;
+import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.util.NestedPathResolver;
+import io.github.stepprflow.monitor.model.RegisteredWorkflow;
+import io.github.stepprflow.monitor.model.WorkflowExecution.SearchKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SearchKeyService Tests")
+class SearchKeyServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    @Mock
+    private WorkflowRegistry workflowRegistry;
+
+    @Mock
+    private WorkflowRegistryService registryService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private MutableClock clock;
+    private SearchKeyService searchKeyService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        searchKeyService = new SearchKeyService(new NestedPathResolver(), workflowRegistry, registryService,
+                mongoTemplate, clock);
+    }
+
+    private void givenLocalPaths(String... paths) {
+        when(workflowRegistry.getDefinition("order")).thenReturn(WorkflowDefinition.builder()
+                .topic("order")
+                .searchKeys(List.of(paths))
+                .build());
+    }
+
+    private static RegisteredWorkflow registered(String... paths) {
+        return RegisteredWorkflow.builder().topic("order").searchKeys(List.of(paths)).build();
+    }
+
+    /**
+     * Payload mapped by the converter from an object.
+     */
+    record Order(String orderId, Customer customer) { }
+
+    record Customer(String id) { }
+
+    @Nested
+    @DisplayName("extract() method")
+    class ExtractTests {
+
+        @Test
+        @DisplayName("Should extract the values at the search key paths")
+        void shouldExtractValues() {
+            givenLocalPaths("orderId", "customer.id", "items[0].sku");
+            Map<String, Object> payload = Map.of(
+                    "orderId", "ORD-1",
+                    "customer", Map.of("id", 42),
+                    "items", List.of(Map.of("sku", "SKU-7")));
+
+            assertThat(searchKeyService.extract("order", payload)).containsExactly(
+                    new SearchKey("orderId", "ORD-1"),
+                    new SearchKey("customer.id", "42"),
+                    new SearchKey("items[0].sku", "SKU-7"));
+        }
+
+        @Test
+        @DisplayName("Should extract one search key per element of a list")
+        void shouldExtractListElements() {
+            givenLocalPaths("tags");
+
+            assertThat(searchKeyService.extract("order", Map.of("tags", List.of("a", "b", "a"))))
+                    .containsExactly(new SearchKey("tags", "a"), new SearchKey("tags", "b"));
+        }
+
+        @Test
+        @DisplayName("Should skip missing paths, indexes out of bounds and values that are not scalars")
+        void shouldSkipUnresolvedPaths() {
+            givenLocalPaths("missing", "items[3].sku", "customer", "orderId");
+            Map<String, Object> payload = Map.of(
+                    "customer", Map.of("id", 42),
+                    "items", List.of(),
+                    "orderId", "ORD-1");
+
+            assertThat(searchKeyService.extract("order", payload))
+                    .containsExactly(new SearchKey("orderId", "ORD-1"));
+        }
+
+        @Test
+        @DisplayName("Should map an object payload as a document")
+        void shouldMapObjectPayload() {
+            givenLocalPaths("orderId", "customer.id");
+            MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+                    new MongoMappingContext());
+            converter.afterPropertiesSet();
+            when(mongoTemplate.getConverter()).thenReturn(converter);
+
+            assertThat(searchKeyService.extract("order", new Order("ORD-1", new Customer("C-9"))))
+                    .containsExactly(new SearchKey("orderId", "ORD-1"), new SearchKey("customer.id", "C-9"));
+        }
+
+        @Test
+        @DisplayName("Should not read the payload when the workflow declares no search keys")
+        void shouldNotReadPayloadWithoutPaths() {
+            when(registryService.getRegistrations("order")).thenReturn(List.of());
+
+            assertThat(searchKeyService.extract("order", new Order("ORD-1", null))).isEmpty();
+            verifyNoInteractions(mongoTemplate);
+        }
+
+        @Test
+        @DisplayName("Should return no search keys without payload")
+        void shouldReturnNothingWithoutPayload() {
+            assertThat(searchKeyService.extract("order", null)).isEmpty();
+            verifyNoInteractions(workflowRegistry, registryService);
+        }
+    }
+
+    @Nested
+    @DisplayName("getPaths() method")
+    class GetPathsTests {
+
+        @Test
+        @DisplayName("Should merge the paths registered by the services providing the workflow")
+        void shouldMergeRegisteredPaths() {
+            when(registryService.getRegistrations("order")).thenReturn(List.of(
+                    registered("orderId", "customer.id"),
+                    registered("orderId", "invoiceId")));
+
+            assertThat(searchKeyService.getPaths("order")).containsExactly("orderId", "customer.id", "invoiceId");
+        }
+
+        @Test
+        @DisplayName("Should prefer the paths of the local workflow definition")
+        void shouldPreferLocalDefinition() {
+            givenLocalPaths("orderId");
+
+            assertThat(searchKeyService.getPaths("order")).containsExactly("orderId");
+            verifyNoInteractions(registryService);
+        }
+
+        @Test
+        @DisplayName("Should cache the paths of a topic until they expire")
+        void shouldCachePaths() {
+            when(registryService.getRegistrations("order")).thenReturn(
+                    List.of(registered("orderId")),
+                    List.of(registered("orderId", "invoiceId")));
+
+            searchKeyService.getPaths("order");
+            clock.advance(SearchKeyService.PATHS_TTL.minusSeconds(1));
+            assertThat(searchKeyService.getPaths("order")).containsExactly("orderId");
+
+            clock.advance(SearchKeyService.PATHS_TTL);
+            assertThat(searchKeyService.getPaths("order")).containsExactly("orderId", "invoiceId");
+            verify(registryService, times(2)).getRegistrations("order");
+        }
+    }
+
+    /**
+     * Clock moved forward by the tests.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.stepprflow.monitor.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("StripedExecutor Tests")
+class StripedExecutorTest {
+
+    private final StripedExecutor executor = new StripedExecutor("test-lane", 4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Should run the tasks of a key in submission order")
+    void shouldRunTasksOfKeyInOrder() {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+
+        IntStream.range(0, 100).forEach(i -> executor.execute("exec-1", () -> order.add(i)));
+
+        assertThat(executor.shutdown(Duration.ofSeconds(5))).isTrue();
+        assertThat(order).containsExactlyElementsOf(IntStream.range(0, 100).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("Should run tasks of different lanes in parallel")
+    void shouldRunDifferentLanesInParallel() throws InterruptedException {
+        String first = "exec-1";
+        String second = IntStream.range(2, 100).mapToObj(i -> "exec-" + i)
+                .filter(key -> executor.laneOf(key) != executor.laneOf(first))
+                .findFirst()
+                .orElseThrow();
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        Runnable meet = () -> {
+            bothRunning.countDown();
+            try {
+                if (bothRunning.await(5, TimeUnit.SECONDS)) {
+                    done.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(first, meet);
+        executor.execute(second, meet);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep a key on the same lane")
+    void shouldKeepKeyOnSameLane() {
+        int lane = executor.laneOf("exec-1");
+
+        assertThat(lane).isBetween(0, 3);
+        assertThat(executor.laneOf("exec-1")).isEqualTo(lane);
+        assertThat(executor.laneOf(null)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should report the tasks queued on a lane")
+    void shouldReportQueueDepth() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute("exec-1", () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute("exec-1", () -> { });
+        executor.execute("exec-1", () -> { });
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(executor.getQueueDepth(executor.laneOf("exec-1"))).isEqualTo(2);
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should keep running the lane after a failed task")
+    void shouldSurviveFailedTask() {
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        executor.execute("exec-1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("exec-1", () -> ran.add("next"));
+
+        assertThat(executor.shutdown(Duration.ofSeconds(5))).isTrue();
+        assertThat(ran).containsExactly("next");
+    }
+
+    @Test
+    @DisplayName("Should reject a lane count below one")
+    void shouldRejectInvalidLaneCount() {
+        assertThatThrownBy(() -> new StripedExecutor("test-lane", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
 import io.github.stepprflow.core.exception.MessageSendException;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
@@ -55,6 +56,9 @@ class WorkflowCommandServiceTest {
     @Mock
     private WorkflowMessageFactory messageFactory;
 
+    @Mock
+    private ExecutionCounterService executionCounters;
+
     @InjectMocks
     private WorkflowCommandService commandService;
 
@@ -250,7 +254,7 @@ class WorkflowCommandServiceTest {
                     .thenReturn("outbox-123");
 
             WorkflowCommandService serviceWithOutbox = new WorkflowCommandService(
-                    repository, messageBroker, messageFactory, outboxService);
+                    repository, messageBroker, messageFactory, executionCounters, outboxService, null);
 
             testExecution.setStatus(WorkflowStatus.FAILED);
             testExecution.setExecutionAttempts(new ArrayList<>());
@@ -344,6 +348,8 @@ class WorkflowCommandServiceTest {
             assertThat(saved.getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
             assertThat(saved.getCompletedAt()).isNotNull();
             assertThat(saved.getUpdatedAt()).isNotNull();
+            verify(executionCounters).record(List.of(new ExecutionCounterService.Transition(
+                    "test-topic", WorkflowStatus.IN_PROGRESS, WorkflowStatus.CANCELLED)));
         }
 
         @Test
@@ -377,6 +383,44 @@ class WorkflowCommandServiceTest {
 
             assertThatThrownBy(() -> commandService.cancel("exec-123"))
                     .isInstanceOf(ConcurrentModificationException.class);
+            verify(executionCounters, never()).record(any());
+        }
+
+        @Test
+        @DisplayName("Should broadcast cancellation after saving")
+        void shouldBroadcastCancellation() {
+            CancellationBroadcaster broadcaster = org.mockito.Mockito.mock(CancellationBroadcaster.class);
+            WorkflowCommandService serviceWithBroadcast = new WorkflowCommandService(
+                    repository, messageBroker, messageFactory, executionCounters, null, broadcaster);
+            testExecution.setStatus(WorkflowStatus.IN_PROGRESS);
+            when(repository.findById("exec-123")).thenReturn(Optional.of(testExecution));
+
+            serviceWithBroadcast.cancel("exec-123");
+
+            ArgumentCaptor<WorkflowMessage> captor = ArgumentCaptor.forClass(WorkflowMessage.class);
+            verify(broadcaster).broadcast(captor.capture());
+            assertThat(captor.getValue().getExecutionId()).isEqualTo("exec-123");
+            assertThat(captor.getValue().getTopic()).isEqualTo("test-topic");
+            assertThat(captor.getValue().getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
+            assertThat(captor.getValue().getPayload()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should keep cancellation when broadcast fails")
+        void shouldKeepCancellationWhenBroadcastFails() {
+            CancellationBroadcaster broadcaster = org.mockito.Mockito.mock(CancellationBroadcaster.class);
+            doThrow(new MessageSendException("kafka", CancellationBroadcaster.CONTROL_TOPIC, "exec-123",
+                    "Broker unavailable", null))
+                    .when(broadcaster).broadcast(any());
+            WorkflowCommandService serviceWithBroadcast = new WorkflowCommandService(
+                    repository, messageBroker, messageFactory, executionCounters, null, broadcaster);
+            testExecution.setStatus(WorkflowStatus.IN_PROGRESS);
+            when(repository.findById("exec-123")).thenReturn(Optional.of(testExecution));
+
+            serviceWithBroadcast.cancel("exec-123");
+
+            verify(repository).save(executionCaptor.capture());
+            assertThat(executionCaptor.getValue().getStatus()).isEqualTo(WorkflowStatus.CANCELLED);
         }
     }
 }
@@ -1,21 +1,28 @@
 package io.github.stepprflow.monitor.service;
 
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.monitor.dto.ExecutionSummaryDto;
+import io.github.stepprflow.monitor.dto.ExecutionWindowDto;
+import io.github.stepprflow.monitor.dto.LatencyBreakdownDto;
 import io.github.stepprflow.monitor.model.WorkflowExecution;
 import io.github.stepprflow.monitor.repository.WorkflowExecutionRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.data.mongodb.core.query.Query;
 
 import java.time.Instant;
@@ -24,9 +31,13 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -43,6 +54,9 @@ class WorkflowQueryServiceTest {
     @Mock
     private MongoTemplate mongoTemplate;
 
+    @Mock
+    private ExecutionCounterService executionCounters;
+
     @InjectMocks
     private WorkflowQueryService queryService;
 
@@ -100,63 +114,239 @@ class WorkflowQueryServiceTest {
             pageable = PageRequest.of(0, 20);
         }
 
+        private Query captureQuery() {
+            ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(captor.capture(), eq(WorkflowExecution.class));
+            return captor.getValue();
+        }
+
         @Test
         @DisplayName("Should filter by topic and statuses")
         void shouldFilterByTopicAndStatuses() {
-            Page<WorkflowExecution> expectedPage = new PageImpl<>(List.of(testExecution));
             List<WorkflowStatus> statuses = List.of(WorkflowStatus.FAILED);
-            when(repository.findByTopicAndStatusIn("test-topic", statuses, pageable))
-                    .thenReturn(expectedPage);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
 
-            Page<WorkflowExecution> result = queryService.findExecutions("test-topic", statuses, pageable);
+            Page<ExecutionSummaryDto> result = queryService.findExecutions("test-topic", statuses, pageable);
 
             assertThat(result.getContent()).hasSize(1);
-            verify(repository).findByTopicAndStatusIn("test-topic", statuses, pageable);
+            Document criteria = captureQuery().getQueryObject();
+            assertThat(criteria.get("topic")).isEqualTo("test-topic");
+            assertThat(criteria.get("status")).isEqualTo(new Document("$in", statuses));
         }
 
         @Test
         @DisplayName("Should filter by topic only")
         void shouldFilterByTopicOnly() {
-            Page<WorkflowExecution> expectedPage = new PageImpl<>(List.of(testExecution));
-            when(repository.findByTopic("test-topic", pageable)).thenReturn(expectedPage);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
 
-            Page<WorkflowExecution> result = queryService.findExecutions("test-topic", null, pageable);
+            queryService.findExecutions("test-topic", null, pageable);
 
-            verify(repository).findByTopic("test-topic", pageable);
+            assertThat(captureQuery().getQueryObject()).isEqualTo(new Document("topic", "test-topic"));
         }
 
         @Test
         @DisplayName("Should filter by statuses only")
         void shouldFilterByStatusesOnly() {
-            Page<WorkflowExecution> expectedPage = new PageImpl<>(List.of(testExecution));
             List<WorkflowStatus> statuses = List.of(WorkflowStatus.FAILED, WorkflowStatus.RETRY_PENDING);
-            when(repository.findByStatusIn(statuses, pageable)).thenReturn(expectedPage);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
 
-            Page<WorkflowExecution> result = queryService.findExecutions(null, statuses, pageable);
+            queryService.findExecutions(null, statuses, pageable);
 
-            verify(repository).findByStatusIn(statuses, pageable);
+            assertThat(captureQuery().getQueryObject())
+                    .isEqualTo(new Document("status", new Document("$in", statuses)));
         }
 
         @Test
         @DisplayName("Should return all when no filter")
         void shouldReturnAllWhenNoFilter() {
-            Page<WorkflowExecution> expectedPage = new PageImpl<>(List.of(testExecution));
-            when(repository.findAll(pageable)).thenReturn(expectedPage);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
 
-            Page<WorkflowExecution> result = queryService.findExecutions(null, null, pageable);
+            queryService.findExecutions(null, null, pageable);
 
-            verify(repository).findAll(pageable);
+            assertThat(captureQuery().getQueryObject()).isEmpty();
         }
 
         @Test
         @DisplayName("Should return all when empty statuses list")
         void shouldReturnAllWhenEmptyStatusesList() {
-            Page<WorkflowExecution> expectedPage = new PageImpl<>(List.of(testExecution));
-            when(repository.findAll(pageable)).thenReturn(expectedPage);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
+
+            queryService.findExecutions(null, List.of(), pageable);
+
+            assertThat(captureQuery().getQueryObject()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should read the summary fields only")
+        void shouldReadSummaryFieldsOnly() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
+
+            queryService.findExecutions(null, null, pageable);
+
+            Document fields = captureQuery().getFieldsObject();
+            assertThat(fields).containsKeys("executionId", "topic", "status", "currentStep", "createdAt");
+            assertThat(fields).doesNotContainKeys("payload", "stepHistory", "payloadHistory", "executionAttempts");
+        }
+
+        @Test
+        @DisplayName("Should apply pagination and map executions to summaries")
+        void shouldApplyPaginationAndMapToSummaries() {
+            Pageable secondPage = PageRequest.of(1, 1, Sort.by(Sort.Direction.ASC, "updatedAt"));
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
+            when(mongoTemplate.count(any(Query.class), eq(WorkflowExecution.class))).thenReturn(3L);
+
+            Page<ExecutionSummaryDto> result = queryService.findExecutions("test-topic", null, secondPage);
+
+            Query query = captureQuery();
+            assertThat(query.getSkip()).isEqualTo(1);
+            assertThat(query.getLimit()).isEqualTo(1);
+            assertThat(query.getSortObject()).isEqualTo(new Document("updatedAt", 1));
+            assertThat(result.getTotalElements()).isEqualTo(3);
+            ExecutionSummaryDto summary = result.getContent().get(0);
+            assertThat(summary.getExecutionId()).isEqualTo("exec-123");
+            assertThat(summary.getCorrelationId()).isEqualTo("corr-456");
+            assertThat(summary.getStatus()).isEqualTo(WorkflowStatus.FAILED);
+            assertThat(summary.getCurrentStep()).isEqualTo(2);
+            assertThat(summary.getTotalSteps()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Should skip the count when the first page is incomplete")
+        void shouldNotCountWhenFirstPageIsIncomplete() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
+
+            Page<ExecutionSummaryDto> result = queryService.findExecutions(null, null, pageable);
+
+            assertThat(result.getTotalElements()).isEqualTo(1);
+            verify(mongoTemplate, never()).count(any(Query.class), eq(WorkflowExecution.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("scrollExecutions() method")
+    class ScrollExecutionsTests {
+
+        private final Instant createdAt = Instant.parse("2025-01-01T10:00:00Z");
 
-            Page<WorkflowExecution> result = queryService.findExecutions(null, List.of(), pageable);
+        private WorkflowExecution execution(String executionId) {
+            return WorkflowExecution.builder().executionId(executionId).createdAt(createdAt).build();
+        }
+
+        private Query captureQuery() {
+            ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(captor.capture(), eq(WorkflowExecution.class));
+            return captor.getValue();
+        }
+
+        @Test
+        @DisplayName("Should read one more execution than the window to know if there is a next one")
+        void shouldReturnNextCursorWhenMoreExecutions() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(List.of(execution("exec-3"), execution("exec-2"), execution("exec-1")));
+
+            ExecutionWindowDto window = queryService.scrollExecutions(
+                    "test-topic", null, null, 2, Sort.Direction.DESC, false);
+
+            assertThat(window.getContent()).extracting(ExecutionSummaryDto::getExecutionId)
+                    .containsExactly("exec-3", "exec-2");
+            assertThat(window.getNextCursor()).isNotNull();
+            assertThat(WorkflowQueryService.decodeCursor(window.getNextCursor()))
+                    .isEqualTo(new WorkflowQueryService.ExecutionCursor(createdAt, "exec-2"));
+            assertThat(window.getTotal()).isNull();
+            Query query = captureQuery();
+            assertThat(query.getLimit()).isEqualTo(3);
+            assertThat(query.getSkip()).isZero();
+            assertThat(query.getSortObject()).isEqualTo(new Document("createdAt", -1).append("executionId", -1));
+            assertThat(query.getQueryObject()).isEqualTo(new Document("topic", "test-topic"));
+            verifyNoInteractions(executionCounters);
+        }
+
+        @Test
+        @DisplayName("Should not return a cursor on the last window")
+        void shouldNotReturnCursorOnLastWindow() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class)))
+                    .thenReturn(List.of(execution("exec-1")));
+
+            ExecutionWindowDto window = queryService.scrollExecutions(null, null, null, 2, Sort.Direction.DESC, false);
+
+            assertThat(window.getContent()).hasSize(1);
+            assertThat(window.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should seek after the execution of the cursor")
+        void shouldSeekAfterCursor() {
+            String cursor = WorkflowQueryService.encodeCursor(ExecutionSummaryDto.from(execution("exec-2")));
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of());
+
+            queryService.scrollExecutions(null, List.of(WorkflowStatus.FAILED), cursor, 20, Sort.Direction.ASC, false);
+
+            Document criteria = captureQuery().getQueryObject();
+            assertThat(criteria).containsEntry("status", new Document("$in", List.of(WorkflowStatus.FAILED)));
+            List<Document> after = criteria.getList("$and", Document.class);
+            assertThat(after.get(0)).isEqualTo(new Document("createdAt", new Document("$gte", createdAt)));
+            assertThat(after.get(1).getList("$or", Document.class)).containsExactly(
+                    new Document("createdAt", new Document("$gt", createdAt)),
+                    new Document("executionId", new Document("$gt", "exec-2")));
+        }
+
+        @Test
+        @DisplayName("Should read the total from the execution counters when requested")
+        void shouldReadTotalFromCounters() {
+            List<WorkflowStatus> statuses = List.of(WorkflowStatus.FAILED);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of());
+            when(executionCounters.count("test-topic", statuses)).thenReturn(42L);
+
+            ExecutionWindowDto window = queryService.scrollExecutions(
+                    "test-topic", statuses, null, 20, Sort.Direction.DESC, true);
 
-            verify(repository).findAll(pageable);
+            assertThat(window.getTotal()).isEqualTo(42L);
+            verify(mongoTemplate, never()).count(any(Query.class), eq(WorkflowExecution.class));
+        }
+
+        @Test
+        @DisplayName("Should reject an invalid cursor")
+        void shouldRejectInvalidCursor() {
+            assertThatThrownBy(() -> queryService.scrollExecutions(
+                    null, null, "not-a-cursor", 20, Sort.Direction.DESC, false))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Invalid cursor");
+        }
+    }
+
+    @Nested
+    @DisplayName("searchExecutions() method")
+    class SearchExecutionsTests {
+
+        private Document searchKeyMatch() {
+            ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(captor.capture(), eq(WorkflowExecution.class));
+            Query query = captor.getValue();
+            assertThat(query.getLimit()).isEqualTo(20);
+            return query.getQueryObject().get("searchKeys", Document.class).get("$elemMatch", Document.class);
+        }
+
+        @Test
+        @DisplayName("Should match a search key value exactly")
+        void shouldMatchExactValue() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of(testExecution));
+
+            List<ExecutionSummaryDto> result = queryService.searchExecutions("orderId", "ORD-1", false, 20);
+
+            assertThat(result).extracting(ExecutionSummaryDto::getExecutionId).containsExactly("exec-123");
+            assertThat(searchKeyMatch()).isEqualTo(new Document("value", "ORD-1").append("key", "orderId"));
+        }
+
+        @Test
+        @DisplayName("Should match the values starting with a prefix, regular expression characters included")
+        void shouldMatchPrefix() {
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of());
+
+            queryService.searchExecutions(null, "ORD.1", true, 20);
+
+            Document match = searchKeyMatch();
+            assertThat(match).containsOnlyKeys("value");
+            assertThat(match.get("value").toString()).contains("^\\QORD.1\\E");
         }
     }
 
@@ -167,13 +357,13 @@ class WorkflowQueryServiceTest {
         @Test
         @DisplayName("Should return statistics for all statuses")
         void shouldReturnStatisticsForAllStatuses() {
-            when(repository.countByStatus(WorkflowStatus.PENDING)).thenReturn(5L);
-            when(repository.countByStatus(WorkflowStatus.IN_PROGRESS)).thenReturn(3L);
-            when(repository.countByStatus(WorkflowStatus.COMPLETED)).thenReturn(100L);
-            when(repository.countByStatus(WorkflowStatus.FAILED)).thenReturn(2L);
-            when(repository.countByStatus(WorkflowStatus.RETRY_PENDING)).thenReturn(1L);
-            when(repository.countByStatus(WorkflowStatus.CANCELLED)).thenReturn(4L);
-            when(repository.count()).thenReturn(115L);
+            when(executionCounters.getCounts()).thenReturn(Map.of(
+                    WorkflowStatus.PENDING, 5L,
+                    WorkflowStatus.IN_PROGRESS, 3L,
+                    WorkflowStatus.COMPLETED, 100L,
+                    WorkflowStatus.FAILED, 2L,
+                    WorkflowStatus.RETRY_PENDING, 1L,
+                    WorkflowStatus.CANCELLED, 4L));
 
             Map<String, Object> stats = queryService.getStatistics();
 
@@ -184,19 +374,32 @@ class WorkflowQueryServiceTest {
             assertThat(stats).containsEntry("retryPending", 1L);
             assertThat(stats).containsEntry("cancelled", 4L);
             assertThat(stats).containsEntry("total", 115L);
+            verifyNoInteractions(repository, mongoTemplate);
         }
 
         @Test
         @DisplayName("Should return zero counts when no executions")
         void shouldReturnZeroCountsWhenNoExecutions() {
-            when(repository.countByStatus(any())).thenReturn(0L);
-            when(repository.count()).thenReturn(0L);
+            when(executionCounters.getCounts()).thenReturn(Map.of());
 
             Map<String, Object> stats = queryService.getStatistics();
 
             assertThat(stats).containsEntry("pending", 0L);
             assertThat(stats).containsEntry("total", 0L);
         }
+
+        @Test
+        @DisplayName("Should count the other statuses in the total")
+        void shouldCountOtherStatusesInTotal() {
+            when(executionCounters.getCounts()).thenReturn(Map.of(
+                    WorkflowStatus.COMPLETED, 2L,
+                    WorkflowStatus.PAUSED, 1L));
+
+            Map<String, Object> stats = queryService.getStatistics();
+
+            assertThat(stats).containsEntry("completed", 2L);
+            assertThat(stats).containsEntry("total", 3L);
+        }
     }
 
     @Nested
@@ -210,20 +413,24 @@ class WorkflowQueryServiceTest {
                     testExecution,
                     WorkflowExecution.builder().executionId("exec-456").build()
             );
-            when(repository.findTop10ByOrderByCreatedAtDesc()).thenReturn(recentExecutions);
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(recentExecutions);
 
-            List<WorkflowExecution> result = queryService.getRecentExecutions();
+            List<ExecutionSummaryDto> result = queryService.getRecentExecutions();
 
-            assertThat(result).hasSize(2);
-            verify(repository).findTop10ByOrderByCreatedAtDesc();
+            assertThat(result).extracting(ExecutionSummaryDto::getExecutionId).containsExactly("exec-123", "exec-456");
+            ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate).find(captor.capture(), eq(WorkflowExecution.class));
+            assertThat(captor.getValue().getSortObject()).isEqualTo(new Document("createdAt", -1));
+            assertThat(captor.getValue().getLimit()).isEqualTo(10);
+            assertThat(captor.getValue().getFieldsObject()).doesNotContainKey("payload");
         }
 
         @Test
         @DisplayName("Should return empty list when no executions")
         void shouldReturnEmptyListWhenNoExecutions() {
-            when(repository.findTop10ByOrderByCreatedAtDesc()).thenReturn(List.of());
+            when(mongoTemplate.find(any(Query.class), eq(WorkflowExecution.class))).thenReturn(List.of());
 
-            List<WorkflowExecution> result = queryService.getRecentExecutions();
+            List<ExecutionSummaryDto> result = queryService.getRecentExecutions();
 
             assertThat(result).isEmpty();
         }
@@ -262,40 +469,74 @@ class WorkflowQueryServiceTest {
     @DisplayName("getTopicSummary() method")
     class GetTopicSummaryTests {
 
-        @BeforeEach
-        void setUp() {
-            when(repository.countByTopicAndStatus(eq("order-workflow"), any()))
-                    .thenReturn(0L);
+        private void givenCounts(long total, long completed, long failed, long inProgress) {
+            when(executionCounters.count(eq("order-workflow"), any())).thenAnswer(invocation -> {
+                List<WorkflowStatus> statuses = invocation.getArgument(1);
+                if (statuses.size() > 1) {
+                    return total;
+                }
+                return switch (statuses.get(0)) {
+                    case COMPLETED -> completed;
+                    case FAILED -> failed;
+                    case IN_PROGRESS -> inProgress;
+                    default -> 0L;
+                };
+            });
+        }
+
+        private void givenReferences(WorkflowExecution completed, WorkflowExecution latest) {
+            when(mongoTemplate.findOne(any(Query.class), eq(WorkflowExecution.class))).thenAnswer(invocation -> {
+                Query query = invocation.getArgument(0);
+                return query.getQueryObject().containsKey("status") ? completed : latest;
+            });
+        }
+
+        private WorkflowExecution ref(int totalSteps, WorkflowExecution.StepExecution... steps) {
+            return WorkflowExecution.builder()
+                    .totalSteps(totalSteps)
+                    .stepHistory(List.of(steps))
+                    .build();
+        }
+
+        private WorkflowExecution.StepExecution step(int stepId, String label) {
+            return WorkflowExecution.StepExecution.builder().stepId(stepId).stepLabel(label).build();
+        }
+
+        @Test
+        @DisplayName("Should read counts from the counters and the reference with indexed finds")
+        void shouldReadCountsFromCountersAndReferenceWithIndexedFinds() {
+            givenCounts(0, 0, 0, 0);
+            givenReferences(null, null);
+
+            queryService.getTopicSummary("order-workflow");
+
+            ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate, times(2)).findOne(captor.capture(), eq(WorkflowExecution.class));
+            Query completed = captor.getAllValues().get(0);
+            assertThat(completed.getQueryObject())
+                    .containsEntry("topic", "order-workflow")
+                    .containsEntry("status", WorkflowStatus.COMPLETED);
+            assertThat(completed.getSortObject()).containsEntry("createdAt", -1);
+            assertThat(completed.getLimit()).isEqualTo(1);
+            assertThat(completed.getFieldsObject()).containsOnlyKeys("totalSteps", "stepHistory");
+            Query latest = captor.getAllValues().get(1);
+            assertThat(latest.getQueryObject()).containsOnlyKeys("topic");
+            assertThat(latest.getSortObject()).containsEntry("createdAt", -1);
+            assertThat(latest.getFieldsObject()).containsOnlyKeys("totalSteps", "stepHistory");
+            verify(mongoTemplate, never()).aggregate(any(TypedAggregation.class), eq(Document.class));
+            verifyNoInteractions(repository);
         }
 
         @Test
         @DisplayName("Should return summary with completed execution reference")
         void shouldReturnSummaryWithCompletedRef() {
-            when(repository.countByTopicAndStatus("order-workflow", WorkflowStatus.COMPLETED))
-                    .thenReturn(10L);
-            when(repository.countByTopicAndStatus("order-workflow", WorkflowStatus.FAILED))
-                    .thenReturn(2L);
-            when(repository.countByTopicAndStatus("order-workflow", WorkflowStatus.IN_PROGRESS))
-                    .thenReturn(1L);
-
-            WorkflowExecution ref = WorkflowExecution.builder()
-                    .executionId("ref-1")
-                    .topic("order-workflow")
-                    .totalSteps(3)
-                    .stepHistory(List.of(
-                            WorkflowExecution.StepExecution.builder()
-                                    .stepId(1).stepLabel("Validate").build(),
-                            WorkflowExecution.StepExecution.builder()
-                                    .stepId(2).stepLabel(null).build()
-                    ))
-                    .build();
-            Page<WorkflowExecution> completedPage = new PageImpl<>(List.of(ref));
-            when(repository.findByTopicAndStatus(eq("order-workflow"), eq(WorkflowStatus.COMPLETED), any()))
-                    .thenReturn(completedPage);
+            givenCounts(13, 10, 2, 1);
+            givenReferences(ref(3, step(2, null), step(1, "Validate")), ref(9));
 
             Map<String, Object> summary = queryService.getTopicSummary("order-workflow");
 
             assertThat(summary).containsEntry("topic", "order-workflow");
+            assertThat(summary).containsEntry("total", 13L);
             assertThat(summary).containsEntry("completed", 10L);
             assertThat(summary).containsEntry("failed", 2L);
             assertThat(summary).containsEntry("inProgress", 1L);
@@ -306,43 +547,98 @@ class WorkflowQueryServiceTest {
             assertThat(steps).hasSize(2);
             assertThat(steps.get(0)).containsEntry("label", "Validate");
             assertThat(steps.get(1)).containsEntry("label", "Step 2");
+            verify(mongoTemplate).findOne(any(Query.class), eq(WorkflowExecution.class));
+        }
+
+        @Test
+        @DisplayName("Should count the statuses of the total")
+        void shouldCountTotalStatuses() {
+            givenCounts(0, 0, 0, 0);
+            givenReferences(null, null);
+
+            queryService.getTopicSummary("order-workflow");
+
+            verify(executionCounters).count("order-workflow", List.of(
+                    WorkflowStatus.COMPLETED, WorkflowStatus.FAILED, WorkflowStatus.IN_PROGRESS,
+                    WorkflowStatus.PENDING, WorkflowStatus.RETRY_PENDING, WorkflowStatus.CANCELLED));
         }
 
         @Test
         @DisplayName("Should fallback to most recent execution when no completed")
         void shouldFallbackToRecentWhenNoCompleted() {
-            WorkflowExecution ref = WorkflowExecution.builder()
-                    .executionId("ref-2")
-                    .topic("order-workflow")
-                    .totalSteps(2)
-                    .stepHistory(List.of(
-                            WorkflowExecution.StepExecution.builder()
-                                    .stepId(1).stepLabel("Init").build()
-                    ))
-                    .build();
-            when(repository.findByTopicAndStatus(eq("order-workflow"), eq(WorkflowStatus.COMPLETED), any()))
-                    .thenReturn(Page.empty());
-            when(repository.findByTopic(eq("order-workflow"), any(Pageable.class)))
-                    .thenReturn(new PageImpl<>(List.of(ref)));
+            givenCounts(1, 0, 0, 1);
+            givenReferences(null, ref(2, step(1, "Init")));
 
             Map<String, Object> summary = queryService.getTopicSummary("order-workflow");
 
             assertThat(summary).containsEntry("totalSteps", 2);
+            assertThat(summary).containsEntry("completed", 0L);
         }
 
         @Test
         @DisplayName("Should return summary without steps when no executions at all")
         void shouldReturnSummaryWithoutStepsWhenNoExecutions() {
-            when(repository.findByTopicAndStatus(eq("order-workflow"), eq(WorkflowStatus.COMPLETED), any()))
-                    .thenReturn(Page.empty());
-            when(repository.findByTopic(eq("order-workflow"), any(Pageable.class)))
-                    .thenReturn(Page.empty());
+            givenCounts(0, 0, 0, 0);
+            givenReferences(null, null);
 
             Map<String, Object> summary = queryService.getTopicSummary("order-workflow");
 
             assertThat(summary).containsEntry("topic", "order-workflow");
+            assertThat(summary).containsEntry("total", 0L);
             assertThat(summary).doesNotContainKey("totalSteps");
             assertThat(summary).doesNotContainKey("steps");
         }
     }
+
+    @Nested
+    @DisplayName("getLatencyBreakdown() method")
+    class GetLatencyBreakdownTests {
+
+        @Test
+        @DisplayName("Should map the averages of the executions and of each step")
+        void shouldMapAverages() {
+            Document totals = new Document("executions", 4)
+                    .append("avgDurationMs", 1200.0)
+                    .append("avgQueuedMs", 300.0)
+                    .append("avgExecutingMs", 700.0)
+                    .append("avgRetryWaitMs", 150.0)
+                    .append("avgPipelineMs", 50.0);
+            Document step = new Document("_id", 1)
+                    .append("stepLabel", "validate")
+                    .append("executions", 4)
+                    .append("avgQueuedMs", 100.0)
+                    .append("avgExecutingMs", 250.0);
+            when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                    .thenReturn(new AggregationResults<>(List.of(totals), new Document()))
+                    .thenReturn(new AggregationResults<>(List.of(step), new Document()));
+
+            LatencyBreakdownDto result = queryService.getLatencyBreakdown("test-topic");
+
+            assertThat(result.getTopic()).isEqualTo("test-topic");
+            assertThat(result.getExecutions()).isEqualTo(4);
+            assertThat(result.getAvgQueuedMs()).isEqualTo(300.0);
+            assertThat(result.getAvgExecutingMs()).isEqualTo(700.0);
+            assertThat(result.getAvgRetryWaitMs()).isEqualTo(150.0);
+            assertThat(result.getAvgPipelineMs()).isEqualTo(50.0);
+            assertThat(result.getSteps()).singleElement().satisfies(s -> {
+                assertThat(s.getStepId()).isEqualTo(1);
+                assertThat(s.getStepLabel()).isEqualTo("validate");
+                assertThat(s.getAvgExecutingMs()).isEqualTo(250.0);
+                assertThat(s.getAvgRetryWaitMs()).isZero();
+            });
+        }
+
+        @Test
+        @DisplayName("Should return zeros when no execution has a breakdown")
+        void shouldReturnZerosWithoutExecutions() {
+            when(mongoTemplate.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                    .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+            LatencyBreakdownDto result = queryService.getLatencyBreakdown("test-topic");
+
+            assertThat(result.getExecutions()).isZero();
+            assertThat(result.getAvgDurationMs()).isZero();
+            assertThat(result.getSteps()).isEmpty();
+        }
+    }
 }
@@ -786,6 +786,7 @@ class WorkflowRegistryServiceTest {
                             WorkflowRegistrationRequest.WorkflowInfo.builder()
                                     .topic("order-workflow")
                                     .description("Updated description")
+                                    .searchKeys(List.of("orderId"))
                                     .steps(List.of(
                                             WorkflowRegistrationRequest.StepInfo.builder()
                                                     .id(1)
@@ -815,6 +816,7 @@ class WorkflowRegistryServiceTest {
             assertThat(saved.getSteps()).hasSize(2);
             assertThat(saved.getSteps().get(0).getLabel()).isEqualTo("Validate");
             assertThat(saved.getSteps().get(1).getLabel()).isEqualTo("Process");
+            assertThat(saved.getSearchKeys()).containsExactly("orderId");
         }
 
         @Test
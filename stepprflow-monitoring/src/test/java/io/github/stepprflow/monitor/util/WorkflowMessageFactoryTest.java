@@ -123,6 +123,20 @@ class WorkflowMessageFactoryTest {
             WorkflowMessage message = factory.createRetryMessage(execution);
 
             assertThat(message.getCurrentStep()).isEqualTo(2);
+            assertThat(message.getCurrentStepGroup()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should retry the failed branch of a parallel group")
+        void shouldRetryFailedBranch() {
+            execution.setCurrentStep(4);
+            execution.setRetryStep(3);
+            execution.setRetryStepGroup("prepare");
+
+            WorkflowMessage message = factory.createRetryMessage(execution);
+
+            assertThat(message.getCurrentStep()).isEqualTo(3);
+            assertThat(message.getCurrentStepGroup()).isEqualTo("prepare");
         }
 
         @Test
@@ -3,13 +3,19 @@ package io.github.stepprflow.broker.kafka;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.stepprflow.core.StepprFlowProperties;
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.security.TrustedPackagesValidator;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -17,6 +23,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -25,6 +32,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 import io.github.stepprflow.core.service.WorkflowRegistry;
 
@@ -115,7 +123,8 @@ public class KafkaBrokerAutoConfiguration {
     @ConditionalOnMissingBean(name = "workflowKafkaListenerContainerFactory")
     public ConcurrentKafkaListenerContainerFactory<String, WorkflowMessage> workflowKafkaListenerContainerFactory(
             ConsumerFactory<String, WorkflowMessage> consumerFactory,
-            StepprFlowProperties properties) {
+            StepprFlowProperties properties,
+            ObjectProvider<WorkflowMetrics> workflowMetrics) {
 
         ConcurrentKafkaListenerContainerFactory<String, WorkflowMessage> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
@@ -123,6 +132,7 @@ public class KafkaBrokerAutoConfiguration {
         factory.setConcurrency(properties.getKafka().getConsumer().getConcurrency());
         factory.getContainerProperties().setAckMode(
                 org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        workflowMetrics.ifAvailable(metrics -> factory.setRecordInterceptor(new KafkaConsumerLagRecorder(metrics)));
 
         return factory;
     }
@@ -147,7 +157,40 @@ public class KafkaBrokerAutoConfiguration {
     public KafkaMessageListener kafkaMessageListener(
             StepExecutor stepExecutor,
             WorkflowRegistry workflowRegistry,
-            org.springframework.context.ApplicationEventPublisher eventPublisher) {
-        return new KafkaMessageListener(stepExecutor, workflowRegistry, eventPublisher);
+            org.springframework.context.ApplicationEventPublisher eventPublisher,
+            ObjectProvider<WorkflowScheduler> scheduler) {
+        return new KafkaMessageListener(stepExecutor, workflowRegistry, eventPublisher,
+                scheduler.getIfAvailable());
+    }
+
+    /**
+     * Control topic carrying cancellations: compacted per execution ID and
+     * bounded by the cancellation TTL.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "stepprflow.cancellation.enabled", havingValue = "true", matchIfMissing = true)
+    public NewTopic stepprflowControlTopic(StepprFlowProperties properties) {
+        return TopicBuilder.name(CancellationBroadcaster.CONTROL_TOPIC)
+                .partitions(1)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG,
+                        TopicConfig.CLEANUP_POLICY_COMPACT + "," + TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG,
+                        String.valueOf(properties.getCancellation().getTtl().toMillis()))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CancellationBroadcaster.class)
+    @ConditionalOnProperty(name = "stepprflow.cancellation.enabled", havingValue = "true", matchIfMissing = true)
+    public CancellationBroadcaster cancellationBroadcaster(KafkaTemplate<String, WorkflowMessage> kafkaTemplate) {
+        return new KafkaCancellationBroadcaster(kafkaTemplate);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = {"stepprflow.cancellation.enabled", "stepprflow.workflow.executor.enabled"},
+            havingValue = "true", matchIfMissing = true)
+    public KafkaCancellationListener kafkaCancellationListener(CancellationRegistry cancellationRegistry) {
+        return new KafkaCancellationListener(cancellationRegistry);
     }
 }
@@ -0,0 +1,37 @@
+package io.github.stepprflow.broker.kafka;
+
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.exception.MessageSendException;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Publishes cancellations to the compacted control topic.
+ * Records are keyed by execution ID, so compaction keeps a single notice per
+ * execution and agents that (re)start replay only recent cancellations.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaCancellationBroadcaster implements CancellationBroadcaster {
+
+    private final KafkaTemplate<String, WorkflowMessage> kafkaTemplate;
+
+    @Override
+    public void broadcast(WorkflowMessage cancellation) {
+        try {
+            kafkaTemplate.send(CONTROL_TOPIC, cancellation.getExecutionId(), cancellation).get();
+            log.debug("Broadcast cancellation of execution {}", cancellation.getExecutionId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessageSendException("kafka", CONTROL_TOPIC, cancellation.getExecutionId(),
+                    "Interrupted while broadcasting cancellation", e);
+        } catch (Exception e) {
+            log.error("Failed to broadcast cancellation of execution {}: {}",
+                    cancellation.getExecutionId(), e.getMessage(), e);
+            throw new MessageSendException("kafka", CONTROL_TOPIC, cancellation.getExecutionId(),
+                    e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.stepprflow.broker.kafka;
+
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+
+/**
+ * Kafka listener for the cancellation control topic.
+ * Every instance reads the whole topic on its own: its single partition is
+ * assigned manually and read from the earliest retained record at startup,
+ * so that cancellations issued while the instance was down are applied too.
+ * No consumer group is joined and no offset is committed, so restarts leave
+ * nothing behind on the broker.
+ * This bean is created by KafkaBrokerAutoConfiguration.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaCancellationListener {
+
+    private final CancellationRegistry cancellationRegistry;
+
+    /**
+     * Listen to the control topic. Records are not acknowledged: the topic is
+     * replayed from the start by every instance anyway.
+     */
+    @KafkaListener(
+            topicPartitions = @TopicPartition(
+                    topic = CancellationBroadcaster.CONTROL_TOPIC,
+                    partitionOffsets = @PartitionOffset(partition = "0", initialOffset = "0")),
+            containerFactory = "workflowKafkaListenerContainerFactory",
+            concurrency = "1",
+            // Offset 0 may have been compacted or deleted
+            properties = "auto.offset.reset=earliest"
+    )
+    public void onMessage(ConsumerRecord<String, WorkflowMessage> record) {
+        WorkflowMessage message = record.value();
+        if (message != null) {
+            cancellationRegistry.onCancellation(message);
+        } else {
+            log.warn("Received null message on control topic, key={}", record.key());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.stepprflow.broker.kafka;
+
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the consumer lag of each partition as its records are consumed.
+ * The lag is derived from the end offset returned by the last fetch, so it
+ * costs no broker round-trip; a partition no longer consumed keeps its last value.
+ * This interceptor is installed by KafkaBrokerAutoConfiguration when metrics are enabled.
+ */
+@RequiredArgsConstructor
+public class KafkaConsumerLagRecorder implements RecordInterceptor<String, WorkflowMessage> {
+
+    private final WorkflowMetrics metrics;
+    private final Map<TopicPartition, AtomicLong> lags = new ConcurrentHashMap<>();
+
+    @Override
+    public ConsumerRecord<String, WorkflowMessage> intercept(ConsumerRecord<String, WorkflowMessage> record,
+                                                            Consumer<String, WorkflowMessage> consumer) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        OptionalLong fetchLag = consumer.currentLag(partition);
+        if (fetchLag.isPresent()) {
+            // currentLag counts from the fetch position, past the records of the current poll
+            long endOffset = consumer.position(partition) + fetchLag.getAsLong();
+            AtomicLong lag = lags.get(partition);
+            if (lag == null) {
+                lag = lags.computeIfAbsent(partition, p -> metrics.consumerLag(p.topic(), p.partition()));
+            }
+            lag.set(Math.max(endOffset - record.offset() - 1, 0));
+        }
+        return record;
+    }
+}
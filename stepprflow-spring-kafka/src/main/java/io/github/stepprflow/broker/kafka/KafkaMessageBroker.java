@@ -3,11 +3,15 @@ package io.github.stepprflow.broker.kafka;
 import io.github.stepprflow.core.broker.MessageBroker;
 import io.github.stepprflow.core.exception.MessageSendException;
 import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.tracing.TraceParent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -24,8 +28,7 @@ public class KafkaMessageBroker implements MessageBroker {
         log.debug("Sending message to Kafka topic {}: executionId={}, step={}",
                 destination, message.getExecutionId(), message.getCurrentStep());
 
-        CompletableFuture<SendResult<String, WorkflowMessage>> future =
-                kafkaTemplate.send(destination, message.getExecutionId(), message);
+        CompletableFuture<SendResult<String, WorkflowMessage>> future = doSend(destination, message);
 
         future.whenComplete((result, ex) -> {
             if (ex != null) {
@@ -44,21 +47,45 @@ public class KafkaMessageBroker implements MessageBroker {
         log.debug("Sending async message to Kafka topic {}: executionId={}",
                 destination, message.getExecutionId());
 
-        return kafkaTemplate.send(destination, message.getExecutionId(), message)
+        return doSend(destination, message)
                 .thenAccept(result -> log.debug("Async message sent to topic {} partition {} offset {}",
                         destination,
                         result.getRecordMetadata().partition(),
                         result.getRecordMetadata().offset()));
     }
 
+    /**
+     * Hands every record to the producer, then flushes once so the whole batch
+     * goes out without waiting for linger.ms on each record.
+     */
+    @Override
+    public CompletableFuture<Void> sendBatch(String destination, List<WorkflowMessage> messages) {
+        log.debug("Sending batch of {} messages to Kafka topic {}", messages.size(), destination);
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < futures.length; i++) {
+            WorkflowMessage message = messages.get(i);
+            futures[i] = doSend(destination, message);
+        }
+        kafkaTemplate.flush();
+
+        return CompletableFuture.allOf(futures)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send batch to topic {}: {}", destination, ex.getMessage(), ex);
+                    } else {
+                        log.debug("Batch of {} messages sent to topic {}", messages.size(), destination);
+                    }
+                });
+    }
+
     @Override
     public void sendSync(String destination, WorkflowMessage message) {
         log.debug("Sending sync message to Kafka topic {}: executionId={}",
                 destination, message.getExecutionId());
 
         try {
-            SendResult<String, WorkflowMessage> result =
-                    kafkaTemplate.send(destination, message.getExecutionId(), message).get();
+            SendResult<String, WorkflowMessage> result = doSend(destination, message).get();
             log.debug("Sync message sent to topic {} partition {} offset {}",
                     destination,
                     result.getRecordMetadata().partition(),
@@ -70,6 +97,32 @@ public class KafkaMessageBroker implements MessageBroker {
         }
     }
 
+    /**
+     * Sends the message, with its trace context in the W3C traceparent header.
+     */
+    private CompletableFuture<SendResult<String, WorkflowMessage>> doSend(String destination,
+                                                                        WorkflowMessage message) {
+        if (message.getTraceParent() == null) {
+            return kafkaTemplate.send(destination, recordKey(message), message);
+        }
+        ProducerRecord<String, WorkflowMessage> record =
+                new ProducerRecord<>(destination, recordKey(message), message);
+        record.headers().add(TraceParent.HEADER, message.getTraceParent().getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(record);
+    }
+
+    /**
+     * Record key: the execution ID keeps the steps of an execution ordered on one partition.
+     * Branches of a parallel group get their own key so they spread over partitions and are
+     * consumed concurrently, which takes a join store shared by the consumer instances.
+     */
+    static String recordKey(WorkflowMessage message) {
+        if (message.getCurrentStepGroup() == null) {
+            return message.getExecutionId();
+        }
+        return message.getExecutionId() + "#" + message.getCurrentStepGroup() + "#" + message.getCurrentStep();
+    }
+
     @Override
     public String getBrokerType() {
         return "kafka";
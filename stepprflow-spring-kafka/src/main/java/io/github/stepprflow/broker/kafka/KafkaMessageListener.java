@@ -1,18 +1,24 @@
 package io.github.stepprflow.broker.kafka;
 
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowRegistrationRequest;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.tracing.TraceParent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Kafka listener for workflow messages.
  * Listens to registered workflow topics and delegates to StepExecutor.
@@ -25,6 +31,7 @@ public class KafkaMessageListener {
     private final StepExecutor stepExecutor;
     private final WorkflowRegistry registry;
     private final ApplicationEventPublisher eventPublisher;
+    private final WorkflowScheduler scheduler;
 
     /**
      * Listen to all registered workflow topics.
@@ -35,8 +42,10 @@ public class KafkaMessageListener {
             groupId = "${stepprflow.kafka.consumer.group-id:stepprflow-workflow-processor}"
     )
     public void onMessage(ConsumerRecord<String, WorkflowMessage> record, Acknowledgment ack) {
-        // Skip registration messages — handled by the monitoring module
-        if (WorkflowRegistrationRequest.REGISTRATION_TOPIC.equals(record.topic())) {
+        // Skip registration messages (handled by the monitoring module) and
+        // cancellations (handled by KafkaCancellationListener)
+        if (WorkflowRegistrationRequest.REGISTRATION_TOPIC.equals(record.topic())
+                || CancellationBroadcaster.CONTROL_TOPIC.equals(record.topic())) {
             ack.acknowledge();
             return;
         }
@@ -59,7 +68,10 @@ public class KafkaMessageListener {
         if (message.getStatus() == WorkflowStatus.PENDING ||
             message.getStatus() == WorkflowStatus.IN_PROGRESS) {
             try {
-                stepExecutor.execute(message);
+                // Messages scheduled for later are held by the scheduler until due
+                if (scheduler == null || !scheduler.defer(message)) {
+                    execute(message, record);
+                }
                 ack.acknowledge();
             } catch (Exception e) {
                 log.error("Error processing message: {}", e.getMessage(), e);
@@ -70,4 +82,16 @@ public class KafkaMessageListener {
             ack.acknowledge();
         }
     }
+
+    /**
+     * Execute the step from its producer timestamp, continuing the trace of the
+     * traceparent header when the message itself carries none.
+     */
+    private void execute(WorkflowMessage message, ConsumerRecord<String, WorkflowMessage> record) {
+        Header traceParent = record.headers().lastHeader(TraceParent.HEADER);
+        if (message.getTraceParent() == null && traceParent != null) {
+            message.setTraceParent(new String(traceParent.value(), StandardCharsets.UTF_8));
+        }
+        stepExecutor.execute(message, Math.max(record.timestamp(), 0));
+    }
 }
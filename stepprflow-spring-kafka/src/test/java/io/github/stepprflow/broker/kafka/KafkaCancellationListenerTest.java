@@ -0,0 +1,71 @@
+package io.github.stepprflow.broker.kafka;
+
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.model.WorkflowStatus;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.annotation.KafkaListener;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KafkaCancellationListener Tests")
+class KafkaCancellationListenerTest {
+
+    @Mock
+    private CancellationRegistry cancellationRegistry;
+
+    private KafkaCancellationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new KafkaCancellationListener(cancellationRegistry);
+    }
+
+    @Test
+    @DisplayName("Should register cancellation")
+    void shouldRegisterCancellation() {
+        WorkflowMessage message = WorkflowMessage.builder()
+                .executionId("exec-1")
+                .topic("order-workflow")
+                .status(WorkflowStatus.CANCELLED)
+                .updatedAt(Instant.now())
+                .build();
+
+        listener.onMessage(new ConsumerRecord<>(CancellationBroadcaster.CONTROL_TOPIC, 0, 0L, "exec-1", message));
+
+        verify(cancellationRegistry).onCancellation(message);
+    }
+
+    @Test
+    @DisplayName("Should skip null message")
+    void shouldSkipNullMessage() {
+        listener.onMessage(new ConsumerRecord<>(CancellationBroadcaster.CONTROL_TOPIC, 0, 0L, "exec-1", null));
+
+        verifyNoInteractions(cancellationRegistry);
+    }
+
+    @Test
+    @DisplayName("Should read the control topic from the start without a consumer group")
+    void shouldAssignControlTopicWithoutGroup() throws Exception {
+        KafkaListener annotation = KafkaCancellationListener.class
+                .getMethod("onMessage", ConsumerRecord.class)
+                .getAnnotation(KafkaListener.class);
+
+        assertThat(annotation.groupId()).isEmpty();
+        assertThat(annotation.topics()).isEmpty();
+        assertThat(annotation.topicPartitions()).hasSize(1);
+        assertThat(annotation.topicPartitions()[0].topic()).isEqualTo(CancellationBroadcaster.CONTROL_TOPIC);
+        assertThat(annotation.topicPartitions()[0].partitionOffsets()[0].initialOffset()).isEqualTo("0");
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.stepprflow.broker.kafka;
+
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KafkaConsumerLagRecorder Tests")
+class KafkaConsumerLagRecorderTest {
+
+    @Mock
+    private Consumer<String, WorkflowMessage> consumer;
+
+    private MeterRegistry meterRegistry;
+    private KafkaConsumerLagRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new KafkaConsumerLagRecorder(new WorkflowMetrics(meterRegistry));
+    }
+
+    @Test
+    @DisplayName("Should record the records behind the end of the partition")
+    void shouldRecordLagFromEndOffset() {
+        // Given: the last poll fetched up to offset 110 of a partition ending at 150
+        TopicPartition partition = new TopicPartition("order-workflow", 2);
+        when(consumer.currentLag(partition)).thenReturn(OptionalLong.of(40));
+        when(consumer.position(partition)).thenReturn(110L);
+        ConsumerRecord<String, WorkflowMessage> record = new ConsumerRecord<>("order-workflow", 2, 100L, "key", null);
+
+        // When
+        ConsumerRecord<String, WorkflowMessage> intercepted = recorder.intercept(record, consumer);
+
+        // Then
+        assertThat(intercepted).isSameAs(record);
+        assertThat(meterRegistry.find("stepprflow.consumer.lag")
+                .tags("topic", "order-workflow", "partition", "2")
+                .gauge().value()).isEqualTo(49.0);
+    }
+
+    @Test
+    @DisplayName("Should not register a gauge while the lag is unknown")
+    void shouldSkipUnknownLag() {
+        // Given
+        TopicPartition partition = new TopicPartition("order-workflow", 0);
+        when(consumer.currentLag(partition)).thenReturn(OptionalLong.empty());
+
+        // When
+        recorder.intercept(new ConsumerRecord<>("order-workflow", 0, 0L, "key", null), consumer);
+
+        // Then
+        assertThat(meterRegistry.find("stepprflow.consumer.lag").gauges()).isEmpty();
+        verify(consumer, never()).position(partition);
+    }
+}
@@ -37,6 +37,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +56,7 @@ import static org.awaitility.Awaitility.await;
 class KafkaMessageBrokerIntegrationTest {
 
     private static final String TEST_TOPIC = "test-workflow-topic";
+    private static final String PARALLEL_TOPIC = "test-parallel-topic";
 
     @Container
     static KafkaContainer kafka = new KafkaContainer(
@@ -75,7 +77,8 @@ class KafkaMessageBrokerIntegrationTest {
         adminClient = AdminClient.create(adminProps);
 
         NewTopic topic = new NewTopic(TEST_TOPIC, 1, (short) 1);
-        adminClient.createTopics(Collections.singletonList(topic)).all().get(30, TimeUnit.SECONDS);
+        NewTopic parallelTopic = new NewTopic(PARALLEL_TOPIC, 4, (short) 1);
+        adminClient.createTopics(List.of(topic, parallelTopic)).all().get(30, TimeUnit.SECONDS);
     }
 
     @AfterAll
@@ -289,6 +292,68 @@ class KafkaMessageBrokerIntegrationTest {
         }
     }
 
+    @Test
+    void send_shouldSpreadParallelBranchesOverTheConsumersOfTheGroup() {
+        // Given - two consumers of the same group sharing the partitions of the topic
+        String groupId = "parallel-group-" + UUID.randomUUID();
+        int executionCount = 8;
+        int branchCount = 3;
+
+        try (KafkaConsumer<String, WorkflowMessage> first = createConsumer(groupId, "earliest");
+             KafkaConsumer<String, WorkflowMessage> second = createConsumer(groupId, "earliest")) {
+            first.subscribe(Collections.singletonList(PARALLEL_TOPIC));
+            second.subscribe(Collections.singletonList(PARALLEL_TOPIC));
+            await().atMost(30, TimeUnit.SECONDS).until(() -> {
+                first.poll(Duration.ofMillis(100));
+                second.poll(Duration.ofMillis(100));
+                return !first.assignment().isEmpty() && !second.assignment().isEmpty();
+            });
+
+            // When - every execution fans out to the branches of a parallel group
+            for (int e = 0; e < executionCount; e++) {
+                String executionId = "parallel-" + e + "-" + UUID.randomUUID();
+                for (int b = 0; b < branchCount; b++) {
+                    messageBroker.sendSync(PARALLEL_TOPIC, WorkflowMessage.builder()
+                            .executionId(executionId)
+                            .correlationId(UUID.randomUUID().toString())
+                            .topic(PARALLEL_TOPIC)
+                            .currentStep(b + 2)
+                            .currentStepGroup("prepare")
+                            .totalSteps(branchCount + 2)
+                            .status(WorkflowStatus.IN_PROGRESS)
+                            .build());
+                }
+            }
+
+            // Then - the branches of an execution are consumed concurrently by both instances
+            Map<String, Set<String>> consumersByExecution = new HashMap<>();
+            int expected = executionCount * branchCount;
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (received < expected && System.currentTimeMillis() < deadline) {
+                received += collect(first.poll(Duration.ofMillis(250)), "first", consumersByExecution);
+                received += collect(second.poll(Duration.ofMillis(250)), "second", consumersByExecution);
+            }
+
+            assertThat(received).isEqualTo(expected);
+            assertThat(consumersByExecution).hasSize(executionCount);
+            assertThat(consumersByExecution.values()).anySatisfy(consumers -> assertThat(consumers).hasSize(2));
+        }
+    }
+
+    private int collect(ConsumerRecords<String, WorkflowMessage> records, String consumer,
+                        Map<String, Set<String>> consumersByExecution) {
+        int count = 0;
+        for (ConsumerRecord<String, WorkflowMessage> record : records) {
+            if (record.value() != null) {
+                consumersByExecution.computeIfAbsent(record.value().getExecutionId(), id -> new HashSet<>())
+                        .add(consumer);
+                count++;
+            }
+        }
+        return count;
+    }
+
     private void waitForAssignment(KafkaConsumer<?, ?> consumer) {
         await().atMost(30, TimeUnit.SECONDS).until(() -> {
             consumer.poll(Duration.ofMillis(100));
@@ -313,10 +378,14 @@ class KafkaMessageBrokerIntegrationTest {
     }
 
     private KafkaConsumer<String, WorkflowMessage> createConsumer() {
+        return createConsumer("test-group-" + UUID.randomUUID(), "latest");
+    }
+
+    private KafkaConsumer<String, WorkflowMessage> createConsumer(String groupId, String offsetReset) {
         Map<String, Object> consumerProps = new HashMap<>();
         consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers());
-        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, "test-group-" + UUID.randomUUID());
-        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, offsetReset);
         consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         consumerProps.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
@@ -10,18 +10,21 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.when;
 
 import io.github.stepprflow.core.exception.MessageSendException;
@@ -50,6 +53,28 @@ class KafkaMessageBrokerTest {
                 .build();
     }
 
+    @Nested
+    @DisplayName("recordKey() method")
+    class RecordKeyTests {
+
+        @Test
+        @DisplayName("Should key by execution ID")
+        void shouldKeyByExecutionId() {
+            assertThat(KafkaMessageBroker.recordKey(testMessage)).isEqualTo("exec-123");
+        }
+
+        @Test
+        @DisplayName("Should key each parallel branch by execution, group and step")
+        void shouldKeyParallelBranchesByExecutionGroupAndStep() {
+            WorkflowMessage branch = testMessage.toBuilder()
+                    .currentStep(2)
+                    .currentStepGroup("prepare")
+                    .build();
+
+            assertThat(KafkaMessageBroker.recordKey(branch)).isEqualTo("exec-123#prepare#2");
+        }
+    }
+
     @Nested
     @DisplayName("isAvailable() method")
     class IsAvailableTests {
@@ -164,6 +189,44 @@ class KafkaMessageBrokerTest {
         }
     }
 
+    @Nested
+    @DisplayName("sendBatch() method")
+    class SendBatchTests {
+
+        @Test
+        @DisplayName("Should send every message then flush once")
+        void shouldSendEveryMessageThenFlushOnce() {
+            WorkflowMessage second = testMessage.toBuilder().executionId("exec-456").build();
+            RecordMetadata metadata = new RecordMetadata(
+                    new TopicPartition("test-topic", 0), 0, 0, 0, 0, 0);
+            SendResult<String, WorkflowMessage> sendResult = new SendResult<>(
+                    new ProducerRecord<>("test-topic", testMessage), metadata);
+            when(kafkaTemplate.send(eq("test-topic"), any(String.class), any(WorkflowMessage.class)))
+                    .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+            CompletableFuture<Void> result = messageBroker.sendBatch("test-topic", List.of(testMessage, second));
+
+            assertThat(result).isCompleted();
+            InOrder inOrder = inOrder(kafkaTemplate);
+            inOrder.verify(kafkaTemplate).send("test-topic", "exec-123", testMessage);
+            inOrder.verify(kafkaTemplate).send("test-topic", "exec-456", second);
+            inOrder.verify(kafkaTemplate).flush();
+        }
+
+        @Test
+        @DisplayName("Should fail the batch future when one send fails")
+        void shouldFailBatchFutureWhenOneSendFails() {
+            CompletableFuture<SendResult<String, WorkflowMessage>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RuntimeException("Kafka broker unavailable"));
+            when(kafkaTemplate.send(eq("test-topic"), eq("exec-123"), any(WorkflowMessage.class)))
+                    .thenReturn(failed);
+
+            CompletableFuture<Void> result = messageBroker.sendBatch("test-topic", List.of(testMessage));
+
+            assertThat(result).isCompletedExceptionally();
+        }
+    }
+
     @Nested
     @DisplayName("sendSync() method")
     class SendSyncTests {
@@ -1,10 +1,15 @@
 package io.github.stepprflow.broker.kafka;
 
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.tracing.TraceParent;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -15,9 +20,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.support.Acknowledgment;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,11 +44,14 @@ class KafkaMessageListenerTest {
     @Mock
     private Acknowledgment acknowledgment;
 
+    @Mock
+    private WorkflowScheduler scheduler;
+
     private KafkaMessageListener listener;
 
     @BeforeEach
     void setUp() {
-        listener = new KafkaMessageListener(stepExecutor, registry, eventPublisher);
+        listener = new KafkaMessageListener(stepExecutor, registry, eventPublisher, scheduler);
     }
 
     @Nested
@@ -58,7 +69,7 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor).execute(message);
+            verify(stepExecutor).execute(message, 0L);
             verify(acknowledgment).acknowledge();
         }
 
@@ -87,7 +98,23 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor).execute(message);
+            verify(stepExecutor).execute(message, 0L);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should defer message scheduled for later and acknowledge")
+        void shouldDeferScheduledMessage() {
+            // Given
+            WorkflowMessage message = createMessage(WorkflowStatus.PENDING);
+            ConsumerRecord<String, WorkflowMessage> record = createRecord(message);
+            when(scheduler.defer(message)).thenReturn(true);
+
+            // When
+            listener.onMessage(record, acknowledgment);
+
+            // Then
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(acknowledgment).acknowledge();
         }
 
@@ -102,7 +129,7 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(acknowledgment).acknowledge();
         }
 
@@ -117,7 +144,7 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(acknowledgment).acknowledge();
         }
 
@@ -132,7 +159,25 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should skip control topic records")
+        void shouldSkipControlTopicRecords() {
+            // Given
+            WorkflowMessage message = createMessage(WorkflowStatus.CANCELLED);
+            ConsumerRecord<String, WorkflowMessage> record = new ConsumerRecord<>(
+                    CancellationBroadcaster.CONTROL_TOPIC, 0, 0L, message.getExecutionId(), message
+            );
+
+            // When
+            listener.onMessage(record, acknowledgment);
+
+            // Then
+            verify(stepExecutor, never()).execute(any(), anyLong());
+            verify(eventPublisher, never()).publishEvent(any());
             verify(acknowledgment).acknowledge();
         }
 
@@ -148,7 +193,7 @@ class KafkaMessageListenerTest {
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(acknowledgment).acknowledge();
         }
 
@@ -158,17 +203,83 @@ class KafkaMessageListenerTest {
             // Given
             WorkflowMessage message = createMessage(WorkflowStatus.PENDING);
             ConsumerRecord<String, WorkflowMessage> record = createRecord(message);
-            doThrow(new RuntimeException("Processing failed")).when(stepExecutor).execute(message);
+            doThrow(new RuntimeException("Processing failed")).when(stepExecutor).execute(message, 0L);
 
             // When
             listener.onMessage(record, acknowledgment);
 
             // Then
-            verify(stepExecutor).execute(message);
+            verify(stepExecutor).execute(message, 0L);
             verify(acknowledgment, never()).acknowledge();
         }
     }
 
+    @Nested
+    @DisplayName("Publish time")
+    class PublishTimeTests {
+
+        @Test
+        @DisplayName("Should execute the step from the producer timestamp of the record")
+        void shouldExecuteFromRecordTimestamp() {
+            // Given
+            WorkflowMessage message = createMessage(WorkflowStatus.PENDING);
+            ConsumerRecord<String, WorkflowMessage> record = new ConsumerRecord<>(
+                    "test-topic", 0, 0L, 1_000L, TimestampType.CREATE_TIME,
+                    0, 0, message.getExecutionId(), message, new RecordHeaders(), Optional.empty()
+            );
+
+            // When
+            listener.onMessage(record, acknowledgment);
+
+            // Then
+            verify(stepExecutor).execute(message, 1_000L);
+            verify(acknowledgment).acknowledge();
+        }
+
+        @Test
+        @DisplayName("Should not execute deferred messages")
+        void shouldNotExecuteDeferredMessages() {
+            // Given
+            WorkflowMessage message = createMessage(WorkflowStatus.PENDING);
+            when(scheduler.defer(message)).thenReturn(true);
+
+            // When
+            listener.onMessage(createRecord(message), acknowledgment);
+
+            // Then
+            verify(stepExecutor, never()).execute(any(), anyLong());
+            verify(acknowledgment).acknowledge();
+        }
+    }
+
+    @Nested
+    @DisplayName("Tracing")
+    class TracingTests {
+
+        private static final String TRACE_PARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+        @Test
+        @DisplayName("Should continue the trace of the traceparent header")
+        void shouldContinueTraceFromHeader() {
+            // Given
+            WorkflowMessage message = createMessage(WorkflowStatus.PENDING);
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(TraceParent.HEADER, TRACE_PARENT.getBytes(StandardCharsets.UTF_8));
+            ConsumerRecord<String, WorkflowMessage> record = new ConsumerRecord<>(
+                    "test-topic", 0, 0L, 1_000L, TimestampType.CREATE_TIME,
+                    0, 0, message.getExecutionId(), message, headers, Optional.empty()
+            );
+
+            // When
+            listener.onMessage(record, acknowledgment);
+
+            // Then
+            assertThat(message.getTraceParent()).isEqualTo(TRACE_PARENT);
+            verify(stepExecutor).execute(message, 1_000L);
+            verify(acknowledgment).acknowledge();
+        }
+    }
+
     private WorkflowMessage createMessage(WorkflowStatus status) {
         return WorkflowMessage.builder()
                 .executionId(UUID.randomUUID().toString())
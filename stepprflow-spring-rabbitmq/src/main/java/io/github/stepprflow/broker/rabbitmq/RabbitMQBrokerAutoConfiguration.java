@@ -3,8 +3,16 @@ package io.github.stepprflow.broker.rabbitmq;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.stepprflow.core.StepprFlowProperties;
 import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
 import io.github.stepprflow.core.service.WorkflowRegistry;
 import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
@@ -12,6 +20,7 @@ import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -19,6 +28,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 
 /**
@@ -99,6 +109,19 @@ public class RabbitMQBrokerAutoConfiguration {
         return new RabbitMQQueueInitializer(workflowRegistry, rabbitAdmin, properties);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public RabbitMQQueueDepthMonitor rabbitMQQueueDepthMonitor(
+            RabbitAdmin rabbitAdmin,
+            RabbitMQQueueInitializer queueInitializer,
+            StepprFlowProperties properties,
+            ObjectProvider<WorkflowMetrics> workflowMetrics) {
+        RabbitMQQueueDepthMonitor monitor = new RabbitMQQueueDepthMonitor(
+                rabbitAdmin, properties.getMetrics().getQueueDepthRefresh());
+        workflowMetrics.ifAvailable(metrics -> monitor.register(metrics, queueInitializer.getWorkflowQueueTopics()));
+        return monitor;
+    }
+
     @Bean
     @ConditionalOnMissingBean(MessageBroker.class)
     public MessageBroker messageBroker(RabbitTemplate rabbitTemplate,
@@ -117,7 +140,54 @@ public class RabbitMQBrokerAutoConfiguration {
             StepExecutor stepExecutor,
             WorkflowRegistry workflowRegistry,
             MessageConverter messageConverter,
-            ApplicationEventPublisher eventPublisher) {
-        return new RabbitMQMessageListener(stepExecutor, workflowRegistry, messageConverter, eventPublisher);
+            ApplicationEventPublisher eventPublisher,
+            ObjectProvider<WorkflowScheduler> scheduler) {
+        return new RabbitMQMessageListener(stepExecutor, workflowRegistry, messageConverter, eventPublisher,
+                scheduler.getIfAvailable());
+    }
+
+    /**
+     * Fanout exchange carrying cancellations to every agent instance.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "stepprflow.cancellation.enabled", havingValue = "true", matchIfMissing = true)
+    public FanoutExchange stepprflowControlExchange() {
+        return new FanoutExchange(CancellationBroadcaster.CONTROL_TOPIC, true, false);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CancellationBroadcaster.class)
+    @ConditionalOnProperty(name = "stepprflow.cancellation.enabled", havingValue = "true", matchIfMissing = true)
+    public CancellationBroadcaster cancellationBroadcaster(RabbitTemplate rabbitTemplate,
+                                                           MessageConverter messageConverter) {
+        return new RabbitMQCancellationBroadcaster(new RabbitMQMessageBroker(
+                rabbitTemplate, CancellationBroadcaster.CONTROL_TOPIC, messageConverter));
+    }
+
+    /**
+     * Exclusive, auto-delete queue of this instance on the control exchange.
+     */
+    @Bean
+    @ConditionalOnProperty(name = {"stepprflow.cancellation.enabled", "stepprflow.workflow.executor.enabled"},
+            havingValue = "true", matchIfMissing = true)
+    public Queue stepprflowControlQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = {"stepprflow.cancellation.enabled", "stepprflow.workflow.executor.enabled"},
+            havingValue = "true", matchIfMissing = true)
+    public Binding stepprflowControlBinding(Queue stepprflowControlQueue, FanoutExchange stepprflowControlExchange) {
+        return BindingBuilder.bind(stepprflowControlQueue).to(stepprflowControlExchange);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = {"stepprflow.cancellation.enabled", "stepprflow.workflow.executor.enabled"},
+            havingValue = "true", matchIfMissing = true)
+    public RabbitMQCancellationListener rabbitMQCancellationListener(
+            CancellationRegistry cancellationRegistry,
+            MessageConverter messageConverter) {
+        return new RabbitMQCancellationListener(cancellationRegistry, messageConverter);
     }
 }
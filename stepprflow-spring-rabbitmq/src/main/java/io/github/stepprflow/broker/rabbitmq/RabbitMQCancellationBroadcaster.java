@@ -0,0 +1,25 @@
+package io.github.stepprflow.broker.rabbitmq;
+
+import io.github.stepprflow.core.broker.MessageBroker;
+import io.github.stepprflow.core.cancel.CancellationBroadcaster;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes cancellations to the control fanout exchange.
+ * Every agent instance binds its own exclusive queue to the exchange, so each
+ * one receives every cancellation.
+ */
+@RequiredArgsConstructor
+public class RabbitMQCancellationBroadcaster implements CancellationBroadcaster {
+
+    /**
+     * Broker publishing to the control exchange (the routing key is ignored by fanout).
+     */
+    private final MessageBroker controlBroker;
+
+    @Override
+    public void broadcast(WorkflowMessage cancellation) {
+        controlBroker.sendSync("", cancellation);
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.stepprflow.broker.rabbitmq;
+
+import io.github.stepprflow.core.cancel.CancellationRegistry;
+import io.github.stepprflow.core.model.WorkflowMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * RabbitMQ listener for the cancellation control exchange.
+ * Consumes the exclusive queue this instance binds to the fanout exchange.
+ * This bean is created by RabbitMQBrokerAutoConfiguration.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class RabbitMQCancellationListener {
+
+    private final CancellationRegistry cancellationRegistry;
+    private final MessageConverter messageConverter;
+
+    /**
+     * Listen to this instance's control queue.
+     */
+    @RabbitListener(
+            queues = "#{@stepprflowControlQueue.name}",
+            containerFactory = "workflowRabbitListenerContainerFactory",
+            ackMode = "AUTO"
+    )
+    public void onMessage(Message message) {
+        try {
+            WorkflowMessage workflowMessage = (WorkflowMessage) messageConverter.fromMessage(message);
+            cancellationRegistry.onCancellation(workflowMessage);
+        } catch (Exception e) {
+            log.error("Error reading cancellation notice: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package io.github.stepprflow.broker.rabbitmq;
 import io.github.stepprflow.core.broker.MessageBroker;
 import io.github.stepprflow.core.exception.MessageSendException;
 import io.github.stepprflow.core.model.WorkflowMessage;
+import io.github.stepprflow.core.tracing.TraceParent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
@@ -10,6 +11,7 @@ import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.MessageConverter;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -19,6 +21,15 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 public class RabbitMQMessageBroker implements MessageBroker {
 
+    /** Header carrying the publish time in epoch milliseconds (the AMQP timestamp only has seconds). */
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+
+    /** Time to wait for publisher confirms, in milliseconds. */
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+
+    /** Maximum number of batch messages published before waiting for their confirms. */
+    static final int BATCH_CHUNK_SIZE = 100;
+
     private final RabbitTemplate rabbitTemplate;
     private final String exchange;
     private final MessageConverter messageConverter;
@@ -78,7 +89,7 @@ public class RabbitMQMessageBroker implements MessageBroker {
 
             rabbitTemplate.invoke(operations -> {
                 operations.send(exchange, destination, amqpMessage);
-                operations.waitForConfirmsOrDie(5000);
+                operations.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MS);
                 return null;
             });
 
@@ -92,6 +103,52 @@ public class RabbitMQMessageBroker implements MessageBroker {
         }
     }
 
+    /**
+     * Publishes the batch in chunks of {@value #BATCH_CHUNK_SIZE} messages, each on its
+     * own channel with one confirm wait, instead of paying a confirm round-trip per
+     * message. Chunks are published asynchronously, so the confirm timeout applies to
+     * a bounded number of messages and the caller is not blocked.
+     */
+    @Override
+    public CompletableFuture<Void> sendBatch(String destination, List<WorkflowMessage> messages) {
+        log.debug("Sending batch of {} messages to RabbitMQ exchange {} with routing key {}",
+                messages.size(), exchange, destination);
+
+        int chunkCount = (messages.size() + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+        CompletableFuture<?>[] chunks = new CompletableFuture<?>[chunkCount];
+        for (int i = 0; i < chunks.length; i++) {
+            List<WorkflowMessage> chunk = messages.subList(i * BATCH_CHUNK_SIZE,
+                    Math.min(messages.size(), (i + 1) * BATCH_CHUNK_SIZE));
+            chunks[i] = CompletableFuture.runAsync(() -> publishConfirmed(destination, chunk));
+        }
+
+        return CompletableFuture.allOf(chunks)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send batch to exchange {} with routing key {}: {}",
+                                exchange, destination, ex.getMessage(), ex);
+                    } else {
+                        log.debug("Batch of {} messages confirmed on exchange {} with routing key {}",
+                                messages.size(), exchange, destination);
+                    }
+                });
+    }
+
+    private void publishConfirmed(String destination, List<WorkflowMessage> chunk) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (WorkflowMessage message : chunk) {
+                    operations.send(exchange, destination,
+                            messageConverter.toMessage(message, createMessageProperties(message)));
+                }
+                operations.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MS);
+                return null;
+            });
+        } catch (Exception e) {
+            throw new MessageSendException("rabbitmq", destination, e.getMessage(), e);
+        }
+    }
+
     @Override
     public String getBrokerType() {
         return "rabbitmq";
@@ -125,6 +182,10 @@ public class RabbitMQMessageBroker implements MessageBroker {
         properties.setHeader("x-workflow-topic", message.getTopic());
         properties.setHeader("x-workflow-step", message.getCurrentStep());
         properties.setHeader("x-workflow-status", message.getStatus().name());
+        properties.setHeader(PUBLISHED_AT_HEADER, System.currentTimeMillis());
+        if (message.getTraceParent() != null) {
+            properties.setHeader(TraceParent.HEADER, message.getTraceParent());
+        }
 
         return properties;
     }
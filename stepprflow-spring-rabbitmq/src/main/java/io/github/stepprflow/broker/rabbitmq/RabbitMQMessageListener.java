@@ -4,11 +4,14 @@ import com.rabbitmq.client.Channel;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.tracing.TraceParent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.ApplicationEventPublisher;
@@ -26,6 +29,7 @@ public class RabbitMQMessageListener {
     private final WorkflowRegistry registry;
     private final MessageConverter messageConverter;
     private final ApplicationEventPublisher eventPublisher;
+    private final WorkflowScheduler scheduler;
 
     /**
      * Listen to workflow queue.
@@ -52,7 +56,10 @@ public class RabbitMQMessageListener {
             if (workflowMessage.getStatus() == WorkflowStatus.PENDING ||
                 workflowMessage.getStatus() == WorkflowStatus.IN_PROGRESS) {
                 try {
-                    stepExecutor.execute(workflowMessage);
+                    // Messages scheduled for later are held by the scheduler until due
+                    if (scheduler == null || !scheduler.defer(workflowMessage)) {
+                        execute(workflowMessage, message.getMessageProperties());
+                    }
                     acknowledgeMessage(channel, message);
                 } catch (Exception e) {
                     log.error("Error processing message: {}", e.getMessage(), e);
@@ -70,6 +77,23 @@ public class RabbitMQMessageListener {
         }
     }
 
+    /**
+     * Execute the step from its publish header, continuing the trace of the
+     * traceparent header when the message itself carries none. Dead-lettered
+     * messages come back from the retry queue after a deliberate delay: they
+     * are executed as received, so that the delay is not reported as dwell.
+     */
+    private void execute(WorkflowMessage workflowMessage, MessageProperties properties) {
+        if (workflowMessage.getTraceParent() == null
+                && properties.getHeader(TraceParent.HEADER) instanceof String traceParent) {
+            workflowMessage.setTraceParent(traceParent);
+        }
+        long publishedAt = properties.getHeader("x-death") == null
+                && properties.getHeader(RabbitMQMessageBroker.PUBLISHED_AT_HEADER) instanceof Number number
+                ? number.longValue() : 0;
+        stepExecutor.execute(workflowMessage, publishedAt);
+    }
+
     private void acknowledgeMessage(Channel channel, Message message) {
         try {
             channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
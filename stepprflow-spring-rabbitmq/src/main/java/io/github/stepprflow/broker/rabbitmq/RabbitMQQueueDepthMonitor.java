@@ -0,0 +1,78 @@
+package io.github.stepprflow.broker.rabbitmq;
+
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exposes the depth of the workflow queues as gauges.
+ * Depths are read with a passive queue declaration at most once per refresh
+ * interval and queue, so frequent scrapes don't load the broker.
+ * This bean is created by RabbitMQBrokerAutoConfiguration.
+ */
+@Slf4j
+public class RabbitMQQueueDepthMonitor {
+
+    private final RabbitAdmin rabbitAdmin;
+    private final long refreshMillis;
+    private final Map<String, Depth> depths = new ConcurrentHashMap<>();
+
+    public RabbitMQQueueDepthMonitor(RabbitAdmin rabbitAdmin, Duration refresh) {
+        this.rabbitAdmin = rabbitAdmin;
+        this.refreshMillis = refresh.toMillis();
+    }
+
+    /**
+     * Register a depth gauge for each queue.
+     *
+     * @param metrics the workflow metrics
+     * @param queueTopics the workflow topic of each queue, by queue name
+     */
+    public void register(WorkflowMetrics metrics, Map<String, String> queueTopics) {
+        queueTopics.forEach((queue, topic) -> {
+            depths.put(queue, new Depth());
+            metrics.registerQueueDepth(topic, queue, () -> depth(queue));
+        });
+        log.debug("Registered depth gauges for {} queue(s)", queueTopics.size());
+    }
+
+    /**
+     * Get the number of messages ready in a queue, as last read.
+     *
+     * @param queue the queue name
+     * @return the message count, 0 if the queue was never read
+     */
+    long depth(String queue) {
+        Depth depth = depths.get(queue);
+        if (depth == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        if (now - depth.readAt >= refreshMillis) {
+            depth.readAt = now;
+            try {
+                QueueInformation info = rabbitAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    depth.value = info.getMessageCount();
+                }
+            } catch (AmqpException e) {
+                log.debug("Failed to read depth of queue {}: {}", queue, e.getMessage());
+            }
+        }
+        return depth.value;
+    }
+
+    /**
+     * Last read depth of a queue.
+     */
+    private static final class Depth {
+        private volatile long value;
+        private volatile long readAt = Long.MIN_VALUE / 2;
+    }
+}
@@ -13,7 +13,9 @@ import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Initializes RabbitMQ queues, exchanges and bindings for workflows.
@@ -30,6 +32,12 @@ public class RabbitMQQueueInitializer {
     @Getter
     private final List<String> workflowQueueNames = new ArrayList<>();
 
+    /**
+     * Workflow topic of each declared workflow queue (DLQs included), by queue name.
+     */
+    @Getter
+    private final Map<String, String> workflowQueueTopics = new LinkedHashMap<>();
+
     public RabbitMQQueueInitializer(WorkflowRegistry workflowRegistry,
                                      RabbitAdmin rabbitAdmin,
                                      StepprFlowProperties properties) {
@@ -96,6 +104,7 @@ public class RabbitMQQueueInitializer {
                 .build();
         rabbitAdmin.declareQueue(mainQueue);
         workflowQueueNames.add(queueName);
+        workflowQueueTopics.put(queueName, topic);
         log.debug("Declared queue: {}", queueName);
 
         // Bind main queue to exchange
@@ -107,6 +116,7 @@ public class RabbitMQQueueInitializer {
         // Create DLQ
         Queue dlqQueue = QueueBuilder.durable(dlqQueueName).build();
         rabbitAdmin.declareQueue(dlqQueue);
+        workflowQueueTopics.put(dlqQueueName, topic);
         log.debug("Declared DLQ: {}", dlqQueueName);
 
         // Bind DLQ
@@ -122,6 +132,7 @@ public class RabbitMQQueueInitializer {
                 .build();
         rabbitAdmin.declareQueue(retryQueue);
         workflowQueueNames.add(retryQueueName);
+        workflowQueueTopics.put(retryQueueName, topic);
         log.debug("Declared retry queue: {}", retryQueueName);
 
         // Bind retry queue
@@ -134,6 +145,7 @@ public class RabbitMQQueueInitializer {
         Queue completedQueue = QueueBuilder.durable(completedQueueName).build();
         rabbitAdmin.declareQueue(completedQueue);
         workflowQueueNames.add(completedQueueName);
+        workflowQueueTopics.put(completedQueueName, topic);
         log.debug("Declared completed queue: {}", completedQueueName);
 
         // Bind completed queue
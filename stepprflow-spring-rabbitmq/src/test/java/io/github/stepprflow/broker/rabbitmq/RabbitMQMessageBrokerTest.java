@@ -3,6 +3,7 @@ package io.github.stepprflow.broker.rabbitmq;
 import io.github.stepprflow.core.exception.MessageSendException;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.tracing.TraceParent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -20,18 +21,24 @@ import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.MessageConverter;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -110,6 +117,8 @@ class RabbitMQMessageBrokerTest {
             assertThat((String) props.getHeader("x-workflow-topic")).isEqualTo("payment-workflow");
             assertThat((Integer) props.getHeader("x-workflow-step")).isEqualTo(2);
             assertThat((String) props.getHeader("x-workflow-status")).isEqualTo("IN_PROGRESS");
+            assertThat((Long) props.getHeader(RabbitMQMessageBroker.PUBLISHED_AT_HEADER))
+                    .isCloseTo(System.currentTimeMillis(), within(60_000L));
         }
 
         @Test
@@ -138,6 +147,27 @@ class RabbitMQMessageBrokerTest {
             assertThat((String) props.getHeader("numericKey")).isEqualTo("42");
         }
 
+        @Test
+        @DisplayName("should include the trace context as traceparent header")
+        void shouldIncludeTraceParentHeader() {
+            // Given
+            String traceParent = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+            WorkflowMessage message = WorkflowMessage.builder()
+                    .executionId("exec-trace")
+                    .topic("trace-workflow")
+                    .currentStep(1)
+                    .status(WorkflowStatus.PENDING)
+                    .traceParent(traceParent)
+                    .build();
+            when(messageConverter.toMessage(eq(message), propertiesCaptor.capture())).thenReturn(amqpMessage);
+
+            // When
+            broker.send("trace-workflow", message);
+
+            // Then
+            assertThat((String) propertiesCaptor.getValue().getHeader(TraceParent.HEADER)).isEqualTo(traceParent);
+        }
+
         @Test
         @DisplayName("should skip null metadata values")
         void shouldSkipNullMetadataValues() {
@@ -256,6 +286,74 @@ class RabbitMQMessageBrokerTest {
         }
     }
 
+    @Nested
+    @DisplayName("sendBatch()")
+    class SendBatchTests {
+
+        @Test
+        @DisplayName("should publish a small batch and wait for confirms once")
+        void shouldPublishAllMessagesAndWaitForConfirmsOnce() {
+            // Given
+            WorkflowMessage first = createWorkflowMessage("exec-batch-1", "batch-workflow");
+            WorkflowMessage second = createWorkflowMessage("exec-batch-2", "batch-workflow");
+            when(messageConverter.toMessage(any(WorkflowMessage.class), any(MessageProperties.class)))
+                    .thenReturn(amqpMessage);
+            RabbitOperations operations = mock(RabbitOperations.class);
+            doAnswer(invocation -> {
+                RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+                return callback.doInRabbit(operations);
+            }).when(rabbitTemplate).invoke(any());
+
+            // When
+            CompletableFuture<Void> result = broker.sendBatch("batch-workflow", List.of(first, second));
+
+            // Then
+            result.join();
+            verify(operations, times(2)).send(anyString(), eq("batch-workflow"), eq(amqpMessage));
+            verify(operations).waitForConfirmsOrDie(anyLong());
+        }
+
+        @Test
+        @DisplayName("should wait for the confirms of each chunk of a large batch")
+        void shouldWaitForConfirmsOfEachChunk() {
+            // Given
+            List<WorkflowMessage> messages = new ArrayList<>();
+            for (int i = 0; i < RabbitMQMessageBroker.BATCH_CHUNK_SIZE * 2 + 1; i++) {
+                messages.add(createWorkflowMessage("exec-chunk-" + i, "batch-workflow"));
+            }
+            when(messageConverter.toMessage(any(WorkflowMessage.class), any(MessageProperties.class)))
+                    .thenReturn(amqpMessage);
+            RabbitOperations operations = mock(RabbitOperations.class);
+            doAnswer(invocation -> {
+                RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+                return callback.doInRabbit(operations);
+            }).when(rabbitTemplate).invoke(any());
+
+            // When
+            broker.sendBatch("batch-workflow", messages).join();
+
+            // Then
+            verify(rabbitTemplate, times(3)).invoke(any());
+            verify(operations, times(messages.size())).send(anyString(), eq("batch-workflow"), eq(amqpMessage));
+            verify(operations, times(3)).waitForConfirmsOrDie(anyLong());
+        }
+
+        @Test
+        @DisplayName("should fail the future when confirms are not received")
+        void shouldFailFutureWhenConfirmsAreNotReceived() {
+            // Given
+            WorkflowMessage message = createWorkflowMessage("exec-batch-err", "batch-error-workflow");
+            doThrow(new RuntimeException("Confirm timeout")).when(rabbitTemplate).invoke(any());
+
+            // When
+            CompletableFuture<Void> result = broker.sendBatch("batch-error-workflow", List.of(message));
+
+            // Then
+            assertThatThrownBy(result::join).hasCauseInstanceOf(MessageSendException.class);
+            assertThat(result).isCompletedExceptionally();
+        }
+    }
+
     @Nested
     @DisplayName("getBrokerType()")
     class GetBrokerTypeTests {
@@ -4,8 +4,10 @@ import com.rabbitmq.client.Channel;
 import io.github.stepprflow.core.event.WorkflowMessageEvent;
 import io.github.stepprflow.core.model.WorkflowMessage;
 import io.github.stepprflow.core.model.WorkflowStatus;
+import io.github.stepprflow.core.schedule.WorkflowScheduler;
 import io.github.stepprflow.core.service.StepExecutor;
 import io.github.stepprflow.core.service.WorkflowRegistry;
+import io.github.stepprflow.core.tracing.TraceParent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,6 +21,7 @@ import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -46,12 +49,15 @@ class RabbitMQMessageListenerTest {
     @Mock
     private Channel channel;
 
+    @Mock
+    private WorkflowScheduler scheduler;
+
     private RabbitMQMessageListener listener;
     private MessageProperties messageProperties;
 
     @BeforeEach
     void setUp() {
-        listener = new RabbitMQMessageListener(stepExecutor, registry, messageConverter, eventPublisher);
+        listener = new RabbitMQMessageListener(stepExecutor, registry, messageConverter, eventPublisher, scheduler);
         messageProperties = new MessageProperties();
         messageProperties.setDeliveryTag(1L);
         messageProperties.setConsumerQueue("test-queue");
@@ -73,7 +79,7 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor).execute(workflowMessage);
+            verify(stepExecutor).execute(workflowMessage, 0L);
             verify(channel).basicAck(1L, false);
         }
 
@@ -106,7 +112,24 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor).execute(workflowMessage);
+            verify(stepExecutor).execute(workflowMessage, 0L);
+            verify(channel).basicAck(1L, false);
+        }
+
+        @Test
+        @DisplayName("Should defer message scheduled for later and acknowledge")
+        void shouldDeferScheduledMessage() throws IOException {
+            // Given
+            WorkflowMessage workflowMessage = createMessage(WorkflowStatus.PENDING);
+            Message message = createAmqpMessage();
+            when(messageConverter.fromMessage(message)).thenReturn(workflowMessage);
+            when(scheduler.defer(workflowMessage)).thenReturn(true);
+
+            // When
+            listener.onMessage(message, channel);
+
+            // Then
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(channel).basicAck(1L, false);
         }
 
@@ -122,7 +145,7 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(channel).basicAck(1L, false);
         }
 
@@ -138,7 +161,7 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(channel).basicAck(1L, false);
         }
 
@@ -154,7 +177,7 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(channel).basicAck(1L, false);
         }
 
@@ -165,13 +188,13 @@ class RabbitMQMessageListenerTest {
             WorkflowMessage workflowMessage = createMessage(WorkflowStatus.PENDING);
             Message message = createAmqpMessage();
             when(messageConverter.fromMessage(message)).thenReturn(workflowMessage);
-            doThrow(new RuntimeException("Processing failed")).when(stepExecutor).execute(workflowMessage);
+            doThrow(new RuntimeException("Processing failed")).when(stepExecutor).execute(workflowMessage, 0L);
 
             // When
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor).execute(workflowMessage);
+            verify(stepExecutor).execute(workflowMessage, 0L);
             verify(channel).basicReject(1L, true);
             verify(channel, never()).basicAck(anyLong(), anyBoolean());
         }
@@ -187,11 +210,73 @@ class RabbitMQMessageListenerTest {
             listener.onMessage(message, channel);
 
             // Then
-            verify(stepExecutor, never()).execute(any());
+            verify(stepExecutor, never()).execute(any(), anyLong());
             verify(channel).basicReject(1L, false);
         }
     }
 
+    @Nested
+    @DisplayName("Publish time")
+    class PublishTimeTests {
+
+        @Test
+        @DisplayName("Should execute the step from the publish header")
+        void shouldExecuteFromPublishHeader() {
+            // Given
+            WorkflowMessage workflowMessage = createMessage(WorkflowStatus.PENDING);
+            messageProperties.setHeader(RabbitMQMessageBroker.PUBLISHED_AT_HEADER, 1_000L);
+            Message message = createAmqpMessage();
+            when(messageConverter.fromMessage(message)).thenReturn(workflowMessage);
+
+            // When
+            listener.onMessage(message, channel);
+
+            // Then
+            verify(stepExecutor).execute(workflowMessage, 1_000L);
+        }
+
+        @Test
+        @DisplayName("Should execute messages dead-lettered from the retry queue as received")
+        void shouldExecuteDeadLetteredMessagesAsReceived() {
+            // Given
+            WorkflowMessage workflowMessage = createMessage(WorkflowStatus.PENDING);
+            messageProperties.setHeader(RabbitMQMessageBroker.PUBLISHED_AT_HEADER, 1_000L);
+            messageProperties.setHeader("x-death", List.of(Map.of("queue", "test-topic.retry")));
+            Message message = createAmqpMessage();
+            when(messageConverter.fromMessage(message)).thenReturn(workflowMessage);
+
+            // When
+            listener.onMessage(message, channel);
+
+            // Then
+            verify(stepExecutor).execute(workflowMessage, 0L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tracing")
+    class TracingTests {
+
+        private static final String TRACE_PARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+        @Test
+        @DisplayName("Should continue the trace of the traceparent header")
+        void shouldContinueTraceFromHeader() {
+            // Given
+            WorkflowMessage workflowMessage = createMessage(WorkflowStatus.PENDING);
+            messageProperties.setHeader(TraceParent.HEADER, TRACE_PARENT);
+            Message message = createAmqpMessage();
+            when(messageConverter.fromMessage(message)).thenReturn(workflowMessage);
+
+            // When
+            listener.onMessage(message, channel);
+
+            // Then
+            assertThat(workflowMessage.getTraceParent()).isEqualTo(TRACE_PARENT);
+            verify(stepExecutor).execute(workflowMessage, 0L);
+        }
+    }
+
     private WorkflowMessage createMessage(WorkflowStatus status) {
         return WorkflowMessage.builder()
                 .executionId(UUID.randomUUID().toString())
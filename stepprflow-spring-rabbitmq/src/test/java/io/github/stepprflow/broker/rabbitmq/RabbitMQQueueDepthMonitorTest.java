@@ -0,0 +1,88 @@
+package io.github.stepprflow.broker.rabbitmq;
+
+import io.github.stepprflow.core.metrics.WorkflowMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RabbitMQQueueDepthMonitor Tests")
+class RabbitMQQueueDepthMonitorTest {
+
+    @Mock
+    private RabbitAdmin rabbitAdmin;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should expose the depth of each workflow queue")
+    void shouldExposeDepthOfEachQueue() {
+        // Given
+        when(rabbitAdmin.getQueueInfo("order-workflow")).thenReturn(new QueueInformation("order-workflow", 12, 1));
+        RabbitMQQueueDepthMonitor monitor = new RabbitMQQueueDepthMonitor(rabbitAdmin, Duration.ZERO);
+
+        // When
+        monitor.register(new WorkflowMetrics(meterRegistry), Map.of("order-workflow", "order-workflow"));
+
+        // Then
+        assertThat(meterRegistry.find("stepprflow.queue.depth")
+                .tags("topic", "order-workflow", "queue", "order-workflow")
+                .gauge().value()).isEqualTo(12.0);
+    }
+
+    @Test
+    @DisplayName("Should read a queue at most once per refresh interval")
+    void shouldReadQueueOncePerRefreshInterval() {
+        // Given
+        when(rabbitAdmin.getQueueInfo("order-workflow.retry"))
+                .thenReturn(new QueueInformation("order-workflow.retry", 3, 0));
+        RabbitMQQueueDepthMonitor monitor = new RabbitMQQueueDepthMonitor(rabbitAdmin, Duration.ofMinutes(1));
+        monitor.register(new WorkflowMetrics(meterRegistry), Map.of("order-workflow.retry", "order-workflow"));
+
+        // When
+        long first = monitor.depth("order-workflow.retry");
+        long second = monitor.depth("order-workflow.retry");
+
+        // Then
+        assertThat(first).isEqualTo(3);
+        assertThat(second).isEqualTo(3);
+        verify(rabbitAdmin, times(1)).getQueueInfo("order-workflow.retry");
+    }
+
+    @Test
+    @DisplayName("Should keep the last depth when the broker is unreachable")
+    void shouldKeepLastDepthWhenBrokerIsUnreachable() {
+        // Given
+        when(rabbitAdmin.getQueueInfo("order-workflow"))
+                .thenReturn(new QueueInformation("order-workflow", 7, 1))
+                .thenThrow(new AmqpConnectException(new ConnectException("refused")));
+        RabbitMQQueueDepthMonitor monitor = new RabbitMQQueueDepthMonitor(rabbitAdmin, Duration.ZERO);
+        monitor.register(new WorkflowMetrics(meterRegistry), Map.of("order-workflow", "order-workflow"));
+
+        // When
+        monitor.depth("order-workflow");
+
+        // Then
+        assertThat(monitor.depth("order-workflow")).isEqualTo(7);
+    }
+}
@@ -204,5 +204,20 @@ class RabbitMQQueueInitializerTest {
             assertThat(initializer.getWorkflowQueueNames())
                     .contains("my-workflow", "my-workflow.retry");
         }
+
+        @Test
+        @DisplayName("Should map each workflow queue to its topic")
+        void shouldMapQueuesToTopic() {
+            // Given
+            when(workflowRegistry.getTopics()).thenReturn(List.of("my-workflow"));
+
+            // When
+            initializer.init();
+
+            // Then
+            assertThat(initializer.getWorkflowQueueTopics())
+                    .containsOnlyKeys("my-workflow", "my-workflow.dlq", "my-workflow.retry", "my-workflow.completed")
+                    .containsValue("my-workflow");
+        }
     }
 }
\ No newline at end of file